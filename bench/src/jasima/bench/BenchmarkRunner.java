@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.bench;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of the benchmark jar. Accepts the same command line arguments as
+ * JMH's own main class, but always enables the GC profiler, so besides
+ * throughput (ops/s and, for {@link ShopModelBenchmark}, events/s) the number
+ * of bytes allocated per operation ({@code gc.alloc.rate.norm}) is reported.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions cmdLine = new CommandLineOptions(args);
+		if (cmdLine.shouldHelp() || cmdLine.shouldList()) {
+			// let JMH handle these
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		Options opts = new OptionsBuilder().parent(cmdLine).addProfiler(GCProfiler.class).build();
+		new Runner(opts).run();
+	}
+
+}
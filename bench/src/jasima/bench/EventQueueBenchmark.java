@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jasima.core.simulation.AdaptiveEventQueue;
+import jasima.core.simulation.CalendarQueue;
+import jasima.core.simulation.EventHeap;
+import jasima.core.simulation.LadderQueue;
+import jasima.core.simulation.SimEvent;
+import jasima.core.simulation.Simulation.EventQueue;
+
+/**
+ * Benchmarks the event queue implementations using the classical "hold"
+ * model: each operation extracts the next event and re-inserts it at a later
+ * time, so the queue size stays constant. Time increments are drawn from
+ * different distributions to cover the typical mix of concurrent events, ties
+ * and far-future events.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+
+	private static final int NUM_INCREMENTS = 1 << 16;
+
+	@Param({ "EventHeap", "CalendarQueue", "LadderQueue", "AdaptiveEventQueue" })
+	public String impl;
+
+	@Param({ "10", "1000", "100000" })
+	public int size;
+
+	/**
+	 * Distribution of time increments: {@code exp} (exponential),
+	 * {@code mixed} (concurrent events, ties and far-future events).
+	 */
+	@Param({ "exp", "mixed" })
+	public String increments;
+
+	private EventQueue queue;
+	private double[] incs;
+	private int incPos;
+
+	private static final class BenchEvent extends SimEvent {
+		BenchEvent(double time, int prio) {
+			super(time, prio);
+		}
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		queue = createQueue(impl);
+
+		Random rnd = new Random(23);
+		incs = new double[NUM_INCREMENTS];
+		for (int i = 0; i < incs.length; i++) {
+			incs[i] = nextIncrement(rnd);
+		}
+		incPos = 0;
+
+		for (int i = 0; i < size; i++) {
+			queue.insert(new BenchEvent(rnd.nextDouble() * 100.0, rnd.nextInt(3) - 1));
+		}
+	}
+
+	private double nextIncrement(Random rnd) {
+		double exp = -Math.log(1.0 - rnd.nextDouble()) * 5.0;
+		if ("exp".equals(increments))
+			return exp;
+
+		switch (rnd.nextInt(4)) {
+		case 0:
+			return 0.0;
+		case 1:
+			return Math.floor(rnd.nextDouble() * 10.0);
+		case 2:
+			return rnd.nextDouble() * 1000.0;
+		default:
+			return exp;
+		}
+	}
+
+	static EventQueue createQueue(String impl) {
+		switch (impl) {
+		case "EventHeap":
+			return new EventHeap();
+		case "CalendarQueue":
+			return new CalendarQueue();
+		case "LadderQueue":
+			return new LadderQueue();
+		case "AdaptiveEventQueue":
+			return new AdaptiveEventQueue();
+		default:
+			throw new IllegalArgumentException(impl);
+		}
+	}
+
+	@Benchmark
+	public SimEvent hold() {
+		SimEvent e = queue.extract();
+		e.setTime(e.getTime() + incs[incPos]);
+		incPos = (incPos + 1) & (NUM_INCREMENTS - 1);
+		queue.insert(e);
+		return e;
+	}
+
+}
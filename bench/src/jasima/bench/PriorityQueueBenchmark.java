@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jasima.core.simulation.Simulation;
+import jasima.shopSim.core.Job;
+import jasima.shopSim.core.Operation;
+import jasima.shopSim.core.PR;
+import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.core.Shop;
+import jasima.shopSim.core.WorkStation;
+import jasima.shopSim.prioRules.basic.ATC;
+import jasima.shopSim.prioRules.basic.CR;
+import jasima.shopSim.prioRules.basic.EDD;
+import jasima.shopSim.prioRules.basic.FCFS;
+import jasima.shopSim.prioRules.basic.SLK;
+import jasima.shopSim.prioRules.basic.SPT;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+import jasima.shopSim.prioRules.gp.WSC2010_GPRuleSize98;
+import jasima.shopSim.prioRules.upDownStream.PTPlusWINQPlusNPT;
+
+/**
+ * Benchmarks {@link PriorityQueue} with different queue lengths and priority
+ * rule chains. Each operation selects and removes the best job and re-adds it
+ * with new attributes, so the queue length stays constant. Rule chains
+ * containing only time-invariant rules (see {@link PR#isTimeInvariant()}) use
+ * the queue's heap, all others re-evaluate all entries on each selection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityQueueBenchmark {
+
+	private static final int NUM_ATTRS = 1 << 12;
+
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	@Param({ "FCFS", "EDD+FASFS", "SPT+FASFS", "SLK+FASFS", "CR+FASFS", "ATC+FASFS", "PTPlusWINQPlusNPT+FASFS",
+			"GP98+FASFS" })
+	public String rule;
+
+	private PriorityQueue<Job> queue;
+	private double[] arriveTimes;
+	private double[] dueDates;
+	private double[] procTimes;
+	private int attrPos;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Simulation sim = new Simulation();
+		Shop shop = new Shop();
+		WorkStation ws = new WorkStation(1);
+		WorkStation next = new WorkStation(1);
+		shop.addMachine(ws);
+		shop.addMachine(next);
+		sim.addComponent(shop);
+		// as during a selection, some rules need the machine to be selected for
+		ws.currMachine = ws.machDat()[0];
+
+		PR pr = createRule(rule);
+		pr.setOwner(ws);
+		pr.init();
+
+		// use the machine's queue, some rules access it directly
+		queue = ws.queue;
+		queue.setSequencingRule(pr);
+
+		Random rnd = new Random(23);
+		arriveTimes = new double[NUM_ATTRS];
+		dueDates = new double[NUM_ATTRS];
+		procTimes = new double[NUM_ATTRS];
+		for (int i = 0; i < NUM_ATTRS; i++) {
+			arriveTimes[i] = rnd.nextInt(100);
+			dueDates[i] = arriveTimes[i] + rnd.nextDouble() * 500.0;
+			procTimes[i] = 1.0 + rnd.nextDouble() * 50.0;
+		}
+		attrPos = 0;
+
+		for (int i = 0; i < size; i++) {
+			Job j = new Job(shop);
+			j.setJobNum(i);
+
+			Operation[] ops = new Operation[3];
+			for (int n = 0; n < ops.length; n++) {
+				ops[n] = new Operation();
+				ops[n].setMachine(n == 0 ? ws : next);
+			}
+			j.setOps(ops);
+			j.setTaskNumber(0);
+			j.setCurrMachine(ws);
+			j.setWeight(1 + rnd.nextInt(10));
+
+			setAttributes(j);
+			queue.add(j);
+		}
+	}
+
+	private void setAttributes(Job j) {
+		int i = attrPos;
+		attrPos = (attrPos + 1) & (NUM_ATTRS - 1);
+
+		j.setArriveTime(arriveTimes[i]);
+		j.setRelDate(arriveTimes[i]);
+		j.setDueDate(dueDates[i]);
+		for (Operation o : j.getOps()) {
+			o.setProcTime(procTimes[i]);
+		}
+	}
+
+	static PR createRule(String name) {
+		PR res = null;
+		for (String s : name.split("\\+")) {
+			PR pr;
+			switch (s) {
+			case "FCFS":
+				pr = new FCFS();
+				break;
+			case "FASFS":
+				pr = new TieBreakerFASFS();
+				break;
+			case "EDD":
+				pr = new EDD();
+				break;
+			case "SPT":
+				pr = new SPT();
+				break;
+			case "SLK":
+				pr = new SLK();
+				break;
+			case "CR":
+				pr = new CR();
+				break;
+			case "ATC":
+				pr = new ATC(2.0);
+				break;
+			case "GP98":
+				pr = new WSC2010_GPRuleSize98();
+				break;
+			case "PTPlusWINQPlusNPT":
+				pr = new PTPlusWINQPlusNPT();
+				break;
+			default:
+				throw new IllegalArgumentException(s);
+			}
+
+			if (res == null)
+				res = pr;
+			else
+				res.setFinalTieBreaker(pr);
+		}
+		return res;
+	}
+
+	@Benchmark
+	public Job selectAndReAdd() {
+		Job j = queue.removeLargest();
+		setAttributes(j);
+		queue.add(j);
+		return j;
+	}
+
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jasima.core.random.continuous.DblBeta;
+import jasima.core.random.continuous.DblChiSquared;
+import jasima.core.random.continuous.DblDistribution;
+import jasima.core.random.continuous.DblExp;
+import jasima.core.random.continuous.DblGamma;
+import jasima.core.random.continuous.DblLogNormal;
+import jasima.core.random.continuous.DblNormal;
+import jasima.core.random.continuous.DblStream;
+import jasima.core.random.continuous.DblTDist;
+import jasima.core.random.continuous.DblUniformRange;
+import jasima.core.random.continuous.DblWeibull;
+import jasima.core.random.discrete.IntEmpirical;
+import jasima.core.util.MersenneTwister;
+
+/**
+ * Benchmarks the generation of random numbers, both raw numbers of the
+ * underlying generators and values of the {@link DblStream}s commonly used in
+ * models. Streams are sampled both by inverting their distribution function
+ * and using the dedicated algorithms enabled by {@code fastSampling}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomStreamBenchmark {
+
+	@State(Scope.Thread)
+	public static class GeneratorState {
+		@Param({ "MersenneTwister", "Random" })
+		public String rndGen;
+
+		Random rnd;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			rnd = createGenerator(rndGen);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class StreamState {
+		@Param({ "MersenneTwister", "Random" })
+		public String rndGen;
+
+		@Param({ "DblUniformRange", "DblExp", "DblNormal", "DblLogNormal", "DblGamma", "DblBeta", "DblWeibull",
+				"DblChiSquared", "DblTDist", "IntEmpirical" })
+		public String stream;
+
+		@Param({ "false", "true" })
+		public boolean fastSampling;
+
+		DblStream dblStream;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			dblStream = createStream(stream);
+			if (dblStream instanceof DblDistribution)
+				((DblDistribution) dblStream).setFastSampling(fastSampling);
+			else if (dblStream instanceof DblNormal)
+				((DblNormal) dblStream).setFastSampling(fastSampling);
+			dblStream.setRndGen(createGenerator(rndGen));
+			dblStream.init();
+		}
+	}
+
+	static Random createGenerator(String name) {
+		switch (name) {
+		case "MersenneTwister":
+			return new MersenneTwister(23);
+		case "Random":
+			return new Random(23);
+		default:
+			throw new IllegalArgumentException(name);
+		}
+	}
+
+	static DblStream createStream(String name) {
+		switch (name) {
+		case "DblUniformRange":
+			return new DblUniformRange(0.0, 10.0);
+		case "DblExp":
+			return new DblExp(10.0);
+		case "DblNormal":
+			return new DblNormal(10.0, 2.0);
+		case "DblLogNormal":
+			return new DblLogNormal(2.0, 0.5);
+		case "DblGamma":
+			return new DblGamma(2.0, 5.0);
+		case "DblBeta":
+			return new DblBeta(2.0, 5.0);
+		case "DblWeibull":
+			return new DblWeibull(2.0, 10.0);
+		case "DblChiSquared":
+			return new DblChiSquared(3);
+		case "DblTDist":
+			return new DblTDist(10.0);
+		case "IntEmpirical":
+			return new IntEmpirical(new double[] { 0.1, 0.05, 0.2, 0.15, 0.3, 0.05, 0.1, 0.05 });
+		default:
+			throw new IllegalArgumentException(name);
+		}
+	}
+
+	@Benchmark
+	public double nextDouble(GeneratorState s) {
+		return s.rnd.nextDouble();
+	}
+
+	@Benchmark
+	public double nextDbl(StreamState s) {
+		return s.dblStream.nextDbl();
+	}
+
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.bench;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jasima.core.random.continuous.DblConst;
+import jasima.core.random.continuous.DblUniformRange;
+import jasima.core.random.discrete.IntUniformRange;
+import jasima.shopSim.core.ShopExperiment;
+import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
+import jasima.shopSim.models.dynamicShop.DynamicShopExperiment;
+import jasima.shopSim.models.dynamicShop.DynamicShopExperiment.Scenario;
+import jasima.shopSim.models.mimac.MimacExperiment;
+import jasima.shopSim.models.mimac.MimacExperiment.DataSet;
+import jasima.shopSim.models.staticShop.StaticShopExperiment;
+import jasima.shopSim.prioRules.basic.FCFS;
+import jasima.shopSim.prioRules.basic.SPT;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+import jasima.shopSim.prioRules.meta.IgnoreFutureJobs;
+import jasima.shopSim.prioRules.setup.ATCS;
+import jasima.shopSim.prioRules.upDownStream.PTPlusWINQPlusNPT;
+
+/**
+ * Benchmarks complete simulation runs of the shop models shipped with jasima.
+ * Besides the number of runs per second, the number of simulation events
+ * processed per second is reported as secondary result {@code events}.
+ * <p>
+ * Static shop instances are read from the directory given by the system
+ * property {@value #INSTANCE_DIR_KEY}, by default {@code ../testInstances},
+ * i.e., the benchmarks have to be started from within the {@code bench}
+ * directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ShopModelBenchmark {
+
+	public static final String INSTANCE_DIR_KEY = "jasima.bench.instanceDir";
+
+	@Param({ "DynamicShop", "MimacFab4", "MimacFab6", "StaticShop_js06x06", "StaticShop_js10x10",
+			"StaticShop_js20x05" })
+	public String model;
+
+	/** Counts the simulation events processed. */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class EventCounter {
+		public long events;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			events = 0;
+		}
+	}
+
+	private File instanceDir;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		instanceDir = new File(System.getProperty(INSTANCE_DIR_KEY, "../testInstances"));
+		// fail early on configuration errors
+		createExperiment();
+	}
+
+	ShopExperiment createExperiment() {
+		if (model.startsWith("StaticShop_")) {
+			File f = new File(instanceDir, model.substring("StaticShop_".length()) + ".txt");
+			if (!f.exists())
+				throw new IllegalStateException("instance file not found: " + f.getAbsolutePath());
+
+			StaticShopExperiment e = new StaticShopExperiment();
+			e.setInstFileName(f.getPath());
+			e.setEnableLookAhead(true);
+			e.setSequencingRule(new IgnoreFutureJobs(new SPT()).setFinalTieBreaker(new FCFS())
+					.setFinalTieBreaker(new TieBreakerFASFS()));
+			return e;
+		}
+
+		switch (model) {
+		case "DynamicShop": {
+			DynamicShopExperiment e = new DynamicShopExperiment();
+			e.setInitialSeed(8346);
+			e.setNumMachines(10);
+			e.setNumOps(10, 10);
+			e.setDueDateFactor(new DblConst(4.0));
+			e.setUtilLevel(0.95d);
+			e.setStopArrivalsAfterNumJobs(10000);
+			e.setScenario(Scenario.JOB_SHOP);
+			e.setSequencingRule(new PTPlusWINQPlusNPT().setFinalTieBreaker(new TieBreakerFASFS()));
+			return e;
+		}
+		case "MimacFab4":
+			return createMimac(DataSet.FAB4r);
+		case "MimacFab6":
+			return createMimac(DataSet.FAB6);
+		default:
+			throw new IllegalArgumentException(model);
+		}
+	}
+
+	private static MimacExperiment createMimac(DataSet ds) {
+		MimacExperiment e = new MimacExperiment();
+		e.setInitialSeed(-6437543093816807328L);
+		e.setScenario(ds);
+		e.setDueDateFactors(new DblUniformRange(2.0, 5.0));
+		e.setJobWeights(new IntUniformRange(1, 10));
+		e.setSimulationLength(365 * 24 * 60);
+		e.setMaxJobsInSystem(3 * 250);
+		e.setEnableLookAhead(false);
+
+		ATCS atcs = new ATCS(0.01, 0.5);
+		atcs.setTieBreaker(new TieBreakerFASFS());
+		e.setSequencingRule(atcs);
+		e.setBatchForming(new HighestJobBatchingMBS(0.75));
+
+		return e;
+	}
+
+	@Benchmark
+	public Object runExperiment(EventCounter counter) {
+		ShopExperiment e = createExperiment();
+		e.runExperiment();
+		counter.events += e.sim().numEventsProcessed();
+		return e.getResults();
+	}
+
+}
@@ -22,8 +22,14 @@ package jasima.core.expExecution;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
 
 import jasima.core.experiment.Experiment;
+import jasima.core.util.JmxUtil;
 
 /**
  * Base class for classes executing experiments. This class implements the
@@ -34,6 +40,10 @@ import jasima.core.experiment.Experiment;
  * {@code jasima.core.expExecution.ExperimentExecutor}". As a default, a
  * {@link ThreadPoolExecutor} is used (with a maximum number of threads equal to
  * the number of available processors).
+ * <p>
+ * Executors also keep track of the number of submitted, running and completed
+ * tasks as well as the time their worker threads are busy. This information is
+ * available via {@link ExperimentExecutorMXBean}.
  * 
  * @author Torsten Hildebrandt
  * @version "$Id$"
@@ -46,6 +56,7 @@ public abstract class ExperimentExecutor {
 	public static final String DEFAULT_FACTORY = ThreadPoolExecutor.class.getName();
 
 	private static volatile ExperimentExecutor execFactoryInst = null;
+	private static ObjectName execFactoryMBean = null;
 
 	public static ExperimentExecutor getExecutor() {
 		if (execFactoryInst == null) {
@@ -58,6 +69,9 @@ public abstract class ExperimentExecutor {
 					} catch (Exception ex) {
 						throw new RuntimeException(ex);
 					}
+					execFactoryMBean = JmxUtil.register("ExperimentExecutor",
+							execFactoryInst.getClass().getSimpleName(), ExperimentExecutorMXBean.class,
+							() -> new ExperimentExecutorMonitor(execFactoryInst));
 
 					// cleanup
 					Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -73,11 +87,76 @@ public abstract class ExperimentExecutor {
 		return execFactoryInst;
 	}
 
+	/**
+	 * Task currently executed by a worker thread, only updated by this thread.
+	 */
+	static class WorkerTask {
+		final long start;
+		int depth; // number of (nested) tasks being executed
+
+		WorkerTask(long start) {
+			super();
+			this.start = start;
+		}
+	}
+
+	final long created;
+	final AtomicLong tasksSubmitted = new AtomicLong();
+	final AtomicLong tasksCompleted = new AtomicLong();
+	final AtomicLong tasksInFlight = new AtomicLong();
+	// busy time of all tasks finished so far
+	final AtomicLong busyNanos = new AtomicLong();
+	// only contains threads currently executing a task
+	final Map<Thread, WorkerTask> workers = new ConcurrentHashMap<>();
+
 	/**
 	 * Protected constructor, use {@link #getExecutor()} instead.
 	 */
 	protected ExperimentExecutor() {
 		super();
+		created = System.nanoTime();
+	}
+
+	/**
+	 * Has to be called by sub-classes whenever an experiment is submitted for
+	 * execution.
+	 */
+	protected void taskSubmitted() {
+		tasksSubmitted.incrementAndGet();
+	}
+
+	/**
+	 * Runs the experiment {@code e} in the current (worker) thread and returns
+	 * its results. Sub-classes should use this method to execute submitted
+	 * experiments so the executor statistics are updated.
+	 * 
+	 * @param e
+	 *            The experiment to run.
+	 * @return The experiment's results.
+	 */
+	protected Map<String, Object> execute(Experiment e) {
+		Thread t = Thread.currentThread();
+		WorkerTask wt = workers.get(t);
+		if (wt == null) {
+			wt = new WorkerTask(System.nanoTime());
+			workers.put(t, wt);
+		}
+
+		// nested tasks (e.g., when joining in a ForkJoinPool) don't increase
+		// busy time
+		wt.depth++;
+		tasksInFlight.incrementAndGet();
+		try {
+			e.runExperiment();
+			return e.getResults();
+		} finally {
+			tasksInFlight.decrementAndGet();
+			tasksCompleted.incrementAndGet();
+			if (--wt.depth == 0) {
+				workers.remove(t);
+				busyNanos.addAndGet(System.nanoTime() - wt.start);
+			}
+		}
 	}
 
 	/**
@@ -131,6 +210,9 @@ public abstract class ExperimentExecutor {
 			if (execFactoryInst != null)
 				execFactoryInst.shutdownNow();
 			execFactoryInst = null;
+
+			JmxUtil.unregister(execFactoryMBean);
+			execFactoryMBean = null;
 		}
 	}
 
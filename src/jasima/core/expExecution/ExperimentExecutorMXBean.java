@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.expExecution;
+
+import java.util.Map;
+
+import jasima.core.util.JmxUtil;
+
+/**
+ * Management interface to monitor an {@link ExperimentExecutor}. The singleton
+ * executor is registered as such an MXBean when it is created, if enabled in
+ * {@link JmxUtil}.
+ */
+public interface ExperimentExecutorMXBean {
+
+	long getTasksSubmitted();
+
+	long getTasksCompleted();
+
+	/** Returns the number of tasks currently executed by a worker thread. */
+	long getTasksInFlight();
+
+	/** Returns the number of tasks submitted but not started yet. */
+	long getTasksQueued();
+
+	/** Returns the number of worker threads currently executing a task. */
+	int getNumBusyWorkers();
+
+	/**
+	 * Returns the average number of worker threads executing a task since the
+	 * executor was created.
+	 */
+	double getAverageBusyWorkers();
+
+	/**
+	 * Returns the seconds each busy worker thread has been executing its current
+	 * task, using the thread names as keys.
+	 */
+	Map<String, Double> getCurrentTaskSeconds();
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.expExecution;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import jasima.core.expExecution.ExperimentExecutor.WorkerTask;
+
+/**
+ * Implementation of {@link ExperimentExecutorMXBean} for a certain
+ * {@link ExperimentExecutor}.
+ */
+class ExperimentExecutorMonitor implements ExperimentExecutorMXBean {
+
+	private final ExperimentExecutor exec;
+
+	ExperimentExecutorMonitor(ExperimentExecutor exec) {
+		super();
+		this.exec = exec;
+	}
+
+	@Override
+	public long getTasksSubmitted() {
+		return exec.tasksSubmitted.get();
+	}
+
+	@Override
+	public long getTasksCompleted() {
+		return exec.tasksCompleted.get();
+	}
+
+	@Override
+	public long getTasksInFlight() {
+		return exec.tasksInFlight.get();
+	}
+
+	@Override
+	public long getTasksQueued() {
+		// read in reverse order of updates, so result is never too small
+		long completed = exec.tasksCompleted.get();
+		long running = exec.tasksInFlight.get();
+		return Math.max(0, exec.tasksSubmitted.get() - completed - running);
+	}
+
+	@Override
+	public int getNumBusyWorkers() {
+		return exec.workers.size();
+	}
+
+	@Override
+	public double getAverageBusyWorkers() {
+		long now = System.nanoTime();
+
+		long busy = exec.busyNanos.get();
+		for (WorkerTask wt : exec.workers.values()) {
+			busy += now - wt.start;
+		}
+
+		long total = now - exec.created;
+		return total > 0 ? (double) busy / total : 0.0;
+	}
+
+	@Override
+	public Map<String, Double> getCurrentTaskSeconds() {
+		long now = System.nanoTime();
+
+		Map<String, Double> res = new TreeMap<>();
+		for (Map.Entry<Thread, WorkerTask> e : exec.workers.entrySet()) {
+			res.put(e.getKey().getName(), (now - e.getValue().start) * 1e-9);
+		}
+		return res;
+	}
+
+}
@@ -76,11 +76,11 @@ public class ForkJoinPoolExecutor extends ExperimentExecutor {
 	@Override
 	public ExperimentFuture runExperiment(final Experiment e, final Experiment parent) {
 		ForkJoinTask<Map<String, Object>> task;
+		taskSubmitted();
 		task = pool.submit(new RecursiveTask<Map<String, Object>>() {
 			@Override
 			public Map<String, Object> compute() {
-				e.runExperiment();
-				return e.getResults();
+				return execute(e);
 			}
 		});
 		return new FutureWrapper(e, task);
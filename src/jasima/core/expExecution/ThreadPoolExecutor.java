@@ -59,11 +59,11 @@ public class ThreadPoolExecutor extends ExperimentExecutor {
 	@Override
 	public ExperimentFuture runExperiment(final Experiment e, final Experiment parent) {
 		ExecutorService es = getExecutorInstance(e.nestingLevel());
+		taskSubmitted();
 		return new FutureWrapper(e, es.submit(new Callable<Map<String, Object>>() {
 			@Override
 			public Map<String, Object> call() throws Exception {
-				e.runExperiment();
-				return e.getResults();
+				return execute(e);
 			}
 		}));
 	}
@@ -28,9 +28,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import javax.management.ObjectName;
+
 import jasima.core.expExecution.ExperimentExecutor;
 import jasima.core.expExecution.ExperimentFuture;
 import jasima.core.statistics.SummaryStat;
+import jasima.core.util.JmxUtil;
 import jasima.core.util.Pair;
 
 /**
@@ -75,6 +78,7 @@ public abstract class AbstractMultiExperiment extends Experiment {
 	protected Random seedStream;
 	protected List<Experiment> experiments;
 	protected int numTasksExecuted;
+	protected volatile int numTasksSubmitted;
 
 	@Override
 	public void init() {
@@ -86,6 +90,7 @@ public abstract class AbstractMultiExperiment extends Experiment {
 		detailedResultsNumeric = new UniqueNamesCheckingHashMap();
 		detailedResultsOther = new UniqueNamesCheckingHashMap();
 		numTasksExecuted = 0;
+		numTasksSubmitted = 0;
 
 		for (int i = 0; i < getSkipSeedCount(); i++) {
 			// throw away seed
@@ -95,11 +100,17 @@ public abstract class AbstractMultiExperiment extends Experiment {
 
 	@Override
 	protected void performRun() {
-		do {
-			createExperiments();
-			executeExperiments();
-		} while (hasMoreTasks());
-		experiments.clear();
+		ObjectName mbeanName = JmxUtil.register("MultiExperiment", getName(), MultiExperimentMXBean.class,
+				() -> new MultiExperimentMonitor(this));
+		try {
+			do {
+				createExperiments();
+				executeExperiments();
+			} while (hasMoreTasks());
+			experiments.clear();
+		} finally {
+			JmxUtil.unregister(mbeanName);
+		}
 	}
 
 	protected boolean hasMoreTasks() {
@@ -109,6 +120,7 @@ public abstract class AbstractMultiExperiment extends Experiment {
 	protected abstract void createExperiments();
 
 	protected void executeExperiments() {
+		numTasksSubmitted += experiments.size();
 		try {
 			if (isAllowParallelExecution()) {
 				// start execution and store process results in the same order
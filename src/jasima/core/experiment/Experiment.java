@@ -36,6 +36,8 @@ import jasima.core.experiment.Experiment.ExperimentMessage;
 import jasima.core.random.RandomFactory;
 import jasima.core.run.ConsoleRunner;
 import jasima.core.util.ConsolePrinter;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.core.util.MsgCategory;
 import jasima.core.util.TypeUtil;
 import jasima.core.util.Util;
@@ -77,7 +79,7 @@ import jasima.core.util.observer.NotifierImpl;
  * @author Torsten Hildebrandt
  */
 public abstract class Experiment
-		implements Notifier<Experiment, ExperimentMessage>, ValueStore, Cloneable, Serializable {
+		implements Notifier<Experiment, ExperimentMessage>, ValueStore, Cloneable, Serializable, Forkable {
 
 	/**
 	 * Just an arbitrary default seed.
@@ -595,6 +597,36 @@ public abstract class Experiment
 		}
 	}
 
+	/**
+	 * Copies this experiment when it is forked, see
+	 * {@link jasima.core.simulation.SimulationExperiment#fork()}. Parameters and
+	 * listeners are treated as in {@link #clone()}, sub-classes have to copy all
+	 * objects they share with their running simulation using {@code ctx}.
+	 */
+	@Override
+	public Experiment forkCopy(ForkContext ctx) {
+		try {
+			Experiment c = ctx.register(this, (Experiment) super.clone());
+
+			if (notifierAdapter != null) {
+				c.notifierAdapter = new NotifierImpl<>(c);
+				for (int i = 0; i < numListener(); i++) {
+					c.addListener(TypeUtil.cloneIfPossible(getListener(i)));
+				}
+			}
+
+			c.valueStore = ctx.copy(valueStore);
+
+			if (resultMap != null) {
+				c.resultMap = new LinkedHashMap<>(resultMap);
+			}
+
+			return c;
+		} catch (CloneNotSupportedException sholdntHappen) {
+			throw new RuntimeException(sholdntHappen);
+		}
+	}
+
 	public String toString() {
 		return getName() == null ? super.toString() : getName();
 	}
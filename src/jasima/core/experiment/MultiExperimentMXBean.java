@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.experiment;
+
+import jasima.core.util.JmxUtil;
+
+/**
+ * Management interface to monitor the progress of an
+ * {@link AbstractMultiExperiment}. Such an MXBean is registered while the
+ * experiment is running, if enabled in {@link JmxUtil}.
+ */
+public interface MultiExperimentMXBean {
+
+	String getName();
+
+	/** Returns the total number of sub-experiments this experiment will run. */
+	int getNumExperiments();
+
+	int getNumTasksSubmitted();
+
+	int getNumTasksCompleted();
+
+	/** Returns the number of submitted tasks with results still pending. */
+	int getNumTasksPending();
+
+	/**
+	 * Returns the number of sub-experiments completed per second of wall-clock
+	 * time since the previous call of this method.
+	 */
+	double getTasksPerSecond();
+
+}
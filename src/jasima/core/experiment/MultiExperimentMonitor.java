@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.experiment;
+
+/**
+ * Implementation of {@link MultiExperimentMXBean} for a certain
+ * {@link AbstractMultiExperiment}.
+ */
+class MultiExperimentMonitor implements MultiExperimentMXBean {
+
+	private final AbstractMultiExperiment exp;
+
+	// used to calculate tasks per second
+	private long lastNanos;
+	private int lastNumTasks;
+
+	MultiExperimentMonitor(AbstractMultiExperiment exp) {
+		super();
+		this.exp = exp;
+
+		lastNanos = System.nanoTime();
+		lastNumTasks = exp.getNumTasksExecuted();
+	}
+
+	@Override
+	public String getName() {
+		return exp.getName();
+	}
+
+	@Override
+	public int getNumExperiments() {
+		return exp.getNumExperiments();
+	}
+
+	@Override
+	public int getNumTasksSubmitted() {
+		return exp.numTasksSubmitted;
+	}
+
+	@Override
+	public int getNumTasksCompleted() {
+		return exp.getNumTasksExecuted();
+	}
+
+	@Override
+	public int getNumTasksPending() {
+		return exp.numTasksSubmitted - exp.getNumTasksExecuted();
+	}
+
+	@Override
+	public synchronized double getTasksPerSecond() {
+		long now = System.nanoTime();
+		int numTasks = exp.getNumTasksExecuted();
+
+		double res = (numTasks - lastNumTasks) / ((now - lastNanos) * 1e-9);
+
+		lastNanos = now;
+		lastNumTasks = numTasks;
+		return res;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random;
+
+import java.util.Random;
+
+/**
+ * Base class for pseudo random number generators producing 64 bits at a time.
+ * Contrary to {@link Random} and {@link jasima.core.util.MersenneTwister}, no
+ * method of this class is synchronized, i.e., an instance must not be shared
+ * between threads without external synchronization. This is the usual case in
+ * jasima, where each random number stream is only used by a single simulation.
+ * <p>
+ * Sub-classes only have to implement {@link #nextLong()}, {@link #setSeed(long)}
+ * and {@link #split()}. All other methods producing random values are derived
+ * from {@link #nextLong()}.
+ */
+public abstract class Random64 extends Random implements Cloneable {
+
+	private static final long serialVersionUID = -3017916380236263327L;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian;
+
+	protected Random64() {
+		// the actual seed is set by sub-classes
+		super(0L);
+	}
+
+	/**
+	 * Returns the next pseudo random 64 bit value. All other methods producing
+	 * random values are based on this method.
+	 */
+	@Override
+	public abstract long nextLong();
+
+	/**
+	 * Returns a new generator producing a sequence of values that is
+	 * (statistically) independent of the values produced by this generator.
+	 * This can be used to derive sub-streams, e.g., for parallel replications,
+	 * without having to compute new seeds. Calling this method advances the
+	 * state of this generator.
+	 * 
+	 * @return The new generator.
+	 */
+	public abstract Random64 split();
+
+	/**
+	 * Sets the seed of this generator. Sub-classes have to call this
+	 * implementation.
+	 */
+	@Override
+	public void setSeed(long seed) {
+		haveNextNextGaussian = false;
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+
+		// Lemire's method, see "Fast Random Integer Generation in an Interval"
+		long m = (nextLong() >>> 32) * bound;
+		long l = m & 0xffffffffL;
+		if (l < bound) {
+			long t = (0x100000000L - bound) % bound;
+			while (l < t) {
+				m = (nextLong() >>> 32) * bound;
+				l = m & 0xffffffffL;
+			}
+		}
+		return (int) (m >>> 32);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	public float nextFloat() {
+		return (nextLong() >>> 40) * FLOAT_UNIT;
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	@Override
+	public void nextBytes(byte[] bytes) {
+		int i = 0;
+		while (i < bytes.length) {
+			long l = nextLong();
+			for (int n = Math.min(bytes.length - i, 8); n > 0; n--) {
+				bytes[i++] = (byte) l;
+				l >>>= 8;
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link Random#nextGaussian()} (using the polar method), just not
+	 * synchronized.
+	 */
+	@Override
+	public double nextGaussian() {
+		if (haveNextNextGaussian) {
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+
+		double v1, v2, s;
+		do {
+			v1 = 2.0 * nextDouble() - 1.0;
+			v2 = 2.0 * nextDouble() - 1.0;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1.0 || s == 0.0);
+
+		double multiplier = StrictMath.sqrt(-2.0 * StrictMath.log(s) / s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+	@Override
+	public Random64 clone() {
+		try {
+			return (Random64) super.clone();
+		} catch (CloneNotSupportedException cantHappen) {
+			throw new AssertionError(cantHappen);
+		}
+	}
+
+}
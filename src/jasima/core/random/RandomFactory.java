@@ -21,6 +21,7 @@
 package jasima.core.random;
 
 import java.io.Serializable;
+import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Objects;
 import java.util.Random;
@@ -28,6 +29,8 @@ import java.util.Random;
 import jasima.core.experiment.Experiment;
 import jasima.core.random.continuous.DblStream;
 import jasima.core.simulation.Simulation;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.core.util.MersenneTwister;
 import jasima.core.util.MsgCategory;
 import jasima.core.util.Util;
@@ -44,12 +47,18 @@ import jasima.core.util.Util;
  * class returned by the static method {@link #newInstance()}.
  * <li>If just a different implementation of {@link java.util.Random} is desired
  * (default is {@link MersenneTwister}), use the system property
- * {@link #RANDOM_CLASS_PROP_KEY}.
+ * {@link #RANDOM_CLASS_PROP_KEY} or {@link #setRandomClass(Class)}.
  * </ol>
+ * <p>
+ * Besides {@link MersenneTwister}, jasima provides the unsynchronized
+ * generators {@link Xoshiro256StarStar} and {@link SplitMix64}. They are
+ * faster, have a much smaller state and therefore are cheaper to create, which
+ * matters for models with thousands of random number streams. Using a different
+ * generator changes all random number streams, of course.
  * 
  * @author Torsten Hildebrandt
  */
-public class RandomFactory implements Serializable {
+public class RandomFactory implements Serializable, Cloneable, Forkable {
 
 	private static final long serialVersionUID = 4828925858942593527L;
 
@@ -82,7 +91,10 @@ public class RandomFactory implements Serializable {
 	private HashMap<Long, String> seeds = new HashMap<Long, String>();
 	private Random seedStream = new Random();
 	private long hashMask = 5787905968364136369L;
-	private Class<?> randomClass;
+	private Class<? extends Random> randomClass;
+	// constructor used by createRandom(), looked up on first use
+	private transient Constructor<? extends Random> rndConstructor;
+	private transient boolean rndConstructorWithSeed;
 	private Simulation sim;
 
 	/**
@@ -95,7 +107,7 @@ public class RandomFactory implements Serializable {
 		// which Random implementation to use?
 		String rndClassName = System.getProperty(RANDOM_CLASS_PROP_KEY, DEFAULT_RANDOM_CLASS);
 		try {
-			randomClass = Class.forName(rndClassName);
+			setRandomClass(Class.forName(rndClassName).asSubclass(Random.class));
 		} catch (ClassNotFoundException e) {
 			throw new RuntimeException(e);
 		}
@@ -124,19 +136,35 @@ public class RandomFactory implements Serializable {
 
 	/**
 	 * Create a new {@link Random} instance with the given seed. The concrete class
-	 * instantiated is determined by a system property
-	 * "jasima.core.random.RandomFactory.randomClass" (default:
-	 * {@link MersenneTwister}).
+	 * instantiated is determined by {@link #getRandomClass()}. If this class has
+	 * a public constructor with a single {@code long} parameter, it is called
+	 * with {@code seed} (avoiding to initialize the generator twice). Otherwise
+	 * the generator is created using its no-arg constructor and then
+	 * {@link Random#setSeed(long)} is called.
 	 * 
 	 * @param seed The seed for the new {@link Random} instance.
 	 * @return A new {@link Random} instance initialized with the given seed.
 	 */
 	protected Random createRandom(long seed) {
 		try {
-			Random o = (Random) randomClass.newInstance();
-			o.setSeed(seed);
-			return o;
-		} catch (Exception e) {
+			if (rndConstructor == null) {
+				try {
+					rndConstructor = randomClass.getConstructor(long.class);
+					rndConstructorWithSeed = true;
+				} catch (NoSuchMethodException ignore) {
+					rndConstructor = randomClass.getConstructor();
+					rndConstructorWithSeed = false;
+				}
+			}
+
+			if (rndConstructorWithSeed) {
+				return rndConstructor.newInstance(seed);
+			} else {
+				Random o = rndConstructor.newInstance();
+				o.setSeed(seed);
+				return o;
+			}
+		} catch (ReflectiveOperationException e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -224,6 +252,23 @@ public class RandomFactory implements Serializable {
 		return initRndGen(stream, null);
 	}
 
+	public Class<? extends Random> getRandomClass() {
+		return randomClass;
+	}
+
+	/**
+	 * Sets the class of random number generators created by this factory, e.g.,
+	 * {@link Xoshiro256StarStar}. The default is determined by the system
+	 * property {@link #RANDOM_CLASS_PROP_KEY}, or {@link MersenneTwister} if not
+	 * set.
+	 * 
+	 * @param randomClass The {@link Random} implementation to use.
+	 */
+	public void setRandomClass(Class<? extends Random> randomClass) {
+		this.randomClass = Objects.requireNonNull(randomClass);
+		rndConstructor = null;
+	}
+
 	public Simulation getSim() {
 		return sim;
 	}
@@ -234,4 +279,22 @@ public class RandomFactory implements Serializable {
 	public void setSim(Simulation sim) {
 		this.sim = sim;
 	}
+
+	/**
+	 * Creates a copy of this factory as part of forking a simulation. The copy
+	 * continues the seed stream of the original, so streams created after a fork
+	 * get the same seeds in the original and its copy.
+	 */
+	@Override
+	public RandomFactory forkCopy(ForkContext ctx) {
+		try {
+			RandomFactory c = ctx.register(this, (RandomFactory) super.clone());
+			c.seeds = new HashMap<Long, String>(seeds);
+			c.seedStream = ctx.copy(seedStream);
+			c.sim = ctx.copy(sim);
+			return c;
+		} catch (CloneNotSupportedException cantHappen) {
+			throw new AssertionError(cantHappen);
+		}
+	}
 }
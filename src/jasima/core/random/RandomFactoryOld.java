@@ -22,6 +22,7 @@ package jasima.core.random;
 
 import java.util.Random;
 
+import jasima.core.util.ForkContext;
 import jasima.core.util.MsgCategory;
 
 /**
@@ -71,6 +72,14 @@ public class RandomFactoryOld extends RandomFactory {
 		return res;
 	}
 
+	@Override
+	public RandomFactory forkCopy(ForkContext ctx) {
+		RandomFactoryOld c = (RandomFactoryOld) super.forkCopy(ctx);
+		c.seedStream = ctx.copy(seedStream);
+		c.seeds = ctx.copy(seeds);
+		return c;
+	}
+
 	public void setSeed(long seed) {
 		seedStream.setSeed(seed);
 		seeds = null;
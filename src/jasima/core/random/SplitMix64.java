@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random;
+
+/**
+ * Implementation of the SplitMix64 pseudo random number generator as used by
+ * {@link java.util.SplittableRandom}, but as a sub-class of
+ * {@link java.util.Random}. Its state consists of only two {@code long} values,
+ * which makes creating instances very cheap.
+ * <p>
+ * {@link #split()} creates a new generator with a different increment
+ * ("gamma"), so the streams of the original and the new generator are
+ * (statistically) independent.
+ * 
+ * @see <a href="https://doi.org/10.1145/2714064.2660195">Steele, Lea, Flood:
+ *      Fast Splittable Pseudorandom Number Generators</a>
+ */
+public class SplitMix64 extends Random64 {
+
+	private static final long serialVersionUID = -6342717637620262104L;
+
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long seed;
+	private long gamma;
+
+	public SplitMix64() {
+		this(System.nanoTime());
+	}
+
+	public SplitMix64(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private SplitMix64(long seed, long gamma) {
+		super();
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		super.setSeed(seed);
+		this.seed = seed;
+		this.gamma = GOLDEN_GAMMA;
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(seed += gamma);
+	}
+
+	@Override
+	public SplitMix64 split() {
+		long s = nextLong();
+		return new SplitMix64(s, mixGamma(seed += gamma));
+	}
+
+	/**
+	 * The output function of SplitMix64 (variant 13 of Stafford's mixing
+	 * functions).
+	 */
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Computes the increment of a new generator, making sure it is odd and has
+	 * enough bit transitions.
+	 */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+}
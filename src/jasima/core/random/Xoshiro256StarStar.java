@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random;
+
+/**
+ * Implementation of the xoshiro256** pseudo random number generator of Blackman
+ * and Vigna. It has a period of 2^256-1, a state of only 32 bytes and is much
+ * faster than {@link jasima.core.util.MersenneTwister}.
+ * <p>
+ * Independent sub-streams can be derived using {@link #jump()} and
+ * {@link #longJump()}, which advance the state by 2^128 and 2^192 values,
+ * respectively. {@link #split()} returns a copy of the current generator and
+ * then jumps, so subsequent calls create non-overlapping streams of 2^128
+ * values each.
+ * 
+ * @see <a href="https://prng.di.unimi.it/">xoshiro / xoroshiro generators and
+ *      the PRNG shootout</a>
+ */
+public class Xoshiro256StarStar extends Random64 {
+
+	private static final long serialVersionUID = 2787366226838441758L;
+
+	private static final long[] JUMP = { 0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL,
+			0x39abdc4529b1661cL };
+	private static final long[] LONG_JUMP = { 0x76e15d3efefdcbbfL, 0xc5004e441c522fb3L, 0x77710069854ee241L,
+			0x39109bb02acbe635L };
+
+	private long s0, s1, s2, s3;
+
+	public Xoshiro256StarStar() {
+		this(System.nanoTime());
+	}
+
+	public Xoshiro256StarStar(long seed) {
+		super();
+		setSeed(seed);
+	}
+
+	/**
+	 * Sets the seed of this generator. The 256 bit state is initialized from
+	 * {@code seed} using {@link SplitMix64}, as recommended by the authors.
+	 */
+	@Override
+	public void setSeed(long seed) {
+		super.setSeed(seed);
+
+		long x = seed;
+		s0 = SplitMix64.mix64(x += SplitMix64.GOLDEN_GAMMA);
+		s1 = SplitMix64.mix64(x += SplitMix64.GOLDEN_GAMMA);
+		s2 = SplitMix64.mix64(x += SplitMix64.GOLDEN_GAMMA);
+		s3 = SplitMix64.mix64(x += SplitMix64.GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Sets the 256 bit state directly, e.g., to compare against reference
+	 * values. The state must not be all zero.
+	 */
+	void setState(long s0, long s1, long s2, long s3) {
+		if ((s0 | s1 | s2 | s3) == 0)
+			throw new IllegalArgumentException("state must not be all zero");
+		this.s0 = s0;
+		this.s1 = s1;
+		this.s2 = s2;
+		this.s3 = s3;
+	}
+
+	@Override
+	public long nextLong() {
+		final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		final long t = s1 << 17;
+
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+
+		return result;
+	}
+
+	/**
+	 * Advances the state of this generator by 2^128 values. This can be used to
+	 * create 2^128 non-overlapping sub-streams.
+	 */
+	public void jump() {
+		jump(JUMP);
+	}
+
+	/**
+	 * Advances the state of this generator by 2^192 values. This can be used to
+	 * create 2^64 starting points, from each of which {@link #jump()} generates
+	 * 2^64 non-overlapping sub-streams.
+	 */
+	public void longJump() {
+		jump(LONG_JUMP);
+	}
+
+	private void jump(long[] jumpPoly) {
+		long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+		for (long j : jumpPoly) {
+			for (int b = 0; b < 64; b++) {
+				if ((j & (1L << b)) != 0) {
+					t0 ^= s0;
+					t1 ^= s1;
+					t2 ^= s2;
+					t3 ^= s3;
+				}
+				nextLong();
+			}
+		}
+
+		s0 = t0;
+		s1 = t1;
+		s2 = t2;
+		s3 = t3;
+	}
+
+	@Override
+	public Xoshiro256StarStar split() {
+		Xoshiro256StarStar res = new Xoshiro256StarStar(0L);
+		res.s0 = s0;
+		res.s1 = s1;
+		res.s2 = s2;
+		res.s3 = s3;
+		jump();
+		return res;
+	}
+
+}
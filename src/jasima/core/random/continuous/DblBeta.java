@@ -61,6 +61,11 @@ public class DblBeta extends DblDistribution {
 		super.setDistribution(distribution);
 	}
 
+	@Override
+	protected double nextDblFast() {
+		return FastSampling.beta(rndGen, dist.getAlpha(), dist.getBeta());
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblBeta(alpha=%f;beta=%f)", getAlpha(), getBeta());
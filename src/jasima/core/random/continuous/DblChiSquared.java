@@ -56,6 +56,11 @@ public class DblChiSquared extends DblDistribution {
 		setDistribution(new ChiSquaredDistribution(degreesOfFreedom));
 	}
 
+	@Override
+	protected double nextDblFast() {
+		return 2.0 * FastSampling.gamma(rndGen, 0.5 * dist.getDegreesOfFreedom());
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblChiSquared(degreesOfFreedom=%d)", getDegreesOfFreedom());
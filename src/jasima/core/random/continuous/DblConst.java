@@ -22,6 +22,7 @@ package jasima.core.random.continuous;
 
 import java.util.Arrays;
 
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 import jasima.core.util.Util;
 
@@ -92,6 +93,14 @@ public class DblConst extends DblStream {
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		DblConst c = (DblConst) super.forkCopy(ctx);
+		c.values = ctx.copy(values);
+		c.valuesRnd = ctx.copy(valuesRnd);
+		return c;
+	}
+
 	@Override
 	public double getNumericalMean() {
 		// lazy initialization of "mean" upon first call
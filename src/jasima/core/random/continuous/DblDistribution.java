@@ -32,6 +32,12 @@ import jasima.core.util.Pair;
  * Commons Math library. This class is usually not used directly but through its
  * various sub-classes implementing particular distributions and exposing their
  * parameters as Java Bean properties.
+ * <p>
+ * Values are usually produced by inverting the distribution's cumulative
+ * distribution function, which is an iterative numerical procedure for most
+ * distributions. If {@link #setFastSampling(boolean)} is set, sub-classes can
+ * use dedicated algorithms instead (see {@link FastSampling}) by overriding
+ * {@link #nextDblFast()}.
  * 
  * @author Torsten Hildebrandt
  */
@@ -40,6 +46,7 @@ public class DblDistribution extends DblStream {
 	private static final long serialVersionUID = -157283852135250753L;
 
 	private RealDistribution distribution;
+	private boolean fastSampling = false;
 
 	public DblDistribution() {
 		this(null, null, null);
@@ -77,6 +84,18 @@ public class DblDistribution extends DblStream {
 
 	@Override
 	public double nextDbl() {
+		if (fastSampling)
+			return nextDblFast();
+		else
+			return distribution.inverseCumulativeProbability(rndGen.nextDouble());
+	}
+
+	/**
+	 * Returns the next value if {@link #isFastSampling()} is set. This default
+	 * implementation uses inversion as well, sub-classes override it to use a
+	 * dedicated algorithm for their distribution.
+	 */
+	protected double nextDblFast() {
 		return distribution.inverseCumulativeProbability(rndGen.nextDouble());
 	}
 
@@ -96,6 +115,22 @@ public class DblDistribution extends DblStream {
 		return new Pair<Double, Double>(distribution.getSupportLowerBound(), distribution.getSupportUpperBound());
 	}
 
+	public boolean isFastSampling() {
+		return fastSampling;
+	}
+
+	/**
+	 * Sets whether values should be produced by a dedicated sampling algorithm
+	 * instead of inverting the cumulative distribution function. This is usually
+	 * much faster, but produces different values for the same random number
+	 * stream. Defaults to {@code false}.
+	 * 
+	 * @param fastSampling Whether or not to use fast sampling.
+	 */
+	public void setFastSampling(boolean fastSampling) {
+		this.fastSampling = fastSampling;
+	}
+
 	@Override
 	public String toString() {
 		return "DblDistribution(" + String.valueOf(distribution) + ')';
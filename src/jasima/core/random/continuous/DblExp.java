@@ -66,6 +66,11 @@ public final class DblExp extends DblDistribution {
 		setDistribution(dist);
 	}
 
+	@Override
+	protected double nextDblFast() {
+		return dist.getMean() * FastSampling.exponential(rndGen);
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblExp(mean=%f)", getMean());
@@ -61,6 +61,11 @@ public class DblGamma extends DblDistribution {
 		super.setDistribution(distribution);
 	}
 
+	@Override
+	protected double nextDblFast() {
+		return dist.getScale() * FastSampling.gamma(rndGen, dist.getShape());
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblGamma(shape=%f;scale=%f)", getShape(), getScale());
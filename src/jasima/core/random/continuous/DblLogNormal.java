@@ -60,6 +60,11 @@ public class DblLogNormal extends DblDistribution {
 		super.setDistribution(distribution);
 	}
 
+	@Override
+	protected double nextDblFast() {
+		return Math.exp(dist.getScale() + dist.getShape() * FastSampling.normal(rndGen));
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblLogNormal(shape=%f;scale=%f)", getShape(), getScale());
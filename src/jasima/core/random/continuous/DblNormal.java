@@ -20,6 +20,8 @@
  *******************************************************************************/
 package jasima.core.random.continuous;
 
+import java.util.Random;
+
 import org.apache.commons.math3.exception.NotPositiveException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 
@@ -44,6 +46,7 @@ public class DblNormal extends DblStream {
 
 	private double mean;
 	private double stdev;
+	private boolean fastSampling = false;
 
 	public DblNormal() {
 		this(0.0, 1.0);
@@ -58,7 +61,8 @@ public class DblNormal extends DblStream {
 
 	@Override
 	public double nextDbl() {
-		return getMean() + rndGen.nextGaussian() * getStdev();
+		double z = fastSampling ? FastSampling.normal(rndGen) : rndGen.nextGaussian();
+		return getMean() + z * getStdev();
 	}
 
 	@Override
@@ -112,4 +116,21 @@ public class DblNormal extends DblStream {
 		}
 	}
 
+	public boolean isFastSampling() {
+		return fastSampling;
+	}
+
+	/**
+	 * Sets whether values should be produced using the Ziggurat method (see
+	 * {@link FastSampling#normal(Random)}) instead of
+	 * {@link Random#nextGaussian()}. This is faster and avoids the
+	 * synchronization of {@code nextGaussian()}, but produces different values.
+	 * Defaults to {@code false}.
+	 * 
+	 * @param fastSampling Whether or not to use fast sampling.
+	 */
+	public void setFastSampling(boolean fastSampling) {
+		this.fastSampling = fastSampling;
+	}
+
 }
@@ -24,6 +24,8 @@ import java.io.Serializable;
 import java.util.Random;
 
 import jasima.core.random.RandomFactory;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.core.util.Pair;
 import jasima.shopSim.util.modelDef.streams.DblStreamDef;
 
@@ -33,7 +35,7 @@ import jasima.shopSim.util.modelDef.streams.DblStreamDef;
  * 
  * @author Torsten Hildebrandt
  */
-public abstract class DblStream implements Serializable, Cloneable {
+public abstract class DblStream implements Serializable, Cloneable, Forkable {
 
 	private static final long serialVersionUID = 7236623667061348954L;
 
@@ -120,6 +122,22 @@ public abstract class DblStream implements Serializable, Cloneable {
 		}
 	}
 
+	/**
+	 * Creates a copy of this stream as part of forking a simulation. The random
+	 * number generator is copied as well, so the copy continues the same
+	 * sequence of numbers independently of the original.
+	 */
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		try {
+			DblStream c = ctx.register(this, (DblStream) super.clone());
+			c.rndGen = ctx.copy(rndGen);
+			return c;
+		} catch (CloneNotSupportedException cantHappen) {
+			throw new AssertionError(cantHappen);
+		}
+	}
+
 	/**
 	 * Returns the random number generator currently associated with this stream.
 	 */
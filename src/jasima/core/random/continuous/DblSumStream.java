@@ -22,6 +22,7 @@ package jasima.core.random.continuous;
 
 import java.util.Arrays;
 
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 import jasima.core.util.Util;
 
@@ -118,4 +119,11 @@ public class DblSumStream extends DblStream {
 		this.subStreams = subStreams;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		DblSumStream c = (DblSumStream) super.forkCopy(ctx);
+		c.subStreams = ctx.copy(subStreams);
+		return c;
+	}
+
 }
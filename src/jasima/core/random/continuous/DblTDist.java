@@ -61,6 +61,14 @@ public class DblTDist extends DblDistribution {
 		super.setDistribution(distribution);
 	}
 
+	@Override
+	protected double nextDblFast() {
+		// standard normal divided by sqrt(chi-squared/degreesOfFreedom)
+		double df = dist.getDegreesOfFreedom();
+		double chiSq = 2.0 * FastSampling.gamma(rndGen, 0.5 * df);
+		return FastSampling.normal(rndGen) / Math.sqrt(chiSq / df);
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblTDist(degreesOfFreedom=%f)", getDegreesOfFreedom());
@@ -20,6 +20,7 @@
  *******************************************************************************/
 package jasima.core.random.continuous;
 
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 import jasima.core.util.Util;
 
@@ -112,6 +113,13 @@ public class DblTruncatedSimple extends DblStream {
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		DblTruncatedSimple c = (DblTruncatedSimple) super.forkCopy(ctx);
+		c.baseStream = ctx.copy(baseStream);
+		return c;
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblTruncatedSimple(baseStream=%s;minValue=%f;maxValue=%f)",
@@ -61,6 +61,11 @@ public class DblWeibull extends DblDistribution {
 		super.setDistribution(distribution);
 	}
 
+	@Override
+	protected double nextDblFast() {
+		return dist.getScale() * Math.pow(FastSampling.exponential(rndGen), 1.0 / dist.getShape());
+	}
+
 	@Override
 	public String toString() {
 		return String.format(Util.DEF_LOCALE, "DblWeibull(shape=%f;scale=%f)", getShape(), getScale());
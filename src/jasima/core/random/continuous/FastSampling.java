@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random.continuous;
+
+import java.util.Random;
+
+/**
+ * Static methods to sample values of some common distributions using dedicated
+ * algorithms instead of inverting their cumulative distribution function. These
+ * methods are used by {@link DblDistribution} and {@link DblNormal} if their
+ * property {@code fastSampling} is set.
+ * <p>
+ * Normal and exponential values are produced using the Ziggurat method of
+ * Marsaglia and Tsang (2000), Gamma values with the method of Marsaglia and
+ * Tsang (2000), too. Beta values are computed from the ratio of two Gamma
+ * values. As all these methods use a varying number of random numbers per
+ * value, the values produced are different from the ones produced by inversion.
+ * <p>
+ * The Ziggurat layer and the value of a normal or exponential number are taken
+ * from different parts of a single {@link Random#nextLong()}, avoiding the
+ * correlation between layer and value of the original implementation.
+ *
+ * @see <a href="https://doi.org/10.18637/jss.v005.i08">Marsaglia, Tsang: The
+ *      Ziggurat Method for Generating Random Variables</a>
+ * @see <a href="https://doi.org/10.1145/358407.358414">Marsaglia, Tsang: A
+ *      Simple Method for Generating Gamma Variables</a>
+ */
+public final class FastSampling {
+
+	// Ziggurat tables for the normal distribution, 128 layers
+	private static final double NORM_R = 3.442619855899;
+	private static final long[] kn = new long[128];
+	private static final double[] wn = new double[128];
+	private static final double[] fn = new double[128];
+
+	// Ziggurat tables for the exponential distribution, 256 layers
+	private static final double EXP_R = 7.697117470131487;
+	private static final long[] ke = new long[256];
+	private static final double[] we = new double[256];
+	private static final double[] fe = new double[256];
+
+	static {
+		final double m1 = 2147483648.0; // 2^31
+		final double vn = 9.91256303526217e-3;
+		double dn = NORM_R, tn = dn;
+		double q = vn / Math.exp(-0.5 * dn * dn);
+		kn[0] = (long) ((dn / q) * m1);
+		kn[1] = 0;
+		wn[0] = q / m1;
+		wn[127] = dn / m1;
+		fn[0] = 1.0;
+		fn[127] = Math.exp(-0.5 * dn * dn);
+		for (int i = 126; i >= 1; i--) {
+			dn = Math.sqrt(-2.0 * Math.log(vn / dn + Math.exp(-0.5 * dn * dn)));
+			kn[i + 1] = (long) ((dn / tn) * m1);
+			tn = dn;
+			fn[i] = Math.exp(-0.5 * dn * dn);
+			wn[i] = dn / m1;
+		}
+
+		final double m2 = 4294967296.0; // 2^32
+		final double ve = 3.949659822581572e-3;
+		double de = EXP_R, te = de;
+		q = ve / Math.exp(-de);
+		ke[0] = (long) ((de / q) * m2);
+		ke[1] = 0;
+		we[0] = q / m2;
+		we[255] = de / m2;
+		fe[0] = 1.0;
+		fe[255] = Math.exp(-de);
+		for (int i = 254; i >= 1; i--) {
+			de = -Math.log(ve / de + Math.exp(-de));
+			ke[i + 1] = (long) ((de / te) * m2);
+			te = de;
+			fe[i] = Math.exp(-de);
+			we[i] = de / m2;
+		}
+	}
+
+	private FastSampling() {
+	}
+
+	/**
+	 * Returns a uniformly distributed value in the interval (0,1].
+	 */
+	private static double uniformPositive(Random rnd) {
+		return 1.0 - rnd.nextDouble();
+	}
+
+	/**
+	 * Returns a value following a standard normal distribution (mean 0.0,
+	 * standard deviation 1.0).
+	 */
+	public static double normal(Random rnd) {
+		long l = rnd.nextLong();
+		int iz = (int) (l & 127);
+		int hz = (int) (l >> 32);
+		if (Math.abs((long) hz) < kn[iz])
+			return hz * wn[iz];
+
+		while (true) {
+			if (iz == 0) {
+				// sample from the tail
+				double x, y;
+				do {
+					x = -Math.log(uniformPositive(rnd)) / NORM_R;
+					y = -Math.log(uniformPositive(rnd));
+				} while (y + y < x * x);
+				return hz > 0 ? NORM_R + x : -NORM_R - x;
+			}
+
+			double x = hz * wn[iz];
+			if (fn[iz] + rnd.nextDouble() * (fn[iz - 1] - fn[iz]) < Math.exp(-0.5 * x * x))
+				return x;
+
+			l = rnd.nextLong();
+			iz = (int) (l & 127);
+			hz = (int) (l >> 32);
+			if (Math.abs((long) hz) < kn[iz])
+				return hz * wn[iz];
+		}
+	}
+
+	/**
+	 * Returns a value following an exponential distribution with mean 1.0.
+	 */
+	public static double exponential(Random rnd) {
+		long l = rnd.nextLong();
+		int iz = (int) (l & 255);
+		long jz = l >>> 32;
+		if (jz < ke[iz])
+			return jz * we[iz];
+
+		while (true) {
+			if (iz == 0) {
+				// sample from the tail
+				return EXP_R - Math.log(uniformPositive(rnd));
+			}
+
+			double x = jz * we[iz];
+			if (fe[iz] + rnd.nextDouble() * (fe[iz - 1] - fe[iz]) < Math.exp(-x))
+				return x;
+
+			l = rnd.nextLong();
+			iz = (int) (l & 255);
+			jz = l >>> 32;
+			if (jz < ke[iz])
+				return jz * we[iz];
+		}
+	}
+
+	/**
+	 * Returns a value following a Gamma distribution with the given shape
+	 * parameter and a scale of 1.0.
+	 *
+	 * @param rnd   The random number generator to use.
+	 * @param shape The shape parameter, has to be {@code >0}.
+	 */
+	public static double gamma(Random rnd, double shape) {
+		if (shape < 1.0) {
+			// boost using gamma(shape+1)*U^(1/shape)
+			double g = gamma(rnd, shape + 1.0);
+			return g * Math.pow(uniformPositive(rnd), 1.0 / shape);
+		}
+
+		final double d = shape - 1.0 / 3.0;
+		final double c = 1.0 / Math.sqrt(9.0 * d);
+		while (true) {
+			double x, v;
+			do {
+				x = normal(rnd);
+				v = 1.0 + c * x;
+			} while (v <= 0.0);
+
+			v = v * v * v;
+			double u = uniformPositive(rnd);
+			double x2 = x * x;
+			if (u < 1.0 - 0.0331 * x2 * x2)
+				return d * v;
+			if (Math.log(u) < 0.5 * x2 + d * (1.0 - v + Math.log(v)))
+				return d * v;
+		}
+	}
+
+	/**
+	 * Returns a value following a Beta distribution with the two shape
+	 * parameters {@code alpha} and {@code beta}.
+	 *
+	 * @param rnd   The random number generator to use.
+	 * @param alpha The first shape parameter, has to be {@code >0}.
+	 * @param beta  The second shape parameter, has to be {@code >0}.
+	 */
+	public static double beta(Random rnd, double alpha, double beta) {
+		double x = gamma(rnd, alpha);
+		double y = gamma(rnd, beta);
+		return x / (x + y);
+	}
+
+}
@@ -22,6 +22,8 @@ package jasima.core.random.discrete;
 
 import java.util.Arrays;
 
+import jasima.core.random.continuous.DblStream;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 import jasima.core.util.Util;
 
@@ -123,6 +125,14 @@ public class IntConst extends IntStream {
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		IntConst c = (IntConst) super.forkCopy(ctx);
+		c.values = ctx.copy(values);
+		c.valuesRnd = ctx.copy(valuesRnd);
+		return c;
+	}
+
 	public int[] getValues() {
 		return values;
 	}
@@ -3,6 +3,7 @@ package jasima.core.random.discrete;
 import java.util.Random;
 
 import jasima.core.random.continuous.DblStream;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 
 /**
@@ -73,6 +74,13 @@ public class IntDiscretized extends IntStream {
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		IntDiscretized c = (IntDiscretized) super.forkCopy(ctx);
+		c.baseStream = ctx.copy(baseStream);
+		return c;
+	}
+
 	@Override
 	public String toString() {
 		return "IntDiscretized(baseStream=" + String.valueOf(getBaseStream()) + ")";
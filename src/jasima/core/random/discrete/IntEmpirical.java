@@ -23,6 +23,8 @@ package jasima.core.random.discrete;
 import java.util.Arrays;
 import java.util.Random;
 
+import jasima.core.random.continuous.DblStream;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 import jasima.core.util.Util;
 
@@ -30,6 +32,8 @@ import jasima.core.util.Util;
  * Returns an integer in the range [0,n]. The probability of each value is
  * determined by the probabilities passed to {@link #setProbabilities(double[])}
  * , and can be arbitrary positive numbers as long as they sum up to 1.0.
+ * <p>
+ * How values are sampled is determined by {@link #setSamplingMethod(Method)}.
  * 
  * @author Torsten Hildebrandt
  */
@@ -37,6 +41,41 @@ public class IntEmpirical extends IntStream {
 
 	private static final long serialVersionUID = -8591371451392742035L;
 
+	/**
+	 * Methods to sample values.
+	 */
+	public enum Method {
+		/**
+		 * Inverts the cumulative distribution function (CDF), i.e., returns the
+		 * first value where the CDF exceeds a uniformly distributed random number.
+		 * The CDF is computed once, the value is found by a linear search for up to
+		 * {@link IntEmpirical#LINEAR_SEARCH_MAX} values, by a binary search
+		 * otherwise. This method produces exactly the same values as previous
+		 * versions of this class.
+		 */
+		INVERSION,
+		/**
+		 * Walker's alias method (using the table construction by Vose), requiring
+		 * constant time per value. It also uses a single random number per value,
+		 * but maps it differently to values than {@link #INVERSION}, i.e.,
+		 * produces different values for the same random number stream.
+		 */
+		ALIAS,
+		/**
+		 * Uses {@link #INVERSION} for up to
+		 * {@link IntEmpirical#LINEAR_SEARCH_MAX} values and {@link #ALIAS} for
+		 * larger tables. Values of small tables are therefore the same as the
+		 * ones of previous versions of this class.
+		 */
+		AUTO
+	}
+
+	/**
+	 * Maximum number of values where {@link Method#INVERSION} uses a linear
+	 * search.
+	 */
+	public static final int LINEAR_SEARCH_MAX = 16;
+
 	public IntEmpirical() {
 		this(null, null, null, null);
 	}
@@ -75,6 +114,13 @@ public class IntEmpirical extends IntStream {
 	private double[] probs = null;
 	private int[] vals = null;
 	private Double mean = null;
+	private Method samplingMethod = Method.INVERSION;
+
+	// sampling tables, created on first use
+	private double[] cdf = null;
+	private boolean cdfMonotone;
+	private double[] aliasProbs = null;
+	private int[] aliases = null;
 
 	public double[] getProbabilities() {
 		return probs;
@@ -94,22 +140,136 @@ public class IntEmpirical extends IntStream {
 
 	@Override
 	public int nextInt() {
+		int n = useAlias() ? nextIndexAlias() : nextIndexInversion();
+		return vals != null ? vals[n] : n;
+	}
+
+	private boolean useAlias() {
+		switch (samplingMethod) {
+		case ALIAS:
+			return true;
+		case AUTO:
+			return probs.length > LINEAR_SEARCH_MAX;
+		default:
+			return false;
+		}
+	}
+
+	private int nextIndexInversion() {
+		if (cdf == null)
+			createCdf();
+
 		double prob = rndGen.nextDouble();
 
-		int n = -1;
+		final double[] cdf = this.cdf;
+		final int num = cdf.length;
+		int n;
+		if (num <= LINEAR_SEARCH_MAX || !cdfMonotone) {
+			n = 0;
+			while (n < num && !(cdf[n] > prob)) {
+				n++;
+			}
+		} else {
+			// find first entry larger than 'prob'
+			int lo = 0, hi = num;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (cdf[mid] > prob)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			n = lo;
+		}
+
+		assert n < num; // we should always find something
+
+		return n;
+	}
+
+	private int nextIndexAlias() {
+		if (aliasProbs == null)
+			createAliasTable();
+
+		final int num = aliasProbs.length;
+		double u = rndGen.nextDouble() * num;
+		int n = Math.min((int) u, num - 1);
+
+		return u - n < aliasProbs[n] ? n : aliases[n];
+	}
+
+	/**
+	 * Computes the CDF, summing up probabilities in exactly the same order as
+	 * the former linear search did.
+	 */
+	private void createCdf() {
+		double[] res = new double[probs.length];
+		boolean monotone = true;
 
 		double d = 0.0d;
 		for (int i = 0; i < probs.length; i++) {
+			monotone &= probs[i] >= 0.0;
 			d += probs[i];
-			if (d > prob) {
-				n = i;
-				break; // for
-			}
+			res[i] = d;
 		}
 
-		assert n >= 0; // we should always find something
+		cdf = res;
+		cdfMonotone = monotone;
+	}
+
+	/**
+	 * Creates the alias table using Vose's algorithm.
+	 */
+	private void createAliasTable() {
+		final int num = probs.length;
+		final double sum = Util.sum(probs);
+
+		double[] ps = new double[num];
+		int[] as = new int[num];
+
+		// scaled probabilities, average is 1.0
+		double[] scaled = new double[num];
+		int[] small = new int[num];
+		int[] large = new int[num];
+		int numSmall = 0, numLarge = 0;
+		for (int i = 0; i < num; i++) {
+			if (probs[i] < 0.0)
+				throw new IllegalStateException("negative probability: " + probs[i]);
+			scaled[i] = probs[i] * num / sum;
+			if (scaled[i] < 1.0)
+				small[numSmall++] = i;
+			else
+				large[numLarge++] = i;
+		}
 
-		return vals != null ? vals[n] : n;
+		while (numSmall > 0 && numLarge > 0) {
+			int s = small[--numSmall];
+			int l = large[--numLarge];
+
+			ps[s] = scaled[s];
+			as[s] = l;
+
+			scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+			if (scaled[l] < 1.0)
+				small[numSmall++] = l;
+			else
+				large[numLarge++] = l;
+		}
+
+		// remaining entries are (up to rounding errors) exactly 1.0
+		while (numLarge > 0) {
+			int l = large[--numLarge];
+			ps[l] = 1.0;
+			as[l] = l;
+		}
+		while (numSmall > 0) {
+			int s = small[--numSmall];
+			ps[s] = 1.0;
+			as[s] = s;
+		}
+
+		aliasProbs = ps;
+		aliases = as;
 	}
 
 	public void setProbabilities(double[] probs, int[] values) {
@@ -119,9 +279,31 @@ public class IntEmpirical extends IntStream {
 		if (values != null && values.length != probs.length)
 			throw new IllegalArgumentException("There has to be a value for each probability.");
 
-		this.probs = probs;
+		// copy, so the sampling tables can't get out of sync with the caller's
+		// array
+		this.probs = probs == null ? null : probs.clone();
 		this.vals = values;
 		this.mean = null;
+		this.cdf = null;
+		this.aliasProbs = null;
+		this.aliases = null;
+	}
+
+	public Method getSamplingMethod() {
+		return samplingMethod;
+	}
+
+	/**
+	 * Sets the method used to sample values. Defaults to
+	 * {@link Method#INVERSION}, so existing random sequences are reproduced; use
+	 * {@link Method#AUTO} to let the size of the table decide.
+	 * 
+	 * @param samplingMethod The sampling method to use.
+	 */
+	public void setSamplingMethod(Method samplingMethod) {
+		if (samplingMethod == null)
+			throw new NullPointerException();
+		this.samplingMethod = samplingMethod;
 	}
 
 	@Override
@@ -149,10 +331,24 @@ public class IntEmpirical extends IntStream {
 			c.probs = probs.clone();
 		if (vals != null)
 			c.vals = vals.clone();
+		c.cdf = null;
+		c.aliasProbs = null;
+		c.aliases = null;
 
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		IntEmpirical c = (IntEmpirical) super.forkCopy(ctx);
+		c.probs = ctx.copy(probs);
+		c.vals = ctx.copy(vals);
+		c.cdf = ctx.copy(cdf);
+		c.aliasProbs = ctx.copy(aliasProbs);
+		c.aliases = ctx.copy(aliases);
+		return c;
+	}
+
 	@Override
 	public String toString() {
 		String params = "";
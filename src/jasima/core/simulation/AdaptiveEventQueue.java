@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and
+ * logistics.
+ *
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.io.Serializable;
+
+import jasima.core.simulation.Simulation.EventQueue;
+import jasima.core.util.ForkContext;
+
+/**
+ * An implementation of {@link jasima.core.simulation.Simulation.EventQueue}
+ * switching between an {@link EventHeap} (for a small number of pending
+ * events) and a {@link LadderQueue} (for a large number of pending events)
+ * depending on the current queue size. To avoid frequent switching, the queue
+ * switches to the ladder queue if its size exceeds {@link #getUpperThreshold()}
+ * and back to the heap if it drops below {@link #getLowerThreshold()}.
+ * <p>
+ * Both implementations produce exactly the same order of events, so switching
+ * does not affect simulation results.
+ */
+public final class AdaptiveEventQueue implements EventQueue, Serializable, Cloneable {
+	private static final long serialVersionUID = 3361850386002417046L;
+
+	public static final int DEF_UPPER_THRESHOLD = 2048;
+	public static final int DEF_LOWER_THRESHOLD = 512;
+
+	private final int upperThreshold;
+	private final int lowerThreshold;
+
+	private EventHeap heap;
+	private LadderQueue ladder;
+	private boolean useLadder;
+	private int size;
+	private int numSwitches;
+
+	public AdaptiveEventQueue() {
+		this(DEF_LOWER_THRESHOLD, DEF_UPPER_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new adaptive event queue with the given thresholds.
+	 *
+	 * @param lowerThreshold Switch back to a heap if the size drops below this
+	 *                       value.
+	 * @param upperThreshold Switch to a ladder queue if the size exceeds this
+	 *                       value.
+	 * @exception IllegalArgumentException if {@code lowerThreshold} is negative or
+	 *                                     not smaller than
+	 *                                     {@code upperThreshold}
+	 */
+	public AdaptiveEventQueue(int lowerThreshold, int upperThreshold) throws IllegalArgumentException {
+		super();
+		if (lowerThreshold < 0 || lowerThreshold >= upperThreshold)
+			throw new IllegalArgumentException(lowerThreshold + " " + upperThreshold);
+
+		this.lowerThreshold = lowerThreshold;
+		this.upperThreshold = upperThreshold;
+
+		heap = new EventHeap();
+		ladder = null;
+		useLadder = false;
+		size = 0;
+		numSwitches = 0;
+	}
+
+	@Override
+	public void insert(SimEvent e) {
+		if (useLadder) {
+			ladder.insert(e);
+		} else {
+			heap.insert(e);
+			if (size + 1 > upperThreshold) {
+				switchToLadder();
+			}
+		}
+		size++;
+	}
+
+	@Override
+	public SimEvent extract() {
+		if (size == 0)
+			return null;
+
+		SimEvent res;
+		if (useLadder) {
+			res = ladder.extract();
+			if (size - 1 < lowerThreshold) {
+				switchToHeap();
+			}
+		} else {
+			res = heap.extract();
+		}
+		size--;
+
+		return res;
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0)
+			return null;
+
+		return useLadder ? ladder.peek() : heap.peek();
+	}
+
+	private void switchToLadder() {
+		if (ladder == null)
+			ladder = new LadderQueue();
+
+		for (int i = heap.size(); i > 0; i--) {
+			ladder.insert(heap.extract());
+		}
+		assert heap.size() == 0;
+
+		useLadder = true;
+		numSwitches++;
+	}
+
+	private void switchToHeap() {
+		for (int i = ladder.size(); i > 0; i--) {
+			heap.insert(ladder.extract());
+		}
+		assert ladder.size() == 0;
+
+		useLadder = false;
+		numSwitches++;
+	}
+
+	/** Return number of elements */
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public AdaptiveEventQueue forkCopy(ForkContext ctx) {
+		try {
+			AdaptiveEventQueue c = ctx.register(this, (AdaptiveEventQueue) clone());
+			c.heap = ctx.copy(heap);
+			c.ladder = ctx.copy(ladder);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
+	/** Returns whether a {@link LadderQueue} is currently used. */
+	public boolean isLadderQueueUsed() {
+		return useLadder;
+	}
+
+	/** Returns how often the underlying implementation was switched. */
+	public int numSwitches() {
+		return numSwitches;
+	}
+
+	public int getLowerThreshold() {
+		return lowerThreshold;
+	}
+
+	public int getUpperThreshold() {
+		return upperThreshold;
+	}
+
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and
+ * logistics.
+ *
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import jasima.core.simulation.Simulation.EventQueue;
+import jasima.core.util.ForkContext;
+
+/**
+ * An implementation of {@link jasima.core.simulation.Simulation.EventQueue}
+ * using a calendar queue (R. Brown: "Calendar queues: a fast O(1) priority
+ * queue implementation for the simulation event set problem", Communications of
+ * the ACM 31(10), 1988).
+ * <p>
+ * Events are hashed by their time into a circular array of buckets ("days" of
+ * a "year"), each bucket being a small array sorted according to
+ * {@link SimEvent#compareTo(SimEvent)}. All events with the same time always end
+ * up in the same bucket, therefore the order of events is exactly the same as
+ * with {@link EventHeap}. The number of buckets and the bucket width are
+ * adjusted automatically whenever the number of events changes significantly.
+ * <p>
+ * Events with an infinite time (or NaN) can't be hashed, they are stored in a
+ * separate {@link EventHeap}.
+ *
+ * @see LadderQueue
+ * @see AdaptiveEventQueue
+ */
+public final class CalendarQueue implements EventQueue, Serializable, Cloneable {
+	private static final long serialVersionUID = 1874513524812532217L;
+
+	private static final int MIN_BUCKETS = 16;
+	private static final int INITIAL_BUCKET_CAPACITY = 4;
+	private static final int SAMPLE_SIZE = 64;
+
+	// each bucket is sorted in descending order, i.e., smallest event is last
+	private SimEvent[][] buckets;
+	private int[] bucketSizes;
+	private int mask; // buckets.length-1, number of buckets is a power of 2
+	private double width;
+
+	// virtual bucket (i.e., not taking the modulus) to start the search with
+	private long curBucket;
+	private int count;
+
+	// events with non-finite time
+	private EventHeap nonFinite;
+
+	private boolean resizeEnabled = true;
+
+	/**
+	 * Creates a new calendar queue with an initial bucket width of 1.0.
+	 */
+	public CalendarQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a new calendar queue with the given initial bucket width.
+	 *
+	 * @param bucketWidth The initial bucket width, has to be positive.
+	 * @exception IllegalArgumentException if bucketWidth is not a positive number
+	 */
+	public CalendarQueue(double bucketWidth) throws IllegalArgumentException {
+		super();
+		if (!(bucketWidth > 0.0) || Double.isInfinite(bucketWidth))
+			throw new IllegalArgumentException("" + bucketWidth);
+
+		nonFinite = new EventHeap(11);
+		initBuckets(MIN_BUCKETS, bucketWidth);
+		curBucket = 0;
+		count = 0;
+	}
+
+	private void initBuckets(int numBuckets, double bucketWidth) {
+		buckets = new SimEvent[numBuckets][];
+		bucketSizes = new int[numBuckets];
+		mask = numBuckets - 1;
+		width = bucketWidth;
+	}
+
+	private long virtualBucket(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	@Override
+	public void insert(SimEvent e) {
+		final double t = e.getTime();
+		if (Double.isNaN(t) || Double.isInfinite(t)) {
+			nonFinite.insert(e);
+			return;
+		}
+
+		long vb = virtualBucket(t);
+		if (count == 0 || vb < curBucket) {
+			curBucket = vb;
+		}
+
+		addToBucket((int) vb & mask, e);
+		count++;
+
+		if (resizeEnabled && count > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	private void addToBucket(int b, SimEvent e) {
+		SimEvent[] bucket = buckets[b];
+		int n = bucketSizes[b];
+
+		if (bucket == null) {
+			bucket = buckets[b] = new SimEvent[INITIAL_BUCKET_CAPACITY];
+		} else if (n == bucket.length) {
+			bucket = buckets[b] = Arrays.copyOf(bucket, 2 * n);
+		}
+
+		// find insert position, bucket is sorted in descending order; events
+		// are usually added near the end, so search from there
+		int i = n;
+		while (i > 0 && e.compareTo(bucket[i - 1]) > 0) {
+			bucket[i] = bucket[i - 1];
+			i--;
+		}
+		bucket[i] = e;
+
+		bucketSizes[b] = n + 1;
+	}
+
+	@Override
+	public SimEvent extract() {
+		int b = findMin();
+		if (b < 0) {
+			return nonFinite.size() > 0 ? nonFinite.extract() : null;
+		}
+
+		SimEvent min = buckets[b][bucketSizes[b] - 1];
+		if (nonFinite.size() > 0 && nonFinite.peek().compareTo(min) < 0) {
+			return nonFinite.extract();
+		}
+
+		int n = --bucketSizes[b];
+		buckets[b][n] = null;
+		count--;
+
+		if (resizeEnabled && buckets.length > MIN_BUCKETS && count < buckets.length / 2) {
+			resize(buckets.length / 2);
+		}
+
+		return min;
+	}
+
+	@Override
+	public SimEvent peek() {
+		int b = findMin();
+		SimEvent min = b < 0 ? null : buckets[b][bucketSizes[b] - 1];
+
+		if (nonFinite.size() > 0 && (min == null || nonFinite.peek().compareTo(min) < 0)) {
+			return nonFinite.peek();
+		} else {
+			return min;
+		}
+	}
+
+	/**
+	 * Returns the index of the bucket containing the smallest event, or -1 if
+	 * there are no (finite) events. As a side effect {@link #curBucket} is
+	 * advanced to the virtual bucket of this event.
+	 */
+	private int findMin() {
+		if (count == 0)
+			return -1;
+
+		// search for an event in the current year
+		long vb = curBucket;
+		for (int i = 0, n = buckets.length; i < n; i++, vb++) {
+			int b = (int) vb & mask;
+			int size = bucketSizes[b];
+			if (size > 0 && virtualBucket(buckets[b][size - 1].getTime()) == vb) {
+				curBucket = vb;
+				return b;
+			}
+		}
+
+		// nothing found, do a direct search for the minimum
+		int minB = -1;
+		SimEvent min = null;
+		for (int b = 0; b < buckets.length; b++) {
+			int size = bucketSizes[b];
+			if (size > 0) {
+				SimEvent e = buckets[b][size - 1];
+				if (min == null || e.compareTo(min) < 0) {
+					min = e;
+					minB = b;
+				}
+			}
+		}
+		curBucket = virtualBucket(min.getTime());
+
+		return minB;
+	}
+
+	private void resize(int newNumBuckets) {
+		SimEvent[] all = new SimEvent[count];
+		int n = 0;
+		for (int b = 0; b < buckets.length; b++) {
+			if (bucketSizes[b] > 0) {
+				System.arraycopy(buckets[b], 0, all, n, bucketSizes[b]);
+				n += bucketSizes[b];
+			}
+		}
+		assert n == count;
+
+		initBuckets(newNumBuckets, estimateWidth(all));
+
+		// re-insert all events
+		resizeEnabled = false;
+		count = 0;
+		for (SimEvent e : all) {
+			insert(e);
+		}
+		resizeEnabled = true;
+	}
+
+	/**
+	 * Estimates a new bucket width from a sample of the events currently in the
+	 * queue. The bucket width is set to three times the average distance between
+	 * the times of consecutive events.
+	 */
+	private double estimateWidth(SimEvent[] all) {
+		int n = all.length;
+		if (n < 2)
+			return width;
+
+		int numSamples = Math.min(n, SAMPLE_SIZE);
+		double[] sample = new double[numSamples];
+		for (int i = 0; i < numSamples; i++) {
+			sample[i] = all[(int) ((long) i * n / numSamples)].getTime();
+		}
+		Arrays.sort(sample);
+
+		double range = sample[numSamples - 1] - sample[0];
+		// average separation of events, extrapolated from the sample to all events
+		double avgSep = range / (numSamples - 1) * numSamples / n;
+		double w = 3.0 * avgSep;
+
+		return (w > 0.0 && !Double.isInfinite(w)) ? w : width;
+	}
+
+	/** Return number of elements */
+	public int size() {
+		return count + nonFinite.size();
+	}
+
+	/** Returns the current bucket width. */
+	public double bucketWidth() {
+		return width;
+	}
+
+	@Override
+	public CalendarQueue forkCopy(ForkContext ctx) {
+		try {
+			CalendarQueue c = ctx.register(this, (CalendarQueue) clone());
+			c.buckets = ctx.copy(buckets);
+			c.bucketSizes = bucketSizes.clone();
+			c.nonFinite = ctx.copy(nonFinite);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
+	/** Returns the current number of buckets. */
+	public int numBuckets() {
+		return buckets.length;
+	}
+
+}
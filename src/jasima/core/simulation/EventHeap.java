@@ -23,6 +23,7 @@ package jasima.core.simulation;
 import java.io.Serializable;
 
 import jasima.core.simulation.Simulation.EventQueue;
+import jasima.core.util.ForkContext;
 
 /**
  * An implementation of {@link jasima.core.simulation.Simulation.EventQueue}
@@ -31,7 +32,7 @@ import jasima.core.simulation.Simulation.EventQueue;
  * @author Torsten Hildebrandt, 2012-08-30
  * @version "$Id$"
  */
-public final class EventHeap implements EventQueue, Serializable {
+public final class EventHeap implements EventQueue, Serializable, Cloneable {
 	private static final long serialVersionUID = -7578258752027946114L;
 
 	private SimEvent[] nodes; // the tree nodes, packed into an array
@@ -154,10 +155,18 @@ public final class EventHeap implements EventQueue, Serializable {
 	}
 
 	/** Return least element without removing it, or null if empty * */
+	@Override
 	public SimEvent peek() {
-		if (count > 0)
+		if (count > 0) {
+			if (invalidRoot) {
+				// previous extract() left a hole at the root
+				nodes[0] = nodes[count];
+				nodes[count] = null;
+
+				sinkRoot();
+			}
 			return nodes[0];
-		else
+		} else
 			return null;
 	}
 
@@ -183,4 +192,15 @@ public final class EventHeap implements EventQueue, Serializable {
 		nodes = newnodes;
 	}
 
+	@Override
+	public EventHeap forkCopy(ForkContext ctx) {
+		try {
+			EventHeap c = ctx.register(this, (EventHeap) clone());
+			c.nodes = ctx.copy(nodes);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
 }
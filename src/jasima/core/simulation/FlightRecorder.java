@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.util.Arrays;
+
+import jasima.core.simulation.Simulation.MethodCallEvent;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+import jasima.core.util.Util;
+
+/**
+ * Records the last {@code capacity} events processed by a {@link Simulation}
+ * in a ring buffer, to be able to diagnose errors after they occurred. For
+ * each event its time, priority, event number, class, kind and description are
+ * stored in preallocated arrays, so recording an event does not allocate any
+ * objects. For {@link MethodCallEvent}s the class of the called method (i.e.,
+ * usually a lambda expression of the scheduling component) is stored instead
+ * of the event class.
+ * <p>
+ * A simulation dumps its recorder automatically in
+ * {@link Simulation#handleError(Throwable)}, {@link #dump()} can be used to do
+ * so on request.
+ * 
+ * @see Simulation#setFlightRecorderSize(int)
+ */
+public class FlightRecorder implements Forkable {
+
+	private final double[] times;
+	private final int[] prios;
+	private final long[] eventNums;
+	private final Class<?>[] classes;
+	private final Object[] kinds;
+	private final String[] descriptions;
+
+	private int next;
+	private long numRecorded;
+
+	public FlightRecorder(int capacity) {
+		super();
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity has to be positive: " + capacity);
+
+		times = new double[capacity];
+		prios = new int[capacity];
+		eventNums = new long[capacity];
+		classes = new Class<?>[capacity];
+		kinds = new Object[capacity];
+		descriptions = new String[capacity];
+	}
+
+	private FlightRecorder(FlightRecorder r) {
+		super();
+
+		times = r.times.clone();
+		prios = r.prios.clone();
+		eventNums = r.eventNums.clone();
+		classes = r.classes.clone();
+		kinds = r.kinds.clone();
+		descriptions = r.descriptions.clone();
+		next = r.next;
+		numRecorded = r.numRecorded;
+	}
+
+	@Override
+	public FlightRecorder forkCopy(ForkContext ctx) {
+		return ctx.register(this, new FlightRecorder(this));
+	}
+
+	/**
+	 * Records the event {@code e}, overwriting the oldest event if the buffer is
+	 * full.
+	 */
+	public void record(SimEvent e) {
+		int i = next;
+		times[i] = e.getTime();
+		prios[i] = e.getPrio();
+		eventNums[i] = e.eventNum;
+		classes[i] = e instanceof MethodCallEvent ? ((MethodCallEvent) e).m.getClass() : e.getClass();
+		kinds[i] = e.getKind();
+		descriptions[i] = e.getDescription();
+
+		if (++i == times.length)
+			i = 0;
+		next = i;
+		numRecorded++;
+	}
+
+	/**
+	 * Removes all recorded events.
+	 */
+	public void clear() {
+		Arrays.fill(classes, null);
+		Arrays.fill(kinds, null);
+		Arrays.fill(descriptions, null);
+		next = 0;
+		numRecorded = 0;
+	}
+
+	/**
+	 * Returns the maximum number of events this recorder remembers.
+	 */
+	public int capacity() {
+		return times.length;
+	}
+
+	/**
+	 * Returns the number of events currently available, i.e., the minimum of
+	 * {@link #capacity()} and {@link #numRecorded()}.
+	 */
+	public int size() {
+		return (int) Math.min(numRecorded, times.length);
+	}
+
+	/**
+	 * Returns the total number of events recorded since creation or the last call
+	 * of {@link #clear()}.
+	 */
+	public long numRecorded() {
+		return numRecorded;
+	}
+
+	// index of the i'th available event, 0 being the oldest
+	private int index(int i) {
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException("Invalid index: " + i);
+		int idx = next - size() + i;
+		return idx < 0 ? idx + times.length : idx;
+	}
+
+	public double getTime(int i) {
+		return times[index(i)];
+	}
+
+	public int getPrio(int i) {
+		return prios[index(i)];
+	}
+
+	public long getEventNum(int i) {
+		return eventNums[index(i)];
+	}
+
+	public Class<?> getEventClass(int i) {
+		return classes[index(i)];
+	}
+
+	public Object getKind(int i) {
+		return kinds[index(i)];
+	}
+
+	public String getDescription(int i) {
+		return descriptions[index(i)];
+	}
+
+	/**
+	 * Returns all available events as a String, oldest first, one event per line.
+	 * Each line contains the number of the event (counting all recorded events),
+	 * time, priority, event number, class, kind and description, separated by
+	 * tabs.
+	 */
+	public String dump() {
+		StringBuilder sb = new StringBuilder();
+		long first = numRecorded - size();
+		for (int i = 0, n = size(); i < n; i++) {
+			int idx = index(i);
+			sb.append(String.format(Util.DEF_LOCALE, "%d\t%s\t%d\t%d\t%s\t%s\t%s%n", first + i, times[idx],
+					prios[idx], eventNums[idx], classes[idx].getName(), kinds[idx], descriptions[idx]));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "(" + size() + "/" + capacity() + ")";
+	}
+
+}
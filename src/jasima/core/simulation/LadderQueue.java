@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and
+ * logistics.
+ *
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+import jasima.core.simulation.Simulation.EventQueue;
+import jasima.core.util.ForkContext;
+
+/**
+ * An implementation of {@link jasima.core.simulation.Simulation.EventQueue}
+ * using a ladder queue (W.T. Tang, R.S.M. Goh, I.L.-J. Thng: "Ladder queue: An
+ * O(1) priority queue structure for large-scale discrete event simulation", ACM
+ * TOMACS 15(3), 2005).
+ * <p>
+ * The queue consists of three parts: an unsorted <i>top</i> list for events in
+ * the distant future, a <i>ladder</i> of rungs of buckets partitioning the near
+ * future, and a small sorted <i>bottom</i> list from which events are
+ * extracted. Events with the same time always end up in the same bucket and
+ * the bottom list is sorted using {@link SimEvent#compareTo(SimEvent)},
+ * therefore the order of events is exactly the same as with {@link EventHeap}.
+ * <p>
+ * Events with an infinite time (or NaN) can't be assigned to a bucket, they are
+ * stored in a separate {@link EventHeap}.
+ *
+ * @see CalendarQueue
+ * @see AdaptiveEventQueue
+ */
+public final class LadderQueue implements EventQueue, Serializable, Cloneable {
+	private static final long serialVersionUID = -2466094893735522411L;
+
+	/** Buckets with more events than this are split into a new rung. */
+	private static final int THRES = 50;
+	private static final int MAX_RUNGS = 8;
+
+	private static final Comparator<SimEvent> DESCENDING = Collections.reverseOrder();
+
+	/** A rung of the ladder, i.e., an array of (unsorted) buckets. */
+	private static final class Rung implements Serializable, Cloneable {
+		private static final long serialVersionUID = 5150592744426346373L;
+
+		double start;
+		double width;
+		int numBuckets;
+		int cur; // all buckets before cur are empty
+		SimEvent[][] buckets = new SimEvent[0][];
+		int[] sizes = new int[0];
+
+		void reset(double start, double width, int numBuckets) {
+			this.start = start;
+			this.width = width;
+			this.numBuckets = numBuckets;
+			this.cur = 0;
+
+			if (buckets.length < numBuckets) {
+				buckets = Arrays.copyOf(buckets, numBuckets);
+				sizes = new int[numBuckets];
+			}
+		}
+
+		int bucketIndex(double t) {
+			double k = Math.floor((t - start) / width);
+			if (k <= 0.0)
+				return 0;
+			else if (k >= numBuckets - 1)
+				return numBuckets - 1;
+			else
+				return (int) k;
+		}
+
+		void add(int k, SimEvent e) {
+			SimEvent[] bucket = buckets[k];
+			int n = sizes[k];
+
+			if (bucket == null) {
+				bucket = buckets[k] = new SimEvent[4];
+			} else if (n == bucket.length) {
+				bucket = buckets[k] = Arrays.copyOf(bucket, 2 * n);
+			}
+
+			bucket[n] = e;
+			sizes[k] = n + 1;
+		}
+
+		Rung forkCopy(ForkContext ctx) {
+			try {
+				Rung c = (Rung) clone();
+				c.buckets = ctx.copy(buckets);
+				c.sizes = sizes.clone();
+				return c;
+			} catch (CloneNotSupportedException e) {
+				throw new AssertionError(e); // can't happen
+			}
+		}
+	}
+
+	// top, unsorted
+	private SimEvent[] top;
+	private int topCount;
+	private double topMin, topMax;
+	private double topStart;
+
+	// ladder
+	private Rung[] rungs;
+	private int numRungs;
+	private int ladderCount;
+
+	// bottom, sorted in descending order, i.e., smallest event is last
+	private SimEvent[] bottom;
+	private int bottomCount;
+
+	// events with non-finite time
+	private EventHeap nonFinite;
+
+	public LadderQueue() {
+		super();
+
+		top = new SimEvent[THRES];
+		topCount = 0;
+		topMin = Double.POSITIVE_INFINITY;
+		topMax = Double.NEGATIVE_INFINITY;
+		topStart = Double.NEGATIVE_INFINITY;
+
+		rungs = new Rung[MAX_RUNGS];
+		for (int i = 0; i < rungs.length; i++) {
+			rungs[i] = new Rung();
+		}
+		numRungs = 0;
+		ladderCount = 0;
+
+		bottom = new SimEvent[THRES];
+		bottomCount = 0;
+
+		nonFinite = new EventHeap(11);
+	}
+
+	@Override
+	public void insert(SimEvent e) {
+		final double t = e.getTime();
+		if (Double.isNaN(t) || Double.isInfinite(t)) {
+			nonFinite.insert(e);
+			return;
+		}
+
+		if (t > topStart) {
+			addToTop(e, t);
+			return;
+		}
+
+		for (int i = 0; i < numRungs; i++) {
+			Rung r = rungs[i];
+			int k = r.bucketIndex(t);
+			if (k >= r.cur) {
+				r.add(k, e);
+				ladderCount++;
+				return;
+			}
+		}
+
+		addToBottom(e);
+	}
+
+	private void addToTop(SimEvent e, double t) {
+		if (topCount == top.length) {
+			top = Arrays.copyOf(top, 2 * topCount);
+		}
+		top[topCount++] = e;
+
+		if (t < topMin)
+			topMin = t;
+		if (t > topMax)
+			topMax = t;
+	}
+
+	private void addToBottom(SimEvent e) {
+		if (bottomCount == bottom.length) {
+			bottom = Arrays.copyOf(bottom, 2 * bottomCount);
+		}
+
+		// find insert position; new events are usually close to the smallest
+		// one, so search from the end
+		int i = bottomCount;
+		while (i > 0 && e.compareTo(bottom[i - 1]) > 0) {
+			bottom[i] = bottom[i - 1];
+			i--;
+		}
+		bottom[i] = e;
+
+		bottomCount++;
+	}
+
+	@Override
+	public SimEvent extract() {
+		if (bottomCount == 0 && !fillBottom()) {
+			return nonFinite.size() > 0 ? nonFinite.extract() : null;
+		}
+
+		SimEvent min = bottom[bottomCount - 1];
+		if (nonFinite.size() > 0 && nonFinite.peek().compareTo(min) < 0) {
+			return nonFinite.extract();
+		}
+
+		bottom[--bottomCount] = null;
+		return min;
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (bottomCount == 0 && !fillBottom()) {
+			return nonFinite.peek();
+		}
+
+		SimEvent min = bottom[bottomCount - 1];
+		if (nonFinite.size() > 0 && nonFinite.peek().compareTo(min) < 0) {
+			return nonFinite.peek();
+		} else {
+			return min;
+		}
+	}
+
+	/**
+	 * Moves the events of the next non-empty bucket to bottom, creating new rungs
+	 * if necessary.
+	 *
+	 * @return false, if there are no (finite) events left
+	 */
+	private boolean fillBottom() {
+		assert bottomCount == 0;
+
+		while (true) {
+			if (numRungs == 0) {
+				if (topCount == 0)
+					return false;
+
+				if (transferTop())
+					return true;
+				else
+					continue;
+			}
+
+			final Rung r = rungs[numRungs - 1];
+			while (r.cur < r.numBuckets && r.sizes[r.cur] == 0) {
+				r.cur++;
+			}
+			if (r.cur == r.numBuckets) {
+				// rung is empty
+				numRungs--;
+				continue;
+			}
+
+			final int k = r.cur++;
+			final SimEvent[] bucket = r.buckets[k];
+			final int n = r.sizes[k];
+			r.sizes[k] = 0;
+			ladderCount -= n;
+
+			if (n > THRES && numRungs < MAX_RUNGS) {
+				double childStart = r.start + k * r.width;
+				double childWidth = r.width / n;
+
+				if (childStart + childWidth > childStart && !allSameTime(bucket, n)) {
+					// spawn new rung
+					Rung child = rungs[numRungs++];
+					child.reset(childStart, childWidth, n);
+					for (int i = 0; i < n; i++) {
+						SimEvent e = bucket[i];
+						bucket[i] = null;
+						child.add(child.bucketIndex(e.getTime()), e);
+					}
+					ladderCount += n;
+
+					continue;
+				}
+			}
+
+			moveToBottom(bucket, n);
+			return true;
+		}
+	}
+
+	/**
+	 * Moves all events from top to either a new first rung or directly to bottom.
+	 *
+	 * @return true, if events were moved directly to bottom
+	 */
+	private boolean transferTop() {
+		final int n = topCount;
+		final double min = topMin;
+		final double max = topMax;
+
+		topStart = max;
+		topCount = 0;
+		topMin = Double.POSITIVE_INFINITY;
+		topMax = Double.NEGATIVE_INFINITY;
+
+		double w = (max - min) / n;
+		if (n <= THRES || !(min + w > min)) {
+			moveToBottom(top, n);
+			return true;
+		} else {
+			Rung r = rungs[numRungs++];
+			r.reset(min, w, n);
+			for (int i = 0; i < n; i++) {
+				SimEvent e = top[i];
+				top[i] = null;
+				r.add(r.bucketIndex(e.getTime()), e);
+			}
+			ladderCount += n;
+			return false;
+		}
+	}
+
+	private void moveToBottom(SimEvent[] events, int n) {
+		assert bottomCount == 0;
+
+		if (bottom.length < n) {
+			bottom = new SimEvent[Math.max(n, 2 * bottom.length)];
+		}
+		System.arraycopy(events, 0, bottom, 0, n);
+		Arrays.fill(events, 0, n, null);
+		bottomCount = n;
+
+		Arrays.sort(bottom, 0, n, DESCENDING);
+	}
+
+	private static boolean allSameTime(SimEvent[] events, int n) {
+		final double t = events[0].getTime();
+		for (int i = 1; i < n; i++) {
+			if (events[i].getTime() != t)
+				return false;
+		}
+		return true;
+	}
+
+	/** Return number of elements */
+	public int size() {
+		return topCount + ladderCount + bottomCount + nonFinite.size();
+	}
+
+	@Override
+	public LadderQueue forkCopy(ForkContext ctx) {
+		try {
+			LadderQueue c = ctx.register(this, (LadderQueue) clone());
+			c.top = ctx.copy(top);
+			c.rungs = new Rung[rungs.length];
+			for (int i = 0; i < rungs.length; i++) {
+				c.rungs[i] = rungs[i].forkCopy(ctx);
+			}
+			c.bottom = ctx.copy(bottom);
+			c.nonFinite = ctx.copy(nonFinite);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
+}
@@ -0,0 +1,850 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import jasima.core.simulation.Simulation.EventQueue;
+import jasima.core.simulation.Simulation.MethodCallEvent;
+import jasima.core.util.MsgCategory;
+import jasima.core.util.Util;
+
+/**
+ * Executes a single {@link Simulation} run on several threads using
+ * conservative parallel discrete event simulation. Components are assigned to
+ * logical processes, each with its own {@link EventQueue} and clock. All
+ * components not assigned explicitly (e.g., job sources, shop-level statistics)
+ * belong to logical process 0, which is only executed sequentially. An event is
+ * always processed on behalf of the component that scheduled it. Components
+ * interact with a component handled by another logical process only by
+ * timestamped messages, created by
+ * {@link Simulation#callAs(SimComponent, Runnable)} (executed at the current
+ * time) or {@link #send(SimComponent, SimEvent, Runnable)} (announced in
+ * advance and executed at the time of an event of the sender, once the sender
+ * released it).
+ * <p>
+ * Synchronization uses time windows (YAWNS): each logical process {@code i}
+ * with a next event at time {@code t(i)} can not send messages with a time
+ * stamp before {@code t(i)+lookahead(i)}, where {@code lookahead(i)} is the
+ * minimum lookahead of its components (e.g., their minimum processing time).
+ * All events before the minimum of these bounds are processed in parallel. If
+ * this window is empty, the next event is processed sequentially.
+ * <p>
+ * Events with equal time and priority are processed in the order they were
+ * scheduled, just like in a simulation without a parallel engine. Instead of a
+ * global event number, each event records the event (or message) during which
+ * it was scheduled and its position there, and ties are resolved by comparing
+ * these recursively. A message is sequenced as if its method was called
+ * directly by the event sending (or releasing) it. After each time window, the
+ * processed events are ranked, so references to earlier events are not kept.
+ * Results are therefore the same for any number of logical processes,
+ * including a single one which executes all events sequentially on the
+ * simulation thread, and the same as without a parallel engine.
+ * <p>
+ * To give reproducible results, components must not access the state of
+ * components in other logical processes directly, listeners must not be shared
+ * between components of different logical processes, and {@link #end()} must
+ * only be triggered by components of logical process 0. Trace messages of
+ * different logical processes are interleaved arbitrarily. Pausing and
+ * stepping through a simulation is not supported.
+ *
+ * @see Simulation#setParallelEngine(ParallelEngine)
+ */
+public class ParallelEngine {
+
+	// position of an event in its own key, before all calls made by it
+	private static final int EVENT_POS = Integer.MIN_VALUE;
+	// position of a message not released yet, a lower bound of its call
+	private static final int BLOCKER_POS = EVENT_POS + 1;
+	// number of busy waiting iterations before a thread blocks
+	private static final int NUM_SPINS = 1 << 12;
+
+	/**
+	 * Timestamped call of a method on behalf of a component. Messages sent with
+	 * {@link ParallelEngine#send(SimComponent, SimEvent, Runnable)} are not
+	 * executed before {@link #release()} was called.
+	 */
+	public static final class Message extends SimEvent {
+		final ParallelEngine engine;
+		final Owner target;
+		final Runnable method;
+		// key of the call, set by the sender before it releases this message
+		Key call;
+		volatile boolean released;
+
+		Message(ParallelEngine engine, double time, int prio, Owner target, Runnable method) {
+			super(time, prio);
+			this.engine = engine;
+			this.target = target;
+			this.method = method;
+		}
+
+		@Override
+		public void handle() {
+			method.run();
+		}
+
+		/**
+		 * Allows execution of this message. It is sequenced as if its method was
+		 * called at this point. The sender must not access any objects passed
+		 * with this message afterwards.
+		 */
+		public void release() {
+			engine.release(this);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Message(%s)", method);
+		}
+	}
+
+	/**
+	 * A component (or all components of logical process 0) on whose behalf
+	 * events are processed.
+	 */
+	static final class Owner {
+		final LogicalProcess lp;
+
+		Owner(LogicalProcess lp) {
+			this.lp = lp;
+		}
+	}
+
+	/**
+	 * Replaces the event number of a sequential simulation. The key of an event
+	 * refers to the activity (the key of an event or of a call) during which it
+	 * was scheduled, and its position there. Messages are keyed by their call.
+	 */
+	static final class Key {
+		final double time;
+		final int prio;
+		final Owner owner; // null for calls
+		Key parent; // null once ranked
+		final int pos;
+		long rank; // position in processing order, 0 if not ranked yet
+
+		Key(double time, int prio, Owner owner, Key parent, int pos) {
+			this.time = time;
+			this.prio = prio;
+			this.owner = owner;
+			this.parent = parent;
+			this.pos = pos;
+		}
+
+		Key(Key parent, int pos) {
+			this(Double.NaN, 0, null, parent, pos);
+		}
+
+		boolean isCall() {
+			return owner == null;
+		}
+	}
+
+	/**
+	 * State of a logical process. It is only accessed by the thread currently
+	 * processing its events.
+	 */
+	static final class LogicalProcess {
+		final int index;
+		final ArrayList<Message> outgoing = new ArrayList<>();
+		EventQueue events;
+		double lookahead = Double.POSITIVE_INFINITY;
+		double windowEnd = Double.NEGATIVE_INFINITY;
+
+		double simTime;
+		int currPrio = SimEvent.EVENT_PRIO_MAX;
+		SimEvent currEvent;
+		Owner owner;
+		Key activity;
+		int pos;
+		final ArrayList<Key> processed = new ArrayList<>();
+		int numRanked;
+		MethodCallEvent freeMethodCallEvents;
+		int numAppEvents;
+		long numEventsProcessed;
+
+		LogicalProcess(int index) {
+			this.index = index;
+		}
+	}
+
+	/** Thread processing the events of a single logical process. */
+	private final class Worker extends Thread {
+		final LogicalProcess lp;
+		volatile boolean go;
+
+		Worker(LogicalProcess lp) {
+			super("jasima-lp-" + lp.index);
+			this.lp = lp;
+			setDaemon(true);
+		}
+
+		ParallelEngine engine() {
+			return ParallelEngine.this;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				for (int i = 0; !go && !shutdown; i++) {
+					if (i > NUM_SPINS)
+						LockSupport.park(this);
+				}
+				if (shutdown)
+					return;
+
+				try {
+					processWindow(lp);
+				} catch (Throwable t) {
+					fail(t);
+				}
+
+				go = false;
+				if (pending.decrementAndGet() == 0)
+					LockSupport.unpark(coordinator);
+			}
+		}
+	}
+
+	private final LogicalProcess[] lps;
+	private final IdentityHashMap<SimComponent, Owner> ownerOf = new IdentityHashMap<>();
+	private final Owner master;
+
+	private Simulation sim;
+	private LogicalProcess current; // used by all threads except workers
+	private long numRanked;
+	private boolean running;
+	private volatile boolean endRequested;
+	private volatile boolean shutdown;
+	private volatile Throwable error;
+	private final AtomicInteger pending = new AtomicInteger();
+	private Worker[] workers;
+	private Thread coordinator;
+
+	private long numWindows;
+	private long numSequentialEvents;
+
+	/**
+	 * Creates a new engine.
+	 *
+	 * @param numProcesses The number of logical processes for the components
+	 *                     assigned with {@link #assign(SimComponent, int, double)}.
+	 *                     This is also the number of threads used.
+	 */
+	public ParallelEngine(int numProcesses) {
+		super();
+		if (numProcesses < 1)
+			throw new IllegalArgumentException("Number of logical processes has to be positive: " + numProcesses);
+
+		lps = new LogicalProcess[numProcesses + 1];
+		for (int i = 0; i < lps.length; i++) {
+			lps[i] = new LogicalProcess(i);
+		}
+		lps[0].lookahead = 0.0;
+
+		master = new Owner(lps[0]);
+
+		current = lps[0];
+		current.owner = master;
+		current.activity = rankedKey(Double.NEGATIVE_INFINITY, SimEvent.EVENT_PRIO_MAX);
+	}
+
+	/**
+	 * Assigns a component to a logical process. All events scheduled by this
+	 * component and all messages sent to it are processed by this logical
+	 * process.
+	 *
+	 * @param c         The component.
+	 * @param process   The logical process, from 1 to {@link #numProcesses()}.
+	 * @param lookahead A lower bound for the difference between the time stamp
+	 *                  of any message sent by {@code c} and the time it is sent,
+	 *                  e.g., the minimum processing time of a machine.
+	 */
+	public void assign(SimComponent c, int process, double lookahead) {
+		if (sim != null && sim.state() != Simulation.SimExecState.INITIAL)
+			throw new IllegalStateException("Components can only be assigned before a simulation is initialized.");
+		if (process < 1 || process >= lps.length)
+			throw new IllegalArgumentException("Invalid logical process: " + process);
+		if (!(lookahead >= 0.0))
+			throw new IllegalArgumentException("Lookahead can't be negative: " + lookahead);
+		if (ownerOf.containsKey(c))
+			throw new IllegalArgumentException("Component already assigned: " + c);
+
+		LogicalProcess lp = lps[process];
+		ownerOf.put(c, new Owner(lp));
+		lp.lookahead = Math.min(lp.lookahead, lookahead);
+	}
+
+	/**
+	 * Sends a message to execute {@code method} on behalf of the component
+	 * {@code target} at the time and with the priority of the event
+	 * {@code releasedBy}, which has to be scheduled by the sender before. The
+	 * message is executed only after the sender called
+	 * {@link Message#release()} while processing {@code releasedBy}.
+	 * <p>
+	 * Sending messages in advance provides the lookahead required for parallel
+	 * execution, e.g., a job is sent to the next machine when its operation is
+	 * started, and released when it is finished.
+	 *
+	 * @return The message, to be released by the sender.
+	 */
+	public Message send(SimComponent target, SimEvent releasedBy, Runnable method) {
+		LogicalProcess lp = current();
+		Key k = releasedBy.key;
+		if (k == null || k.rank != 0 || k.owner.lp != lp)
+			throw new IllegalArgumentException("Event to release a message has to be scheduled by its sender: "
+					+ releasedBy);
+
+		Message m = new Message(this, releasedBy.getTime(), releasedBy.getPrio(), ownerOf(target), method);
+		m.key = new Key(k, BLOCKER_POS);
+		deliver(lp, m);
+		return m;
+	}
+
+	/**
+	 * Returns the number of logical processes available to assign components.
+	 */
+	public int numProcesses() {
+		return lps.length - 1;
+	}
+
+	/**
+	 * Returns the number of time windows processed in parallel.
+	 */
+	public long numWindows() {
+		return numWindows;
+	}
+
+	/**
+	 * Returns the number of events processed sequentially, i.e., not as part of
+	 * a time window.
+	 */
+	public long numSequentialEvents() {
+		return numSequentialEvents;
+	}
+
+	//
+	// methods below are used by Simulation
+	//
+
+	void bind(Simulation s) {
+		if (sim != null)
+			throw new IllegalStateException("Engine is already used by another simulation.");
+		sim = s;
+		for (LogicalProcess lp : lps) {
+			lp.events = s.createEventQueue();
+		}
+	}
+
+	void init(double simTime) {
+		for (LogicalProcess lp : lps) {
+			lp.simTime = simTime;
+		}
+		numRanked = 0;
+		current.activity = rankedKey(Double.NEGATIVE_INFINITY, SimEvent.EVENT_PRIO_MAX);
+		current.pos = 0;
+	}
+
+	/**
+	 * Returns the logical process whose events are processed by the current
+	 * thread.
+	 */
+	LogicalProcess current() {
+		Thread t = Thread.currentThread();
+		if (t instanceof Worker && ((Worker) t).engine() == this)
+			return ((Worker) t).lp;
+		return current;
+	}
+
+	private Owner ownerOf(SimComponent c) {
+		Owner o = ownerOf.get(c);
+		return o != null ? o : master;
+	}
+
+	boolean isLocal(SimComponent c) {
+		return ownerOf(c) == current().owner;
+	}
+
+	void callAs(SimComponent c, Runnable method) {
+		LogicalProcess lp = current();
+		Owner target = ownerOf(c);
+		Owner o = lp.owner;
+
+		if (target == o) {
+			method.run();
+		} else if (!running) {
+			// initialization or clean-up, single-threaded
+			lp.owner = target;
+			try {
+				method.run();
+			} finally {
+				lp.owner = o;
+			}
+		} else {
+			Message m = new Message(this, lp.simTime, lp.currPrio, target, method);
+			m.key = m.call = new Key(lp.activity, lp.pos++);
+			m.released = true;
+			deliver(lp, m);
+		}
+	}
+
+	void release(Message m) {
+		LogicalProcess lp = current();
+		if (m.released)
+			throw new IllegalStateException("Message was already released: " + m);
+		if (root(lp.activity) != m.key.parent)
+			throw new IllegalStateException("Message has to be released by the event it was sent for: " + m);
+
+		m.call = new Key(lp.activity, lp.pos++);
+		m.released = true;
+	}
+
+	private void deliver(LogicalProcess lp, Message m) {
+		LogicalProcess dest = m.target.lp;
+		if (dest == lp || lp.windowEnd == Double.NEGATIVE_INFINITY) {
+			insert(dest, m);
+		} else {
+			if (m.getTime() < lp.windowEnd) {
+				throw new IllegalStateException(String.format(Util.DEF_LOCALE,
+						"Message from logical process %d to %d at time %f violates the lookahead (window end: %f).",
+						lp.index, dest.index, m.getTime(), lp.windowEnd));
+			}
+			lp.outgoing.add(m);
+		}
+	}
+
+	private static void insert(LogicalProcess lp, SimEvent e) {
+		lp.events.insert(e);
+		if (e.isAppEvent())
+			lp.numAppEvents++;
+	}
+
+	void schedule(SimEvent event) {
+		LogicalProcess lp = current();
+		if (event.getTime() == lp.simTime && event.getPrio() <= lp.currPrio) {
+			sim.printFmt(MsgCategory.WARN, "Priority inversion (current: %d, scheduled: %d, event=%s).", lp.currPrio,
+					event.getPrio(), event.toString());
+		}
+		if (event.getTime() < lp.simTime) {
+			String msg = sim.createErrorMsgEventInPast(event);
+			sim.printFmt(MsgCategory.ERROR, msg);
+			throw new IllegalArgumentException(msg);
+		}
+
+		Owner o = lp.owner;
+		event.eventNum = 0;
+		event.key = new Key(event.getTime(), event.getPrio(), o, lp.activity, lp.pos++);
+		insert(o.lp, event);
+	}
+
+	void schedule(String description, double time, int prio, Runnable method) {
+		LogicalProcess lp = current();
+		MethodCallEvent e = lp.freeMethodCallEvents;
+		if (e != null) {
+			lp.freeMethodCallEvents = e.nextFree;
+			e.nextFree = null;
+
+			e.setTime(time);
+			e.setPrio(prio);
+			e.setDescription(description);
+			e.m = method;
+		} else {
+			e = new MethodCallEvent(time, prio, method, description);
+		}
+		schedule(e);
+	}
+
+	void end() {
+		endRequested = true;
+	}
+
+	long numEventsProcessed() {
+		long res = 0;
+		for (LogicalProcess lp : lps) {
+			res += lp.numEventsProcessed;
+		}
+		return res;
+	}
+
+	int eventQueueSize() {
+		int res = 0;
+		for (LogicalProcess lp : lps) {
+			int n = lp.events.size();
+			if (n < 0)
+				return -1;
+			res += n;
+		}
+		return res;
+	}
+
+	/**
+	 * The main loop: determines the next time window and processes it either in
+	 * parallel or, if it is empty, processes the next event sequentially.
+	 */
+	void run() {
+		running = true;
+		endRequested = false;
+		error = null;
+		coordinator = Thread.currentThread();
+		startWorkers();
+		try {
+			while (!endRequested) {
+				LogicalProcess next = null;
+				SimEvent first = null;
+				double windowEnd = Double.POSITIVE_INFINITY;
+				int numAppEvents = 0;
+				for (LogicalProcess lp : lps) {
+					numAppEvents += lp.numAppEvents;
+
+					SimEvent e = lp.events.peek();
+					if (e != null) {
+						if (first == null || e.compareTo(first) < 0) {
+							first = e;
+							next = lp;
+						}
+						windowEnd = Math.min(windowEnd, e.getTime() + lp.lookahead);
+					}
+				}
+				if (first == null || numAppEvents == 0)
+					break;
+
+				if (windowEnd > first.getTime()) {
+					runWindow(windowEnd);
+				} else {
+					current = next;
+					processNext(next);
+					numSequentialEvents++;
+				}
+			}
+		} finally {
+			stopWorkers();
+			running = false;
+
+			// continue with the time of the last event
+			double t = Double.NEGATIVE_INFINITY;
+			for (LogicalProcess lp : lps) {
+				t = Math.max(t, lp.simTime);
+			}
+			current = lps[0];
+			current.owner = master;
+			current.simTime = t;
+			current.activity = rankedKey(t, SimEvent.EVENT_PRIO_MIN);
+			current.pos = 0;
+		}
+	}
+
+	private void runWindow(double windowEnd) {
+		numWindows++;
+
+		int n = 0;
+		for (int i = 1; i < lps.length; i++) {
+			LogicalProcess lp = lps[i];
+			SimEvent e = lp.events.peek();
+			if (e != null && e.getTime() < windowEnd) {
+				lp.windowEnd = windowEnd;
+				if (i > 1)
+					n++;
+			}
+		}
+
+		// start workers, the coordinator processes logical process 1
+		pending.set(n);
+		for (Worker w : workers) {
+			if (w.lp.windowEnd == windowEnd) {
+				w.go = true;
+				LockSupport.unpark(w);
+			}
+		}
+
+		current = lps[1];
+		if (current.windowEnd == windowEnd) {
+			try {
+				processWindow(current);
+			} catch (Throwable t) {
+				fail(t);
+			}
+		}
+
+		for (int i = 0; pending.get() > 0; i++) {
+			if (i > NUM_SPINS)
+				LockSupport.park(this);
+		}
+
+		// deliver messages sent during the window
+		for (int i = 1; i < lps.length; i++) {
+			LogicalProcess lp = lps[i];
+			lp.windowEnd = Double.NEGATIVE_INFINITY;
+			for (int j = 0, m = lp.outgoing.size(); j < m; j++) {
+				Message msg = lp.outgoing.get(j);
+				insert(msg.target.lp, msg);
+			}
+			lp.outgoing.clear();
+		}
+
+		rankProcessed();
+
+		Throwable t = error;
+		if (t != null) {
+			if (t instanceof RuntimeException)
+				throw (RuntimeException) t;
+			else if (t instanceof Error)
+				throw (Error) t;
+			else
+				throw new RuntimeException(t);
+		}
+	}
+
+	private void processWindow(LogicalProcess lp) {
+		final double windowEnd = lp.windowEnd;
+		while (!endRequested) {
+			SimEvent e = lp.events.peek();
+			if (e == null || e.getTime() >= windowEnd)
+				break;
+			processNext(lp);
+		}
+	}
+
+	private void processNext(LogicalProcess lp) {
+		SimEvent e = lp.events.extract();
+
+		Key k = e.key;
+		Owner o;
+		if (e instanceof Message) {
+			Message m = (Message) e;
+			if (!m.released && !awaitRelease(lp, m))
+				return;
+			if (m.call != k) {
+				// sequence a sent message according to its release
+				m.key = m.call;
+				lp.events.insert(m);
+				return;
+			}
+			o = m.target;
+		} else {
+			o = k.owner;
+			if (lp.windowEnd == Double.NEGATIVE_INFINITY)
+				rank(k);
+			else
+				lp.processed.add(k);
+		}
+
+		// Advance clock to time of next event
+		lp.currEvent = e;
+		lp.simTime = e.getTime();
+		lp.currPrio = e.getPrio();
+		lp.owner = o;
+		lp.activity = k;
+		lp.pos = 0;
+
+		e.handle();
+
+		if (e.isAppEvent())
+			lp.numAppEvents--;
+		lp.numEventsProcessed++;
+
+		if (e instanceof MethodCallEvent) {
+			MethodCallEvent mc = (MethodCallEvent) e;
+			mc.m = null;
+			mc.setDescription(null);
+			mc.setKind(null);
+			mc.nextFree = lp.freeMethodCallEvents;
+			lp.freeMethodCallEvents = mc;
+		}
+	}
+
+	/**
+	 * Waits until the sender of {@code m}, processed by another thread in the
+	 * same window, releases it. Returns {@code false} if the simulation ended
+	 * before.
+	 */
+	private boolean awaitRelease(LogicalProcess lp, Message m) {
+		if (lp.windowEnd == Double.NEGATIVE_INFINITY)
+			throw new IllegalStateException("Message was not released before its time: " + m);
+
+		for (int i = 0; !m.released; i++) {
+			if (endRequested)
+				return false;
+			if (i > NUM_SPINS)
+				Thread.yield();
+		}
+		return true;
+	}
+
+	/**
+	 * Ranks the events processed in a time window in the order a sequential
+	 * simulation would have processed them, i.e., merges the events processed
+	 * by each logical process.
+	 */
+	private void rankProcessed() {
+		while (true) {
+			LogicalProcess next = null;
+			Key first = null;
+			for (int i = 1; i < lps.length; i++) {
+				LogicalProcess lp = lps[i];
+				if (lp.numRanked < lp.processed.size()) {
+					Key k = lp.processed.get(lp.numRanked);
+					if (first == null || compareEvents(k, first) < 0) {
+						first = k;
+						next = lp;
+					}
+				}
+			}
+			if (first == null)
+				break;
+
+			rank(first);
+			next.numRanked++;
+		}
+
+		for (int i = 1; i < lps.length; i++) {
+			lps[i].processed.clear();
+			lps[i].numRanked = 0;
+		}
+	}
+
+	private void rank(Key k) {
+		k.rank = ++numRanked;
+		k.parent = null;
+	}
+
+	/**
+	 * Creates the key of an activity outside of events, e.g., initialization.
+	 */
+	private Key rankedKey(double time, int prio) {
+		Key k = new Key(time, prio, master, null, 0);
+		rank(k);
+		return k;
+	}
+
+	/**
+	 * Compares the keys of two events or messages with equal time and
+	 * priority.
+	 */
+	static int compare(Key a, Key b) {
+		return compareCalls(a.isCall() ? a.parent : a, a.isCall() ? a.pos : EVENT_POS, b.isCall() ? b.parent : b,
+				b.isCall() ? b.pos : EVENT_POS);
+	}
+
+	/**
+	 * Compares two positions, each given by an activity and the position
+	 * within it.
+	 */
+	private static int compareCalls(Key a, int posA, Key b, int posB) {
+		if (a == b)
+			return Integer.compare(posA, posB);
+
+		Key rootA = root(a);
+		Key rootB = root(b);
+		if (rootA != rootB)
+			return compareEvents(rootA, rootB);
+
+		// different (nested) calls made by the same event
+		int[] pathA = path(a, posA);
+		int[] pathB = path(b, posB);
+		for (int i = 0, n = Math.min(pathA.length, pathB.length); i < n; i++) {
+			if (pathA[i] != pathB[i])
+				return pathA[i] < pathB[i] ? -1 : +1;
+		}
+		return Integer.compare(pathA.length, pathB.length);
+	}
+
+	/**
+	 * Compares the keys of two different events in the order a sequential
+	 * simulation processes them. Ranked events were processed before all
+	 * others.
+	 */
+	private static int compareEvents(Key a, Key b) {
+		if (a.time != b.time)
+			return a.time < b.time ? -1 : +1;
+		if (a.prio != b.prio)
+			return a.prio < b.prio ? -1 : +1;
+		if (a.rank != 0 || b.rank != 0) {
+			if (a.rank == 0)
+				return +1;
+			if (b.rank == 0)
+				return -1;
+			return Long.compare(a.rank, b.rank);
+		}
+		return compareCalls(a.parent, a.pos, b.parent, b.pos);
+	}
+
+	private static Key root(Key k) {
+		while (k.isCall()) {
+			k = k.parent;
+		}
+		return k;
+	}
+
+	/**
+	 * Returns the positions of the calls leading from an event to activity
+	 * {@code k}, followed by {@code pos}.
+	 */
+	private static int[] path(Key k, int pos) {
+		int n = 0;
+		for (Key c = k; c.isCall(); c = c.parent) {
+			n++;
+		}
+
+		int[] res = new int[n + 1];
+		res[n] = pos;
+		for (Key c = k; c.isCall(); c = c.parent) {
+			res[--n] = c.pos;
+		}
+		return res;
+	}
+
+	private void fail(Throwable t) {
+		synchronized (this) {
+			if (error == null)
+				error = t;
+		}
+		endRequested = true;
+	}
+
+	private void startWorkers() {
+		shutdown = false;
+		workers = new Worker[lps.length - 2];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(lps[i + 2]);
+			workers[i].start();
+		}
+	}
+
+	private void stopWorkers() {
+		shutdown = true;
+		for (Worker w : workers) {
+			LockSupport.unpark(w);
+		}
+		for (Worker w : workers) {
+			try {
+				w.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		workers = null;
+	}
+
+}
@@ -0,0 +1,484 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes a {@link VectorEnvironment} available to another process on the same
+ * machine (e.g., a trainer written in Python) using a memory-mapped file.
+ * Actions, observations, rewards and done flags of all environments are
+ * exchanged in place without any serialization; both sides wait for each
+ * other by polling a sequence number, spinning for a while before parking, so
+ * the overhead per step is in the order of microseconds.
+ * <p>
+ * The file has the following layout (all values in native byte order, all
+ * offsets in bytes):
+ * <table border="1">
+ * <caption>File layout</caption>
+ * <tr>
+ * <th>Offset</th>
+ * <th>Type</th>
+ * <th>Content</th>
+ * </tr>
+ * <tr>
+ * <td>0</td>
+ * <td>int</td>
+ * <td>{@link #MAGIC}; appears reversed if byte orders differ</td>
+ * </tr>
+ * <tr>
+ * <td>4</td>
+ * <td>int</td>
+ * <td>{@link #VERSION}</td>
+ * </tr>
+ * <tr>
+ * <td>8</td>
+ * <td>int</td>
+ * <td>number of environments {@code n}</td>
+ * </tr>
+ * <tr>
+ * <td>12</td>
+ * <td>int</td>
+ * <td>observation size {@code m}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #REQUEST_SEQ_OFFSET}</td>
+ * <td>long</td>
+ * <td>request sequence number, written by the trainer</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #COMMAND_OFFSET}</td>
+ * <td>int</td>
+ * <td>command ({@link #CMD_RESET}, {@link #CMD_STEP} or {@link #CMD_CLOSE}),
+ * written by the trainer</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #RESPONSE_SEQ_OFFSET}</td>
+ * <td>long</td>
+ * <td>response sequence number, written by the simulation</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #STATUS_OFFSET}</td>
+ * <td>int</td>
+ * <td>{@link #STATUS_OK} or {@link #STATUS_ERROR}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #ACTIONS_OFFSET}</td>
+ * <td>int[n]</td>
+ * <td>actions</td>
+ * </tr>
+ * <tr>
+ * <td>{@code observationsOffset(n)}</td>
+ * <td>double[n*m]</td>
+ * <td>observations, see {@link VectorEnvironment#observations()}</td>
+ * </tr>
+ * <tr>
+ * <td>{@code rewardsOffset(n, m)}</td>
+ * <td>double[n]</td>
+ * <td>rewards</td>
+ * </tr>
+ * <tr>
+ * <td>{@code donesOffset(n, m)}</td>
+ * <td>byte[n]</td>
+ * <td>done flags (0 or 1)</td>
+ * </tr>
+ * </table>
+ * Arrays start at multiples of 64 bytes. To issue a request, the trainer
+ * writes the actions (if any) and the command, then increments the request
+ * sequence number. The simulation executes the command, writes the results
+ * and status and sets the response sequence number to the request sequence
+ * number.
+ * <p>
+ * The request and response sequence numbers act as head and tail of a ring
+ * with a single slot. More slots wouldn't help: a trainer can only choose the
+ * actions of the next step after it has seen the observations of the previous
+ * one, so there is never more than one request in flight. The slot is only
+ * written by the trainer while the response sequence number equals the
+ * request sequence number, and only by the simulation while they differ, so
+ * no locks are needed. Trainers wanting to overlap work should use more
+ * environments per request instead.
+ * 
+ * @see VectorEnvironment
+ */
+public class SharedMemoryBridge implements AutoCloseable {
+
+	public static final int MAGIC = 0x4A534D42; // "JSMB"
+	public static final int VERSION = 1;
+
+	public static final int REQUEST_SEQ_OFFSET = 64;
+	public static final int COMMAND_OFFSET = 72;
+	public static final int RESPONSE_SEQ_OFFSET = 128;
+	public static final int STATUS_OFFSET = 136;
+	public static final int ACTIONS_OFFSET = 192;
+
+	public static final int CMD_RESET = 1;
+	public static final int CMD_STEP = 2;
+	public static final int CMD_CLOSE = 3;
+
+	public static final int STATUS_OK = 0;
+	public static final int STATUS_ERROR = 1;
+
+	/** Number of polls before a waiting side starts to park. */
+	public static final int DEF_SPIN_COUNT = 10_000;
+	private static final long PARK_NANOS = 20_000;
+
+	public static int observationsOffset(int numEnvs) {
+		return align(ACTIONS_OFFSET + numEnvs * Integer.BYTES);
+	}
+
+	public static int rewardsOffset(int numEnvs, int observationSize) {
+		return align(observationsOffset(numEnvs) + numEnvs * observationSize * Double.BYTES);
+	}
+
+	public static int donesOffset(int numEnvs, int observationSize) {
+		return align(rewardsOffset(numEnvs, observationSize) + numEnvs * Double.BYTES);
+	}
+
+	public static int fileSize(int numEnvs, int observationSize) {
+		return align(donesOffset(numEnvs, observationSize) + numEnvs);
+	}
+
+	private static int align(int offset) {
+		return (offset + 63) & ~63;
+	}
+
+	/**
+	 * Common part of both sides of the bridge: the mapped file and views of its
+	 * arrays.
+	 */
+	private static abstract class Endpoint implements AutoCloseable {
+		protected final FileChannel channel;
+		protected final MappedByteBuffer buf;
+		protected final int numEnvs;
+		protected final int observationSize;
+
+		protected final IntBuffer actions;
+		protected final DoubleBuffer observations;
+		protected final DoubleBuffer rewards;
+		protected final ByteBuffer dones;
+
+		private int spinCount = DEF_SPIN_COUNT;
+
+		// Java 8 has no fences on buffers; a volatile write followed by a volatile
+		// read prevents reordering of the surrounding memory accesses
+		private volatile int fence;
+
+		protected Endpoint(FileChannel channel, MappedByteBuffer buf, int numEnvs, int observationSize) {
+			super();
+			this.channel = channel;
+			this.buf = buf;
+			this.numEnvs = numEnvs;
+			this.observationSize = observationSize;
+
+			actions = slice(ACTIONS_OFFSET, numEnvs * Integer.BYTES).asIntBuffer();
+			observations = slice(observationsOffset(numEnvs), numEnvs * observationSize * Double.BYTES)
+					.asDoubleBuffer();
+			rewards = slice(rewardsOffset(numEnvs, observationSize), numEnvs * Double.BYTES).asDoubleBuffer();
+			dones = slice(donesOffset(numEnvs, observationSize), numEnvs);
+		}
+
+		private ByteBuffer slice(int offset, int length) {
+			ByteBuffer b = buf.duplicate();
+			b.position(offset);
+			b.limit(offset + length);
+			return b.slice().order(ByteOrder.nativeOrder());
+		}
+
+		protected int fullFence() {
+			fence = 0;
+			return fence;
+		}
+
+		/** Waits until the long at {@code offset} is not equal to {@code value}. */
+		protected long awaitChange(int offset, long value) {
+			int spins = 0;
+			long v;
+			while ((v = buf.getLong(offset)) == value) {
+				// also prevents hoisting the read out of the loop
+				fullFence();
+				if (++spins > spinCount) {
+					LockSupport.parkNanos(PARK_NANOS);
+					if (Thread.interrupted())
+						throw new IllegalStateException("interrupted");
+				}
+			}
+			fullFence();
+			return v;
+		}
+
+		public int getSpinCount() {
+			return spinCount;
+		}
+
+		/**
+		 * Sets the number of polls before a waiting thread starts to park. Larger
+		 * values reduce latency but use a CPU core while waiting.
+		 */
+		public void setSpinCount(int spinCount) {
+			this.spinCount = spinCount;
+		}
+
+		public int numEnvs() {
+			return numEnvs;
+		}
+
+		public int observationSize() {
+			return observationSize;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * The trainer's side of the bridge, mainly useful for trainers running in a
+	 * JVM and for testing.
+	 */
+	public static class Client extends Endpoint {
+
+		private long seq;
+
+		/**
+		 * Connects to the bridge using {@code file}, which has to be created by a
+		 * {@link SharedMemoryBridge} first.
+		 * 
+		 * @param file The file to use.
+		 * @throws IOException If the file can't be mapped or is not a valid bridge
+		 *                     file.
+		 */
+		public Client(Path file) throws IOException {
+			this(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+		}
+
+		private Client(FileChannel channel) throws IOException {
+			this(channel, channel.map(MapMode.READ_WRITE, 0, channel.size()));
+		}
+
+		private Client(FileChannel channel, MappedByteBuffer buf) throws IOException {
+			super(channel, checkHeader(buf), buf.getInt(8), buf.getInt(12));
+			seq = buf.getLong(REQUEST_SEQ_OFFSET);
+		}
+
+		private static MappedByteBuffer checkHeader(MappedByteBuffer buf) throws IOException {
+			buf.order(ByteOrder.nativeOrder());
+			if (buf.capacity() < ACTIONS_OFFSET || buf.getInt(0) != MAGIC)
+				throw new IOException("not a bridge file");
+			if (buf.getInt(4) != VERSION)
+				throw new IOException("unsupported version " + buf.getInt(4));
+			return buf;
+		}
+
+		/** Resets all environments, see {@link VectorEnvironment#reset()}. */
+		public void reset() {
+			request(CMD_RESET);
+		}
+
+		/** Performs a step, see {@link VectorEnvironment#step(int[])}. */
+		public void step(int[] actions) {
+			if (actions.length != numEnvs)
+				throw new IllegalArgumentException("expected " + numEnvs + " actions, got " + actions.length);
+			this.actions.clear();
+			this.actions.put(actions);
+			request(CMD_STEP);
+		}
+
+		/** Tells the simulation side to stop serving. */
+		public void shutdown() {
+			request(CMD_CLOSE);
+		}
+
+		private void request(int command) {
+			buf.putInt(COMMAND_OFFSET, command);
+			fullFence();
+			buf.putLong(REQUEST_SEQ_OFFSET, ++seq);
+
+			long res;
+			do {
+				res = awaitChange(RESPONSE_SEQ_OFFSET, seq - 1);
+			} while (res != seq);
+
+			if (buf.getInt(STATUS_OFFSET) != STATUS_OK)
+				throw new IllegalStateException("simulation failed to execute command " + command);
+		}
+
+		/** Copies the current observations to {@code dst}. */
+		public void getObservations(double[] dst) {
+			observations.clear();
+			observations.get(dst, 0, numEnvs * observationSize);
+		}
+
+		public double getReward(int env) {
+			return rewards.get(env);
+		}
+
+		public boolean isDone(int env) {
+			return dones.get(env) != 0;
+		}
+	}
+
+	/**
+	 * The simulation's side.
+	 */
+	private static class Server extends Endpoint {
+		private Server(FileChannel channel, int numEnvs, int observationSize) throws IOException {
+			super(channel, init(channel, numEnvs, observationSize), numEnvs, observationSize);
+		}
+
+		private static MappedByteBuffer init(FileChannel channel, int numEnvs, int observationSize)
+				throws IOException {
+			channel.truncate(0);
+			MappedByteBuffer buf = channel.map(MapMode.READ_WRITE, 0, fileSize(numEnvs, observationSize));
+			buf.order(ByteOrder.nativeOrder());
+			buf.putInt(4, VERSION);
+			buf.putInt(8, numEnvs);
+			buf.putInt(12, observationSize);
+			buf.putLong(REQUEST_SEQ_OFFSET, 0);
+			buf.putLong(RESPONSE_SEQ_OFFSET, 0);
+			// magic last, so clients never see an incomplete header
+			buf.putInt(0, MAGIC);
+			return buf;
+		}
+	}
+
+	private final VectorEnvironment env;
+	private final Server server;
+	private final int[] actions;
+	private long lastSeq;
+
+	/**
+	 * Creates the bridge file {@code file} (overwriting it, if it exists) for
+	 * the environments of {@code env}.
+	 * 
+	 * @param env  The environments to make available.
+	 * @param file The file to use.
+	 * @throws IOException If the file can't be created or mapped.
+	 */
+	public SharedMemoryBridge(VectorEnvironment env, Path file) throws IOException {
+		super();
+		this.env = env;
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			server = new Server(channel, env.numEnvs(), env.observationSize());
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		actions = new int[env.numEnvs()];
+		lastSeq = 0;
+	}
+
+	/**
+	 * Serves requests until a client sends {@link #CMD_CLOSE}.
+	 * 
+	 * @throws IllegalStateException If the thread is interrupted while waiting.
+	 */
+	public void serve() {
+		while (serveOne()) {
+			// process next request
+		}
+	}
+
+	/**
+	 * Waits for the next request and executes it.
+	 * 
+	 * @return {@code false}, if the request was {@link #CMD_CLOSE}.
+	 * @throws IllegalStateException If the thread is interrupted while waiting.
+	 */
+	public boolean serveOne() {
+		long seq = server.awaitChange(REQUEST_SEQ_OFFSET, lastSeq);
+		int command = server.buf.getInt(COMMAND_OFFSET);
+
+		int status = STATUS_OK;
+		RuntimeException error = null;
+		try {
+			switch (command) {
+			case CMD_RESET:
+				env.reset();
+				publishResults();
+				break;
+			case CMD_STEP:
+				server.actions.clear();
+				server.actions.get(actions);
+				env.step(actions);
+				publishResults();
+				break;
+			case CMD_CLOSE:
+				break;
+			default:
+				throw new IllegalArgumentException("unknown command " + command);
+			}
+		} catch (RuntimeException e) {
+			status = STATUS_ERROR;
+			error = e;
+		}
+
+		server.buf.putInt(STATUS_OFFSET, status);
+		server.fullFence();
+		server.buf.putLong(RESPONSE_SEQ_OFFSET, seq);
+		lastSeq = seq;
+
+		if (error != null)
+			throw error;
+		return command != CMD_CLOSE;
+	}
+
+	private void publishResults() {
+		server.observations.clear();
+		server.observations.put(env.observations());
+		server.rewards.clear();
+		server.rewards.put(env.rewards());
+		boolean[] d = env.dones();
+		for (int i = 0; i < d.length; i++) {
+			server.dones.put(i, d[i] ? (byte) 1 : (byte) 0);
+		}
+	}
+
+	public int getSpinCount() {
+		return server.getSpinCount();
+	}
+
+	/** @see Client#setSpinCount(int) */
+	public void setSpinCount(int spinCount) {
+		server.setSpinCount(spinCount);
+	}
+
+	/**
+	 * Closes the file. The {@link VectorEnvironment} is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		server.close();
+	}
+
+}
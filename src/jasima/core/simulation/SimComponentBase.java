@@ -1,5 +1,7 @@
 package jasima.core.simulation;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.core.util.TypeUtil;
 import jasima.core.util.ValueStore;
 import jasima.core.util.ValueStoreImpl;
@@ -12,7 +14,7 @@ import jasima.core.util.observer.NotifierImpl;
  * 
  * @author Torsten Hildebrandt
  */
-public class SimComponentBase implements SimComponent {
+public class SimComponentBase implements SimComponent, Forkable {
 
 	public static final char NAME_SEPARATOR = '.';
 
@@ -143,4 +145,25 @@ public class SimComponentBase implements SimComponent {
 		}
 	}
 
+	// forking
+
+	/**
+	 * Copies this component when its simulation is forked (see
+	 * {@link Simulation#fork()}). Sub-classes referencing other mutable objects
+	 * have to override this method and copy them using {@code ctx}.
+	 */
+	@Override
+	public SimComponentBase forkCopy(ForkContext ctx) {
+		try {
+			SimComponentBase c = ctx.register(this, (SimComponentBase) super.clone());
+			c.parent = ctx.copy(parent);
+			c.sim = ctx.copy(sim);
+			c.notifierAdapter = ctx.copy(notifierAdapter);
+			c.valueStore = ctx.copy(valueStore);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 }
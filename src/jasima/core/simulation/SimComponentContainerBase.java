@@ -6,6 +6,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
+import jasima.core.util.ForkContext;
+
 public class SimComponentContainerBase<SUB extends SimComponent> extends SimComponentBase
 		implements SimComponentContainer<SUB> {
 
@@ -104,4 +106,13 @@ public class SimComponentContainerBase<SUB extends SimComponent> extends SimComp
 		return clone;
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public SimComponentContainerBase<SUB> forkCopy(ForkContext ctx) {
+		SimComponentContainerBase<SUB> c = (SimComponentContainerBase<SUB>) super.forkCopy(ctx);
+		c.components = ctx.copy(components);
+		c.componentsByName = ctx.copy(componentsByName);
+		return c;
+	}
+
 }
@@ -21,6 +21,8 @@
 package jasima.core.simulation;
 
 import jasima.core.simulation.Simulation.EventQueue;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 
 /**
  * Abstract base class for all simulation events. Events are sequenced by an
@@ -29,7 +31,7 @@ import jasima.core.simulation.Simulation.EventQueue;
  * 
  * @author Torsten Hildebrandt
  */
-public abstract class SimEvent implements Comparable<SimEvent>, Runnable {
+public abstract class SimEvent implements Comparable<SimEvent>, Runnable, Cloneable, Forkable {
 
 	private static final int PRIO_INCREMENT = Integer.MAX_VALUE / 4;
 
@@ -48,7 +50,10 @@ public abstract class SimEvent implements Comparable<SimEvent>, Runnable {
 	private double time;
 	private int prio;
 	private String description;
-	int eventNum;
+	private Object kind;
+	long eventNum;
+	// replaces eventNum when executed by a ParallelEngine
+	ParallelEngine.Key key;
 
 	public SimEvent(double time, int prio) {
 		this(time, prio, null);
@@ -97,6 +102,22 @@ public abstract class SimEvent implements Comparable<SimEvent>, Runnable {
 		this.description = newDescription;
 	}
 
+	/**
+	 * Returns the kind of this event. The kind is an arbitrary constant object
+	 * (compared by identity) used to classify events without having to look at
+	 * their class or description, e.g., to find decision points when stepping
+	 * through a simulation.
+	 *
+	 * @see Simulation#setDecisionPointPredicate(java.util.function.Predicate)
+	 */
+	public Object getKind() {
+		return kind;
+	}
+
+	public void setKind(Object kind) {
+		this.kind = kind;
+	}
+
 	
 	/**
 	 * An application event is the usual event type in a simulation. A simulation is
@@ -122,11 +143,28 @@ public abstract class SimEvent implements Comparable<SimEvent>, Runnable {
 			else {
 				// eventNum is ternary criterion to enforce FIFO processing
 				// should both time and prio should be the same.
-				return (eventNum < o.eventNum) ? -1 : ((eventNum > o.eventNum) ? +1 : 0);
+				if (eventNum != o.eventNum)
+					return (eventNum < o.eventNum) ? -1 : +1;
+				return key == o.key ? 0 : ParallelEngine.compare(key, o.key);
 			}
 		}
 	}
 
+	/**
+	 * Creates the copy of this event when its simulation is forked. The default
+	 * implementation creates a shallow copy, so sub-classes referencing other
+	 * simulation objects have to override this method and replace these
+	 * references by their copies obtained from {@code ctx}.
+	 */
+	@Override
+	public SimEvent forkCopy(ForkContext ctx) {
+		try {
+			return ctx.register(this, (SimEvent) clone());
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
 	@Override
 	public String toString() {
 		String descr = getDescription();
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jasima.core.simulation.Simulation.MethodCallEvent;
+import jasima.core.statistics.SummaryStat;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+import jasima.core.util.observer.ListenerProfiler;
+import jasima.core.util.observer.NotifierImpl;
+import jasima.core.util.observer.NotifierListener;
+
+/**
+ * Measures the wall-clock time needed to handle simulation events and to
+ * notify listeners of {@link SimComponent}s. Events are grouped by their
+ * description or, if they don't have one, by their class (for
+ * {@link MethodCallEvent}s the class of the called method). Listeners are
+ * grouped by their class. The time of an event includes the time of all
+ * listeners notified while handling it.
+ * <p>
+ * For each group, {@link #produceResults(Map)} adds a {@link SummaryStat} of
+ * the nanoseconds needed per call (named {@code "profile.event.<name>"} or
+ * {@code "profile.listener.<name>"}) and a histogram with the suffix
+ * {@code ".histogram"}. Element {@code i} of a histogram counts the calls
+ * needing less than {@code 2^i} ns (and at least {@code 2^(i-1)} ns).
+ * 
+ * @see Simulation#setProfiling(boolean)
+ */
+public class SimProfiler implements ListenerProfiler, Forkable {
+
+	public static final String RESULT_PREFIX = "profile.";
+
+	private static final int NUM_BUCKETS = 64;
+
+	private static class Entry {
+		final SummaryStat nanos;
+		final long[] histogram;
+
+		Entry() {
+			nanos = new SummaryStat();
+			histogram = new long[NUM_BUCKETS];
+		}
+
+		Entry(Entry e) {
+			nanos = new SummaryStat(e.nanos);
+			histogram = e.histogram.clone();
+		}
+
+		void value(long n) {
+			nanos.value(n);
+			histogram[n <= 0 ? 0 : NUM_BUCKETS - Long.numberOfLeadingZeros(n)]++;
+		}
+	}
+
+	private final HashMap<Object, Entry> events;
+	private final HashMap<Class<?>, Entry> listeners;
+
+	public SimProfiler() {
+		super();
+
+		events = new HashMap<>();
+		listeners = new HashMap<>();
+	}
+
+	@Override
+	public SimProfiler forkCopy(ForkContext ctx) {
+		SimProfiler c = ctx.register(this, new SimProfiler());
+		events.forEach((k, e) -> c.events.put(k, new Entry(e)));
+		listeners.forEach((k, e) -> c.listeners.put(k, new Entry(e)));
+		return c;
+	}
+
+	/**
+	 * Called after {@code e} was handled, taking {@code nanos} ns.
+	 */
+	public void eventHandled(SimEvent e, long nanos) {
+		Object key = e.getDescription();
+		if (key == null) {
+			key = e instanceof MethodCallEvent ? ((MethodCallEvent) e).m.getClass() : e.getClass();
+		}
+
+		Entry entry = events.get(key);
+		if (entry == null) {
+			entry = new Entry();
+			events.put(key, entry);
+		}
+		entry.value(nanos);
+	}
+
+	@Override
+	public void listenerCalled(NotifierListener<?, ?> l, long nanos) {
+		Entry entry = listeners.get(l.getClass());
+		if (entry == null) {
+			entry = new Entry();
+			listeners.put(l.getClass(), entry);
+		}
+		entry.value(nanos);
+	}
+
+	/**
+	 * Installs this profiler in the {@link NotifierImpl} of {@code c}, so all
+	 * its listeners are measured, including those added after initialization.
+	 */
+	void install(SimComponent c) {
+		if (c.notifierImpl() instanceof NotifierImpl) {
+			((NotifierImpl<?, ?>) c.notifierImpl()).setProfiler(this);
+		}
+	}
+
+	/**
+	 * Removes all measurements.
+	 */
+	public void clear() {
+		events.clear();
+		listeners.clear();
+	}
+
+	/**
+	 * Adds the measurements to {@code res}.
+	 */
+	public void produceResults(Map<String, Object> res) {
+		for (Map.Entry<Object, Entry> e : events.entrySet()) {
+			Object key = e.getKey();
+			String name = key instanceof Class<?> ? ((Class<?>) key).getName() : key.toString();
+			put(res, "event." + name, e.getValue());
+		}
+		for (Map.Entry<Class<?>, Entry> e : listeners.entrySet()) {
+			put(res, "listener." + e.getKey().getName(), e.getValue());
+		}
+	}
+
+	private static void put(Map<String, Object> res, String name, Entry e) {
+		// omit empty buckets at the end
+		int n = NUM_BUCKETS;
+		while (n > 0 && e.histogram[n - 1] == 0) {
+			n--;
+		}
+
+		res.put(RESULT_PREFIX + name, new SummaryStat(e.nanos));
+		res.put(RESULT_PREFIX + name + ".histogram", Arrays.copyOf(e.histogram, n));
+	}
+
+}
@@ -42,11 +42,17 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
+
+import javax.management.ObjectName;
 
 import jasima.core.random.RandomFactory;
 import jasima.core.random.continuous.DblStream;
 import jasima.core.random.discrete.IntStream;
 import jasima.core.util.ConsolePrinter;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+import jasima.core.util.JmxUtil;
 import jasima.core.util.MsgCategory;
 import jasima.core.util.TraceFileProducer;
 import jasima.core.util.Util;
@@ -70,7 +76,7 @@ import jasima.shopSim.core.WorkStation;
  * 
  * @author Torsten Hildebrandt
  */
-public class Simulation {
+public class Simulation implements Cloneable, Forkable {
 
 	// constants for simTimeToMillisFactor used to convert simTime to an Instant
 	public static final long MILLIS_PER_MINUTE = 60 * 1000;
@@ -78,9 +84,18 @@ public class Simulation {
 	public static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
 	public static final long MILLIS_PER_WEEK = 7 * MILLIS_PER_DAY;
 
+	/**
+	 * Name of the system property to select the {@link EventQueue} implementation
+	 * (fully qualified class name). Available implementations are
+	 * {@link EventHeap} (the default), {@link CalendarQueue}, {@link LadderQueue}
+	 * and {@link AdaptiveEventQueue}.
+	 */
 	public static final String QUEUE_IMPL_KEY = "jasima.core.simulation.Simulation.queueImpl";
 	public static final String QUEUE_IMPL_DEF = EventHeap.class.getName();
 
+	/** Default number of events remembered by the {@link FlightRecorder}. */
+	public static final int DEF_FLIGHT_RECORDER_SIZE = 64;
+
 	/**
 	 * {@link SimPrintMessage}s are produced whenever {@code print()} or
 	 * {@code trace()} is called during a simulation to produce status/debug
@@ -157,12 +172,37 @@ public class Simulation {
 	}
 
 	/** Public interface of event queue implementations. */
-	public static interface EventQueue {
+	public static interface EventQueue extends Forkable {
 		/** Insert an event in the queue. */
 		public void insert(SimEvent e);
 
 		/** Extract the (chronologically) next event from the queue. */
 		public SimEvent extract();
+
+		/**
+		 * Returns the (chronologically) next event without removing it from the
+		 * queue, or null if the queue is empty.
+		 */
+		public SimEvent peek();
+
+		/**
+		 * Returns the number of events currently contained in the queue, or -1 if
+		 * this queue doesn't count its events. It is only used for monitoring.
+		 */
+		default int size() {
+			return -1;
+		}
+
+		/**
+		 * Creates a copy of this queue containing copies of all events when a
+		 * simulation is forked. Queues that don't override this method can't be
+		 * forked and throw an {@link IllegalArgumentException}.
+		 */
+		@Override
+		default EventQueue forkCopy(ForkContext ctx) {
+			throw new IllegalArgumentException("Can't fork an instance of " + getClass().getName()
+					+ ", it doesn't support forking.");
+		}
 	}
 
 	public static enum SimExecState {
@@ -182,6 +222,8 @@ public class Simulation {
 	private SimComponentContainer<SimComponent> rootComponent;
 
 	private MsgCategory printLevel = MsgCategory.INFO;
+	private int flightRecorderSize = DEF_FLIGHT_RECORDER_SIZE;
+	private boolean profiling = false;
 	private ArrayList<Consumer<SimPrintMessage>> printListener;
 	private PR[] jobSequencingRules;
 
@@ -207,17 +249,29 @@ public class Simulation {
 	private EventQueue events;
 	// eventNum is used to enforce FIFO-order of concurrent events with equal
 	// priorities
-	private int eventNum;
+	private long eventNum;
 	private boolean continueSim;
-	private boolean continueSimStep;
 	private int numAppEvents;
+	// MethodCallEvents available for reuse
+	private MethodCallEvent freeMethodCallEvents;
+	// the last events processed, null if disabled
+	private FlightRecorder flightRecorder;
+	// null if profiling is disabled
+	private SimProfiler profiler;
 
 	private SimExecState state;
 
+	// decision points when stepping through a simulation
+	private Predicate<SimEvent> decisionPointPredicate = e -> e.getKind() == WorkStation.DEPART_EVENT;
+	private Predicate<SimEvent> atDecisionPoint = this::isAtDecisionPoint;
+	private boolean decisionEventSeen;
+
 	private Semaphore pauseHelper;
 	private AtomicInteger pauseRequests;
 	private Thread simThread;
 
+	private ParallelEngine parallelEngine;
+
 	public Simulation() {
 		super();
 
@@ -233,11 +287,7 @@ public class Simulation {
 
 		events = createEventQueue();
 		// set to dummy event
-		currEvent = new SimEvent(Double.NEGATIVE_INFINITY, SimEvent.EVENT_PRIO_MIN, "dummy event") {
-			@Override
-			public void handle() {
-			}
-		};
+		currEvent = new DummyEvent();
 		currPrio = SimEvent.EVENT_PRIO_MAX;
 		eventNum = Integer.MIN_VALUE;
 		numAppEvents = 0;
@@ -246,21 +296,33 @@ public class Simulation {
 		LocalDate yearBeg = LocalDate.of(Year.now(Clock.systemUTC()).getValue(), 1, 1);
 		simTimeStartInstant = yearBeg.atStartOfDay(ZoneOffset.UTC).toInstant();
 
-		setRootComponent(new SimComponentContainerBase<SimComponent>() {
-			@Override
-			public void beforeRun() {
-				super.beforeRun();
+		setRootComponent(new RootComponent());
+	}
 
-				trace("sim_start");
-			}
+	private static final class DummyEvent extends SimEvent {
+		DummyEvent() {
+			super(Double.NEGATIVE_INFINITY, SimEvent.EVENT_PRIO_MIN, "dummy event");
+		}
 
-			@Override
-			public void afterRun() {
-				super.afterRun();
+		@Override
+		public void handle() {
+		}
+	}
 
-				trace("sim_end");
-			}
-		});
+	private static final class RootComponent extends SimComponentContainerBase<SimComponent> {
+		@Override
+		public void beforeRun() {
+			super.beforeRun();
+
+			trace("sim_start");
+		}
+
+		@Override
+		public void afterRun() {
+			super.afterRun();
+
+			trace("sim_end");
+		}
 	}
 
 	public void addPrintListener(Consumer<SimPrintMessage> listener) {
@@ -292,6 +354,19 @@ public class Simulation {
 
 		lastSimTime = simTime;
 
+		flightRecorder = flightRecorderSize > 0 ? new FlightRecorder(flightRecorderSize) : null;
+
+		profiler = null;
+		if (isProfiling()) {
+			if (parallelEngine != null)
+				throw new IllegalStateException("Profiling is not supported when using a parallel engine.");
+			profiler = new SimProfiler();
+		}
+
+		if (parallelEngine != null) {
+			parallelEngine.init(simTime);
+		}
+
 		initComponentTree(null, rootComponent);
 
 		rootComponent.init();
@@ -307,6 +382,8 @@ public class Simulation {
 	protected void initComponentTree(SimComponentContainer<?> parent, SimComponent child) {
 		child.setParent(parent);
 		child.setSim(this);
+		if (profiler != null)
+			profiler.install(child);
 
 		if (child instanceof SimComponentContainer<?>) {
 			SimComponentContainer<?> scc = (SimComponentContainer<?>) child;
@@ -334,68 +411,62 @@ public class Simulation {
 		resetStats();
 
 		simThread = Thread.currentThread();
+		ObjectName mbeanName = JmxUtil.register("Simulation", getName(), SimulationMXBean.class,
+				() -> new SimulationMonitor(this));
 		try {
-			do {
-				// make current thread block until simulation is unpaused.
-				if (pauseRequests.get() > 0) {
-					state = SimExecState.PAUSED;
-
-					if (blockWhilePaused()) {
-						return; // Simulation Threat was interrupted while paused
+			if (parallelEngine != null) {
+				runParallel();
+			} else {
+				do {
+					// make current thread block until simulation is unpaused.
+					if (pauseRequests.get() > 0) {
+						state = SimExecState.PAUSED;
+
+						if (blockWhilePaused()) {
+							return; // Simulation Threat was interrupted while paused
+						}
 					}
-				}
 
-				state = SimExecState.RUNNING;
-				continueSim = numAppEvents > 0;
-
-				checkInitialEventTime();
-
-				while (continueSim) { // outer loop so we can recover from errors
-					try {
-						runMainLoop();
-					} catch (Throwable t) {
-						boolean rethrow = handleError(t);
-
-						if (rethrow) {
-							state = SimExecState.ERROR;
-
-							if (t instanceof RuntimeException) {
-								throw (RuntimeException) t;
-							} else if (t instanceof Error) {
-								throw (Error) t;
-							} else
-								// can't occur
-								throw new AssertionError();
-						} else {
-							// do nothing
+					state = SimExecState.RUNNING;
+					continueSim = numAppEvents > 0;
+
+					checkInitialEventTime();
+
+					while (continueSim) { // outer loop so we can recover from errors
+						try {
+							runMainLoop();
+						} catch (Throwable t) {
+							rethrowIfRequired(t);
 						}
 					}
-				}
-			} while (pauseRequests.get() > 0);
+				} while (pauseRequests.get() > 0);
+			}
 
 			state = SimExecState.FINISHED;
 		} finally {
 			simThread = null;
+			JmxUtil.unregister(mbeanName);
+		}
+	}
+
+	private void runParallel() {
+		try {
+			parallelEngine.run();
+		} catch (Throwable t) {
+			rethrowIfRequired(t);
 		}
 	}
 
 	/**
-	 * Runs the main simulation loop by step. This means:
-	 * <ol>
-	 * <li>taking an event from the event queue,
-	 * <li>advancing simulation time, and
-	 * <li>triggering event processing.
-	 * </ol>
-	 * A simulation is terminated if either the maximum simulation length is
-	 * reached, there are no more application events in the queue, or some other
-	 * code called {@link #end()}.
-	 * <p>
-	 * Here one step means a decision point(e.g. new job arrivals or operation is
-	 * finished) to a decision point.
+	 * Runs the simulation until the next decision point is reached, using the
+	 * sequencing rule {@code getJobSequencingRules()[action]} in all workstations
+	 * of the shop.
 	 * 
-	 * @param action
+	 * @param action Index of the sequencing rule to use.
+	 * @return {@code true}, if a decision point was reached; {@code false} if the
+	 *         simulation ended.
 	 * 
-	 * @see jasima.core.simulation.SimEvent#isAppEvent()
+	 * @see #runToDecisionPoint()
 	 */
 	public boolean runStep(Integer action) {
 		checkState("run", state(), SimExecState.RUNNING);
@@ -403,165 +474,131 @@ public class Simulation {
 		Shop shop = (Shop) this.getRootComponent().getComponent(0);
 		PR sr = jobSequencingRules[action];
 
-		for (WorkStation workStation : shop.getMachines()) {
-			workStation.queue.setSequencingRule(sr);
+		SimComponentContainer<WorkStation> machines = shop.machines();
+		for (int i = 0, n = machines.numComponents(); i < n; i++) {
+			machines.getComponent(i).queue.setSequencingRule(sr);
 		}
-		// state = SimExecState.RUNNING;
-		// resetStats();
 
-		// simThread = Thread.currentThread();
-		try {
-			do {
-				// state = SimExecState.RUNNING;
-				continueSim = numAppEvents > 0;
-				continueSimStep = true;
-				boolean depart = false;
-
-				checkInitialEventTime();
-
-				first: while (continueSim) { // outer loop so we can recover from errors
-					try {
-						second: while (continueSimStep) {
-							currEvent = events.extract();
-							// 判断是不是决策点事件,标准就是机床加工完成且后续事件仿真时间增加时为止
-							if (currEvent.getDescription() != null && currEvent.getDescription().contains("离开")) {
-								// 表示已经发生加工完成事件
-								depart = true;
-							}
-							if (depart) {
-								// 如果已经发生加工完成事件，则再判断事件时间是否发生变化
-								if (currEvent.getTime() > lastSimTime) {
-									continueSimStep = false;
-									events.insert(currEvent);
-									simTime = currEvent.getTime();
-									// 放在外面赋值
-									// lastSimTime = currEvent.getTime();
-									break first;
-								}
-							}
-							// Advance clock to time of next event
-							simTime = currEvent.getTime();
-							currPrio = currEvent.getPrio();
-
-							currEvent.handle();
-
-							if (currEvent.isAppEvent()) {
-								if (--numAppEvents == 0) {
-									continueSim = false;
-									continueSimStep = false;
-								}
-							}
-							numEventsProcessed++;
-						}
-					} catch (Throwable t) {
-						boolean rethrow = handleError(t);
-						if (rethrow) {
-							state = SimExecState.ERROR;
-							if (t instanceof RuntimeException) {
-								throw (RuntimeException) t;
-							} else if (t instanceof Error) {
-								throw (Error) t;
-							} else
-								// can't occur
-								throw new AssertionError();
-						} else {
-							// do nothing
-						}
-					}
-				}
-			} while (pauseRequests.get() > 0);
+		return runToDecisionPoint();
+	}
 
-			return continueSim;
-			// state = SimExecState.FINISHED;
-		} finally {
-			// simThread = null;
+	/**
+	 * Processes events until the next decision point is reached. A decision
+	 * point is reached after an event accepted by
+	 * {@link #getDecisionPointPredicate()} (by default: an operation is finished)
+	 * was encountered and the next event would advance simulation time beyond
+	 * {@link #getLastSimTime()}. The event at the decision point remains in the
+	 * event queue, simulation time is set to its time.
+	 * <p>
+	 * Pausing a simulation is not supported while stepping.
+	 * 
+	 * @return {@code true}, if a decision point was reached; {@code false} if the
+	 *         simulation ended.
+	 * @see #runUntil(Predicate)
+	 */
+	public boolean runToDecisionPoint() {
+		decisionEventSeen = false;
+		boolean res = runUntil(atDecisionPoint);
+		if (res) {
+			simTime = events.peek().getTime();
 		}
+		return res;
+	}
+
+	private boolean isAtDecisionPoint(SimEvent next) {
+		if (!decisionEventSeen && decisionPointPredicate.test(next)) {
+			decisionEventSeen = true;
+		}
+		return decisionEventSeen && next.getTime() > lastSimTime;
 	}
 
 	/**
+	 * Processes events until either the simulation ends or {@code stopBefore}
+	 * returns {@code true} for the next event. This event is not processed, but
+	 * remains in the event queue.
+	 * <p>
+	 * Pausing a simulation is not supported while stepping.
 	 * 
+	 * @param stopBefore Predicate tested with the next event before it is
+	 *                   processed.
+	 * @return {@code true}, if {@code stopBefore} stopped processing;
+	 *         {@code false} if the simulation ended.
+	 */
+	public boolean runUntil(Predicate<SimEvent> stopBefore) {
+		checkState("run", state(), SimExecState.RUNNING);
+		checkSequential("step through");
+
+		continueSim = numAppEvents > 0;
+
+		checkInitialEventTime();
+
+		while (continueSim) { // outer loop so we can recover from errors
+			try {
+				while (continueSim) {
+					if (stopBefore.test(events.peek())) {
+						return true;
+					}
+
+					processNextEvent();
+				}
+			} catch (Throwable t) {
+				rethrowIfRequired(t);
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Processes all events required to initialize the simulation (i.e., job
+	 * releases and machine activations at the initial time), so the simulation
+	 * can subsequently be continued with {@link #runStep(Integer)}. Processing
+	 * stops before the first job selection of a workstation or the first event
+	 * with a time larger than 0.
 	 */
 	public void runInit() {
 		checkState("run", state(), SimExecState.BEFORE_RUN);
+		checkSequential("step through");
 
 		state = SimExecState.RUNNING;
 		resetStats();
 
 		simThread = Thread.currentThread();
-		try {
-			do {
-				continueSim = numAppEvents > 0;
-				continueSimStep = true;
-
-				checkInitialEventTime();
-
-				first: while (continueSim) { // outer loop so we can recover from errors
-					try {
-						second: while (continueSimStep) {
-							currEvent = events.extract();
-							// 当机床开始选择时或事件时间>0时说明初始化结束
-							if (currEvent.getTime() > 0 || (currEvent.getDescription() != null
-									&& currEvent.getDescription().contains("选择加工"))) {
-								events.insert(currEvent);
-								continueSimStep = false;
-								break first;
-							}
-							// Advance clock to time of next event
-							simTime = currEvent.getTime();
-							currPrio = currEvent.getPrio();
-
-							currEvent.handle();
-
-							if (currEvent.isAppEvent()) {
-								if (--numAppEvents == 0)
-									continueSim = false;
-							}
-
-							numEventsProcessed++;
-						}
-					} catch (Throwable t) {
-						boolean rethrow = handleError(t);
-
-						if (rethrow) {
-							state = SimExecState.ERROR;
-
-							if (t instanceof RuntimeException) {
-								throw (RuntimeException) t;
-							} else if (t instanceof Error) {
-								throw (Error) t;
-							} else
-								// can't occur
-								throw new AssertionError();
-						} else {
-							// do nothing
-						}
-					}
-				}
-			} while (pauseRequests.get() > 0);
 
-			// state = SimExecState.FINISHED;
-		} finally {
-			// simThread = null;
-		}
+		runUntil(e -> e.getTime() > 0 || e.getKind() == WorkStation.SELECT_EVENT);
 	}
 
-	protected void runMainLoop() {
-		// main event loop
-		while (continueSim) {
-			currEvent = events.extract();
+	private void processNextEvent() {
+		currEvent = events.extract();
+		if (flightRecorder != null)
+			flightRecorder.record(currEvent);
 
-			// Advance clock to time of next event
-			simTime = currEvent.getTime();
-			currPrio = currEvent.getPrio();
+		// Advance clock to time of next event
+		simTime = currEvent.getTime();
+		currPrio = currEvent.getPrio();
 
+		if (profiler == null) {
 			currEvent.handle();
+		} else {
+			long start = System.nanoTime();
+			currEvent.handle();
+			profiler.eventHandled(currEvent, System.nanoTime() - start);
+		}
 
-			if (currEvent.isAppEvent()) {
-				if (--numAppEvents == 0)
-					continueSim = false;
-			}
+		if (currEvent.isAppEvent()) {
+			if (--numAppEvents == 0)
+				continueSim = false;
+		}
 
-			numEventsProcessed++;
+		numEventsProcessed++;
+
+		recycle(currEvent);
+	}
+
+	protected void runMainLoop() {
+		// main event loop
+		while (continueSim) {
+			processNextEvent();
 		}
 	}
 
@@ -578,23 +615,39 @@ public class Simulation {
 	}
 
 	private void checkInitialEventTime() {
-		// ensure time of first event is before initalSimTime, then put in event
-		// queue again; this is done just once to move the check outside the main loop.
+		// ensure time of first event is before initalSimTime; this is done just once
+		// to move the check outside the main loop.
 		if (continueSim) {
-			SimEvent e = events.extract();
+			SimEvent e = events.peek();
 			if (e.getTime() < simTime) {
 				throw new IllegalArgumentException(createErrorMsgEventInPast(e));
 			}
+		}
+	}
+
+	private void rethrowIfRequired(Throwable t) {
+		boolean rethrow = handleError(t);
+
+		if (rethrow) {
+			state = SimExecState.ERROR;
 
-			// everything is ok, reinsert first event
-			events.insert(e);
+			if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			} else
+				// can't occur
+				throw new AssertionError();
+		} else {
+			// do nothing
 		}
 	}
 
 	/**
 	 * This method is called if an unhandled exception occurs during the main of a
 	 * simulation run. The implementation here just prints an appropriate message
-	 * and then rethrows the Exception, terminating the simulation run.
+	 * and the events recorded by the {@link FlightRecorder}, and then rethrows the
+	 * Exception, terminating the simulation run.
 	 * 
 	 * @param t The Error or RuntimeException that was triggered somewhere in
 	 *          simulation code.
@@ -606,10 +659,15 @@ public class Simulation {
 		printFmt(MsgCategory.ERROR, "An uncaught exception occurred. Current event='%s', exception='%s'",
 				currentEvent(), errorString);
 
+		if (flightRecorder != null && flightRecorder.size() > 0) {
+			printFmt(MsgCategory.ERROR, "Last %d events (oldest first):%n%s", flightRecorder.size(),
+					flightRecorder.dump());
+		}
+
 		return true;
 	}
 
-	private String createErrorMsgEventInPast(SimEvent e) {
+	String createErrorMsgEventInPast(SimEvent e) {
 		return String.format(Util.DEF_LOCALE,
 				"Can't schedule an event that is in the past (time to schedule: %f, prio=%d, event=%s).", e.getTime(),
 				e.getPrio(), e.toString());
@@ -628,12 +686,7 @@ public class Simulation {
 
 		// schedule simulation end
 		if (getSimulationLength() > 0.0) {
-			schedule(new SimEvent(getSimulationLength(), SimEvent.EVENT_PRIO_LOWEST) {
-				@Override
-				public void handle() {
-					end();
-				}
-			});
+			schedule(new EndEvent(this, getSimulationLength()));
 		}
 
 		rootComponent.beforeRun();
@@ -651,7 +704,7 @@ public class Simulation {
 
 		// schedule statistics reset
 		if (getStatsResetTime() > getInitialSimTime()) {
-			schedule(getStatsResetTime(), SimEvent.EVENT_PRIO_LOWEST, rootComponent::resetStats);
+			schedule(new StatsResetEvent(rootComponent, getStatsResetTime()));
 		}
 
 		// call once for each run
@@ -731,6 +784,11 @@ public class Simulation {
 	 * @param event Some future event to be executed by the main event loop.
 	 */
 	public void schedule(SimEvent event) {
+		if (parallelEngine != null) {
+			parallelEngine.schedule(event);
+			return;
+		}
+
 		if (event.getTime() == simTime && event.getPrio() <= currPrio) {
 			printFmt(MsgCategory.WARN, "Priority inversion (current: %d, scheduled: %d, event=%s).", currPrio,
 					event.getPrio(), event.toString());
@@ -762,7 +820,9 @@ public class Simulation {
 	}
 
 	/**
-	 * Schedules a call to {@code method} at a certain point in time.
+	 * Schedules a call to {@code method} at a certain point in time. The event
+	 * objects used internally are reused after {@code method} was called, so no
+	 * new objects have to be allocated in the steady state of a simulation.
 	 * 
 	 * @param description Some description that is added as an additional parameter
 	 *                    to the Event object (makes debugging easier).
@@ -772,10 +832,73 @@ public class Simulation {
 	 * @param method      The method to call at the given moment.
 	 */
 	public void schedule(String description, double time, int prio, Runnable method) {
-		SimEvent e = new MethodCallEvent(time, prio, method, description);
+		if (parallelEngine != null) {
+			parallelEngine.schedule(description, time, prio, method);
+			return;
+		}
+
+		MethodCallEvent e = freeMethodCallEvents;
+		if (e != null) {
+			freeMethodCallEvents = e.nextFree;
+			e.nextFree = null;
+
+			e.setTime(time);
+			e.setPrio(prio);
+			e.setDescription(description);
+			e.m = method;
+		} else {
+			e = new MethodCallEvent(time, prio, method, description);
+		}
 		schedule(e);
 	}
 
+	/**
+	 * Calls {@code method} on behalf of the component {@code c}. Without a
+	 * {@link ParallelEngine}, {@code method} is simply called. Otherwise it is
+	 * called directly only if {@code c} is the component processing the current
+	 * event (or before/after a run). If not, a message is sent to the logical
+	 * process of {@code c} to call {@code method} at the current simulation time
+	 * and with the current priority.
+	 * 
+	 * @param c      The component on whose behalf {@code method} is executed.
+	 * @param method The method to call.
+	 * @see ParallelEngine
+	 */
+	public void callAs(SimComponent c, Runnable method) {
+		if (parallelEngine == null) {
+			method.run();
+		} else {
+			parallelEngine.callAs(c, method);
+		}
+	}
+
+	/**
+	 * Returns whether the component {@code c} can be accessed directly by the
+	 * current event. This is always the case unless this simulation is executed
+	 * by a {@link ParallelEngine} and the current event is processed on behalf of
+	 * another component.
+	 * 
+	 * @see #callAs(SimComponent, Runnable)
+	 */
+	public boolean isLocal(SimComponent c) {
+		return parallelEngine == null || parallelEngine.isLocal(c);
+	}
+
+	/**
+	 * Puts an event back into the pool of {@link MethodCallEvent}s after it was
+	 * handled.
+	 */
+	private void recycle(SimEvent handled) {
+		if (handled instanceof MethodCallEvent) {
+			MethodCallEvent e = (MethodCallEvent) handled;
+			e.m = null;
+			e.setDescription(null);
+			e.setKind(null);
+			e.nextFree = freeMethodCallEvents;
+			freeMethodCallEvents = e;
+		}
+	}
+
 	/**
 	 * Schedules a call to {@code method} at a certain point in time given as a Java
 	 * Instant. Usually using {@link #schedule(String, Instant, int, Runnable)}
@@ -806,7 +929,7 @@ public class Simulation {
 	}
 
 	public double getSimTime() {
-		return simTime;
+		return simTime();
 	}
 
 	public void setSimTime(double simTime) {
@@ -821,6 +944,46 @@ public class Simulation {
 		this.lastSimTime = lastSimTime;
 	}
 
+	public ParallelEngine getParallelEngine() {
+		return parallelEngine;
+	}
+
+	/**
+	 * Sets a {@link ParallelEngine} to execute this simulation on several threads.
+	 * This has to be done before the simulation is initialized. The default value
+	 * is {@code null}, i.e., all events are processed by {@link #runMainLoop()}.
+	 * 
+	 * @param parallelEngine The engine to use.
+	 */
+	public void setParallelEngine(ParallelEngine parallelEngine) {
+		checkState("set a parallel engine of a", state(), SimExecState.INITIAL);
+
+		if (parallelEngine != null) {
+			parallelEngine.bind(this);
+		}
+		this.parallelEngine = parallelEngine;
+	}
+
+	/**
+	 * Returns the predicate used by {@link #runToDecisionPoint()} to recognize
+	 * events triggering a decision point.
+	 */
+	public Predicate<SimEvent> getDecisionPointPredicate() {
+		return decisionPointPredicate;
+	}
+
+	/**
+	 * Sets the predicate used by {@link #runToDecisionPoint()} to recognize events
+	 * triggering a decision point. The default is to accept all events of kind
+	 * {@link WorkStation#DEPART_EVENT}, i.e., whenever an operation is finished.
+	 * 
+	 * @param decisionPointPredicate The new predicate, mustn't be null.
+	 * @see SimEvent#getKind()
+	 */
+	public void setDecisionPointPredicate(Predicate<SimEvent> decisionPointPredicate) {
+		this.decisionPointPredicate = Objects.requireNonNull(decisionPointPredicate);
+	}
+
 	/**
 	 * Schedules a call to {@code method} in a certain amount of time. In contrast
 	 * to {@link #schedule(double, int, Runnable)} this method expects a relative
@@ -894,35 +1057,14 @@ public class Simulation {
 	 * invocation after the given time interval is scheduled.
 	 */
 	public void schedulePeriodically(double firstInvocation, double interval, int prio, BooleanSupplier method) {
-		schedule(new SimEvent(firstInvocation, prio) {
-			private int n = 0;
-
-			@Override
-			public void handle() {
-				if (method.getAsBoolean()) {
-					// schedule next invocation reusing Event object
-					setTime(firstInvocation + (++n) * interval);
-					schedule(this);
-				}
-			}
-		});
+		schedule(new PeriodicEvent(this, firstInvocation, interval, prio, method, null));
 	}
 
 	/**
 	 * Periodically calls a certain method until the simulation terminates.
 	 */
 	public void schedulePeriodically(double firstInvocation, double interval, int prio, Runnable method) {
-		schedule(new SimEvent(firstInvocation, prio) {
-			private int n = 0;
-
-			@Override
-			public void handle() {
-				method.run();
-				// schedule next invocation reusing Event object
-				setTime(firstInvocation + (++n) * interval);
-				schedule(this);
-			}
-		});
+		schedule(new PeriodicEvent(this, firstInvocation, interval, prio, null, method));
 	}
 
 	/**
@@ -945,26 +1087,133 @@ public class Simulation {
 	 * negative value.
 	 */
 	public void scheduleProcess(double firstInvocation, int prio, DoubleSupplier method) {
-		schedule(new SimEvent(firstInvocation, prio) {
-			@Override
-			public void handle() {
-				double next = method.getAsDouble();
-				if (next >= 0.0) {
-					// schedule next invocation reusing Event object
-					setTime(next);
-					schedule(this);
-				}
+		schedule(new ProcessEvent(this, firstInvocation, prio, method));
+	}
+
+	// the events below are static classes (and not anonymous ones) so they can
+	// be copied when forking a simulation
+
+	private static final class EndEvent extends SimEvent {
+		private Simulation sim;
+
+		EndEvent(Simulation sim, double time) {
+			super(time, SimEvent.EVENT_PRIO_LOWEST);
+			this.sim = sim;
+		}
+
+		@Override
+		public void handle() {
+			sim.end();
+		}
+
+		@Override
+		public EndEvent forkCopy(ForkContext ctx) {
+			EndEvent c = (EndEvent) super.forkCopy(ctx);
+			c.sim = ctx.copy(sim);
+			return c;
+		}
+	}
+
+	private static final class StatsResetEvent extends SimEvent {
+		private SimComponent component;
+
+		StatsResetEvent(SimComponent component, double time) {
+			super(time, SimEvent.EVENT_PRIO_LOWEST);
+			this.component = component;
+		}
+
+		@Override
+		public void handle() {
+			component.resetStats();
+		}
+
+		@Override
+		public StatsResetEvent forkCopy(ForkContext ctx) {
+			StatsResetEvent c = (StatsResetEvent) super.forkCopy(ctx);
+			c.component = ctx.copy(component);
+			return c;
+		}
+	}
+
+	private static final class PeriodicEvent extends SimEvent {
+		private Simulation sim;
+		private final double firstInvocation;
+		private final double interval;
+		// either condition or method is set
+		private BooleanSupplier condition;
+		private Runnable method;
+		private int n = 0;
+
+		PeriodicEvent(Simulation sim, double firstInvocation, double interval, int prio, BooleanSupplier condition,
+				Runnable method) {
+			super(firstInvocation, prio);
+			this.sim = sim;
+			this.firstInvocation = firstInvocation;
+			this.interval = interval;
+			this.condition = condition;
+			this.method = method;
+		}
+
+		@Override
+		public void handle() {
+			if (method != null) {
+				method.run();
+			} else if (!condition.getAsBoolean()) {
+				return;
+			}
+
+			// schedule next invocation reusing Event object
+			setTime(firstInvocation + (++n) * interval);
+			sim.schedule(this);
+		}
+
+		@Override
+		public PeriodicEvent forkCopy(ForkContext ctx) {
+			PeriodicEvent c = (PeriodicEvent) super.forkCopy(ctx);
+			c.sim = ctx.copy(sim);
+			c.condition = ctx.copy(condition);
+			c.method = ctx.copy(method);
+			return c;
+		}
+	}
+
+	private static final class ProcessEvent extends SimEvent {
+		private Simulation sim;
+		private DoubleSupplier method;
+
+		ProcessEvent(Simulation sim, double firstInvocation, int prio, DoubleSupplier method) {
+			super(firstInvocation, prio);
+			this.sim = sim;
+			this.method = method;
+		}
+
+		@Override
+		public void handle() {
+			double next = method.getAsDouble();
+			if (next >= 0.0) {
+				// schedule next invocation reusing Event object
+				setTime(next);
+				sim.schedule(this);
 			}
-		});
+		}
+
+		@Override
+		public ProcessEvent forkCopy(ForkContext ctx) {
+			ProcessEvent c = (ProcessEvent) super.forkCopy(ctx);
+			c.sim = ctx.copy(sim);
+			c.method = ctx.copy(method);
+			return c;
+		}
 	}
 
 	/**
 	 * This class is used internally by {@link #schedule(double,int,Runnable)}.
 	 */
 	protected static final class MethodCallEvent extends SimEvent {
-		public final Runnable m;
+		public Runnable m;
+		MethodCallEvent nextFree; // linked list of events to reuse
 
-		private MethodCallEvent(double time, int prio, Runnable method, String description) {
+		MethodCallEvent(double time, int prio, Runnable method, String description) {
 			super(time, prio, description);
 			m = method;
 		}
@@ -976,7 +1225,15 @@ public class Simulation {
 
 		@Override
 		public String toString() {
-			return getDescription() != null ? getDescription() : String.format("MethodCallEvent(%s)", m.toString());
+			return getDescription() != null ? getDescription() : String.format("MethodCallEvent(%s)", m);
+		}
+
+		@Override
+		public MethodCallEvent forkCopy(ForkContext ctx) {
+			MethodCallEvent c = (MethodCallEvent) super.forkCopy(ctx);
+			c.m = ctx.copy(m);
+			c.nextFree = null;
+			return c;
 		}
 	}
 
@@ -986,6 +1243,9 @@ public class Simulation {
 	 */
 	public void end() {
 		continueSim = false;
+		if (parallelEngine != null) {
+			parallelEngine.end();
+		}
 
 		if (pauseRequests.get() > 0) {
 			simThread.interrupt();
@@ -997,6 +1257,8 @@ public class Simulation {
 	 * {@link #run()} method returns after handling the current event.
 	 */
 	public void pause() {
+		checkSequential("pause");
+
 		if (pauseRequests.incrementAndGet() == 1) {
 			continueSim = false;
 
@@ -1032,9 +1294,20 @@ public class Simulation {
 		}
 	}
 
+	/**
+	 * Throws an {@link IllegalStateException} if this simulation is executed by a
+	 * {@link ParallelEngine}.
+	 */
+	private void checkSequential(String operationName) {
+		if (parallelEngine != null) {
+			throw new IllegalStateException(
+					String.format("Can't %s a simulation executed by a parallel engine.", operationName));
+		}
+	}
+
 	/** Returns the current simulation time. */
 	public double simTime() {
-		return simTime;
+		return parallelEngine == null ? simTime : parallelEngine.current().simTime;
 	}
 
 	/**
@@ -1089,14 +1362,16 @@ public class Simulation {
 	 * Returns the priority of the currently processed event.
 	 */
 	public int currentPrio() {
-		return currPrio;
+		return parallelEngine == null ? currPrio : parallelEngine.current().currPrio;
 	}
 
 	/**
-	 * Returns the {@link SimEvent} object that is currently processed.
+	 * Returns the {@link SimEvent} object that is currently processed. Events
+	 * created by {@link #schedule(String, double, int, Runnable)} are reused, so
+	 * the object returned is only valid while it is processed.
 	 */
 	public SimEvent currentEvent() {
-		return currEvent;
+		return parallelEngine == null ? currEvent : parallelEngine.current().currEvent;
 	}
 
 	/**
@@ -1110,7 +1385,78 @@ public class Simulation {
 	 * Returns the number of events processed by the main simulation loop.
 	 */
 	public long numEventsProcessed() {
-		return numEventsProcessed;
+		return parallelEngine == null ? numEventsProcessed : parallelEngine.numEventsProcessed();
+	}
+
+	// number of events waiting to be processed
+	int eventQueueSize() {
+		return parallelEngine == null ? events.size() : parallelEngine.eventQueueSize();
+	}
+
+	/**
+	 * Creates an independent copy of this simulation including its complete
+	 * state, i.e., all pending events, all components (e.g., a shop with its
+	 * machines, queues and jobs), their listeners and the states of all random
+	 * number streams. Original and copy can subsequently be continued
+	 * independently, e.g., with {@link #runUntil(Predicate)} or
+	 * {@link #runStep(Integer)}, to evaluate several alternative continuations
+	 * from a common state. The time required is linear in the size of the
+	 * simulation state.
+	 * <p>
+	 * This method must not be called while an event is handled. It can be used
+	 * while stepping through a simulation (e.g., at a decision point), while it
+	 * is paused or before/after a run. The copy of a paused simulation is not
+	 * paused, but can be continued by stepping through it.
+	 * <p>
+	 * All objects of the simulation state have to implement {@link Forkable},
+	 * otherwise an {@link IllegalArgumentException} is thrown. In particular,
+	 * pending events created by {@link #schedule(double, int, Runnable)} with a
+	 * lambda expression can't be copied. Print listeners and the decision point
+	 * predicate are shared with the copy unless they are {@link Forkable}.
+	 * Simulations using a {@link ParallelEngine} can't be forked.
+	 * 
+	 * @return The new simulation.
+	 * @see ForkContext
+	 */
+	public Simulation fork() {
+		return new ForkContext().copy(this);
+	}
+
+	@Override
+	public Simulation forkCopy(ForkContext ctx) {
+		checkSequential("fork");
+
+		Simulation c;
+		try {
+			c = ctx.register(this, (Simulation) super.clone());
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+
+		c.rndStreamFactory = ctx.copy(rndStreamFactory);
+		c.rootComponent = ctx.copy(rootComponent);
+		c.printListener = new ArrayList<>(printListener.size());
+		for (Consumer<SimPrintMessage> l : printListener) {
+			c.printListener.add(ctx.copyOrShare(l));
+		}
+		c.jobSequencingRules = ctx.copy(jobSequencingRules);
+		c.currEvent = ctx.copy(currEvent);
+		c.events = ctx.copy(events);
+		c.freeMethodCallEvents = null;
+		c.flightRecorder = ctx.copy(flightRecorder);
+		c.profiler = ctx.copy(profiler);
+		c.decisionPointPredicate = ctx.copyOrShare(decisionPointPredicate);
+		c.atDecisionPoint = c::isAtDecisionPoint;
+
+		// execution control state
+		c.simThread = null;
+		c.pauseHelper = new Semaphore(1, true);
+		c.pauseRequests = new AtomicInteger(0);
+		if (c.state == SimExecState.PAUSED) {
+			c.state = SimExecState.RUNNING;
+		}
+
+		return c;
 	}
 
 	/**
@@ -1119,6 +1465,8 @@ public class Simulation {
 	public void produceResults(Map<String, Object> res) {
 		res.put("simTime", simTime());
 		rootComponent.produceResults(res);
+		if (profiler != null)
+			profiler.produceResults(res);
 	}
 
 	/**
@@ -1174,7 +1522,14 @@ public class Simulation {
 	 * print listeners.
 	 */
 	protected void print(SimPrintMessage e) {
-		printListener.forEach(l -> l.accept(e));
+		if (parallelEngine == null) {
+			printListener.forEach(l -> l.accept(e));
+		} else {
+			// messages can be produced by several threads concurrently
+			synchronized (printListener) {
+				printListener.forEach(l -> l.accept(e));
+			}
+		}
 	}
 
 	/**
@@ -1216,6 +1571,57 @@ public class Simulation {
 		this.printLevel = printLevel;
 	}
 
+	public int getFlightRecorderSize() {
+		return flightRecorderSize;
+	}
+
+	/**
+	 * Sets the number of events remembered by the {@link FlightRecorder} created
+	 * in {@link #init()}. Use 0 to disable it. Default is
+	 * {@value #DEF_FLIGHT_RECORDER_SIZE}. Events processed by a
+	 * {@link ParallelEngine} are not recorded.
+	 * 
+	 * @param flightRecorderSize The number of events to remember.
+	 */
+	public void setFlightRecorderSize(int flightRecorderSize) {
+		if (flightRecorderSize < 0)
+			throw new IllegalArgumentException("flightRecorderSize can't be negative: " + flightRecorderSize);
+		this.flightRecorderSize = flightRecorderSize;
+	}
+
+	/**
+	 * Returns the {@link FlightRecorder} containing the last events processed, or
+	 * {@code null} if it is disabled or this simulation was not initialized yet.
+	 * Use {@link FlightRecorder#dump()} to get a description of these events.
+	 */
+	public FlightRecorder getFlightRecorder() {
+		return flightRecorder;
+	}
+
+	public boolean isProfiling() {
+		return profiling;
+	}
+
+	/**
+	 * Enables a {@link SimProfiler} measuring the wall-clock time needed by
+	 * events and listeners. Its measurements are added to the results of
+	 * {@link #produceResults(Map)}. Profiling is disabled by default and can't be
+	 * combined with a {@link ParallelEngine}.
+	 * 
+	 * @param profiling Whether or not to enable profiling.
+	 */
+	public void setProfiling(boolean profiling) {
+		this.profiling = profiling;
+	}
+
+	/**
+	 * Returns the {@link SimProfiler} used during a run, or {@code null} if
+	 * profiling is disabled.
+	 */
+	public SimProfiler getProfiler() {
+		return profiler;
+	}
+
 	/**
 	 * Triggers a print event of the given category with the message produced by a
 	 * Java format String. If an appropriate listener is installed, this produces a
@@ -12,6 +12,8 @@ import jasima.core.experiment.Experiment;
 import jasima.core.experiment.Experiment.ExperimentMessage;
 import jasima.core.simulation.Simulation.SimExecState;
 import jasima.core.simulation.Simulation.SimPrintMessage;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.core.util.MsgCategory;
 import jasima.shopSim.core.PR;
 
@@ -29,6 +31,7 @@ public class SimulationExperiment extends Experiment {
 	private ArrayList<Consumer<Simulation>> initActions = null;
 	private SimComponent rootComponent = null;
 	private Boolean writeDynamic = false;
+	private boolean profiling = false;
 	/**
 	 * 可选规则集合，用于强化学习选择
 	 */
@@ -122,6 +125,7 @@ public class SimulationExperiment extends Experiment {
 		sim.setInitialSimTime(getInitialSimTime());
 		sim.setPrintLevel(getLogLevel());
 		sim.getRndStreamFactory().setSeed(getInitialSeed());
+		sim.setProfiling(isProfiling());
 
 		if (getSimulationLength() >= 0.0) {
 			sim.setSimulationLength(getSimulationLength());
@@ -141,7 +145,31 @@ public class SimulationExperiment extends Experiment {
 		}
 
 		// forward simulation print events to experiment print events
-		sim.addPrintListener(this::print);
+		sim.addPrintListener(new PrintForwarder(this));
+	}
+
+	/**
+	 * Forwards print events of the simulation to {@link #print(SimPrintMessage)}.
+	 * This is a static class (and not a method reference) so the experiment
+	 * receiving the events can be replaced when forking.
+	 */
+	private static final class PrintForwarder implements Consumer<SimPrintMessage>, Forkable {
+		private final SimulationExperiment experiment;
+
+		PrintForwarder(SimulationExperiment experiment) {
+			super();
+			this.experiment = experiment;
+		}
+
+		@Override
+		public void accept(SimPrintMessage event) {
+			experiment.print(event);
+		}
+
+		@Override
+		public PrintForwarder forkCopy(ForkContext ctx) {
+			return ctx.register(this, new PrintForwarder(ctx.copy(experiment)));
+		}
 	}
 
 	protected Simulation createSim() {
@@ -229,6 +257,22 @@ public class SimulationExperiment extends Experiment {
 		return statsResetTime;
 	}
 
+	/**
+	 * Enables profiling of the simulation, adding the wall-clock time needed per
+	 * event type and listener to the results.
+	 * 
+	 * @param profiling Whether or not to enable profiling (default: false).
+	 * @see Simulation#setProfiling(boolean)
+	 * @see SimProfiler
+	 */
+	public void setProfiling(boolean profiling) {
+		this.profiling = profiling;
+	}
+
+	public boolean isProfiling() {
+		return profiling;
+	}
+
 	public double getInitialSimTime() {
 		return initialSimTime;
 	}
@@ -275,6 +319,35 @@ public class SimulationExperiment extends Experiment {
 		this.rootComponent = rootComponent;
 	}
 
+	/**
+	 * Creates an independent copy of this experiment including the complete
+	 * state of its simulation (see {@link Simulation#fork()}). Other than
+	 * {@link #clone()}, which only copies the experiment's parameters, this can
+	 * be used while the simulation is stepped through, e.g., after
+	 * {@link #resetExperiment()}. The copy can then be continued and its results
+	 * produced independently of this experiment.
+	 * 
+	 * @return The copy of this experiment.
+	 */
+	public SimulationExperiment fork() {
+		return new ForkContext().copy(this);
+	}
+
+	@Override
+	public SimulationExperiment forkCopy(ForkContext ctx) {
+		SimulationExperiment c = (SimulationExperiment) super.forkCopy(ctx);
+
+		if (initActions != null) {
+			// shallow clone
+			c.initActions = new ArrayList<>(initActions);
+		}
+		c.rootComponent = ctx.copy(rootComponent);
+		c.jobSequencingRules = ctx.copy(jobSequencingRules);
+		c.sim = ctx.copy(sim);
+
+		return c;
+	}
+
 	@Override
 	public SimulationExperiment clone() {
 		SimulationExperiment c = (SimulationExperiment) super.clone();
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import jasima.core.util.JmxUtil;
+
+/**
+ * Management interface to monitor a running {@link Simulation}. A simulation
+ * registers such an MXBean while its {@link Simulation#run()} method is
+ * executed, if enabled in {@link JmxUtil}. Values are read without
+ * synchronization, so they might be slightly outdated.
+ */
+public interface SimulationMXBean {
+
+	String getName();
+
+	String getState();
+
+	double getSimTime();
+
+	double getSimulationLength();
+
+	/**
+	 * Returns the fraction of {@code simulationLength} already simulated, or NaN
+	 * if there is no simulation length.
+	 */
+	double getProgress();
+
+	long getNumEventsProcessed();
+
+	/**
+	 * Returns the number of events processed per second of wall-clock time since
+	 * the previous call of this method (or the start of the run on the first
+	 * call).
+	 */
+	double getEventsPerSecond();
+
+	/**
+	 * Returns the number of events waiting to be processed, or -1 if the event
+	 * queue doesn't count its events.
+	 */
+	int getEventQueueSize();
+
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+/**
+ * Implementation of {@link SimulationMXBean} for a certain {@link Simulation}.
+ */
+class SimulationMonitor implements SimulationMXBean {
+
+	private final Simulation sim;
+
+	// used to calculate events per second
+	private long lastNanos;
+	private long lastNumEvents;
+
+	SimulationMonitor(Simulation sim) {
+		super();
+		this.sim = sim;
+
+		lastNanos = System.nanoTime();
+		lastNumEvents = sim.numEventsProcessed();
+	}
+
+	@Override
+	public String getName() {
+		return sim.getName();
+	}
+
+	@Override
+	public String getState() {
+		return String.valueOf(sim.state());
+	}
+
+	@Override
+	public double getSimTime() {
+		return sim.simTime();
+	}
+
+	@Override
+	public double getSimulationLength() {
+		return sim.getSimulationLength();
+	}
+
+	@Override
+	public double getProgress() {
+		double length = sim.getSimulationLength();
+		return length > 0.0 ? sim.simTime() / length : Double.NaN;
+	}
+
+	@Override
+	public long getNumEventsProcessed() {
+		return sim.numEventsProcessed();
+	}
+
+	@Override
+	public synchronized double getEventsPerSecond() {
+		long now = System.nanoTime();
+		long numEvents = sim.numEventsProcessed();
+
+		double res = (numEvents - lastNumEvents) / ((now - lastNanos) * 1e-9);
+
+		lastNanos = now;
+		lastNumEvents = numEvents;
+		return res;
+	}
+
+	@Override
+	public int getEventQueueSize() {
+		return sim.eventQueueSize();
+	}
+
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+/**
+ * Extracts observations and rewards from a {@link SimulationExperiment} that is
+ * stepped through with {@link Simulation#runStep(Integer)}, e.g., by a
+ * {@link VectorEnvironment}. Each environment uses its own observer instance,
+ * so implementations can keep state between steps (like the value of some
+ * objective at the previous decision point to compute the reward as its
+ * change).
+ * 
+ * @see VectorEnvironment
+ */
+public interface StepObserver {
+
+	/**
+	 * Returns the number of values written by
+	 * {@link #observe(SimulationExperiment, double[], int)}.
+	 */
+	int observationSize();
+
+	/**
+	 * Called after {@code env} was initialized for a new episode, before its
+	 * first observation is made.
+	 * 
+	 * @param env The environment.
+	 */
+	default void reset(SimulationExperiment env) {
+	}
+
+	/**
+	 * Writes the current observation of {@code env} to
+	 * {@code obs[offset]..obs[offset + observationSize() - 1]}.
+	 * 
+	 * @param env    The environment.
+	 * @param obs    The array to write to.
+	 * @param offset Position of the first value.
+	 */
+	void observe(SimulationExperiment env, double[] obs, int offset);
+
+	/**
+	 * Returns the reward of the last step of {@code env}. This is called once
+	 * after each step, also for the last one of an episode.
+	 * 
+	 * @param env The environment.
+	 * @return The reward.
+	 */
+	double reward(SimulationExperiment env);
+
+}
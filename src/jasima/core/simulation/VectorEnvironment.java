@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.simulation;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Steps a fixed number of independent environments, i.e.,
+ * {@link SimulationExperiment}s with {@link Simulation#runStep(Integer)}, in
+ * parallel. Observations, rewards and done flags of all environments are
+ * written to arrays that are allocated once, so that a training loop can
+ * process hundreds of environments per policy update.
+ * <p>
+ * The environments are statically partitioned between the calling thread and
+ * {@code numThreads - 1} worker threads created by the constructor. Workers
+ * are woken up and synchronized without locks, so stepping does not allocate
+ * any objects itself. If an episode ends, the environment is automatically
+ * reset: its done flag is set, the reward is the one of the final step and its
+ * observation is the first one of the new episode. Each episode uses a new
+ * simulation created with {@link SimulationExperiment#initExperiment()}.
+ * <p>
+ * The factory passed to the constructor has to create independent experiments
+ * not sharing any mutable state, as experiments are stepped concurrently. This
+ * class is not thread-safe, {@link #reset()} and {@link #step(int[])} have to
+ * be called by the same thread.
+ * 
+ * @see StepObserver
+ */
+public class VectorEnvironment implements AutoCloseable {
+
+	private final SimulationExperiment[] envs;
+	private final StepObserver[] observers;
+	private final int observationSize;
+
+	private final double[] observations;
+	private final double[] rewards;
+	private final boolean[] dones;
+
+	// first environment of each thread's partition; the calling thread uses the
+	// first partition
+	private final int[] partitionStart;
+	private final Thread[] workers;
+
+	// communication with workers; 'generation' is incremented to start a new
+	// task and publishes 'resetRequested' and 'actions'
+	private volatile int generation;
+	private volatile boolean closed;
+	private boolean resetRequested;
+	private int[] actions;
+	private final AtomicInteger numActive;
+	private volatile Thread caller;
+	private volatile Throwable error;
+
+	/**
+	 * Creates a new vector environment using one thread per available
+	 * processor.
+	 * 
+	 * @see #VectorEnvironment(Supplier, Supplier, int, int)
+	 */
+	public VectorEnvironment(Supplier<? extends SimulationExperiment> envFactory,
+			Supplier<? extends StepObserver> observerFactory, int numEnvs) {
+		this(envFactory, observerFactory, numEnvs, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new vector environment. All experiments are created here, but
+	 * {@link #reset()} has to be called before the first step.
+	 * 
+	 * @param envFactory      Creates the experiments.
+	 * @param observerFactory Creates the observer for each experiment.
+	 * @param numEnvs         The number of environments.
+	 * @param numThreads      The number of threads to use (including the calling
+	 *                        thread).
+	 * @throws IllegalArgumentException If {@code numEnvs} or {@code numThreads}
+	 *                                  is not positive.
+	 */
+	public VectorEnvironment(Supplier<? extends SimulationExperiment> envFactory,
+			Supplier<? extends StepObserver> observerFactory, int numEnvs, int numThreads)
+			throws IllegalArgumentException {
+		super();
+		if (numEnvs <= 0 || numThreads <= 0)
+			throw new IllegalArgumentException(numEnvs + " " + numThreads);
+
+		envs = new SimulationExperiment[numEnvs];
+		observers = new StepObserver[numEnvs];
+		for (int i = 0; i < numEnvs; i++) {
+			envs[i] = Objects.requireNonNull(envFactory.get());
+			observers[i] = Objects.requireNonNull(observerFactory.get());
+		}
+		observationSize = observers[0].observationSize();
+
+		observations = new double[numEnvs * observationSize];
+		rewards = new double[numEnvs];
+		dones = new boolean[numEnvs];
+
+		int numPartitions = Math.min(numThreads, numEnvs);
+		partitionStart = new int[numPartitions + 1];
+		for (int p = 0; p <= numPartitions; p++) {
+			partitionStart[p] = (int) ((long) p * numEnvs / numPartitions);
+		}
+
+		numActive = new AtomicInteger();
+		generation = 0;
+		closed = false;
+
+		workers = new Thread[numPartitions - 1];
+		for (int w = 0; w < workers.length; w++) {
+			final int partition = w + 1;
+			workers[w] = new Thread(() -> workerLoop(partition), "jasima-vectorEnv-" + partition);
+			workers[w].setDaemon(true);
+			workers[w].start();
+		}
+	}
+
+	/**
+	 * Starts a new episode in all environments and makes the initial
+	 * observations.
+	 */
+	public void reset() {
+		resetRequested = true;
+		actions = null;
+		runParallel();
+	}
+
+	/**
+	 * Performs one step in each environment, i.e., runs it until the next
+	 * decision point using the sequencing rule selected by the corresponding
+	 * entry of {@code actions}. Results are available with
+	 * {@link #observations()}, {@link #rewards()} and {@link #dones()}
+	 * afterwards.
+	 * 
+	 * @param actions The action of each environment, i.e., the index of a rule
+	 *                in {@link SimulationExperiment#getJobSequencingRules()}.
+	 * @throws IllegalArgumentException If there is not an action for each
+	 *                                  environment.
+	 */
+	public void step(int[] actions) throws IllegalArgumentException {
+		if (actions.length != envs.length)
+			throw new IllegalArgumentException("expected " + envs.length + " actions, got " + actions.length);
+
+		resetRequested = false;
+		this.actions = actions;
+		runParallel();
+	}
+
+	private void runParallel() {
+		if (closed)
+			throw new IllegalStateException("closed");
+
+		caller = Thread.currentThread();
+		numActive.set(partitionStart.length - 1);
+		generation++;
+		for (Thread w : workers) {
+			LockSupport.unpark(w);
+		}
+
+		runPartition(0);
+
+		if (numActive.decrementAndGet() != 0) {
+			while (numActive.get() != 0) {
+				LockSupport.park(this);
+			}
+		}
+
+		Throwable t = error;
+		if (t != null) {
+			error = null;
+			if (t instanceof RuntimeException)
+				throw (RuntimeException) t;
+			else if (t instanceof Error)
+				throw (Error) t;
+			else
+				throw new RuntimeException(t);
+		}
+	}
+
+	private void workerLoop(int partition) {
+		int seen = 0;
+		while (true) {
+			int g;
+			while ((g = generation) == seen && !closed) {
+				LockSupport.park(this);
+			}
+			if (closed)
+				return;
+			seen = g;
+
+			runPartition(partition);
+
+			if (numActive.decrementAndGet() == 0) {
+				LockSupport.unpark(caller);
+			}
+		}
+	}
+
+	private void runPartition(int partition) {
+		try {
+			for (int i = partitionStart[partition], n = partitionStart[partition + 1]; i < n; i++) {
+				if (resetRequested) {
+					startEpisode(i);
+					rewards[i] = 0.0;
+					dones[i] = false;
+				} else {
+					stepEnv(i);
+				}
+			}
+		} catch (Throwable t) {
+			error = t;
+		}
+	}
+
+	private void stepEnv(int i) {
+		SimulationExperiment e = envs[i];
+		boolean decisionPoint = e.sim().runStep(actions[i]);
+		rewards[i] = observers[i].reward(e);
+
+		if (decisionPoint) {
+			e.sim().setLastSimTime(e.sim().simTime());
+			dones[i] = false;
+			observers[i].observe(e, observations, i * observationSize);
+		} else {
+			dones[i] = true;
+			startEpisode(i);
+		}
+	}
+
+	private void startEpisode(int i) {
+		// a simulation can't be reset after it ended, so create a new one
+		SimulationExperiment e = envs[i];
+		e.initExperiment();
+		e.resetExperiment();
+		e.sim().setLastSimTime(e.sim().simTime());
+
+		observers[i].reset(e);
+		observers[i].observe(e, observations, i * observationSize);
+	}
+
+	/**
+	 * Stops all worker threads. The environments can not be stepped afterwards.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		for (Thread w : workers) {
+			LockSupport.unpark(w);
+		}
+		for (Thread w : workers) {
+			try {
+				w.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the observations of all environments; the observation of
+	 * environment {@code i} starts at index {@code i * observationSize()}. The
+	 * same array is reused by each step.
+	 */
+	public double[] observations() {
+		return observations;
+	}
+
+	/**
+	 * Returns the rewards of the last step of all environments. The same array
+	 * is reused by each step.
+	 */
+	public double[] rewards() {
+		return rewards;
+	}
+
+	/**
+	 * Returns for each environment whether its episode ended with the last step
+	 * (and the environment was reset). The same array is reused by each step.
+	 */
+	public boolean[] dones() {
+		return dones;
+	}
+
+	/** Returns the number of environments. */
+	public int numEnvs() {
+		return envs.length;
+	}
+
+	/** Returns the number of values per observation. */
+	public int observationSize() {
+		return observationSize;
+	}
+
+	/** Returns the number of threads used for stepping. */
+	public int numThreads() {
+		return partitionStart.length - 1;
+	}
+
+	/** Returns the experiment of environment {@code i}. */
+	public SimulationExperiment getEnv(int i) {
+		return envs[i];
+	}
+
+}
@@ -25,6 +25,7 @@ import java.util.Random;
 import org.apache.commons.math3.analysis.UnivariateFunction;
 
 import jasima.core.random.continuous.DblStream;
+import jasima.core.util.ForkContext;
 
 /**
  * This class can be used to create a non-stationary arrival process, i.e., if
@@ -77,6 +78,13 @@ public class ArrivalsNonStationary extends ArrivalProcess {
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		ArrivalsNonStationary c = (ArrivalsNonStationary) super.forkCopy(ctx);
+		c.unitMeanDblStream = ctx.copy(unitMeanDblStream);
+		return c;
+	}
+
 	public DblStream getUnitMeanDblStream() {
 		return unitMeanDblStream;
 	}
@@ -24,6 +24,7 @@ import java.util.Random;
 
 import jasima.core.random.continuous.DblDistribution;
 import jasima.core.random.continuous.DblStream;
+import jasima.core.util.ForkContext;
 
 /**
  * This class can be used to create a stationary arrival process which can be
@@ -83,6 +84,13 @@ public class ArrivalsStationary extends ArrivalProcess {
 		return c;
 	}
 
+	@Override
+	public DblStream forkCopy(ForkContext ctx) {
+		ArrivalsStationary c = (ArrivalsStationary) super.forkCopy(ctx);
+		c.interArrivalTimes = ctx.copy(interArrivalTimes);
+		return c;
+	}
+
 	public DblStream getInterArrivalTimes() {
 		return interArrivalTimes;
 	}
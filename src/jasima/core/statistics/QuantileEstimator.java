@@ -25,6 +25,7 @@ import java.util.Formatter;
 import java.util.Iterator;
 import java.util.Locale;
 
+import jasima.core.util.ForkContext;
 import jasima.core.util.Util;
 
 /**
@@ -160,6 +161,15 @@ public class QuantileEstimator extends SummaryStat implements Iterable<QuantileE
 		throw new UnsupportedOperationException("clone()");
 	}
 
+	@Override
+	public QuantileEstimator forkCopy(ForkContext ctx) {
+		QuantileEstimator c = (QuantileEstimator) super.forkCopy(ctx);
+		c.p2_q = ctx.copy(p2_q);
+		c.p2_n = ctx.copy(p2_n);
+		c.p2_n_increment = ctx.copy(p2_n_increment);
+		return c;
+	}
+
 	@Override
 	public void clear() {
 		if (numObs() > 0)
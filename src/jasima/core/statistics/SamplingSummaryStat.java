@@ -25,6 +25,8 @@ import java.util.Comparator;
 import java.util.PriorityQueue;
 import java.util.Random;
 
+import jasima.core.util.ForkContext;
+
 /**
  * <p>
  * This class provides efficient sampling of up to a certain maximum number of
@@ -162,6 +164,14 @@ public class SamplingSummaryStat extends SummaryStat {
 		throw new UnsupportedOperationException("clone()");
 	}
 
+	@Override
+	public SamplingSummaryStat forkCopy(ForkContext ctx) {
+		SamplingSummaryStat c = (SamplingSummaryStat) super.forkCopy(ctx);
+		c.rnd = ctx.copy(rnd);
+		c.data = data == null ? null : new PriorityQueue<>(data);
+		return c;
+	}
+
 	/**
 	 * Each DatEntry stores a single decision situation plus a random value.
 	 */
@@ -24,6 +24,9 @@ import java.io.Serializable;
 
 import org.apache.commons.math3.distribution.TDistribution;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+
 /**
  * Class to collect the most important statistics without having to store all
  * values encountered. It can return mean, standard deviation, variance, min,
@@ -38,7 +41,7 @@ import org.apache.commons.math3.distribution.TDistribution;
  * 
  * @author Torsten Hildebrandt
  */
-public class SummaryStat implements Serializable, Cloneable {
+public class SummaryStat implements Serializable, Cloneable, Forkable {
 
 	private static final long serialVersionUID = 817115058373461360L;
 
@@ -313,6 +316,19 @@ public class SummaryStat implements Serializable, Cloneable {
 		}
 	}
 
+	/**
+	 * Copies this object when a simulation is forked. Sub-classes with
+	 * non-primitive fields have to override this method.
+	 */
+	@Override
+	public SummaryStat forkCopy(ForkContext ctx) {
+		try {
+			return ctx.register(this, (SummaryStat) super.clone());
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
 	/**
 	 * @return lower value of a confidence interval with a 0.95-confidence level
 	 */
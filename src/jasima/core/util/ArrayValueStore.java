@@ -0,0 +1,356 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of the {@link ValueStore} interface using open addressing over
+ * parallel arrays instead of a {@code HashMap}. Keys are interned to integer
+ * handles by a {@link KeyTable} (see {@link KeyTable#keyHandle(Object)}), so
+ * frequently accessed entries can be read and written using {@link #get(int)}
+ * and {@link #put(int, Object)} without hashing the key object or allocating
+ * map entries. Cloning simply copies the arrays.
+ * <p>
+ * All stores sharing a key table (e.g., all jobs of a {@code Shop}) use the same
+ * handles. Keys are only released together with their key table, so keys
+ * should come from a small set of constants, e.g., attribute names, not
+ * arbitrary objects.
+ * 
+ * @see ValueStoreImpl
+ */
+public class ArrayValueStore implements ValueStore, Cloneable, Forkable {
+
+	/** Handle value marking an empty slot. */
+	public static final int NO_KEY = 0;
+
+	private static final Object NULL_KEY = new Object();
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * Maps keys to integer handles. A key table can be shared by many
+	 * {@link ArrayValueStore}s and is safe to use by multiple threads.
+	 */
+	public static final class KeyTable {
+
+		private final ConcurrentHashMap<Object, Integer> handles = new ConcurrentHashMap<>();
+		private volatile Object[] keysByHandle = new Object[16];
+		private int numHandles = 0;
+
+		public KeyTable() {
+			super();
+		}
+
+		/**
+		 * Returns the integer handle of {@code key}, registering the key if it
+		 * was not used before. Handles are positive and the same for equal keys.
+		 * 
+		 * @param key The key, can be {@code null}.
+		 * @return The handle of {@code key}.
+		 */
+		public int keyHandle(Object key) {
+			Object k = key == null ? NULL_KEY : key;
+			Integer h = handles.get(k);
+			if (h == null) {
+				h = registerKey(k);
+			}
+			return h.intValue();
+		}
+
+		private synchronized Integer registerKey(Object k) {
+			Integer h = handles.get(k);
+			if (h == null) {
+				int n = ++numHandles;
+				Object[] ks = keysByHandle;
+				if (n >= ks.length) {
+					Object[] newKeys = new Object[ks.length * 2];
+					System.arraycopy(ks, 0, newKeys, 0, ks.length);
+					ks = newKeys;
+				}
+				ks[n] = k;
+				keysByHandle = ks;
+
+				h = n;
+				handles.put(k, h);
+			}
+			return h;
+		}
+
+		/**
+		 * Returns the number of keys registered so far.
+		 */
+		public int size() {
+			return handles.size();
+		}
+
+		int existingHandle(Object key) {
+			Integer h = handles.get(key == null ? NULL_KEY : key);
+			return h == null ? NO_KEY : h.intValue();
+		}
+
+		Object keyOf(int handle) {
+			Object k = keysByHandle[handle];
+			return k == NULL_KEY ? null : k;
+		}
+
+	}
+
+	private final KeyTable keyTable;
+
+	// slot index of each handle is determined by linear probing; a handle of
+	// NO_KEY marks an empty slot
+	private int[] keys;
+	private Object[] values;
+	private int size;
+
+	/**
+	 * Creates a new value store with its own {@link KeyTable}.
+	 */
+	public ArrayValueStore() {
+		this(new KeyTable());
+	}
+
+	/**
+	 * Creates a new value store using the key handles of {@code keyTable}.
+	 * 
+	 * @param keyTable The key table to use.
+	 */
+	public ArrayValueStore(KeyTable keyTable) {
+		super();
+		if (keyTable == null)
+			throw new NullPointerException("keyTable");
+		this.keyTable = keyTable;
+		keys = null;
+		values = null;
+		size = 0;
+	}
+
+	/**
+	 * Returns the key table used to map keys to handles.
+	 */
+	public KeyTable getKeyTable() {
+		return keyTable;
+	}
+
+	/**
+	 * Returns the value associated with the key handle {@code handle}.
+	 * 
+	 * @param handle The key's handle as returned by
+	 *               {@link KeyTable#keyHandle(Object)}.
+	 * @return The value associated with the key, or {@code null} if there is no
+	 *         such value.
+	 */
+	public Object get(int handle) {
+		int i = indexOf(handle);
+		return i < 0 ? null : values[i];
+	}
+
+	/**
+	 * Associates {@code value} with the key handle {@code handle}.
+	 * 
+	 * @param handle The key's handle as returned by
+	 *               {@link KeyTable#keyHandle(Object)}.
+	 * @param value  The value to store.
+	 * @return The value previously associated with the key, or {@code null}.
+	 */
+	public Object put(int handle, Object value) {
+		if (handle <= NO_KEY)
+			throw new IllegalArgumentException("invalid key handle: " + handle);
+
+		if (keys == null) {
+			keys = new int[INITIAL_CAPACITY];
+			values = new Object[INITIAL_CAPACITY];
+		}
+
+		int mask = keys.length - 1;
+		int i = slot(handle, mask);
+		int k;
+		while ((k = keys[i]) != NO_KEY) {
+			if (k == handle) {
+				Object old = values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = handle;
+		values[i] = value;
+		// keep load factor below 2/3
+		if (++size * 3 > keys.length * 2) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the entry with key handle {@code handle}.
+	 * 
+	 * @param handle The key's handle as returned by
+	 *               {@link KeyTable#keyHandle(Object)}.
+	 * @return The value previously associated with the key, or {@code null}.
+	 */
+	public Object remove(int handle) {
+		int i = indexOf(handle);
+		if (i < 0)
+			return null;
+
+		Object old = values[i];
+		size--;
+
+		// backward shift deletion, so no tombstones are required
+		int mask = keys.length - 1;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			int k = keys[j];
+			if (k == NO_KEY)
+				break;
+
+			// can entry at 'j' be moved to 'i'?
+			int home = slot(k, mask);
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				keys[i] = k;
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = NO_KEY;
+		values[i] = null;
+
+		return old;
+	}
+
+	private int indexOf(int handle) {
+		if (keys == null || handle <= NO_KEY)
+			return -1;
+
+		int mask = keys.length - 1;
+		int i = slot(handle, mask);
+		int k;
+		while ((k = keys[i]) != NO_KEY) {
+			if (k == handle)
+				return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private static int slot(int handle, int mask) {
+		// Fibonacci hashing, handles are consecutive numbers
+		return ((handle * 0x9E3779B9) >>> 16) & mask;
+	}
+
+	private void resize(int newCapacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		keys = new int[newCapacity];
+		values = new Object[newCapacity];
+
+		int mask = newCapacity - 1;
+		for (int n = 0; n < oldKeys.length; n++) {
+			int k = oldKeys[n];
+			if (k != NO_KEY) {
+				int i = slot(k, mask);
+				while (keys[i] != NO_KEY) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = k;
+				values[i] = oldValues[n];
+			}
+		}
+	}
+
+	@Override
+	public void valueStorePut(Object key, Object value) {
+		put(keyTable.keyHandle(key), value);
+	}
+
+	@Override
+	public Object valueStoreGet(Object key) {
+		return get(keyTable.existingHandle(key));
+	}
+
+	@Override
+	public int valueStoreGetNumKeys() {
+		return size;
+	}
+
+	/**
+	 * Returns a new set with all keys contained in this value store. Other than
+	 * {@link ValueStoreImpl#valueStoreGetAllKeys()}, changing this set does not
+	 * change the value store.
+	 */
+	@Override
+	public Set<Object> valueStoreGetAllKeys() {
+		HashSet<Object> res = new HashSet<>();
+		if (keys != null) {
+			for (int k : keys) {
+				if (k != NO_KEY)
+					res.add(keyTable.keyOf(k));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public Object valueStoreRemove(Object key) {
+		return remove(keyTable.existingHandle(key));
+	}
+
+	@Override
+	public ValueStore valueStoreImpl() {
+		return this;
+	}
+
+	@Override
+	public ArrayValueStore clone() {
+		try {
+			ArrayValueStore c = (ArrayValueStore) super.clone();
+			if (keys != null) {
+				c.keys = keys.clone();
+				c.values = values.clone();
+			}
+			return c;
+		} catch (CloneNotSupportedException cantHappen) {
+			throw new AssertionError(cantHappen);
+		}
+	}
+
+	/**
+	 * Copies the value store when a simulation is forked. The key table is
+	 * shared, values are copied if they are {@link Forkable}.
+	 */
+	@Override
+	public ArrayValueStore forkCopy(ForkContext ctx) {
+		ArrayValueStore c = ctx.register(this, clone());
+		if (values != null) {
+			for (int i = 0; i < values.length; i++) {
+				c.values[i] = ctx.copyOrShare(values[i]);
+			}
+		}
+		return c;
+	}
+
+}
@@ -0,0 +1,398 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+import jasima.core.simulation.SimComponent;
+import jasima.core.simulation.SimComponentLifeCycleListener;
+import jasima.core.simulation.Simulation;
+import jasima.core.simulation.Simulation.SimPrintMessage;
+import jasima.shopSim.core.Job;
+
+/**
+ * Produces a compact binary log of all trace messages of a {@link Simulation}.
+ * It is used like {@link TraceFileProducer}, but is much faster and produces
+ * much smaller files. Use {@link BinaryTraceReader} to read such a file or to
+ * convert it to the text format of {@link TraceFileProducer}.
+ * <p>
+ * Trace messages are encoded into a ring of {@code numBuffers} buffers. Full
+ * buffers are compressed and written to the file by a background thread, so
+ * the simulation only has to wait if all buffers are waiting to be written.
+ * Numbers are stored in binary form. All other parameters (e.g., event kinds or
+ * components) are converted to Strings, which are stored only once and
+ * afterwards referenced by their id. Jobs are encoded as the id of their name
+ * and their task number.
+ * 
+ * @see BinaryTraceReader
+ */
+public class BinaryTraceFileProducer implements SimComponentLifeCycleListener, Consumer<SimPrintMessage> {
+
+	/** Extension used when creating a default file name. */
+	public static final String FILE_EXTENSION = ".jasTrace";
+
+	// file format, shared with BinaryTraceReader
+
+	static final int MAGIC = 0x6a545243; // "jTRC"
+	static final int VERSION = 1;
+
+	static final byte REC_MESSAGE = 1;
+
+	static final byte P_NULL = 0;
+	static final byte P_STRING = 1; // reference to a known String
+	static final byte P_NEW_STRING = 2; // String to add to the dictionary
+	static final byte P_LONG = 3;
+	static final byte P_DOUBLE = 4;
+	static final byte P_FLOAT = 5;
+	static final byte P_TRUE = 6;
+	static final byte P_FALSE = 7;
+	static final byte P_JOB = 8;
+	static final byte P_FUTURE_JOB = 9;
+
+	// marks the end of the trace for the writer thread
+	private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+	// parameters
+
+	private String fileName;
+	private int bufferSize = 1 << 16;
+	private int numBuffers = 8;
+
+	// used during run
+
+	private String name;
+	private HashMap<String, Integer> dictionary;
+	private ByteBuffer buf;
+	private ArrayBlockingQueue<ByteBuffer> free;
+	private ArrayBlockingQueue<ByteBuffer> full;
+	private Thread writer;
+	private volatile IOException writeError;
+
+	public BinaryTraceFileProducer() {
+		super();
+	}
+
+	public BinaryTraceFileProducer(String fileName) {
+		this();
+
+		setFileName(fileName);
+	}
+
+	@Override
+	public void init(SimComponent c) {
+		SimComponentLifeCycleListener.super.init(c);
+
+		c.getSim().addPrintListener(this);
+		c.getSim().setPrintLevel(MsgCategory.TRACE);
+	}
+
+	@Override
+	public void produceResults(SimComponent c, Map<String, Object> resultMap) {
+		SimComponentLifeCycleListener.super.produceResults(c, resultMap);
+
+		close();
+	}
+
+	@Override
+	public void accept(SimPrintMessage msg) {
+		if (msg.getCategory() == MsgCategory.TRACE) {
+			if (buf == null) {
+				createLogFile();
+			}
+
+			Object[] params = msg.getParams();
+
+			ensureSpace(1 + 8 + 5);
+			buf.put(REC_MESSAGE);
+			buf.putDouble(msg.getSimTime());
+			putVarLong(params.length);
+			for (Object o : params) {
+				putParam(o);
+			}
+		}
+	}
+
+	/**
+	 * Writes all buffered trace messages and closes the trace file. This is
+	 * called automatically by {@link #produceResults(SimComponent, Map)}.
+	 */
+	public void close() {
+		if (buf == null)
+			return;
+
+		try {
+			if (buf.position() > 0) {
+				buf.flip();
+				full.put(buf);
+			}
+			full.put(EOF);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			buf = null;
+			free = full = null;
+			dictionary = null;
+			writer = null;
+		}
+
+		checkWriteError();
+	}
+
+	private void putParam(Object o) {
+		if (o == null) {
+			ensureSpace(1);
+			buf.put(P_NULL);
+		} else if (o instanceof Integer || o instanceof Long || o instanceof Short || o instanceof Byte) {
+			ensureSpace(1 + 10);
+			buf.put(P_LONG);
+			long l = ((Number) o).longValue();
+			putVarLong((l << 1) ^ (l >> 63)); // zig-zag encoding
+		} else if (o instanceof Double) {
+			ensureSpace(1 + 8);
+			buf.put(P_DOUBLE);
+			buf.putDouble((Double) o);
+		} else if (o instanceof Float) {
+			ensureSpace(1 + 4);
+			buf.put(P_FLOAT);
+			buf.putFloat((Float) o);
+		} else if (o instanceof Boolean) {
+			ensureSpace(1);
+			buf.put((Boolean) o ? P_TRUE : P_FALSE);
+		} else if (o instanceof Job) {
+			Job j = (Job) o;
+			ensureSpace(1);
+			buf.put(j.isFuture() ? P_FUTURE_JOB : P_JOB);
+			putString(j.getName());
+			ensureSpace(5);
+			putVarLong(j.getTaskNumber());
+		} else {
+			putString(String.valueOf(o));
+		}
+	}
+
+	private void putString(String s) {
+		Integer id = dictionary.get(s);
+		if (id != null) {
+			ensureSpace(1 + 5);
+			buf.put(P_STRING);
+			putVarLong(id);
+		} else {
+			dictionary.put(s, dictionary.size());
+
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			ensureSpace(1 + 5);
+			buf.put(P_NEW_STRING);
+			putVarLong(bytes.length);
+			// long Strings might span several buffers
+			int pos = 0;
+			while (pos < bytes.length) {
+				ensureSpace(1);
+				int n = Math.min(buf.remaining(), bytes.length - pos);
+				buf.put(bytes, pos, n);
+				pos += n;
+			}
+		}
+	}
+
+	private void putVarLong(long l) {
+		while ((l & ~0x7FL) != 0) {
+			buf.put((byte) ((l & 0x7F) | 0x80));
+			l >>>= 7;
+		}
+		buf.put((byte) l);
+	}
+
+	/**
+	 * Makes sure at least {@code n} bytes can be put into the current buffer,
+	 * passing it to the writer thread if necessary.
+	 */
+	private void ensureSpace(int n) {
+		if (buf.remaining() >= n)
+			return;
+
+		checkWriteError();
+		try {
+			buf.flip();
+			full.put(buf);
+			buf = free.take();
+			buf.clear();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void checkWriteError() {
+		if (writeError != null) {
+			throw new RuntimeException("Error writing trace file '" + name + "'.", writeError);
+		}
+	}
+
+	private void createLogFile() {
+		name = getFileName();
+		if (name == null) {
+			// create some default name
+			name = "jasimaTrace" + new SimpleDateFormat("_yyyyMMdd_HHmmss").format(new Date());
+			// don't overwrite existing
+			name = AbstractResultSaver.findFreeFile(name, FILE_EXTENSION) + FILE_EXTENSION;
+		}
+
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(Paths.get(name), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		writeError = null;
+		dictionary = new HashMap<>();
+		free = new ArrayBlockingQueue<>(numBuffers);
+		full = new ArrayBlockingQueue<>(numBuffers + 1);
+		for (int i = 1; i < numBuffers; i++) {
+			free.add(ByteBuffer.allocate(bufferSize));
+		}
+		buf = ByteBuffer.allocate(bufferSize);
+		buf.putInt(MAGIC);
+		buf.putInt(VERSION);
+
+		writer = new Thread(() -> writeLoop(channel), toString());
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Executed by the writer thread: compresses full buffers and writes them to
+	 * {@code channel} until {@link #EOF} is received.
+	 */
+	private void writeLoop(FileChannel channel) {
+		// local references, the fields are cleared by close()
+		ArrayBlockingQueue<ByteBuffer> full = this.full;
+		ArrayBlockingQueue<ByteBuffer> free = this.free;
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		byte[] out = new byte[bufferSize];
+		boolean eof = false;
+		try {
+			try {
+				ByteBuffer b;
+				while ((b = full.take()) != EOF) {
+					deflater.setInput(b.array(), 0, b.limit());
+					while (!deflater.needsInput()) {
+						write(channel, out, deflater.deflate(out));
+					}
+					free.put(b);
+				}
+				eof = true;
+
+				deflater.finish();
+				while (!deflater.finished()) {
+					write(channel, out, deflater.deflate(out));
+				}
+			} finally {
+				deflater.end();
+				channel.close();
+			}
+		} catch (IOException e) {
+			writeError = e;
+			// keep the simulation going until it notices the error
+			try {
+				ByteBuffer b;
+				while (!eof && (b = full.take()) != EOF) {
+					free.put(b);
+				}
+			} catch (InterruptedException ignore) {
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void write(FileChannel channel, byte[] bytes, int n) throws IOException {
+		ByteBuffer bb = ByteBuffer.wrap(bytes, 0, n);
+		while (bb.hasRemaining()) {
+			channel.write(bb);
+		}
+	}
+
+	@Override
+	public String toString() {
+		String n = getFileName();
+		if (n == null)
+			n = name;
+		return getClass().getSimpleName() + "(" + n + ")";
+	}
+
+	// getter/setter for parameter below
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Sets the size of each buffer in bytes (default: 64 KiB).
+	 * 
+	 * @param bufferSize The buffer size, has to be at least 1024.
+	 */
+	public void setBufferSize(int bufferSize) {
+		if (bufferSize < 1024)
+			throw new IllegalArgumentException("bufferSize has to be at least 1024: " + bufferSize);
+		this.bufferSize = bufferSize;
+	}
+
+	public int getNumBuffers() {
+		return numBuffers;
+	}
+
+	/**
+	 * Sets the number of buffers in the ring (default: 8). If all buffers are
+	 * waiting to be written, the simulation blocks until one becomes available.
+	 * 
+	 * @param numBuffers The number of buffers, has to be at least 2.
+	 */
+	public void setNumBuffers(int numBuffers) {
+		if (numBuffers < 2)
+			throw new IllegalArgumentException("numBuffers has to be at least 2: " + numBuffers);
+		this.numBuffers = numBuffers;
+	}
+
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import static jasima.core.util.BinaryTraceFileProducer.MAGIC;
+import static jasima.core.util.BinaryTraceFileProducer.P_DOUBLE;
+import static jasima.core.util.BinaryTraceFileProducer.P_FALSE;
+import static jasima.core.util.BinaryTraceFileProducer.P_FLOAT;
+import static jasima.core.util.BinaryTraceFileProducer.P_FUTURE_JOB;
+import static jasima.core.util.BinaryTraceFileProducer.P_JOB;
+import static jasima.core.util.BinaryTraceFileProducer.P_LONG;
+import static jasima.core.util.BinaryTraceFileProducer.P_NEW_STRING;
+import static jasima.core.util.BinaryTraceFileProducer.P_NULL;
+import static jasima.core.util.BinaryTraceFileProducer.P_STRING;
+import static jasima.core.util.BinaryTraceFileProducer.P_TRUE;
+import static jasima.core.util.BinaryTraceFileProducer.REC_MESSAGE;
+import static jasima.core.util.BinaryTraceFileProducer.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads a trace file created by {@link BinaryTraceFileProducer} one message at
+ * a time. Parameters are returned as {@link Long}, {@link Double},
+ * {@link Float}, {@link Boolean}, {@link String} or {@code null}, jobs and all
+ * other objects as their String representation. {@link #getMessage()} returns
+ * the same text as the corresponding line written by {@link TraceFileProducer},
+ * so {@link #convertToText(File, File)} can be used to compare binary traces
+ * with existing text traces.
+ * 
+ * @see BinaryTraceFileProducer
+ */
+public class BinaryTraceReader implements Closeable {
+
+	/**
+	 * This main method can be used to manually convert a binary trace file to
+	 * text format.
+	 * 
+	 * @param args The list of command line arguments.
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("usage: " + BinaryTraceReader.class.getName()
+					+ " <file1ToConvert> [<file2ToConvert> ...]");
+			return;
+		}
+
+		for (String a : args) {
+			File in = new File(a);
+			File out = new File(a + ".txt");
+
+			System.out.println("reading '" + in.toString() + "', writing to '" + out.toString() + "'...");
+
+			if (out.exists()) {
+				System.out.println("  skipping '" + out + "', file already exists.");
+			} else {
+				try {
+					convertToText(in, out);
+					System.out.println("  done.");
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts the binary trace file {@code in} to the text format produced by
+	 * {@link TraceFileProducer}.
+	 * 
+	 * @param in  The binary trace file to read.
+	 * @param out The text file to write.
+	 * @throws IOException If there was a problem reading or writing.
+	 */
+	public static void convertToText(File in, File out) throws IOException {
+		try (BinaryTraceReader r = new BinaryTraceReader(in);
+				PrintWriter w = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+			while (r.next()) {
+				w.println(r.getMessage());
+			}
+		}
+	}
+
+	private final DataInputStream in;
+	private final ArrayList<String> dictionary;
+
+	private double simTime;
+	private Object[] params;
+	private int numParams;
+
+	public BinaryTraceReader(String fileName) throws IOException {
+		this(new File(fileName));
+	}
+
+	public BinaryTraceReader(File file) throws IOException {
+		super();
+
+		in = new DataInputStream(
+				new BufferedInputStream(new InflaterInputStream(new FileInputStream(file)), 1 << 16));
+		dictionary = new ArrayList<>();
+		params = new Object[8];
+		numParams = 0;
+
+		try {
+			if (in.readInt() != MAGIC)
+				throw new IOException("'" + file + "' is not a binary trace file.");
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported trace file version: " + version);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next trace message.
+	 * 
+	 * @return {@code false} if the end of the file was reached.
+	 * @throws IOException If there was a problem reading the file.
+	 */
+	public boolean next() throws IOException {
+		int rec = in.read();
+		if (rec < 0) {
+			numParams = 0;
+			return false;
+		}
+		if (rec != REC_MESSAGE)
+			throw new IOException("Invalid record type: " + rec);
+
+		simTime = in.readDouble();
+		numParams = (int) readVarLong();
+		if (numParams > params.length) {
+			params = new Object[Math.max(numParams, 2 * params.length)];
+		}
+		for (int i = 0; i < numParams; i++) {
+			params[i] = readParam();
+		}
+
+		return true;
+	}
+
+	private Object readParam() throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case P_NULL:
+			return null;
+		case P_STRING:
+		case P_NEW_STRING:
+			return readString(type);
+		case P_LONG:
+			long l = readVarLong();
+			return (l >>> 1) ^ -(l & 1);
+		case P_DOUBLE:
+			return in.readDouble();
+		case P_FLOAT:
+			return in.readFloat();
+		case P_TRUE:
+			return Boolean.TRUE;
+		case P_FALSE:
+			return Boolean.FALSE;
+		case P_JOB:
+		case P_FUTURE_JOB:
+			// same as Job.toString()
+			String s = readString(in.readByte()) + "#" + readVarLong();
+			return type == P_FUTURE_JOB ? s + "(future)" : s;
+		default:
+			throw new IOException("Invalid parameter type: " + type);
+		}
+	}
+
+	private String readString(byte type) throws IOException {
+		if (type == P_STRING) {
+			return dictionary.get((int) readVarLong());
+		} else if (type == P_NEW_STRING) {
+			byte[] bytes = new byte[(int) readVarLong()];
+			in.readFully(bytes);
+			String s = new String(bytes, StandardCharsets.UTF_8);
+			dictionary.add(s);
+			return s;
+		} else {
+			throw new IOException("String expected, found parameter type: " + type);
+		}
+	}
+
+	private long readVarLong() throws IOException {
+		long l = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.readByte();
+			l |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return l;
+		}
+		throw new IOException("Malformed variable length number.");
+	}
+
+	/**
+	 * Returns the simulation time of the current message.
+	 */
+	public double getSimTime() {
+		return simTime;
+	}
+
+	/**
+	 * Returns the number of parameters of the current message.
+	 */
+	public int numParams() {
+		return numParams;
+	}
+
+	/**
+	 * Returns the parameter {@code i} of the current message.
+	 */
+	public Object getParam(int i) {
+		if (i < 0 || i >= numParams)
+			throw new IndexOutOfBoundsException("Invalid parameter index: " + i);
+		return params[i];
+	}
+
+	/**
+	 * Returns the current message in the format used by {@link TraceFileProducer},
+	 * i.e., the simulation time and all parameters separated by tabs.
+	 */
+	public String getMessage() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getSimTime());
+		for (int i = 0; i < numParams; i++) {
+			sb.append('\t').append(String.valueOf(params[i]));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Copies the objects making up the state of a simulation when it is forked (see
+ * {@link jasima.core.simulation.Simulation#fork()}). A context maps each
+ * original object to its copy, so each object is copied only once during a
+ * fork and references shared between objects (including cycles) are preserved
+ * in the copy.
+ * <p>
+ * {@link #copy(Object)} handles objects as follows:
+ * <ul>
+ * <li>{@link Forkable} objects create their copies with
+ * {@link Forkable#forkCopy(ForkContext)};
+ * <li>immutable objects (like strings, boxed primitives, enums or classes) are
+ * not copied;
+ * <li>arrays, {@link ArrayList}, {@link ArrayDeque}, {@link HashMap},
+ * {@link LinkedHashMap}, {@link HashSet} and {@link LinkedHashSet} are copied
+ * element by element;
+ * <li>random number generators are copied using their public
+ * {@code clone()}-method, or (if they don't have one) using serialization.
+ * </ul>
+ * Any other object results in an {@link IllegalArgumentException}, so state
+ * that can't be copied is detected when forking and not when the original and
+ * its copy unexpectedly influence each other later on. Objects can be excluded
+ * from copying with {@link #share(Object)}.
+ * 
+ * @see Forkable
+ */
+public class ForkContext {
+
+	private static final Set<Class<?>> IMMUTABLE_CLASSES = new HashSet<>(
+			Arrays.asList(String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+					Long.class, Float.class, Double.class, Class.class, Instant.class, Duration.class));
+
+	private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+
+	public ForkContext() {
+		super();
+	}
+
+	/**
+	 * Registers {@code copy} as the copy of {@code orig}. This has to be called
+	 * by {@link Forkable#forkCopy(ForkContext)} before any referenced objects
+	 * are copied.
+	 * 
+	 * @param orig The original object.
+	 * @param copy Its copy.
+	 * @param <T>  Type of the objects.
+	 * @return {@code copy}
+	 */
+	public <T> T register(Object orig, T copy) {
+		copies.put(orig, copy);
+		return copy;
+	}
+
+	/**
+	 * Marks {@code o} to be shared between the original and the copy, i.e.,
+	 * subsequent calls to {@link #copy(Object)} return {@code o} itself.
+	 * 
+	 * @param o The object to share.
+	 * @param <T> Type of the object.
+	 * @return {@code o}
+	 */
+	public <T> T share(T o) {
+		return register(o, o);
+	}
+
+	/**
+	 * Returns the copy of {@code o}, creating it if {@code o} wasn't copied
+	 * before.
+	 * 
+	 * @param o The object to copy, can be null.
+	 * @param <T> Type of the object.
+	 * @return The copy of {@code o}.
+	 * @throws IllegalArgumentException If {@code o} can't be copied.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T copy(T o) {
+		if (o == null)
+			return null;
+
+		Object c = copies.get(o);
+		if (c != null)
+			return (T) c;
+
+		if (o instanceof Forkable) {
+			checkNotInner(o.getClass());
+			c = ((Forkable) o).forkCopy(this);
+			copies.putIfAbsent(o, c);
+		} else if (isImmutable(o)) {
+			c = o;
+		} else if (o.getClass().isArray()) {
+			c = copyArray(o);
+		} else if (o instanceof Random) {
+			c = register(o, copyRandom((Random) o));
+		} else if (o.getClass() == ArrayList.class) {
+			c = copyElements((Collection<?>) o, register(o, new ArrayList<>(((Collection<?>) o).size())));
+		} else if (o.getClass() == ArrayDeque.class) {
+			c = copyElements((Collection<?>) o, register(o, new ArrayDeque<>(((Collection<?>) o).size())));
+		} else if (o.getClass() == HashSet.class) {
+			c = copyElements((Collection<?>) o, register(o, new HashSet<>()));
+		} else if (o.getClass() == LinkedHashSet.class) {
+			c = copyElements((Collection<?>) o, register(o, new LinkedHashSet<>()));
+		} else if (o.getClass() == HashMap.class) {
+			c = copyEntries((Map<?, ?>) o, register(o, new HashMap<>()));
+		} else if (o.getClass() == LinkedHashMap.class) {
+			c = copyEntries((Map<?, ?>) o, register(o, new LinkedHashMap<>()));
+		} else {
+			throw new IllegalArgumentException(
+					"Can't fork an instance of " + o.getClass().getName() + ", it has to implement Forkable.");
+		}
+
+		return (T) c;
+	}
+
+	/**
+	 * Copies {@code o} if it is {@link Forkable} or was already copied, otherwise
+	 * returns {@code o} itself. This is used for objects of arbitrary type not
+	 * owned by a simulation, e.g., values in a value store or print listeners.
+	 * 
+	 * @param o The object to copy, can be null.
+	 * @param <T> Type of the object.
+	 * @return The copy of {@code o} or {@code o} itself.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T copyOrShare(T o) {
+		if (o == null)
+			return null;
+
+		Object c = copies.get(o);
+		if (c != null)
+			return (T) c;
+
+		return o instanceof Forkable ? copy(o) : o;
+	}
+
+	// instances of inner classes reference their enclosing instance, which
+	// can't be replaced in the copy
+	private static void checkNotInner(Class<?> c) {
+		if (c.isAnonymousClass() || c.isLocalClass() || (c.isMemberClass() && !Modifier.isStatic(c.getModifiers()))) {
+			throw new IllegalArgumentException("Can't fork an instance of " + c.getName()
+					+ ", only top level or static nested classes are supported.");
+		}
+	}
+
+	private static boolean isImmutable(Object o) {
+		return IMMUTABLE_CLASSES.contains(o.getClass()) || o instanceof Enum;
+	}
+
+	private Object copyArray(Object a) {
+		Class<?> ct = a.getClass().getComponentType();
+		int n = Array.getLength(a);
+
+		if (ct.isPrimitive()) {
+			Object c = Array.newInstance(ct, n);
+			System.arraycopy(a, 0, c, 0, n);
+			return register(a, c);
+		} else {
+			Object[] orig = (Object[]) a;
+			Object[] c = register(a, orig.clone());
+			for (int i = 0; i < n; i++) {
+				c[i] = copy(orig[i]);
+			}
+			return c;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <C extends Collection<?>> C copyElements(Collection<?> orig, C c) {
+		for (Object o : orig) {
+			((Collection<Object>) c).add(copy(o));
+		}
+		return c;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <M extends Map<?, ?>> M copyEntries(Map<?, ?> orig, M c) {
+		for (Map.Entry<?, ?> e : orig.entrySet()) {
+			((Map<Object, Object>) c).put(copy(e.getKey()), copy(e.getValue()));
+		}
+		return c;
+	}
+
+	private static Random copyRandom(Random r) {
+		Random c = TypeUtil.cloneIfPossible(r);
+		if (c != r)
+			return c;
+
+		// no public clone()-method, e.g., java.util.Random itself
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(r);
+			}
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				return (Random) in.readObject();
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalArgumentException("Can't copy random number generator " + r.getClass().getName(), e);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+/**
+ * Implemented by all classes which can be part of the state of a forked
+ * simulation (see {@link jasima.core.simulation.Simulation#fork()}). An
+ * implementation creates a copy of its object, replacing all references to
+ * other (mutable) objects by their copies obtained from a {@link ForkContext}.
+ * Only top level and static nested classes can be forked, as instances of
+ * inner, local or anonymous classes reference their enclosing instance.
+ * <p>
+ * Implementations have to register the new copy with
+ * {@link ForkContext#register(Object, Object)} <em>before</em> copying any
+ * referenced objects, so cyclic references (e.g., between a machine and its
+ * queue) are resolved to the copy currently created. {@code forkCopy()} is
+ * only called by a {@link ForkContext}, other code should use
+ * {@link ForkContext#copy(Object)} instead.
+ * 
+ * @see ForkContext
+ */
+public interface Forkable {
+
+	/**
+	 * Creates a copy of this object for a forked simulation.
+	 * 
+	 * @param ctx The context of the current fork, mapping already copied objects
+	 *            to their copies.
+	 * @return The copy of this object.
+	 */
+	Object forkCopy(ForkContext ctx);
+
+}
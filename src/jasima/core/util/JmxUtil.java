@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Static helper methods to register monitoring MXBeans (e.g., of simulations,
+ * multi-experiments and experiment executors) with the platform MBean server,
+ * so they can be viewed with tools like JConsole or VisualVM. Registration is
+ * disabled by default and can be enabled by setting the system property
+ * {@value #JMX_ENABLED_KEY} to {@code true}.
+ */
+public final class JmxUtil {
+
+	public static final String JMX_ENABLED_KEY = JmxUtil.class.getName() + ".enabled";
+
+	/** Domain of all MBeans registered by jasima. */
+	public static final String DOMAIN = "jasima";
+
+	private static final AtomicLong nextId = new AtomicLong(0);
+
+	private JmxUtil() {
+	}
+
+	/**
+	 * Returns whether or not MBeans are registered, as set by the system property
+	 * {@value #JMX_ENABLED_KEY}.
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(JMX_ENABLED_KEY);
+	}
+
+	/**
+	 * Registers an MXBean with the management interface {@code intf}, if
+	 * enabled. Its object name consists of the domain {@value #DOMAIN}, the
+	 * given type and name as well as a unique id.
+	 * 
+	 * @param type The type of the MBean, e.g., "Simulation".
+	 * @param name A descriptive name, might be {@code null}.
+	 * @param intf The MXBean interface.
+	 * @param impl Creates the implementation of {@code intf}, only called if
+	 *             registration is enabled.
+	 * @return The object name used to register the MBean, or {@code null} if
+	 *         registration is disabled or failed.
+	 */
+	public static <T> ObjectName register(String type, String name, Class<T> intf, Supplier<? extends T> impl) {
+		if (!isEnabled())
+			return null;
+
+		StringBuilder sb = new StringBuilder(DOMAIN);
+		sb.append(":type=").append(type);
+		if (name != null) {
+			sb.append(",name=").append(ObjectName.quote(name));
+		}
+		sb.append(",id=").append(nextId.incrementAndGet());
+
+		try {
+			ObjectName on = new ObjectName(sb.toString());
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new StandardMBean(impl.get(), intf, true), on);
+			return on;
+		} catch (JMException e) {
+			// monitoring is optional, don't fail
+			return null;
+		}
+	}
+
+	/**
+	 * Unregisters an MBean registered by
+	 * {@link #register(String, String, Class, Supplier)}.
+	 * 
+	 * @param on The object name returned by {@code register()}, might be
+	 *           {@code null}.
+	 */
+	public static void unregister(ObjectName on) {
+		if (on == null)
+			return;
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(on);
+		} catch (JMException ignore) {
+		}
+	}
+
+}
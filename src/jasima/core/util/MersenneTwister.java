@@ -147,8 +147,11 @@ public strictfp class MersenneTwister extends java.util.Random implements Serial
 	 * it's best to make sure it's actually an integer.
 	 */
 	public MersenneTwister(final long seed) {
-		super(seed); /* just in case */
-		setSeed(seed);
+		// Random's constructor already calls the overridden setSeed(long), so
+		// only initialize the state if this didn't happen
+		super(seed);
+		if (mt == null)
+			setSeed(seed);
 	}
 
 	/**
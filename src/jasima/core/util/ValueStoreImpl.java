@@ -1,16 +1,22 @@
 package jasima.core.util;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Implementation of the {@link ValueStore} interface backed by a simple
  * {@code HashMap}. This class can be used to implement {@code ValueStore}
  * functionality on behalf of a host object.
+ * <p>
+ * Cloning is cheap: a clone initially shares the map with the original, it is
+ * only copied when either of them is modified (copy on write).
  */
-public class ValueStoreImpl implements ValueStore, Cloneable {
+public class ValueStoreImpl implements ValueStore, Cloneable, Forkable {
 
 	private HashMap<Object, Object> valueStore;
+	// is 'valueStore' (potentially) shared with a clone?
+	private boolean shared;
 
 	public ValueStoreImpl() {
 		super();
@@ -27,6 +33,7 @@ public class ValueStoreImpl implements ValueStore, Cloneable {
 	 */
 	@Override
 	public void valueStorePut(Object key, Object value) {
+		beforeWrite();
 		valueStore.put(key, value);
 	}
 
@@ -55,6 +62,8 @@ public class ValueStoreImpl implements ValueStore, Cloneable {
 	 */
 	@Override
 	public Set<Object> valueStoreGetAllKeys() {
+		// the key set is a modifiable view of the map
+		beforeWrite();
 		return valueStore.keySet();
 	}
 
@@ -66,9 +75,20 @@ public class ValueStoreImpl implements ValueStore, Cloneable {
 	 */
 	@Override
 	public Object valueStoreRemove(Object key) {
+		if (shared && !valueStore.containsKey(key))
+			return null;
+
+		beforeWrite();
 		return valueStore.remove(key);
 	}
 
+	private void beforeWrite() {
+		if (shared) {
+			valueStore = new HashMap<>(valueStore);
+			shared = false;
+		}
+	}
+
 	@Override
 	public ValueStore valueStoreImpl() {
 		return this;
@@ -79,9 +99,10 @@ public class ValueStoreImpl implements ValueStore, Cloneable {
 		try {
 			ValueStoreImpl c = (ValueStoreImpl) super.clone();
 
-			// deep clone of map but only shallow copy of entries
-			c.valueStore = new HashMap<>();
-			c.valueStore.putAll(valueStore);
+			// share map until either this or the clone is modified; entries
+			// are never cloned
+			shared = true;
+			c.shared = true;
 
 			return c;
 		} catch (CloneNotSupportedException cantHappen) {
@@ -89,4 +110,17 @@ public class ValueStoreImpl implements ValueStore, Cloneable {
 		}
 	}
 
+	/**
+	 * Copies the value store when a simulation is forked. Values are copied if
+	 * they are {@link Forkable}, otherwise they are shared with the copy.
+	 */
+	@Override
+	public ValueStoreImpl forkCopy(ForkContext ctx) {
+		ValueStoreImpl c = ctx.register(this, new ValueStoreImpl());
+		for (Map.Entry<Object, Object> e : valueStore.entrySet()) {
+			c.valueStore.put(e.getKey(), ctx.copyOrShare(e.getValue()));
+		}
+		return c;
+	}
+
 }
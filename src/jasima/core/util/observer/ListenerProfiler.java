@@ -0,0 +1,11 @@
+package jasima.core.util.observer;
+
+/**
+ * Receives the time needed by each listener notification of a
+ * {@link NotifierImpl}, if it was set using
+ * {@link NotifierImpl#setProfiler(ListenerProfiler)}.
+ */
+@FunctionalInterface
+public interface ListenerProfiler {
+	void listenerCalled(NotifierListener<?, ?> l, long nanos);
+}
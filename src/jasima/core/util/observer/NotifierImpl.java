@@ -4,19 +4,24 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Objects;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+
 /**
  * Example implementation of {@link Notifier} functionality. A {@code NotifierImpl} handles notifier functionality for some real
  * {@code Notifier} (subject).
  * 
  * @author Torsten Hildebrandt
  */
-public class NotifierImpl<SUBJECT extends Notifier<SUBJECT, MESSAGE>, MESSAGE> implements Notifier<SUBJECT, MESSAGE> {
+public class NotifierImpl<SUBJECT extends Notifier<SUBJECT, MESSAGE>, MESSAGE>
+		implements Notifier<SUBJECT, MESSAGE>, Forkable {
 
 	private final SUBJECT subject;
 
 	private ArrayList<NotifierListener<SUBJECT, MESSAGE>> listener;
 	private ArrayDeque<MESSAGE> msgs;
 	private int it;
+	private ListenerProfiler profiler;
 
 	public NotifierImpl(SUBJECT subject) {
 		super();
@@ -83,7 +88,13 @@ public class NotifierImpl<SUBJECT extends Notifier<SUBJECT, MESSAGE>, MESSAGE> i
 					NotifierListener<SUBJECT, MESSAGE> l = listener.get(it);
 					it++;
 
-					l.inform(subject, msg);
+					if (profiler == null) {
+						l.inform(subject, msg);
+					} else {
+						long start = System.nanoTime();
+						l.inform(subject, msg);
+						profiler.listenerCalled(l, System.nanoTime() - start);
+					}
 				}
 				it = -1;
 				msg = null;
@@ -94,4 +105,30 @@ public class NotifierImpl<SUBJECT extends Notifier<SUBJECT, MESSAGE>, MESSAGE> i
 		}
 	}
 
+	public ListenerProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Sets a profiler to measure the time needed by each listener notification.
+	 * The default value is {@code null}, i.e., no profiling.
+	 */
+	public void setProfiler(ListenerProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Copies this notifier when a simulation is forked. Listeners are copied
+	 * using {@code ctx}, i.e., they have to be {@link Forkable}.
+	 */
+	@Override
+	public NotifierImpl<SUBJECT, MESSAGE> forkCopy(ForkContext ctx) {
+		NotifierImpl<SUBJECT, MESSAGE> c = ctx.register(this, new NotifierImpl<>(ctx.copy(subject)));
+		c.listener = ctx.copy(listener);
+		c.msgs = msgs == null ? null : new ArrayDeque<>(msgs);
+		c.it = it;
+		c.profiler = ctx.copy(profiler);
+		return c;
+	}
+
 }
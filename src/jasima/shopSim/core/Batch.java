@@ -22,6 +22,8 @@ package jasima.shopSim.core;
 
 import java.util.ArrayList;
 
+import jasima.core.util.ForkContext;
+
 /**
  * A batch is a temporary collection of jobs to be processed together in a
  * single operation.
@@ -31,11 +33,11 @@ import java.util.ArrayList;
  */
 public class Batch extends PrioRuleTarget {
 
-	public final Shop shop;
+	public Shop shop;
 
 	private static final String SEPARATOR = ",";
 
-	private final ArrayList<Job> jobsInBatch;
+	private ArrayList<Job> jobsInBatch;
 	private int numFutures;
 	private String name = null;
 
@@ -241,4 +243,14 @@ public class Batch extends PrioRuleTarget {
 	public void setName(String name) {
 		this.name = name;
 	}
+
+	@Override
+	public Batch forkCopy(ForkContext ctx) {
+		Batch c = (Batch) super.forkCopy(ctx);
+		c.shop = ctx.copy(shop);
+		c.jobsInBatch = ctx.copy(jobsInBatch);
+		c.op = ctx.copy(op);
+		return c;
+	}
+
 }
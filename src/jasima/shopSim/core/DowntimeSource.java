@@ -23,6 +23,10 @@ package jasima.shopSim.core;
 import jasima.core.random.RandomFactory;
 import jasima.core.random.continuous.DblStream;
 import jasima.core.simulation.SimComponent;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+import jasima.shopSim.core.IndividualMachine.ActivateCall;
+import jasima.shopSim.core.IndividualMachine.TakeDownCall;
 
 /**
  * Abstraction of a downtime source. Each {@link IndividualMachine} can have
@@ -40,9 +44,9 @@ import jasima.core.simulation.SimComponent;
  * @see MaintenanceSource
  * @author Torsten Hildebrandt, 2014-04-15
  */
-public class DowntimeSource {
+public class DowntimeSource implements Cloneable, Forkable {
 
-	private final IndividualMachine machine;
+	private IndividualMachine machine;
 	private DblStream timeBetweenFailures;
 	private DblStream timeToRepair;
 	private String name;
@@ -62,30 +66,43 @@ public class DowntimeSource {
 			fact.initRndGen(timeToRepair, toString() + ".timeToRepair");
 		}
 
-		WorkStationListener wsl = new WorkStationListener() {
-			@Override
-			public void activated(WorkStation m, IndividualMachine justActivated) {
-				if (justActivated == machine && machine.downReason == DowntimeSource.this) {
-					onActivate();
-				}
-			}
+		machine.workStation.addListener(new DowntimeListener(this));
+
+		// schedule begin of first downtime
+		onActivate();
+	}
 
-			@Override
-			public void deactivated(WorkStation m, IndividualMachine justDeactivated) {
-				if (justDeactivated == machine && machine.downReason == DowntimeSource.this) {
-					onDeactivate();
-				}
+	private static final class DowntimeListener implements WorkStationListener, Forkable {
+		private final DowntimeSource source;
+
+		DowntimeListener(DowntimeSource source) {
+			super();
+			this.source = source;
+		}
+
+		@Override
+		public void activated(WorkStation m, IndividualMachine justActivated) {
+			if (justActivated == source.machine && source.machine.downReason == source) {
+				source.onActivate();
 			}
+		}
 
-			@Override
-			public void done(SimComponent m) {
-				machine.workStation.removeListener(this);
+		@Override
+		public void deactivated(WorkStation m, IndividualMachine justDeactivated) {
+			if (justDeactivated == source.machine && source.machine.downReason == source) {
+				source.onDeactivate();
 			}
-		};
-		machine.workStation.addListener(wsl);
+		}
 
-		// schedule begin of first downtime
-		onActivate();
+		@Override
+		public void done(SimComponent m) {
+			source.machine.workStation.removeListener(this);
+		}
+
+		@Override
+		public DowntimeListener forkCopy(ForkContext ctx) {
+			return ctx.register(this, new DowntimeListener(ctx.copy(source)));
+		}
 	}
 
 	protected void onActivate() {
@@ -94,12 +111,7 @@ public class DowntimeSource {
 
 			// schedule next downtime
 			double nextFailure = calcDeactivateTime(shop);
-			shop.getSim().schedule(nextFailure, WorkStation.TAKE_DOWN_PRIO, () -> {
-				assert machine.workStation.currMachine == null;
-				machine.workStation.currMachine = machine;
-				machine.takeDown(DowntimeSource.this);
-				machine.workStation.currMachine = null;
-			});
+			shop.getSim().schedule(nextFailure, WorkStation.TAKE_DOWN_PRIO, new TakeDownCall(machine, this));
 		}
 	}
 
@@ -114,12 +126,7 @@ public class DowntimeSource {
 		machine.procFinished = whenReactivated;
 
 		// schedule reactivation
-		shop.getSim().schedule(whenReactivated, WorkStation.ACTIVATE_PRIO, () -> {
-			assert machine.workStation.currMachine == null;
-			machine.workStation.currMachine = machine;
-			machine.activate();
-			machine.workStation.currMachine = null;
-		});
+		shop.getSim().schedule(whenReactivated, WorkStation.ACTIVATE_PRIO, new ActivateCall(machine));
 	}
 
 	protected double calcDeactivateTime(Shop shop) {
@@ -130,6 +137,23 @@ public class DowntimeSource {
 		return shop.simTime() + timeToRepair.nextDbl();
 	}
 
+	/**
+	 * Copies this downtime source when its simulation is forked. Sub-classes with
+	 * additional mutable state have to override this method.
+	 */
+	@Override
+	public DowntimeSource forkCopy(ForkContext ctx) {
+		try {
+			DowntimeSource c = ctx.register(this, (DowntimeSource) clone());
+			c.machine = ctx.copy(machine);
+			c.timeBetweenFailures = ctx.copy(timeBetweenFailures);
+			c.timeToRepair = ctx.copy(timeToRepair);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "downSource." + String.valueOf(machine) + (name != null ? "." + name : "");
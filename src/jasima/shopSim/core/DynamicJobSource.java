@@ -26,6 +26,7 @@ import jasima.core.random.continuous.DblStream;
 import jasima.core.random.discrete.IntStream;
 import jasima.core.simulation.SimComponentContainer;
 import jasima.core.simulation.arrivalprocess.ArrivalsStationary;
+import jasima.core.util.ForkContext;
 
 /**
  * This class can be used to create a stream of jobs characterized by various
@@ -187,4 +188,17 @@ public class DynamicJobSource extends JobSource {
 		this.arrivalProcess = arrivalProcess;
 	}
 
+	@Override
+	public DynamicJobSource forkCopy(ForkContext ctx) {
+		DynamicJobSource c = (DynamicJobSource) super.forkCopy(ctx);
+		c.arrivalProcess = ctx.copy(arrivalProcess);
+		c.dueDateFactors = ctx.copy(dueDateFactors);
+		c.jobWeights = ctx.copy(jobWeights);
+		c.machIdx = ctx.copy(machIdx);
+		c.procTimes = ctx.copy(procTimes);
+		c.numOps = ctx.copy(numOps);
+		c.route = ctx.copy(route);
+		return c;
+	}
+
 }
@@ -20,10 +20,13 @@
  *******************************************************************************/
 package jasima.shopSim.core;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import jasima.core.simulation.SimEvent;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 
 /**
  * This class represents a single machine, which is part of a
@@ -31,7 +34,7 @@ import jasima.core.simulation.SimEvent;
  * 
  * @author Torsten Hildebrandt
  */
-public class IndividualMachine {
+public class IndividualMachine implements Forkable {
 	/**
 	 * 机床的三种状态：故障、空闲和繁忙
 	 * 
@@ -97,15 +100,111 @@ public class IndividualMachine {
 		relDate = 0.0;
 	}
 
+	// used by forkCopy(), references are replaced by their copies there
+	private IndividualMachine(IndividualMachine orig, WorkStation workStation) {
+		this.workStation = workStation;
+		this.idx = orig.idx;
+
+		relDate = orig.relDate;
+		initialSetup = orig.initialSetup;
+		name = orig.name;
+		downsources = orig.downsources;
+		state = orig.state;
+		downReason = orig.downReason;
+		procStarted = orig.procStarted;
+		procFinished = orig.procFinished;
+		setupState = orig.setupState;
+		curJob = orig.curJob;
+	}
+
 	// called whenever an operation is finished
-	SimEvent onDepart = new SimEvent(0.0d, WorkStation.DEPART_PRIO, "depart") {
+	SimEvent onDepart = new DepartEvent(this);
+
+	private static final class DepartEvent extends SimEvent {
+		private IndividualMachine machine;
+
+		DepartEvent(IndividualMachine machine) {
+			super(0.0d, WorkStation.DEPART_PRIO);
+			setKind(WorkStation.DEPART_EVENT);
+			this.machine = machine;
+		}
+
 		@Override
 		public void handle() {
-			workStation.currMachine = IndividualMachine.this;
-			workStation.depart();
-			workStation.currMachine = null;
+			WorkStation ws = machine.workStation;
+			ws.currMachine = machine;
+			ws.depart();
+			ws.currMachine = null;
+		}
+
+		@Override
+		public DepartEvent forkCopy(ForkContext ctx) {
+			DepartEvent c = (DepartEvent) super.forkCopy(ctx);
+			c.machine = ctx.copy(machine);
+			return c;
+		}
+
+		@Override
+		public String toString() {
+			return "depart(" + machine + ", " + machine.curJob + ")";
+		}
+	}
+
+	/**
+	 * Calls {@link IndividualMachine#takeDown(DowntimeSource)} on behalf of its
+	 * workstation. This is a static class (and not a lambda expression) so it
+	 * can be copied when forking a simulation.
+	 */
+	static final class TakeDownCall implements Runnable, Forkable {
+		private final IndividualMachine machine;
+		private final DowntimeSource downReason;
+
+		TakeDownCall(IndividualMachine machine, DowntimeSource downReason) {
+			super();
+			this.machine = machine;
+			this.downReason = downReason;
+		}
+
+		@Override
+		public void run() {
+			WorkStation ws = machine.workStation;
+			assert ws.currMachine == null;
+			ws.currMachine = machine;
+			machine.takeDown(downReason);
+			ws.currMachine = null;
+		}
+
+		@Override
+		public TakeDownCall forkCopy(ForkContext ctx) {
+			return ctx.register(this, new TakeDownCall(ctx.copy(machine), ctx.copy(downReason)));
+		}
+	}
+
+	/**
+	 * Calls {@link IndividualMachine#activate()} on behalf of its workstation.
+	 */
+	static final class ActivateCall implements Runnable, Forkable {
+		private final IndividualMachine machine;
+
+		ActivateCall(IndividualMachine machine) {
+			super();
+			this.machine = machine;
 		}
-	};
+
+		@Override
+		public void run() {
+			WorkStation ws = machine.workStation;
+			assert ws.currMachine == null;
+			ws.currMachine = machine;
+			machine.activate();
+			ws.currMachine = null;
+		}
+
+		@Override
+		public ActivateCall forkCopy(ForkContext ctx) {
+			return ctx.register(this, new ActivateCall(ctx.copy(machine)));
+		}
+	}
 
 	/** Activation from DOWN state. */
 	public void activate() {
@@ -138,12 +237,7 @@ public class IndividualMachine {
 
 			// don't interrupt ongoing operation/downtime, postpone takeDown
 			// instead
-			shop.getSim().schedule(procFinished, WorkStation.TAKE_DOWN_PRIO, () -> {
-				assert workStation.currMachine == null;
-				workStation.currMachine = IndividualMachine.this;
-				takeDown(downReason);
-				workStation.currMachine = null;
-			});
+			shop.getSim().schedule(procFinished, WorkStation.TAKE_DOWN_PRIO, new TakeDownCall(this, downReason));
 		} else {
 			assert state == MachineState.IDLE;
 
@@ -164,12 +258,7 @@ public class IndividualMachine {
 		state = MachineState.DOWN;
 
 		// schedule initial activation
-		workStation.getSim().schedule(relDate, WorkStation.ACTIVATE_PRIO, () -> {
-			assert workStation.currMachine == null;
-			workStation.currMachine = IndividualMachine.this;
-			IndividualMachine.this.activate();
-			workStation.currMachine = null;
-		});
+		workStation.getSim().schedule(relDate, WorkStation.ACTIVATE_PRIO, new ActivateCall(this));
 
 		// init downsources
 		for (DowntimeSource ds : downsources) {
@@ -177,6 +266,31 @@ public class IndividualMachine {
 		}
 	}
 
+	/**
+	 * Copies this machine when its simulation is forked.
+	 */
+	@Override
+	public IndividualMachine forkCopy(ForkContext ctx) {
+		WorkStation ws = ctx.copy(workStation);
+		// copying the workstation copies its machines, so this machine might
+		// have been copied already
+		IndividualMachine c = ws.machDat()[idx];
+		if (c == this) {
+			c = ctx.register(this, new IndividualMachine(this, ws));
+			if (!downsources.isEmpty()) {
+				ArrayList<DowntimeSource> ds = new ArrayList<>(downsources.size());
+				for (DowntimeSource d : downsources) {
+					ds.add(ctx.copy(d));
+				}
+				c.downsources = ds;
+			}
+			c.downReason = ctx.copy(downReason);
+			c.curJob = ctx.copy(curJob);
+			c.onDepart = ctx.copy(onDepart);
+		}
+		return c;
+	}
+
 	@Override
 	public String toString() {
 		if (name == null)
@@ -20,11 +20,16 @@
  *******************************************************************************/
 package jasima.shopSim.core;
 
+import jasima.core.simulation.ParallelEngine;
+import jasima.core.simulation.SimEvent;
+import jasima.core.util.ArrayValueStore;
+import jasima.core.util.ForkContext;
 import jasima.core.util.TypeUtil;
 import jasima.core.util.ValueStore;
 import jasima.core.util.ValueStoreImpl;
 import jasima.core.util.observer.Notifier;
 import jasima.core.util.observer.NotifierImpl;
+import jasima.core.util.observer.NotifierListener;
 
 /**
  * Main work unit in a shop.
@@ -62,11 +67,12 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 	/**
 	 * 车间
 	 */
-	private final Shop shop;
-	// delegate Notifier functionality
+	private Shop shop;
+	// delegate Notifier functionality; created lazily as most jobs never have
+	// any listeners
 	private NotifierImpl<Job, Object> notifierAdapter;
-	// delegate ValueStore functionality
-	private ValueStoreImpl valueStore;
+	// delegate ValueStore functionality; created lazily
+	private ValueStore valueStore;
 	/**
 	 * 达到时间
 	 */
@@ -134,14 +140,13 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 	 * 未来作业
 	 */
 	private Job future;
+	// arrival at the next destination, sent in advance by a ParallelEngine
+	private ParallelEngine.Message transfer;
 
 	public Job(Shop shop) {
 		super();
 
 		this.shop = shop;
-
-		notifierAdapter = new NotifierImpl<Job, Object>(this);
-		valueStore = new ValueStoreImpl();
 	}
 
 	public void setArriveTime(double fl) {
@@ -186,6 +191,9 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 	}
 
 	public double procSum() {
+		if (isFollowingRoute())
+			return route.procSum();
+
 		double res = 0d;
 		for (Operation o : ops) {
 			res += o.getProcTime();
@@ -195,15 +203,27 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 
 	public double remainingProcTime() {
 		if (remProcTime < 0.0d) {
-			remProcTime = 0f;
-			Operation[] ops = this.ops;
-			for (int i = taskNumber; i < ops.length; i++) {
-				remProcTime += ops[i].getProcTime();
+			if (isFollowingRoute()) {
+				remProcTime = route.remainingProcTime(taskNumber);
+			} else {
+				remProcTime = 0f;
+				Operation[] ops = this.ops;
+				for (int i = taskNumber; i < ops.length; i++) {
+					remProcTime += ops[i].getProcTime();
+				}
 			}
 		}
 		return remProcTime;
 	}
 
+	/**
+	 * Returns whether this job's operations are the ones of its {@link Route},
+	 * so values cached by the route can be used.
+	 */
+	private boolean isFollowingRoute() {
+		return route != null && route.getOperations() == ops;
+	}
+
 	public int numOps() {
 		return getOps().length;
 	}
@@ -217,14 +237,23 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 	 * next machine on its route
 	 */
 	void proceed() {
+		ParallelEngine.Message t = transfer;
 		if (!isLastOperation()) {
 			setTaskNumber(getTaskNumber() + 1);
 
-			WorkStation mNext = ops[taskNumber].getMachine();
-			mNext.enqueueOrProcess(this);
-		} else {
+			if (t == null) {
+				WorkStation mNext = ops[taskNumber].getMachine();
+				mNext.enqueueOrProcess(this);
+			}
+		} else if (t == null) {
 			shop.jobFinished(this);
 		}
+
+		if (t != null) {
+			// the next destination already knows about the job, let it continue
+			transfer = null;
+			t.release();
+		}
 	}
 
 	void jobReleased() {
@@ -254,6 +283,7 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 		setFinishTime(currMachine.currMachine.procFinished);
 		setStartTime(currMachine.shop().simTime());
 		notifyNextMachine();
+		sendToNextDestination();
 
 		if (numListener() > 0)
 			fire(JobMessage.JOB_START_OPERATION);
@@ -277,6 +307,26 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 		}
 	}
 
+	/**
+	 * When executed by a {@link ParallelEngine}, sends this job to its next
+	 * destination in advance, i.e., when an operation is started. This provides
+	 * the lookahead required for parallel execution. The message is released by
+	 * {@link #proceed()}.
+	 */
+	private void sendToNextDestination() {
+		ParallelEngine pe = shop.getSim().getParallelEngine();
+		if (pe == null)
+			return;
+
+		SimEvent depart = currMachine.currMachine.onDepart;
+		if (!isLastOperation()) {
+			final WorkStation next = ops[taskNumber + 1].getMachine();
+			transfer = pe.send(next, depart, () -> next.enqueueOrProcess(this));
+		} else {
+			transfer = pe.send(shop, depart, () -> shop.jobFinished(this));
+		}
+	}
+
 	/**
 	 * Returns a clone of this Job switched to the next operation.
 	 * 
@@ -489,9 +539,71 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 
 	@Override
 	public ValueStore valueStoreImpl() {
+		if (valueStore == null) {
+			ArrayValueStore.KeyTable keys = shop == null ? null : shop.getJobKeyTable();
+			valueStore = keys == null ? new ValueStoreImpl() : new ArrayValueStore(keys);
+		}
 		return valueStore;
 	}
 
+	// override PrioRuleTarget's methods, so all ValueStore methods use the
+	// same delegate
+
+	@Override
+	public void valueStorePut(Object key, Object value) {
+		valueStoreImpl().valueStorePut(key, value);
+	}
+
+	// avoid creating a value store just to query it
+
+	@Override
+	public Object valueStoreGet(Object key) {
+		return valueStore == null ? null : valueStore.valueStoreGet(key);
+	}
+
+	@Override
+	public int valueStoreGetNumKeys() {
+		return valueStore == null ? 0 : valueStore.valueStoreGetNumKeys();
+	}
+
+	@Override
+	public Object valueStoreRemove(Object key) {
+		return valueStore == null ? null : valueStore.valueStoreRemove(key);
+	}
+
+	/**
+	 * Retrieves a value from the value store using a key handle obtained from
+	 * the shop's {@link Shop#getJobKeyTable() key table}. This is faster than
+	 * {@link #valueStoreGet(Object)} for frequently accessed entries, but
+	 * requires {@link Shop#setArrayJobValueStores(boolean)} to be enabled.
+	 * 
+	 * @param keyHandle The handle of the key.
+	 * @return The value associated with the key.
+	 */
+	public Object valueStoreGetByHandle(int keyHandle) {
+		return valueStore == null ? null : arrayValueStore().get(keyHandle);
+	}
+
+	/**
+	 * Puts a value in the value store using a key handle obtained from the
+	 * shop's {@link Shop#getJobKeyTable() key table}.
+	 * 
+	 * @param keyHandle The handle of the key.
+	 * @param value     The value to assign to the key.
+	 * @see #valueStorePut(Object, Object)
+	 * @see #valueStoreGetByHandle(int)
+	 */
+	public void valueStorePutByHandle(int keyHandle, Object value) {
+		valueStoreImpl();
+		arrayValueStore().put(keyHandle, value);
+	}
+
+	private ArrayValueStore arrayValueStore() {
+		if (!(valueStore instanceof ArrayValueStore))
+			throw new IllegalStateException("Key handles require 'arrayJobValueStores' to be enabled in the shop.");
+		return (ArrayValueStore) valueStore;
+	}
+
 	//
 	//
 	// Event notification
@@ -500,9 +612,32 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 
 	@Override
 	public Notifier<Job, Object> notifierImpl() {
+		if (notifierAdapter == null) {
+			notifierAdapter = new NotifierImpl<>(this);
+			if (shop != null && shop.getSim() != null)
+				notifierAdapter.setProfiler(shop.getSim().getProfiler());
+		}
 		return notifierAdapter;
 	}
 
+	// avoid creating a notifier just to query it
+
+	@Override
+	public int numListener() {
+		return notifierAdapter == null ? 0 : notifierAdapter.numListener();
+	}
+
+	@Override
+	public boolean removeListener(NotifierListener<Job, Object> l) {
+		return notifierAdapter == null ? false : notifierAdapter.removeListener(l);
+	}
+
+	@Override
+	public void fire(Object msg) {
+		if (notifierAdapter != null)
+			notifierAdapter.fire(msg);
+	}
+
 	// cloning
 
 	@Override
@@ -510,12 +645,18 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 		try {
 			Job j = (Job) super.clone();
 			j.future = null;
-
-			// clone value store copying (but not cloning!) all of its entries
-			j.valueStore = valueStore.clone();
+			j.transfer = null;
+
+			// clone value store copying (but not cloning!) all of its entries;
+			// the entries are only copied on write
+			if (valueStore instanceof ArrayValueStore) {
+				j.valueStore = ((ArrayValueStore) valueStore).clone();
+			} else if (valueStore != null) {
+				j.valueStore = ((ValueStoreImpl) valueStore).clone();
+			}
 
 			// clone listeners
-			j.notifierAdapter = new NotifierImpl<>(j);
+			j.notifierAdapter = null;
 			for (int i = 0; i < numListener(); i++) {
 				j.addListener(TypeUtil.cloneIfPossible(getListener(i)));
 			}
@@ -526,4 +667,19 @@ public class Job extends PrioRuleTarget implements Cloneable, ValueStore, Notifi
 		}
 	}
 
+	@Override
+	public Job forkCopy(ForkContext ctx) {
+		Job c = (Job) super.forkCopy(ctx);
+		c.shop = ctx.copy(shop);
+		c.notifierAdapter = ctx.copy(notifierAdapter);
+		c.valueStore = ctx.copy(valueStore);
+		c.currMachine = ctx.copy(currMachine);
+		c.ops = ctx.copy(ops);
+		c.opDueDates = ctx.copy(opDueDates);
+		c.route = ctx.copy(route);
+		c.future = ctx.copy(future);
+		c.transfer = null;
+		return c;
+	}
+
 }
@@ -22,6 +22,7 @@ package jasima.shopSim.core;
 
 import jasima.core.simulation.SimEvent;
 import jasima.core.simulation.SimComponentBase;
+import jasima.core.util.ForkContext;
 
 /**
  * A job source is an abstract base class for classes producing {@link Job}s.
@@ -51,41 +52,57 @@ public abstract class JobSource extends SimComponentBase {
 		stopArrivals = false;
 		jobsStarted = 0;
 
-		SimEvent arriveEvent = new SimEvent(0.0d, ARRIVE_PRIO, "投料") {
+		SimEvent arriveEvent = new ArriveEvent(this);
 
-			private Job nextJob; // next job to be released
+		// schedule first arrival
+		arriveEvent.setTime(simTime());
+		getSim().schedule(arriveEvent);
+	}
 
-			@Override
-			public void handle() {
-				if (stopArrivals)
-					return;
+	private static final class ArriveEvent extends SimEvent {
 
-				// create new job
-				Job job = createNextJob();
+		private JobSource source;
+		private Job nextJob; // next job to be released
 
-				if (job != null) {
-					if (job.getRelDate() < simTime())
-						throw new IllegalStateException("arrival time is in the past: " + job);
+		ArriveEvent(JobSource source) {
+			super(0.0d, ARRIVE_PRIO, "投料");
+			this.source = source;
+		}
 
-					// schedule next arrival reusing this Event object
-					this.setTime(job.getRelDate());
-					getSim().schedule(this);
-				}
+		@Override
+		public void handle() {
+			if (source.stopArrivals)
+				return;
 
-				// release "nextJob"
-				// 这里所谓的nextJob其实就是当前事件处理中所涉及的作业
-				if (nextJob != null) {
-					getShop().startJob(nextJob);
-				}
+			// create new job
+			Job job = source.createNextJob();
 
-				nextJob = job;
+			if (job != null) {
+				if (job.getRelDate() < source.simTime())
+					throw new IllegalStateException("arrival time is in the past: " + job);
+
+				// schedule next arrival reusing this Event object
+				this.setTime(job.getRelDate());
+				source.getSim().schedule(this);
 			}
 
-		};
+			// release "nextJob"
+			// 这里所谓的nextJob其实就是当前事件处理中所涉及的作业
+			if (nextJob != null) {
+				source.getShop().startJob(nextJob);
+			}
+
+			nextJob = job;
+		}
+
+		@Override
+		public ArriveEvent forkCopy(ForkContext ctx) {
+			ArriveEvent c = (ArriveEvent) super.forkCopy(ctx);
+			c.source = ctx.copy(source);
+			c.nextJob = ctx.copy(nextJob);
+			return c;
+		}
 
-		// schedule first arrival
-		arriveEvent.setTime(simTime());
-		getSim().schedule(arriveEvent);
 	}
 
 	public abstract Job createNextJob();
@@ -113,4 +130,11 @@ public abstract class JobSource extends SimComponentBase {
 		return s;
 	}
 
+	@Override
+	public JobSource forkCopy(ForkContext ctx) {
+		JobSource c = (JobSource) super.forkCopy(ctx);
+		c.shop = ctx.copy(shop);
+		return c;
+	}
+
 }
@@ -20,19 +20,29 @@
  *******************************************************************************/
 package jasima.shopSim.core;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+
 /**
  * Operations specify what to process.
  * 
  * @author Torsten Hildebrandt
  * @version "$Id: Operation.java 550 2015-01-23 15:07:23Z thildebrandt@gmail.com$"
  */
-public class Operation implements Cloneable {
+public class Operation implements Cloneable, Forkable {
 
 	private WorkStation machine;
 	private double procTime = Double.NaN;
 	private int setupState = WorkStation.DEF_SETUP;
 	private String batchFamily = WorkStation.BATCH_INCOMPATIBLE;
+	private int batchFamilyId = -1;
 	private int maxBatchSize = 1;
+	// whether the processing time is part of values cached by a Route
+	private boolean cached;
+
+	// incremented whenever the processing time of a cached operation changes,
+	// invalidating the values cached by all routes
+	private static volatile int procTimeChanges;
 
 	@Override
 	public Operation clone() throws CloneNotSupportedException {
@@ -45,6 +55,7 @@ public class Operation implements Cloneable {
 
 	public void setMachine(WorkStation machine) {
 		this.machine = machine;
+		batchFamilyId = -1;
 	}
 
 	public int getSetupState() {
@@ -61,6 +72,22 @@ public class Operation implements Cloneable {
 
 	public void setBatchFamily(String batchFamily) {
 		this.batchFamily = batchFamily;
+		batchFamilyId = -1;
+	}
+
+	/**
+	 * Returns the numeric id of this operation's batch family as assigned by
+	 * {@link WorkStation#translateBatchFamily(String)} of its machine. The id is
+	 * determined on first use and then cached.
+	 * 
+	 * @return The batch family id.
+	 */
+	public int getBatchFamilyId() {
+		int id = batchFamilyId;
+		if (id < 0) {
+			batchFamilyId = id = machine.translateBatchFamily(batchFamily);
+		}
+		return id;
 	}
 
 	public int getMaxBatchSize() {
@@ -77,6 +104,27 @@ public class Operation implements Cloneable {
 
 	public void setProcTime(double procTime) {
 		this.procTime = procTime;
+		if (cached)
+			procTimeChanges++;
+	}
+
+	void setCached() {
+		cached = true;
+	}
+
+	static int procTimeChanges() {
+		return procTimeChanges;
+	}
+
+	@Override
+	public Operation forkCopy(ForkContext ctx) {
+		try {
+			Operation c = ctx.register(this, clone());
+			c.machine = ctx.copy(machine);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
 	}
 
 }
@@ -22,6 +22,8 @@ package jasima.shopSim.core;
 
 import java.io.Serializable;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.shopSim.prioRules.meta.LookaheadThreshold;
 
 /**
@@ -31,7 +33,7 @@ import jasima.shopSim.prioRules.meta.LookaheadThreshold;
  * @author Torsten Hildebrandt
  * @see PriorityQueue
  */
-public abstract class PR implements Cloneable, Serializable {
+public abstract class PR implements Cloneable, Serializable, Forkable {
 
 	private static final long serialVersionUID = -880043612686550471L;
 
@@ -74,6 +76,31 @@ public abstract class PR implements Cloneable, Serializable {
 	 */
 	public abstract double calcPrio(PrioRuleTarget entry);
 
+	/**
+	 * Computes the priorities of all entries of <code>q</code> in a single call.
+	 * The priority of the entry with index <code>i</code> (see
+	 * {@link PriorityQueue#get(int)}) has to be stored in
+	 * <code>prios[offset + i * stride]</code>. This method is called by a queue
+	 * after {@link #beforeCalc(PriorityQueue)} whenever priorities of all
+	 * entries have to be (re-)computed.
+	 * <p>
+	 * The default implementation simply calls {@link #calcPrio(PrioRuleTarget)}
+	 * for each entry. Rules with expensive priority computations can override
+	 * it to work on the primitive attribute columns returned by
+	 * {@link PriorityQueue#getAttributes()}, but must produce exactly the same
+	 * values as {@link #calcPrio(PrioRuleTarget)}.
+	 *
+	 * @param q      The queue with the entries to evaluate.
+	 * @param prios  Array to store the priorities in.
+	 * @param offset Position of the first entry's priority in {@code prios}.
+	 * @param stride Distance of two consecutive entries in {@code prios}.
+	 */
+	public void calcPrios(PriorityQueue<?> q, double[] prios, int offset, int stride) {
+		for (int i = 0, n = q.size(); i < n; i++) {
+			prios[offset + i * stride] = calcPrio(q.get(i));
+		}
+	}
+
 	/**
 	 * If this method returns true, the machine is kept idle. This method is called
 	 * after beforeCalc(PriorityQueue) but before calcPrio(PrioRuleTarget).
@@ -82,6 +109,28 @@ public abstract class PR implements Cloneable, Serializable {
 		return false;
 	}
 
+	/**
+	 * Returns whether the priority of an entry stays the same for as long as it
+	 * waits in a queue, i.e., {@link #calcPrio(PrioRuleTarget)} only depends on
+	 * attributes of the entry that are fixed when the entry is added (like its
+	 * arrival time, due date or processing time of the current operation), but
+	 * not on the simulation time, other entries of the queue, the current machine
+	 * or anything computed in {@link #beforeCalc(PriorityQueue)}.
+	 * <p>
+	 * If all rules (including tie breakers) of a queue are time-invariant, the
+	 * queue computes priorities only once when an entry is added and keeps its
+	 * entries in a heap, avoiding the re-evaluation of all entries each time the
+	 * best entry is selected. Priorities of future jobs are never cached, so rules
+	 * only have to be time-invariant with respect to non-future jobs.
+	 * <p>
+	 * The default implementation returns false.
+	 *
+	 * @return Whether priorities computed by this rule can be cached.
+	 */
+	public boolean isTimeInvariant() {
+		return false;
+	}
+
 	@Override
 	public final String toString() {
 		String res = getName();
@@ -117,6 +166,28 @@ public abstract class PR implements Cloneable, Serializable {
 		}
 	}
 
+	/**
+	 * Creates a copy of this rule as part of forking a simulation. Contrary to
+	 * {@link #clone()}, the owner, tie breaker and primary rule are copied
+	 * using {@code ctx}, so references to them stay consistent with the rest of
+	 * the forked simulation. Sub-classes with mutable state have to override
+	 * this method.
+	 */
+	@Override
+	public PR forkCopy(ForkContext ctx) {
+		try {
+			PR c = ctx.register(this, (PR) super.clone());
+			c.firstLookaheadRule = null;
+			c.lookaheadRuleValid = false;
+			c.owner = ctx.copy(owner);
+			c.tieBreaker = ctx.copy(tieBreaker);
+			c.primaryRule = ctx.copy(primaryRule);
+			return c;
+		} catch (CloneNotSupportedException cantHappen) {
+			throw new AssertionError(cantHappen);
+		}
+	}
+
 	public WorkStation getOwner() {
 		return owner;
 	}
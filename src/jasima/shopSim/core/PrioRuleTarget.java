@@ -21,13 +21,17 @@
 package jasima.shopSim.core;
 
 import java.util.HashMap;
+import java.util.Map;
+
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 
 /**
  * Common abstract base class for {@link Job}s and {@link Batch}es.
  * 
  * @author Torsten Hildebrandt
  */
-public abstract class PrioRuleTarget {
+public abstract class PrioRuleTarget implements Cloneable, Forkable {
 
 	private HashMap<Object, Object> valueStore;
 
@@ -109,4 +113,25 @@ public abstract class PrioRuleTarget {
 	public abstract boolean isBatch();
 
 	public abstract String getName();
+
+	/**
+	 * Copies this job or batch when its simulation is forked. Values of the
+	 * value store are copied if they are {@link Forkable}, otherwise they are
+	 * shared with the copy.
+	 */
+	@Override
+	public PrioRuleTarget forkCopy(ForkContext ctx) {
+		try {
+			PrioRuleTarget c = ctx.register(this, (PrioRuleTarget) super.clone());
+			if (valueStore != null) {
+				c.valueStore = new HashMap<>();
+				for (Map.Entry<Object, Object> e : valueStore.entrySet()) {
+					c.valueStore.put(e.getKey(), ctx.copyOrShare(e.getValue()));
+				}
+			}
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
 }
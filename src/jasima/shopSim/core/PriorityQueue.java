@@ -23,46 +23,40 @@ package jasima.shopSim.core;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.core.util.MsgCategory;
 
 /**
  * An implementation of a priority queue. The two supported operations are add(T
  * t) and removeLeast(). Order of the elements is determined by a sequencing
  * rule PR.
+ * <p>
+ * Usually priorities of all elements are re-computed each time the element
+ * with the largest priority is requested. If all rules are time-invariant (see
+ * {@link PR#isTimeInvariant()}) and the queue contains no future jobs,
+ * priorities are instead computed once when an element is added and elements
+ * are kept in an indexed d-ary heap. Both ways select exactly the same
+ * elements.
+ * <p>
+ * Elements and their priorities are stored in flat arrays: the priorities of
+ * the element with index <code>i</code> are stored in <code>prios_</code>
+ * starting at offset <code>i*dims</code>, where <code>dims</code> is the
+ * number of rules (including tie breakers).
  * 
  * @author Torsten Hildebrandt
  * 
  * @param <T>
  *            The element type contained in this PriorityQueue.
  */
-public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
+public class PriorityQueue<T extends PrioRuleTarget> implements Serializable, Cloneable, Forkable {
 
 	private static final long serialVersionUID = -4159482968254168459L;
 
 	public static final double MAX_PRIO = Double.MAX_VALUE;
 	public static final double MIN_PRIO = -MAX_PRIO;
 
-	private final class ComparatorImpl<O extends PrioRuleTarget> implements Comparator<ListEntry<O>>, Serializable {
-		private static final long serialVersionUID = -6907667564606558578L;
-
-		@Override
-		public int compare(ListEntry<O> i1, ListEntry<O> i2) {
-			// i1 and i2 are the same
-			if (i1 == i2)
-				return 0;
-
-			double[] p1 = i1.prios;
-			double[] p2 = i2.prios;
-
-			int res = comparePrioArrays(p1, p2);
-			if (res == 0)
-				getWorkStation().getSim().print(MsgCategory.WARN, "equal priorities.");
-			return res;
-		}
-	}
-
 	public static int comparePrioArrays(final double[] p1, final double[] p2) {
 		for (int i = 0; i < p1.length; i++) {
 			int cmpRes = compareValues(p1[i], p2[i]);
@@ -80,40 +74,47 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 			return -Double.compare(v1, v2);
 	}
 
-	private final Comparator<ListEntry<T>> comparator;
+	// arity of the heap used for time-invariant rules
+	private static final int HEAP_ARITY = 4;
 
-	protected ListEntry<T>[] nodes_; // the tree nodes, packed into an array
+	protected T[] elems_; // the elements, packed into an array
+	protected double[] prios_; // their priorities, 'dims' values per element
 	protected int count_ = 0; // number of used slots
-
-	private ListEntry<T> reuse; // use old ListEntries again
+	private int dims = 0;
+
+	// the heap of element indices; only valid (and maintained) if 'heapValid'
+	// is true
+	private int[] heap_;
+	private int[] heapPos_; // position in heap_ of each element
+	private boolean heapValid = false;
+	private boolean rulesTimeInvariant = false;
+	private int numFutures = 0;
+
+	// buffers used by getAllElementsInOrder()
+	private int[] order;
+	private int[] orderTmp;
+	private T[] elemsTmp;
+	private double[] priosTmp;
 
 	private PR sr;
 	// all rules and their tie breakers unrolled in an array
 	private PR[] rules = new PR[0];
 	private double[] bestPrios;
-	private final WorkStation workStation;
-
-	private static class ListEntry<T> {
-		public ListEntry(int numPrios) {
-			super();
-
-			prios = new double[numPrios];
-		}
-
-		public T elem;
-		public final double[] prios;
-		public ListEntry<T> next; // linked list to reuse ListEntries
-	}
+	private double[] bestPriosBuf = new double[0];
+	private QueueAttributes attributes = new QueueAttributes();
+	private boolean attributesValid = false;
+	private WorkStation workStation;
 
 	public PriorityQueue(WorkStation workStation) {
 		super();
 		this.workStation = workStation;
 
 		@SuppressWarnings("unchecked")
-		final ListEntry<T>[] array = new ListEntry[11];
-		nodes_ = array;
-
-		comparator = new ComparatorImpl<T>();
+		final T[] array = (T[]) new PrioRuleTarget[11];
+		elems_ = array;
+		prios_ = new double[0];
+		heap_ = new int[11];
+		heapPos_ = new int[11];
 	}
 
 	/** Return number of elements **/
@@ -122,23 +123,26 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 	}
 
 	public void add(T elem) {
-		final ListEntry<T> e;
-		if (reuse != null) {
-			e = reuse;
-			reuse = reuse.next;
-		} else {
-			e = new ListEntry<T>(rules.length);
-		}
-		e.elem = elem;
-		// e.idx = num++;
-
 		// ensure enough capacity
-		if (count_ >= nodes_.length) {
-			setCapacity(3 * nodes_.length / 2 + 1);
+		if (count_ >= elems_.length) {
+			setCapacity(3 * elems_.length / 2 + 1);
 		}
 
-		// simply store in nodes_, priority is computed on removeLargest
-		nodes_[count_++] = e;
+		// simply store in elems_, priority is computed on removeLargest
+		final int i = count_++;
+		elems_[i] = elem;
+		attributesValid = false;
+
+		if (elem.isFuture()) {
+			numFutures++;
+			heapValid = false;
+		} else if (heapValid) {
+			// priorities of time-invariant rules can be computed right now
+			updatePrio(i);
+			heap_[i] = i;
+			heapPos_[i] = i;
+			siftUp(i);
+		}
 	}
 
 	/**
@@ -150,14 +154,10 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 
 		int minIdx = updatePrios();
 		if (minIdx >= 0) {
-			final ListEntry<T> entry = nodes_[minIdx];
-			nodes_[minIdx] = nodes_[--count_];
-			nodes_[count_] = null;
+			res = elems_[minIdx];
+			bestPrios = copyPrios(minIdx);
 
-			res = entry.elem;
-			bestPrios = entry.prios;
-
-			recycle(entry);
+			removeAt(minIdx);
 		}
 
 		return res;
@@ -173,15 +173,18 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 
 		int minIdx = updatePrios();
 		if (minIdx >= 0) {
-			ListEntry<T> minEntry = nodes_[minIdx];
-
-			bestPrios = minEntry.prios;
-			res = minEntry.elem;
+			bestPrios = copyPrios(minIdx);
+			res = elems_[minIdx];
 		}
 
 		return res;
 	}
 
+	private double[] copyPrios(int i) {
+		System.arraycopy(prios_, i * dims, bestPriosBuf, 0, dims);
+		return bestPriosBuf;
+	}
+
 	/**
 	 * Return all elements in this list ordered by their priority. Results are
 	 * returned in 'resArray', the number of elements returned depends on the
@@ -198,26 +201,88 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 			return resArray;
 
 		int minIdx = updatePrios();
-		ListEntry<T> min = nodes_[minIdx];
 
-		// sort nodes_ by current priorities
-		Arrays.sort(nodes_, 0, count_, comparator);
-		assert comparator.compare(nodes_[0], min) == 0;
+		// sort elements by current priorities
+		final int n = count_;
+		if (order == null || order.length != elems_.length) {
+			order = new int[elems_.length];
+			orderTmp = new int[elems_.length];
+			elemsTmp = Arrays.copyOf(elems_, elems_.length);
+			Arrays.fill(elemsTmp, null);
+		}
+		if (priosTmp == null || priosTmp.length != prios_.length) {
+			priosTmp = new double[prios_.length];
+		}
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		mergeSort(order, orderTmp, 0, n);
+		assert comparePrios(order[0], minIdx) == 0;
+
+		// rearrange elements and priorities in sorted order, swapping buffers
+		final T[] newElems = elemsTmp;
+		final double[] newPrios = priosTmp;
+		for (int i = 0; i < n; i++) {
+			final int j = order[i];
+			newElems[i] = elems_[j];
+			System.arraycopy(prios_, j * dims, newPrios, i * dims, dims);
+		}
+		Arrays.fill(elems_, 0, n, null);
+		elemsTmp = elems_;
+		priosTmp = prios_;
+		elems_ = newElems;
+		prios_ = newPrios;
+		attributesValid = false;
+
+		// as the sort is stable, elements are now ordered by priorities and
+		// index, so this is also a valid heap
+		if (heapValid) {
+			for (int i = 0; i < n; i++) {
+				heap_[i] = i;
+				heapPos_[i] = i;
+			}
+		}
 
 		// write result in 'resArray'
-		for (int i = 0, n = Math.min(resArray.length, count_); i < n; i++) {
-			resArray[i] = nodes_[i].elem;
+		for (int i = 0, m = Math.min(resArray.length, n); i < m; i++) {
+			resArray[i] = elems_[i];
 		}
 
 		return resArray;
 	}
 
+	/**
+	 * Stable merge sort of the element indices in a[from..to) by priority.
+	 */
+	private void mergeSort(int[] a, int[] tmp, int from, int to) {
+		if (to - from < 2)
+			return;
+
+		final int mid = (from + to) >>> 1;
+		mergeSort(a, tmp, from, mid);
+		mergeSort(a, tmp, mid, to);
+
+		int i = from, j = mid, k = from;
+		while (i < mid && j < to) {
+			if (comparePrios(a[j], a[i]) < 0)
+				tmp[k++] = a[j++];
+			else
+				tmp[k++] = a[i++];
+		}
+		while (i < mid)
+			tmp[k++] = a[i++];
+		while (j < to)
+			tmp[k++] = a[j++];
+
+		System.arraycopy(tmp, from, a, from, to - from);
+	}
+
 	/**
 	 * Adds all elements of this queue to the collection c.
 	 */
 	public <C extends Collection<T>> C getAllElements(C c) {
 		for (int i = 0, n = count_; i < n; i++) {
-			c.add(nodes_[i].elem);
+			c.add(elems_[i]);
 		}
 		return c;
 	}
@@ -227,7 +292,7 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 	 * priority, instead the order is arbitrary.
 	 */
 	public T get(int i) {
-		return nodes_[i].elem;
+		return elems_[i];
 	}
 
 	/**
@@ -236,26 +301,48 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 	 */
 	public boolean remove(T o) {
 		for (int i = 0; i < count_; i++) {
-			if (o == nodes_[i].elem) {
-				final ListEntry<T> entry = nodes_[i];
-				nodes_[i] = nodes_[--count_]; // swap with last element
-				nodes_[count_] = null;
-				recycle(entry);
-
+			if (o == elems_[i]) {
+				removeAt(i);
 				return true;
 			}
 		}
 		return false;
 	}
 
+	private void removeAt(int i) {
+		final T elem = elems_[i];
+		final int last = --count_;
+		attributesValid = false;
+
+		if (heapValid) {
+			heapRemove(i);
+		}
+
+		// swap with last element
+		if (last != i) {
+			elems_[i] = elems_[last];
+			System.arraycopy(prios_, last * dims, prios_, i * dims, dims);
+			if (heapValid) {
+				// element 'last' now has a lower index, i.e., it might be
+				// better than its parent
+				final int pos = heapPos_[last];
+				heap_[pos] = i;
+				heapPos_[i] = pos;
+				siftUp(i);
+			}
+		}
+		elems_[last] = null;
+
+		if (elem.isFuture())
+			numFutures--;
+	}
+
 	/** Removes all elements. **/
 	public void clear() {
-		for (int i = 0; i < count_; ++i) {
-			final ListEntry<T> entry = nodes_[i];
-			nodes_[i] = null;
-			recycle(entry);
-		}
+		Arrays.fill(elems_, 0, count_, null);
 		count_ = 0;
+		numFutures = 0;
+		attributesValid = false;
 	}
 
 	/**
@@ -264,19 +351,13 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 	 */
 	public boolean contains(T o) {
 		for (int i = 0; i < count_; i++) {
-			if (o == nodes_[i].elem) {
+			if (o == elems_[i]) {
 				return true;
 			}
 		}
 		return false;
 	}
 
-	private void recycle(final ListEntry<T> entry) {
-		entry.elem = null;
-		entry.next = reuse;
-		reuse = entry;
-	}
-
 	public void setSequencingRule(PR sr) {
 		if (this.sr == sr)
 			return;
@@ -287,27 +368,25 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 
 		this.sr = sr;
 
-		int oldRuleCount = rules.length;
-
-		rules = new PR[dimCount(sr)];
+		// reuse array if possible, rules are switched frequently when stepping
+		int numRules = dimCount(sr);
+		if (rules.length != numRules)
+			rules = new PR[numRules];
+		rulesTimeInvariant = true;
 		int i = 0;
 		do {
 			rules[i++] = sr;
+			rulesTimeInvariant &= sr.isTimeInvariant();
 		} while ((sr = sr.getTieBreaker()) != null);
 
-		// clear cache
-		reuse = null;
+		// heap has to be rebuilt with new priorities
+		heapValid = false;
 
-		if (oldRuleCount != rules.length) {
+		if (dims != rules.length) {
 			// adjust buffer for prio values
-			for (int j = 0; j < nodes_.length; j++) {
-				ListEntry<T> e = nodes_[j];
-				if (e != null) {
-					ListEntry<T> le = new ListEntry<T>(rules.length);
-					le.elem = e.elem;
-					nodes_[j] = le;
-				}
-			}
+			dims = rules.length;
+			prios_ = new double[elems_.length * dims];
+			bestPriosBuf = new double[dims];
 		}
 	}
 
@@ -316,14 +395,14 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 	}
 
 	protected int capacity() {
-		return nodes_.length;
+		return elems_.length;
 	}
 
 	protected void setCapacity(int newCap) {
-		@SuppressWarnings("unchecked")
-		ListEntry<T>[] newnodes = new ListEntry[newCap];
-		System.arraycopy(nodes_, 0, newnodes, 0, count_);
-		nodes_ = newnodes;
+		elems_ = Arrays.copyOf(elems_, newCap);
+		prios_ = Arrays.copyOf(prios_, newCap * dims);
+		heap_ = Arrays.copyOf(heap_, newCap);
+		heapPos_ = Arrays.copyOf(heapPos_, newCap);
 	}
 
 	private int updatePrios() {
@@ -335,21 +414,26 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 			return -1;
 		}
 
+		attributesValid = false;
 		for (PR rule : rules) {
 			rule.beforeCalc(this);
 			if (rule.keepIdle())
 				return -1;
 		}
 
-		updatePrio(nodes_[0]);
-		ListEntry<T> minEntry = nodes_[0];
+		if (rulesTimeInvariant && numFutures == 0) {
+			// priorities don't change while waiting, use heap
+			if (!heapValid)
+				buildHeap();
+			return heap_[0];
+		}
+		heapValid = false;
+
+		updateAllPrios();
 		int minIdx = 0;
 
 		for (int i = 1, n = count_; i < n; i++) {
-			final ListEntry<T> le = nodes_[i];
-			updatePrio(le);
-			if (comparator.compare(minEntry, le) > 0) {
-				minEntry = le;
+			if (comparePrios(minIdx, i) > 0) {
 				minIdx = i;
 			}
 		}
@@ -357,13 +441,128 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 		return minIdx;
 	}
 
-	private void updatePrio(ListEntry<T> le) {
-		final double[] vs = le.prios;
-		assert vs.length == rules.length;
+	private void updateAllPrios() {
+		final PR[] rs = rules;
+		for (int j = 0; j < rs.length; j++) {
+			rs[j].calcPrios(this, prios_, j, dims);
+		}
+	}
+
+	private void updatePrio(int i) {
+		final PR[] rs = rules;
+		final T elem = elems_[i];
+		final int off = i * dims;
+
+		for (int j = 0; j < rs.length; j++) {
+			prios_[off + j] = rs[j].calcPrio(elem);
+		}
+	}
+
+	/**
+	 * Compares the priorities of the elements with index i1 and i2.
+	 */
+	private int comparePrios(int i1, int i2) {
+		// i1 and i2 are the same
+		if (i1 == i2)
+			return 0;
+
+		final double[] ps = prios_;
+		final int off1 = i1 * dims;
+		final int off2 = i2 * dims;
+		for (int j = 0; j < dims; j++) {
+			int cmpRes = compareValues(ps[off1 + j], ps[off2 + j]);
+			if (cmpRes != 0)
+				return cmpRes;
+		}
+
+		getWorkStation().getSim().print(MsgCategory.WARN, "equal priorities.");
+		return 0;
+	}
+
+	/**
+	 * Computes priorities of all elements and builds the heap.
+	 */
+	private void buildHeap() {
+		final int n = count_;
+		updateAllPrios();
+		for (int i = 0; i < n; i++) {
+			heap_[i] = i;
+			heapPos_[i] = i;
+		}
+		heapValid = true;
+
+		for (int pos = (n - 2) / HEAP_ARITY; pos >= 0; pos--) {
+			siftDown(heap_[pos]);
+		}
+	}
+
+	private void heapRemove(int i) {
+		final int n = count_; // count_ was already decremented
+		final int last = heap_[n];
+
+		if (last != i) {
+			final int pos = heapPos_[i];
+			heap_[pos] = last;
+			heapPos_[last] = pos;
+			if (heapLess(last, i))
+				siftUp(last);
+			else
+				siftDown(last);
+		}
+	}
+
+	private void siftUp(final int i) {
+		int pos = heapPos_[i];
+		while (pos > 0) {
+			final int parentPos = (pos - 1) / HEAP_ARITY;
+			final int parent = heap_[parentPos];
+			if (!heapLess(i, parent))
+				break;
+
+			heap_[pos] = parent;
+			heapPos_[parent] = pos;
+			pos = parentPos;
+		}
+		heap_[pos] = i;
+		heapPos_[i] = pos;
+	}
+
+	private void siftDown(final int i) {
+		final int n = count_;
+		int pos = heapPos_[i];
+		while (true) {
+			final int first = pos * HEAP_ARITY + 1;
+			if (first >= n)
+				break;
+
+			// find best child
+			int best = heap_[first];
+			for (int c = first + 1, last = Math.min(first + HEAP_ARITY, n); c < last; c++) {
+				if (heapLess(heap_[c], best))
+					best = heap_[c];
+			}
+			if (!heapLess(best, i))
+				break;
 
-		for (int j = 0; j < vs.length; j++) {
-			vs[j] = rules[j].calcPrio(le.elem);
+			final int bestPos = heapPos_[best];
+			heap_[pos] = best;
+			heapPos_[best] = pos;
+			pos = bestPos;
 		}
+		heap_[pos] = i;
+		heapPos_[i] = pos;
+	}
+
+	/**
+	 * Heap order: priorities first, then index. This yields exactly the element
+	 * a linear scan of elems_ would find (the first one with the largest
+	 * priorities).
+	 */
+	private boolean heapLess(int i1, int i2) {
+		int res = comparePrios(i1, i2);
+		if (res == 0)
+			res = i1 < i2 ? -1 : +1;
+		return res < 0;
 	}
 
 	private int dimCount(PR sr) {
@@ -381,7 +580,7 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 	 * peekLargest or removeLargest. Be careful: do not change the values
 	 * contained in the returned array. The result array is only valid
 	 * immediately after calling peekLargest/removeLargest (array is reused and
-	 * can be overridden by subsequent calls to add()).
+	 * overridden by subsequent calls of these methods).
 	 * </p>
 	 * <p>
 	 * This method returns null if null (keep machine idle) was returned by
@@ -391,6 +590,23 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 		return bestPrios;
 	}
 
+	/**
+	 * Returns attributes of all elements of this queue as primitive arrays. The
+	 * columns are gathered on the first call after the queue was changed or
+	 * re-evaluated, subsequent calls (e.g., by other rules) return the same
+	 * values.
+	 * 
+	 * @return The attribute columns, indexed like {@link #get(int)}.
+	 * @see PR#calcPrios(PriorityQueue, double[], int, int)
+	 */
+	public QueueAttributes getAttributes() {
+		if (!attributesValid) {
+			attributes.gather(this, count_);
+			attributesValid = true;
+		}
+		return attributes;
+	}
+
 	/**
 	 * Returns the {@link WorkStation} this queue is responsible for.
 	 * 
@@ -400,4 +616,29 @@ public class PriorityQueue<T extends PrioRuleTarget> implements Serializable {
 		return workStation;
 	}
 
+	@Override
+	public PriorityQueue<T> forkCopy(ForkContext ctx) {
+		try {
+			@SuppressWarnings("unchecked")
+			PriorityQueue<T> c = ctx.register(this, (PriorityQueue<T>) super.clone());
+			c.elems_ = ctx.copy(elems_);
+			c.prios_ = ctx.copy(prios_);
+			c.heap_ = ctx.copy(heap_);
+			c.heapPos_ = ctx.copy(heapPos_);
+			// buffers of getAllElementsInOrder() are re-created on demand
+			c.order = c.orderTmp = null;
+			c.elemsTmp = null;
+			c.priosTmp = null;
+			c.sr = ctx.copy(sr);
+			c.rules = ctx.copy(rules);
+			c.bestPriosBuf = ctx.copy(bestPriosBuf);
+			c.bestPrios = ctx.copy(bestPrios);
+			c.attributes = ctx.copy(attributes);
+			c.workStation = ctx.copy(workStation);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
 }
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.core;
+
+import java.io.Serializable;
+
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+
+/**
+ * Attributes of all elements of a {@link PriorityQueue} gathered into primitive
+ * arrays ("columns"). The value for the element with index <code>i</code> (see
+ * {@link PriorityQueue#get(int)}) is stored at position <code>i</code> of each
+ * column. Columns are gathered once when first requested with
+ * {@link PriorityQueue#getAttributes()} and re-used by all rules until the
+ * queue is evaluated again. They are intended to be used in
+ * {@link PR#calcPrios(PriorityQueue, double[], int, int)} to avoid calling the
+ * same accessor methods for each rule and element over and over again.
+ * <p>
+ * Be careful: do not change the values contained in the returned arrays, the
+ * arrays can be longer than the number of elements in the queue.
+ * 
+ * @see PriorityQueue#getAttributes()
+ */
+public class QueueAttributes implements Serializable, Cloneable, Forkable {
+
+	private static final long serialVersionUID = 2914870542211458107L;
+
+	private int size = 0;
+	private double[] dueDate = new double[0];
+	private double[] weight = new double[0];
+	private double[] remProcTime = new double[0];
+	private double[] currProcTime = new double[0];
+	private double[] arriveTime = new double[0];
+	private int[] setupState = new int[0];
+
+	QueueAttributes() {
+		super();
+	}
+
+	/**
+	 * Gathers all columns from the first 'n' elements of 'q'.
+	 */
+	void gather(PriorityQueue<?> q, int n) {
+		if (dueDate.length < n) {
+			int cap = Math.max(n, 2 * dueDate.length);
+			dueDate = new double[cap];
+			weight = new double[cap];
+			remProcTime = new double[cap];
+			currProcTime = new double[cap];
+			arriveTime = new double[cap];
+			setupState = new int[cap];
+		}
+
+		for (int i = 0; i < n; i++) {
+			PrioRuleTarget t = q.get(i);
+			dueDate[i] = t.getDueDate();
+			weight[i] = t.getWeight();
+			remProcTime[i] = t.remainingProcTime();
+			currProcTime[i] = t.currProcTime();
+			arriveTime[i] = t.getArriveTime();
+			setupState[i] = t.getCurrentOperation().getSetupState();
+		}
+		size = n;
+	}
+
+	/** Returns the number of elements the columns were gathered for. */
+	public int size() {
+		return size;
+	}
+
+	/** @see PrioRuleTarget#getDueDate() */
+	public double[] dueDates() {
+		return dueDate;
+	}
+
+	/** @see PrioRuleTarget#getWeight() */
+	public double[] weights() {
+		return weight;
+	}
+
+	/** @see PrioRuleTarget#remainingProcTime() */
+	public double[] remainingProcTimes() {
+		return remProcTime;
+	}
+
+	/** @see PrioRuleTarget#currProcTime() */
+	public double[] currProcTimes() {
+		return currProcTime;
+	}
+
+	/** @see PrioRuleTarget#getArriveTime() */
+	public double[] arriveTimes() {
+		return arriveTime;
+	}
+
+	/** Setup states of the current operations, see {@link Operation#getSetupState()}. */
+	public int[] setupStates() {
+		return setupState;
+	}
+
+	@Override
+	public QueueAttributes forkCopy(ForkContext ctx) {
+		try {
+			QueueAttributes c = ctx.register(this, (QueueAttributes) clone());
+			c.dueDate = dueDate.clone();
+			c.weight = weight.clone();
+			c.remProcTime = remProcTime.clone();
+			c.currProcTime = currProcTime.clone();
+			c.arriveTime = arriveTime.clone();
+			c.setupState = setupState.clone();
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
+}
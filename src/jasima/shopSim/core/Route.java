@@ -24,13 +24,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+
 /**
  * Simple container for Operations.
  */
-public class Route {
+public class Route implements Cloneable, Forkable {
 
 	private Operation[] operations;
 
+	// remProcTimes[i] is the sum of processing times of operations i to the end
+	// (with a trailing 0), computed on first use
+	private double[] remProcTimes;
+	// value of Operation.procTimeChanges() when remProcTimes was computed
+	private int remProcTimesStamp;
+
 	public Route() {
 		super();
 		operations = new Operation[0];
@@ -44,6 +53,7 @@ public class Route {
 		ArrayList<Operation> list = new ArrayList<Operation>(Arrays.asList(operations));
 		list.add(op);
 		operations = list.toArray(new Operation[list.size()]);
+		remProcTimes = null;
 	}
 
 	public int numOperations() {
@@ -66,6 +76,51 @@ public class Route {
 		if (ops == null)
 			throw new IllegalArgumentException("'ops' mustn't be null.");
 		operations = ops;
+		remProcTimes = null;
+	}
+
+	/**
+	 * Returns the sum of processing times of the operation with index {@code i}
+	 * and all subsequent operations. Values are computed once for all operations
+	 * on first use and re-computed after the processing time of an operation
+	 * was changed.
+	 * 
+	 * @param i Index of the first operation, can be {@link #numOperations()}
+	 *          (the result then is 0).
+	 * @return The remaining processing time.
+	 */
+	public double remainingProcTime(int i) {
+		double[] rem = remProcTimes;
+		int stamp = Operation.procTimeChanges();
+		if (rem == null || stamp != remProcTimesStamp) {
+			remProcTimes = rem = computeRemProcTimes(operations);
+			remProcTimesStamp = stamp;
+		}
+		return rem[i];
+	}
+
+	/**
+	 * Returns the sum of processing times of all operations.
+	 * 
+	 * @see #remainingProcTime(int)
+	 */
+	public double procSum() {
+		return remainingProcTime(0);
+	}
+
+	private static double[] computeRemProcTimes(Operation[] ops) {
+		double[] res = new double[ops.length + 1];
+		for (int i = 0; i < ops.length; i++) {
+			ops[i].setCached();
+
+			// sum in the same order as Job does, so results are identical
+			double sum = 0.0;
+			for (int k = i; k < ops.length; k++) {
+				sum += ops[k].getProcTime();
+			}
+			res[i] = sum;
+		}
+		return res;
 	}
 
 	@Override
@@ -76,4 +131,16 @@ public class Route {
 		return js;
 	}
 
+	@Override
+	public Route forkCopy(ForkContext ctx) {
+		try {
+			Route c = ctx.register(this, (Route) super.clone());
+			c.operations = ctx.copy(operations);
+			c.remProcTimes = ctx.copy(remProcTimes);
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); // can't happen
+		}
+	}
+
 }
@@ -27,6 +27,8 @@ import java.util.Map;
 import jasima.core.simulation.SimComponent;
 import jasima.core.simulation.SimComponentContainer;
 import jasima.core.simulation.SimComponentContainerBase;
+import jasima.core.util.ArrayValueStore;
+import jasima.core.util.ForkContext;
 import jasima.core.util.MsgCategory;
 import jasima.core.util.TypeUtil;
 import jasima.core.util.Util;
@@ -74,6 +76,7 @@ public class Shop extends SimComponentContainerBase<SimComponent> {
 	 * 前瞻
 	 */
 	private boolean enableLookAhead = false;
+	private boolean arrayJobValueStores = false;
 	/**
 	 * 投料源
 	 */
@@ -94,6 +97,8 @@ public class Shop extends SimComponentContainerBase<SimComponent> {
 	 * 开始作业数
 	 */
 	public int jobsStarted;
+	// shared by the value stores of all jobs, if enabled
+	private ArrayValueStore.KeyTable jobKeyTable;
 
 	// fields used during event notification
 	/**
@@ -120,9 +125,16 @@ public class Shop extends SimComponentContainerBase<SimComponent> {
 		super.init();
 
 		jobsStarted = jobsFinished = 0;
+		jobKeyTable = isArrayJobValueStores() ? new ArrayValueStore.KeyTable() : null;
 	}
 
 	public void jobFinished(Job j) {
+		if (!getSim().isLocal(this)) {
+			// called by another component of a parallel simulation
+			getSim().callAs(this, () -> jobFinished(j));
+			return;
+		}
+
 		jobsFinished++;
 
 		if (getStopAfterNumJobs() > 0 && jobsFinished >= getStopAfterNumJobs()) {
@@ -207,6 +219,33 @@ public class Shop extends SimComponentContainerBase<SimComponent> {
 		this.enableLookAhead = enableLookAhead;
 	}
 
+	public boolean isArrayJobValueStores() {
+		return arrayJobValueStores;
+	}
+
+	/**
+	 * If enabled, jobs of this shop use an {@link ArrayValueStore} instead of a
+	 * {@link jasima.core.util.ValueStoreImpl} as their value store. All jobs
+	 * share the key table returned by {@link #getJobKeyTable()}, so
+	 * {@link Job#valueStoreGetByHandle(int)} and
+	 * {@link Job#valueStorePutByHandle(int, Object)} can be used. Default is
+	 * {@code false}.
+	 * 
+	 * @param arrayJobValueStores Whether to use array based value stores.
+	 */
+	public void setArrayJobValueStores(boolean arrayJobValueStores) {
+		this.arrayJobValueStores = arrayJobValueStores;
+	}
+
+	/**
+	 * Returns the key table shared by the value stores of all jobs of this
+	 * shop, or {@code null} if {@code arrayJobValueStores} is not enabled. The
+	 * key table is created in {@link #init()}.
+	 */
+	public ArrayValueStore.KeyTable getJobKeyTable() {
+		return jobKeyTable;
+	}
+
 	/**
 	 * End simulation if WIP (work in process) reaches this value (0: no limit)
 	 * 
@@ -417,4 +456,15 @@ public class Shop extends SimComponentContainerBase<SimComponent> {
 		throw new UnsupportedOperationException("clone()");
 	}
 
+	@Override
+	public Shop forkCopy(ForkContext ctx) {
+		Shop c = (Shop) super.forkCopy(ctx);
+		c.sources = ctx.copy(sources);
+		c.machines = ctx.copy(machines);
+		c.routes = ctx.copy(routes);
+		c.lastJobReleased = ctx.copy(lastJobReleased);
+		c.lastJobFinished = ctx.copy(lastJobFinished);
+		return c;
+	}
+
 }
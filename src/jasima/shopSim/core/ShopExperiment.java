@@ -24,8 +24,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 
+import jasima.core.simulation.ParallelEngine;
 import jasima.core.simulation.SimComponent;
 import jasima.core.simulation.SimulationExperiment;
+import jasima.core.util.ForkContext;
 import jasima.core.util.TypeUtil;
 import jasima.core.util.observer.NotifierListener;
 import jasima.shopSim.core.batchForming.BatchForming;
@@ -46,6 +48,8 @@ public abstract class ShopExperiment extends SimulationExperiment {
 	private int maxJobsInSystem = 0;
 	private int stopAfterNumJobs = 0;
 	private boolean enableLookAhead = false;
+	private int numLogicalProcesses = 0;
+	private boolean arrayJobValueStores = false;
 
 	private PR sequencingRule;
 	private PR batchSequencingRule;
@@ -68,6 +72,53 @@ public abstract class ShopExperiment extends SimulationExperiment {
 
 		createShop();
 		configureShop();
+
+		if (getNumLogicalProcesses() > 0)
+			sim.setParallelEngine(createParallelEngine());
+	}
+
+	/**
+	 * Creates the {@link ParallelEngine} used if {@code numLogicalProcesses} is
+	 * positive. The default implementation assigns the workstations of the shop
+	 * round-robin to the logical processes, using {@link #lookahead(WorkStation)}
+	 * as their lookahead.
+	 * 
+	 * @return The new engine.
+	 */
+	protected ParallelEngine createParallelEngine() {
+		if (isEnableLookAhead())
+			throw new IllegalStateException("Look ahead can't be used with a parallel engine.");
+
+		int n = getNumLogicalProcesses();
+		ParallelEngine engine = new ParallelEngine(n);
+		for (int i = 0, m = shop.machines().numComponents(); i < m; i++) {
+			WorkStation ws = shop.machines().getComponent(i);
+			engine.assign(ws, 1 + i % n, lookahead(ws));
+		}
+		return engine;
+	}
+
+	/**
+	 * Returns the minimum time between a job starting an operation on
+	 * {@code ws} and it arriving at its next destination. The default
+	 * implementation uses the minimum processing time of all operations on
+	 * {@code ws} in the shop's routes, or 0 if there are no routes.
+	 * 
+	 * @param ws The workstation.
+	 * @return The lookahead of {@code ws}, a value {@code >=0}.
+	 */
+	protected double lookahead(WorkStation ws) {
+		if (shop.routes.length == 0)
+			return 0.0;
+
+		double min = Double.POSITIVE_INFINITY;
+		for (Route r : shop.routes) {
+			for (Operation o : r.ops()) {
+				if (o.getMachine() == ws)
+					min = Math.min(min, o.getProcTime());
+			}
+		}
+		return min;
 	}
 
 	protected void createShop() {
@@ -88,10 +139,18 @@ public abstract class ShopExperiment extends SimulationExperiment {
 		shop.setMaxJobsInSystem(getMaxJobsInSystem());
 		shop.setStopAfterNumJobs(getStopAfterNumJobs());
 		shop.setEnableLookAhead(isEnableLookAhead());
+		shop.setArrayJobValueStores(isArrayJobValueStores());
 
 		// 设置仿真的规则集合
 		if (getJobSequencingRules() != null) {
-			sim.setJobSequencingRules(getJobSequencingRules());
+			// each simulation uses its own copies, so clones of this experiment can be
+			// stepped concurrently
+			PR[] rules = getJobSequencingRules().clone();
+			for (int i = 0; i < rules.length; i++) {
+				if (rules[i] != null)
+					rules[i] = rules[i].clone();
+			}
+			sim.setJobSequencingRules(rules);
 		}
 		// set dispatching rule of machines
 		for (int i = 0, n = shop.machines().numComponents(); i < n; i++) {
@@ -221,6 +280,13 @@ public abstract class ShopExperiment extends SimulationExperiment {
 		return clone;
 	}
 
+	@Override
+	public ShopExperiment forkCopy(ForkContext ctx) {
+		ShopExperiment c = (ShopExperiment) super.forkCopy(ctx);
+		c.shop = ctx.copy(shop);
+		return c;
+	}
+
 	//
 	//
 	// boring getters and setters for parameters below
@@ -257,6 +323,37 @@ public abstract class ShopExperiment extends SimulationExperiment {
 		return enableLookAhead;
 	}
 
+	/**
+	 * Executes the simulation using a {@link ParallelEngine} with the given number
+	 * of logical processes (&lt;=0 (default): sequential execution without a
+	 * parallel engine). Can't be combined with {@code enableLookAhead}.
+	 * 
+	 * @param numLogicalProcesses The number of logical processes (threads) to use.
+	 * @see #createParallelEngine()
+	 */
+	public void setNumLogicalProcesses(int numLogicalProcesses) {
+		this.numLogicalProcesses = numLogicalProcesses;
+	}
+
+	public int getNumLogicalProcesses() {
+		return numLogicalProcesses;
+	}
+
+	/**
+	 * Lets jobs use an {@link jasima.core.util.ArrayValueStore} as their value
+	 * store (default: {@code false}).
+	 * 
+	 * @param arrayJobValueStores Whether to use array based value stores.
+	 * @see Shop#setArrayJobValueStores(boolean)
+	 */
+	public void setArrayJobValueStores(boolean arrayJobValueStores) {
+		this.arrayJobValueStores = arrayJobValueStores;
+	}
+
+	public boolean isArrayJobValueStores() {
+		return arrayJobValueStores;
+	}
+
 	/**
 	 * End simulation if a certain number of jobs was completed (&lt;=0 (default):
 	 * no limit).
@@ -20,6 +20,8 @@
  *******************************************************************************/
 package jasima.shopSim.core;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.shopSim.util.BasicJobStatCollector;
 import jasima.shopSim.util.ExtendedJobStatCollector;
 
@@ -32,7 +34,7 @@ import jasima.shopSim.util.ExtendedJobStatCollector;
  * @see BasicJobStatCollector
  * @see ExtendedJobStatCollector
  */
-public abstract class ShopListenerBase implements ShopListener, Cloneable {
+public abstract class ShopListenerBase implements ShopListener, Cloneable, Forkable {
 
 	private double initialPeriod = 0;
 	private int ignoreFirst = 0;
@@ -54,6 +56,16 @@ public abstract class ShopListenerBase implements ShopListener, Cloneable {
 		}
 	}
 
+	/**
+	 * Copies this listener when a simulation is forked. The default
+	 * implementation uses {@link #clone()}, sub-classes with mutable state have
+	 * to override this method.
+	 */
+	@Override
+	public ShopListenerBase forkCopy(ForkContext ctx) {
+		return ctx.register(this, clone());
+	}
+
 	// boring getters and setters below
 
 	public double getInitialPeriod() {
@@ -31,6 +31,7 @@ import java.util.Map;
 
 import jasima.core.simulation.SimEvent;
 import jasima.core.simulation.SimComponentBase;
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.IndividualMachine.MachineState;
 import jasima.shopSim.core.batchForming.BatchForming;
 import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
@@ -78,6 +79,11 @@ public class WorkStation extends SimComponentBase {
 	 * other.
 	 */
 	public static final String BATCH_INCOMPATIBLE = "BATCH_INCOMPATIBLE";
+	/**
+	 * Numeric id of {@link #BATCH_INCOMPATIBLE}, see
+	 * {@link #translateBatchFamily(String)}.
+	 */
+	public static final int BATCH_INCOMPATIBLE_ID = 0;
 
 	// constants to deterministically sequence concurrent events
 
@@ -88,6 +94,10 @@ public class WorkStation extends SimComponentBase {
 	public static final int TAKE_DOWN_PRIO = DEPART_PRIO + 1000; // after depart
 	public static final int ACTIVATE_PRIO = DEPART_PRIO - 1000; // before depart
 
+	// kinds of events scheduled by a workstation, see SimEvent#getKind()
+	public static final String DEPART_EVENT = "WS_DEPART";
+	public static final String SELECT_EVENT = "WS_SELECT";
+
 	// parameters
 	/**
 	 * 工作站名称
@@ -100,7 +110,7 @@ public class WorkStation extends SimComponentBase {
 	/**
 	 * 机床数组
 	 */
-	private final IndividualMachine[] machDat;
+	private IndividualMachine[] machDat;
 	/**
 	 * 准备时间矩阵
 	 */
@@ -116,7 +126,7 @@ public class WorkStation extends SimComponentBase {
 	/**
 	 * 队列
 	 */
-	public final PriorityQueue<Job> queue;
+	public PriorityQueue<Job> queue;
 	/**
 	 * 车间对象
 	 */
@@ -145,6 +155,8 @@ public class WorkStation extends SimComponentBase {
 	 * 当前该组中的哪台机器选择下一批?如果调度规则必须确定特定机床的准备状态，则此信息非常重要
 	 */
 	public IndividualMachine currMachine;
+	// priorities of the best job/machine found in nextJobAndMachine()
+	private double[] maxPrioBuf;
 	/**
 	 * 空闲机床
 	 */
@@ -158,9 +170,20 @@ public class WorkStation extends SimComponentBase {
 	 */
 	private ArrayList<String> setupStateTranslate;
 	/**
-	 * 批次和工件列表的map
+	 * Names and ids of batch families, see {@link #translateBatchFamily(String)}.
+	 */
+	private ArrayList<String> batchFamilyNames;
+	private HashMap<String, Integer> batchFamilyIds;
+	/**
+	 * Jobs in the queue (including future jobs) per batch family id, created on
+	 * first use.
+	 */
+	private ArrayList<ArrayList<Job>> jobsPerBatchFamily;
+	/**
+	 * 可重用的事件对象
 	 */
-	private Map<String, List<Job>> jobsPerBatchFamily;
+	private SelectEvent freeSelectEvents;
+	private FutureArrivalEvent freeFutureArrivalEvents;
 
 	// the following fields temporarily contain parameters used by listeners
 	public Job justArrived;
@@ -204,6 +227,8 @@ public class WorkStation extends SimComponentBase {
 
 		batchingUsed = false;
 		jobsPerBatchFamily = null;
+		if (batchForming != null)
+			batchForming.init();
 
 		workContentFuture = workContentReal = 0.0d;
 
@@ -215,7 +240,8 @@ public class WorkStation extends SimComponentBase {
 
 		for (int i = machDat.length - 1; i >= 0; i--) {
 			IndividualMachine imd = machDat[i];
-			imd.init();
+			// initial events are scheduled on behalf of this workstation
+			getSim().callAs(this, imd::init);
 			numBusy++;
 		}
 
@@ -267,6 +293,12 @@ public class WorkStation extends SimComponentBase {
 	 * Job 'j' arrives at a machine.
 	 */
 	public void enqueueOrProcess(Job j) {
+		if (!getSim().isLocal(this)) {
+			// called by another component of a parallel simulation
+			getSim().callAs(this, () -> enqueueOrProcess(j));
+			return;
+		}
+
 		assert this == j.getCurrentOperation().getMachine();
 		assert !j.isFuture();
 
@@ -287,7 +319,57 @@ public class WorkStation extends SimComponentBase {
 	public void futureArrival(final Job f, final double arrivesAt) {
 		// execute asynchronously a little later so exactly concurrent job
 		// selections don't see each others results
-		getSim().schedule(shop.simTime(), LOOKAHEAD_PRIO, () -> addToQueue(f, arrivesAt));
+		FutureArrivalEvent e = freeFutureArrivalEvents;
+		if (e != null) {
+			freeFutureArrivalEvents = e.nextFree;
+			e.nextFree = null;
+			e.setTime(shop.simTime());
+		} else {
+			e = new FutureArrivalEvent(this, shop.simTime());
+		}
+		e.future = f;
+		e.arrivesAt = arrivesAt;
+
+		getSim().schedule(e);
+	}
+
+	/**
+	 * Event to add a future job to the queue. Instances are reused after they
+	 * were handled.
+	 */
+	private static final class FutureArrivalEvent extends SimEvent {
+		WorkStation ws;
+		Job future;
+		double arrivesAt;
+		FutureArrivalEvent nextFree; // linked list of events to reuse
+
+		FutureArrivalEvent(WorkStation ws, double time) {
+			super(time, LOOKAHEAD_PRIO);
+			this.ws = ws;
+		}
+
+		@Override
+		public void handle() {
+			ws.addToQueue(future, arrivesAt);
+
+			future = null;
+			nextFree = ws.freeFutureArrivalEvents;
+			ws.freeFutureArrivalEvents = this;
+		}
+
+		@Override
+		public FutureArrivalEvent forkCopy(ForkContext ctx) {
+			FutureArrivalEvent c = (FutureArrivalEvent) super.forkCopy(ctx);
+			c.ws = ctx.copy(ws);
+			c.future = ctx.copy(future);
+			c.nextFree = null;
+			return c;
+		}
+
+		@Override
+		public String toString() {
+			return "futureArrival(" + ws + ", " + future + ")";
+		}
 	}
 
 	private void addToQueue(Job j, double arrivesAt) {
@@ -296,7 +378,7 @@ public class WorkStation extends SimComponentBase {
 		queue.add(j);
 		Operation o = j.getCurrentOperation();
 		if (!batchingUsed) {
-			batchingUsed = !BATCH_INCOMPATIBLE.equals(o.getBatchFamily());
+			batchingUsed = batchFamilyId(o) != BATCH_INCOMPATIBLE_ID;
 		}
 
 		if (!j.isFuture()) {
@@ -308,6 +390,8 @@ public class WorkStation extends SimComponentBase {
 
 		if (jobsPerBatchFamily != null)
 			addJobToBatchFamily(j);
+		if (batchForming != null)
+			batchForming.jobAdded(j, batchFamilyId(o));
 
 		if (isTraceEnabled() && !j.isFuture()) {
 			trace("arrives_at", j, this, numBusy() == 0 ? "IDLE" : "PROCESSING", numJobsWaiting() - 1);
@@ -337,7 +421,9 @@ public class WorkStation extends SimComponentBase {
 			assert workContentReal >= -1e-6 : "" + workContentReal;
 			assert removeRes;
 			if (jobsPerBatchFamily != null)
-				removeJobOfBatchFamily(j, o.getBatchFamily());
+				removeJobOfBatchFamily(j, o);
+			if (batchForming != null)
+				batchForming.jobRemoved(j, batchFamilyId(o));
 		} else {
 			if (removeRes) {
 				Operation o = j.getOps()[j.getTaskNumber() - 1];
@@ -345,7 +431,9 @@ public class WorkStation extends SimComponentBase {
 				assert workContentFuture >= -1e-6 : "" + workContentFuture;
 				numFutures--;
 				if (jobsPerBatchFamily != null)
-					removeJobOfBatchFamily(j, o.getBatchFamily());
+					removeJobOfBatchFamily(j, o);
+				if (batchForming != null)
+					batchForming.jobRemoved(j, batchFamilyId(o));
 			}
 		}
 	}
@@ -386,7 +474,6 @@ public class WorkStation extends SimComponentBase {
 
 		double tCompl = simTime + op.getProcTime() + setupTime;
 		currMachine.onDepart.setTime(tCompl);
-		currMachine.onDepart.setDescription(batch + "离开机床" + currMachine);
 		currMachine.procFinished = tCompl;
 		currMachine.procStarted = simTime;
 		currMachine.curJob = batch;
@@ -455,7 +542,52 @@ public class WorkStation extends SimComponentBase {
 	 */
 	public void selectAndStart() {
 		// execute asynchronously so all jobs arrived/departed before selection
-		getSim().schedule(this + "从队列中选择加工", shop.simTime(), SELECT_PRIO, this::selectAndStart0);
+		SelectEvent e = freeSelectEvents;
+		if (e != null) {
+			freeSelectEvents = e.nextFree;
+			e.nextFree = null;
+			e.setTime(shop.simTime());
+		} else {
+			e = new SelectEvent(this, shop.simTime());
+		}
+
+		getSim().schedule(e);
+	}
+
+	/**
+	 * Event to call {@link #selectAndStart0()}. Instances are reused after they
+	 * were handled.
+	 */
+	private static final class SelectEvent extends SimEvent {
+		WorkStation ws;
+		SelectEvent nextFree; // linked list of events to reuse
+
+		SelectEvent(WorkStation ws, double time) {
+			super(time, SELECT_PRIO);
+			setKind(SELECT_EVENT);
+			this.ws = ws;
+		}
+
+		@Override
+		public void handle() {
+			ws.selectAndStart0();
+
+			nextFree = ws.freeSelectEvents;
+			ws.freeSelectEvents = this;
+		}
+
+		@Override
+		public SelectEvent forkCopy(ForkContext ctx) {
+			SelectEvent c = (SelectEvent) super.forkCopy(ctx);
+			c.ws = ctx.copy(ws);
+			c.nextFree = null;
+			return c;
+		}
+
+		@Override
+		public String toString() {
+			return "select(" + ws + ")";
+		}
 	}
 
 	protected void selectAndStart0() {
@@ -497,6 +629,16 @@ public class WorkStation extends SimComponentBase {
 		}
 	}
 
+	private double[] copyMaxPrio(double[] prios) {
+		if (prios == null)
+			return null;
+
+		if (maxPrioBuf == null || maxPrioBuf.length != prios.length)
+			maxPrioBuf = new double[prios.length];
+		System.arraycopy(prios, 0, maxPrioBuf, 0, prios.length);
+		return maxPrioBuf;
+	}
+
 	protected PrioRuleTarget nextJobAndMachine() {
 		// just a check if freeMachines contains the right data
 		for (IndividualMachine md : machDat) {
@@ -516,9 +658,7 @@ public class WorkStation extends SimComponentBase {
 				// more than a single machine are free, we have to check them
 				// all
 				IndividualMachine maxMachine = currMachine;
-				double[] maxPrio = queue.getBestPrios();
-				if (maxPrio != null)
-					maxPrio = maxPrio.clone();
+				double[] maxPrio = copyMaxPrio(queue.getBestPrios());
 
 				Iterator<IndividualMachine> it = freeMachines.descendingIterator();
 				// skip first entry, which was already considered
@@ -531,9 +671,7 @@ public class WorkStation extends SimComponentBase {
 
 					if (maxPrio == null || PriorityQueue.comparePrioArrays(maxPrio, prios) >= 0) {
 						// copy priorities
-						maxPrio = prios;
-						if (maxPrio != null)
-							maxPrio = maxPrio.clone();
+						maxPrio = copyMaxPrio(prios);
 						// remember job and machine
 						maxJob = job;
 						maxMachine = currMachine;
@@ -707,9 +845,63 @@ public class WorkStation extends SimComponentBase {
 		return index;
 	}
 
+	/**
+	 * Returns the jobs in the queue (including future jobs) grouped by their batch
+	 * family. This method is meant for diagnostics and tests only, it isn't used
+	 * during a simulation run: a new map is created by each call, use
+	 * {@link #jobsOfBatchFamily(int)} instead.
+	 * 
+	 * @return A map from batch family name to the family's jobs. The lists
+	 *         must not be modified.
+	 */
 	public Map<String, List<Job>> getJobsByFamily() {
+		ArrayList<ArrayList<Job>> perFamily = jobsPerBatchFamily();
+		Map<String, List<Job>> res = new HashMap<String, List<Job>>();
+		for (int id = 0, n = perFamily.size(); id < n; id++) {
+			if (perFamily.get(id) != null)
+				res.put(batchFamilyToString(id), perFamily.get(id));
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the jobs in the queue (including future jobs) of the batch family
+	 * with the given id.
+	 * 
+	 * @param familyId The batch family id, see
+	 *                 {@link #translateBatchFamily(String)}.
+	 * @return The jobs of the family in the order they arrived. This list must
+	 *         not be modified.
+	 */
+	public List<Job> jobsOfBatchFamily(int familyId) {
+		ArrayList<ArrayList<Job>> perFamily = jobsPerBatchFamily();
+		List<Job> res = familyId < perFamily.size() ? perFamily.get(familyId) : null;
+		return res != null ? res : Collections.<Job>emptyList();
+	}
+
+	/**
+	 * Returns the number of jobs in the queue (including future jobs) of the
+	 * batch family with the given id.
+	 * 
+	 * @param familyId The batch family id, see
+	 *                 {@link #translateBatchFamily(String)}.
+	 * @return The number of jobs.
+	 */
+	public int numJobsOfBatchFamily(int familyId) {
+		return jobsOfBatchFamily(familyId).size();
+	}
+
+	/**
+	 * Returns the number of batch families known to this workstation, i.e., all
+	 * batch family ids are smaller than this value.
+	 */
+	public int numBatchFamilies() {
+		return batchFamilyNames == null ? 1 : batchFamilyNames.size();
+	}
+
+	private ArrayList<ArrayList<Job>> jobsPerBatchFamily() {
 		if (jobsPerBatchFamily == null) {
-			jobsPerBatchFamily = new HashMap<String, List<Job>>();
+			jobsPerBatchFamily = new ArrayList<ArrayList<Job>>();
 			for (int i = 0, n = queue.size(); i < n; i++) {
 				Job j = queue.get(i);
 				addJobToBatchFamily(j);
@@ -719,23 +911,74 @@ public class WorkStation extends SimComponentBase {
 	}
 
 	private void addJobToBatchFamily(Job j) {
-		String bf = j.getCurrentOperation().getBatchFamily();
+		int bf = batchFamilyId(j.getCurrentOperation());
 
-		List<Job> jobsInFamily = jobsPerBatchFamily.get(bf);
+		while (jobsPerBatchFamily.size() <= bf) {
+			jobsPerBatchFamily.add(null);
+		}
+		ArrayList<Job> jobsInFamily = jobsPerBatchFamily.get(bf);
 		if (jobsInFamily == null) {
 			jobsInFamily = new ArrayList<Job>();
-			jobsPerBatchFamily.put(bf, jobsInFamily);
+			jobsPerBatchFamily.set(bf, jobsInFamily);
 		}
 
 		jobsInFamily.add(j);
 	}
 
-	private void removeJobOfBatchFamily(Job j, String bf) {
-		List<Job> jobsInFamily = jobsPerBatchFamily.get(bf);
+	private void removeJobOfBatchFamily(Job j, Operation o) {
+		List<Job> jobsInFamily = jobsPerBatchFamily.get(batchFamilyId(o));
 		boolean removeRes = jobsInFamily.remove(j);
 		assert removeRes;
 	}
 
+	/** Uses the id cached by {@code o}, if it belongs to this workstation. */
+	private int batchFamilyId(Operation o) {
+		return o.getMachine() == this ? o.getBatchFamilyId() : translateBatchFamily(o.getBatchFamily());
+	}
+
+	/**
+	 * Translates a batch family name {@code bf} into a numeric id. Ids are
+	 * assigned densely in the order families are first seen, with
+	 * {@link #BATCH_INCOMPATIBLE} always having the id
+	 * {@link #BATCH_INCOMPATIBLE_ID}. Usually this is not called directly, but
+	 * via {@link Operation#getBatchFamilyId()}.
+	 * 
+	 * @see #batchFamilyToString(int)
+	 * @param bf A batch family name.
+	 * @return Numeric id for {@code bf}.
+	 */
+	public int translateBatchFamily(String bf) {
+		if (BATCH_INCOMPATIBLE.equals(bf)) {
+			return BATCH_INCOMPATIBLE_ID;
+		} else {
+			if (batchFamilyIds == null) {
+				batchFamilyIds = new HashMap<String, Integer>();
+				batchFamilyNames = new ArrayList<String>();
+				batchFamilyNames.add(BATCH_INCOMPATIBLE); // ensure an index of 0
+			}
+			Integer id = batchFamilyIds.get(bf);
+			if (id == null) {
+				id = batchFamilyNames.size();
+				batchFamilyIds.put(bf, id);
+				batchFamilyNames.add(bf);
+			}
+			return id.intValue();
+		}
+	}
+
+	/**
+	 * Returns the name of the batch family with id {@code id}.
+	 * 
+	 * @see #translateBatchFamily(String)
+	 * @param id The numeric batch family id.
+	 */
+	public String batchFamilyToString(int id) {
+		if (id == BATCH_INCOMPATIBLE_ID)
+			return BATCH_INCOMPATIBLE;
+		else
+			return batchFamilyNames.get(id);
+	}
+
 	@Override
 	public String toString() {
 		return getName();
@@ -774,4 +1017,31 @@ public class WorkStation extends SimComponentBase {
 		throw new UnsupportedOperationException("clone()");
 	}
 
+	@Override
+	public WorkStation forkCopy(ForkContext ctx) {
+		WorkStation c = (WorkStation) super.forkCopy(ctx);
+
+		c.machDat = ctx.copy(machDat);
+		c.batchForming = ctx.copy(batchForming);
+		c.batchSequencingRule = ctx.copy(batchSequencingRule);
+		c.queue = ctx.copy(queue);
+		c.shop = ctx.copy(shop);
+		c.currMachine = ctx.copy(currMachine);
+		c.maxPrioBuf = ctx.copy(maxPrioBuf);
+		c.freeMachines = ctx.copy(freeMachines);
+		c.setupStateTranslate = ctx.copy(setupStateTranslate);
+		c.batchFamilyNames = ctx.copy(batchFamilyNames);
+		c.batchFamilyIds = ctx.copy(batchFamilyIds);
+		c.jobsPerBatchFamily = ctx.copy(jobsPerBatchFamily);
+		c.freeSelectEvents = null;
+		c.freeFutureArrivalEvents = null;
+		c.justArrived = ctx.copy(justArrived);
+		c.justStarted = ctx.copy(justStarted);
+		c.justCompleted = ctx.copy(justCompleted);
+
+		// setupMatrix is a parameter and shared
+
+		return c;
+	}
+
 }
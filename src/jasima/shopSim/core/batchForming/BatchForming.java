@@ -26,12 +26,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.shopSim.core.Batch;
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.Operation;
 import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.core.Shop;
 import jasima.shopSim.core.WorkStation;
 
 /**
@@ -40,12 +43,20 @@ import jasima.shopSim.core.WorkStation;
  * When implementing formBatches() make sure not to remove any jobs from a
  * machine's queue as this is later done in the Machine class after the best
  * batch was selected and it is clear this batch can be started immediately.
+ * <p>
+ * In incremental mode (see {@link #setIncremental(boolean)}) jobs of each
+ * batch family are additionally kept in a separate {@link PriorityQueue},
+ * updated whenever a job is added to or removed from the owner's queue. If the
+ * owner's sequencing rules are time-invariant (see {@link PR#isTimeInvariant()}
+ * ), implementations can use {@link #familyQueue(int)} to get the jobs of a
+ * family in order without sorting the whole queue, and keep candidate batches
+ * of families that didn't change since the last call of {@link #nextBatch()}.
  * 
  * @author Christoph Pickardt, 2010-05-27
  * @author Torsten Hildebrandt, 2010-03-18
  * @version "$Id$"
  */
-public abstract class BatchForming implements Cloneable, Serializable {
+public abstract class BatchForming implements Cloneable, Serializable, Forkable {
 
 	private static final long serialVersionUID = 6670837045346111285L;
 
@@ -84,16 +95,275 @@ public abstract class BatchForming implements Cloneable, Serializable {
 			return jobs;
 	}
 
+	/**
+	 * Jobs of a single batch family in incremental mode.
+	 * 
+	 * @see BatchForming#familyQueue(int)
+	 */
+	protected static final class FamilyQueue implements Forkable {
+		private PriorityQueue<Job> jobs;
+		private Job[] ordered = new Job[] {};
+		private boolean orderValid = false;
+		private int numFutures = 0;
+
+		/**
+		 * Candidate batches of this family, can be used by implementations to
+		 * store batches formed for this family (usually instances of
+		 * {@link CandidateBatch}). This is reset to {@code null} whenever a job is
+		 * added or removed.
+		 */
+		public List<Batch> candidates = null;
+
+		FamilyQueue(WorkStation owner) {
+			super();
+			jobs = new PriorityQueue<Job>(owner);
+		}
+
+		private FamilyQueue(FamilyQueue q) {
+			super();
+			jobs = q.jobs;
+			numFutures = q.numFutures;
+			// 'ordered' and 'candidates' are caches, they are re-computed on
+			// demand
+		}
+
+		private void add(Job j) {
+			jobs.add(j);
+			if (j.isFuture())
+				numFutures++;
+			orderValid = false;
+			candidates = null;
+		}
+
+		private void remove(Job j) {
+			boolean removeRes = jobs.remove(j);
+			assert removeRes;
+			if (j.isFuture())
+				numFutures--;
+			orderValid = false;
+			candidates = null;
+		}
+
+		private void setSequencingRule(PR sr) {
+			jobs.setSequencingRule(sr);
+			orderValid = false;
+			candidates = null;
+		}
+
+		public int size() {
+			return jobs.size();
+		}
+
+		/**
+		 * Returns whether the family currently contains future jobs. Their
+		 * priorities can change over time, so candidate batches of such a family
+		 * must not be reused.
+		 */
+		public boolean hasFutures() {
+			return numFutures > 0;
+		}
+
+		/**
+		 * Returns the jobs of this family ordered by their priority. Only the
+		 * first {@link #size()} entries of the returned array are valid, it must
+		 * not be modified.
+		 */
+		public Job[] jobsInOrder() {
+			if (!orderValid || hasFutures()) {
+				ordered = ensureCapacity(ordered, jobs.size());
+				jobs.getAllElementsInOrder(ordered);
+				orderValid = true;
+			}
+			return ordered;
+		}
+
+		@Override
+		public FamilyQueue forkCopy(ForkContext ctx) {
+			FamilyQueue c = ctx.register(this, new FamilyQueue(this));
+			c.jobs = ctx.copy(jobs);
+			return c;
+		}
+	}
+
+	/**
+	 * A batch that is kept by an implementation to be added to
+	 * {@link #possibleBatches} again in later calls of {@link #formBatches()},
+	 * e.g., as one of the {@link FamilyQueue#candidates}. Its batch data is only
+	 * initialized the first time it is used.
+	 */
+	protected static class CandidateBatch extends Batch {
+		private boolean initialized = false;
+
+		public CandidateBatch(Shop shop) {
+			super(shop);
+		}
+	}
+
 	private WorkStation owner;
 	protected PriorityQueue<Batch> possibleBatches;
 	protected Job[] orderedJobs = new Job[] {};
 
+	private boolean incremental = false;
+	// jobs per batch family id, only maintained in incremental mode
+	private ArrayList<FamilyQueue> familyQueues = null;
+	private PR familyRule;
+	// first jobs of batches, used by selectFirstInQueueOrder()
+	private PriorityQueue<Job> firstJobs = null;
+
 	public BatchForming() {
 		super();
 	}
 
+	/**
+	 * This method is called by the owning {@link WorkStation} upon start of a
+	 * simulation.
+	 */
+	public void init() {
+		familyQueues = null;
+		familyRule = null;
+		firstJobs = null;
+	}
+
 	public abstract void formBatches();
 
+	/**
+	 * This method is called by the owning {@link WorkStation} whenever a job
+	 * (or future job) was added to its queue.
+	 * 
+	 * @param j           The job.
+	 * @param batchFamily Id of the job's batch family, see
+	 *                    {@link WorkStation#translateBatchFamily(String)}.
+	 */
+	public void jobAdded(Job j, int batchFamily) {
+		if (familyQueues != null)
+			familyQueue0(batchFamily).add(j);
+	}
+
+	/**
+	 * This method is called by the owning {@link WorkStation} whenever a job
+	 * (or future job) was removed from its queue.
+	 * 
+	 * @param j           The job.
+	 * @param batchFamily Id of the job's batch family, see
+	 *                    {@link WorkStation#translateBatchFamily(String)}.
+	 */
+	public void jobRemoved(Job j, int batchFamily) {
+		if (familyQueues != null)
+			familyQueues.get(batchFamily).remove(j);
+	}
+
+	/**
+	 * Returns whether {@link #familyQueue(int)} can be used in the current
+	 * call of {@link #formBatches()}, i.e., incremental mode is enabled and all
+	 * rules of the owner's queue are time-invariant. Family queues are created
+	 * on first use.
+	 */
+	protected boolean familyQueuesUsable() {
+		if (!isIncremental())
+			return false;
+
+		PR sr = getOwner().queue.getSequencingRule();
+		for (PR pr = sr; pr != null; pr = pr.getTieBreaker()) {
+			if (!pr.isTimeInvariant())
+				return false;
+		}
+
+		if (familyQueues == null) {
+			familyQueues = new ArrayList<FamilyQueue>();
+			familyRule = null;
+
+			PriorityQueue<Job> q = getOwner().queue;
+			for (int i = 0, n = q.size(); i < n; i++) {
+				Job j = q.get(i);
+				int bf = getOwner().translateBatchFamily(j.getCurrentOperation().getBatchFamily());
+				familyQueue0(bf).add(j);
+			}
+		}
+
+		if (familyRule != sr) {
+			familyRule = sr;
+			for (int i = 0, n = familyQueues.size(); i < n; i++) {
+				FamilyQueue fq = familyQueues.get(i);
+				if (fq != null)
+					fq.setSequencingRule(sr);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of family queues, i.e., all batch family ids are
+	 * smaller than this value. Only valid if {@link #familyQueuesUsable()}
+	 * returned true.
+	 */
+	protected int numFamilyQueues() {
+		return familyQueues.size();
+	}
+
+	/**
+	 * Returns the jobs of the batch family with the given id, or {@code null}
+	 * if no job of this family was seen yet. Only valid if
+	 * {@link #familyQueuesUsable()} returned true.
+	 * <p>
+	 * Jobs of a family are ordered by the same rules as the owner's queue, so
+	 * the result is the same as selecting the family's jobs from
+	 * {@link PriorityQueue#getAllElementsInOrder(PrioRuleTarget[])}. Only jobs
+	 * with exactly the same priorities (i.e., if the rules have no final tie
+	 * breaker like {@code TieBreakerFASFS}) might be ordered differently.
+	 */
+	protected FamilyQueue familyQueue(int batchFamily) {
+		return batchFamily < familyQueues.size() ? familyQueues.get(batchFamily) : null;
+	}
+
+	/**
+	 * Reduces {@link #possibleBatches} to the batch with the first job coming
+	 * first in {@link PriorityQueue#getAllElementsInOrder(PrioRuleTarget[])}
+	 * of the owner's queue. Only valid if {@link #familyQueuesUsable()}
+	 * returned true, so priorities can be computed without sorting the whole
+	 * queue.
+	 */
+	protected void selectFirstInQueueOrder() {
+		if (possibleBatches.size() <= 1)
+			return;
+
+		if (firstJobs == null)
+			firstJobs = new PriorityQueue<Job>(getOwner());
+		firstJobs.setSequencingRule(familyRule);
+		for (int i = 0, n = possibleBatches.size(); i < n; i++) {
+			firstJobs.add(possibleBatches.get(i).job(0));
+		}
+		Job first = firstJobs.peekLargest();
+		firstJobs.clear();
+
+		Batch best = null;
+		for (int i = 0, n = possibleBatches.size(); i < n; i++) {
+			Batch b = possibleBatches.get(i);
+			if (b.job(0) == first) {
+				best = b;
+				break;
+			}
+		}
+		assert best != null;
+
+		possibleBatches.clear();
+		possibleBatches.add(best);
+	}
+
+	private FamilyQueue familyQueue0(int batchFamily) {
+		while (familyQueues.size() <= batchFamily) {
+			familyQueues.add(null);
+		}
+		FamilyQueue fq = familyQueues.get(batchFamily);
+		if (fq == null) {
+			fq = new FamilyQueue(getOwner());
+			if (familyRule != null)
+				fq.setSequencingRule(familyRule);
+			familyQueues.set(batchFamily, fq);
+		}
+		return fq;
+	}
+
 	public PrioRuleTarget nextBatch() {
 		if (possibleBatches == null)
 			possibleBatches = new PriorityQueue<Batch>(getOwner());
@@ -126,6 +396,12 @@ public abstract class BatchForming implements Cloneable, Serializable {
 
 	private void initBatchData(Batch b) {
 		assert checkBatchData(b);
+		if (b instanceof CandidateBatch) {
+			CandidateBatch c = (CandidateBatch) b;
+			if (c.initialized)
+				return; // batch reused in incremental mode
+			c.initialized = true;
+		}
 
 		Job job = b.job(0);
 		Operation opJ = job.getCurrentOperation();
@@ -156,6 +432,31 @@ public abstract class BatchForming implements Cloneable, Serializable {
 		return getClass().getSimpleName();
 	}
 
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Sets whether batches should be formed incrementally. In this mode jobs
+	 * are additionally kept per batch family, so batches only have to be formed
+	 * again for families that changed. This is only used if the queue's
+	 * sequencing rules are time-invariant, otherwise all batches are formed
+	 * again on each call of {@link #nextBatch()}.
+	 * <p>
+	 * Candidate batches of different families are considered in the order of
+	 * their batch family ids, so if the rule selecting a batch produces equal
+	 * priorities for batches of different families, results might differ from
+	 * the non-incremental mode. Defaults to {@code false}.
+	 * 
+	 * @param incremental Whether or not to use incremental batch forming.
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+		familyQueues = null;
+		familyRule = null;
+		firstJobs = null;
+	}
+
 	@Override
 	public String toString() {
 		return getName();
@@ -167,6 +468,25 @@ public abstract class BatchForming implements Cloneable, Serializable {
 			BatchForming bf = (BatchForming) super.clone();
 			bf.possibleBatches = null;
 			bf.orderedJobs = new Job[] {};
+			bf.familyQueues = null;
+			bf.familyRule = null;
+			bf.firstJobs = null;
+			return bf;
+		} catch (CloneNotSupportedException cantHappen) {
+			throw new AssertionError(cantHappen);
+		}
+	}
+
+	@Override
+	public BatchForming forkCopy(ForkContext ctx) {
+		try {
+			BatchForming bf = ctx.register(this, (BatchForming) super.clone());
+			bf.owner = ctx.copy(owner);
+			bf.possibleBatches = ctx.copy(possibleBatches);
+			bf.orderedJobs = ctx.copy(orderedJobs);
+			bf.familyQueues = ctx.copy(familyQueues);
+			bf.familyRule = ctx.copy(familyRule);
+			bf.firstJobs = null; // only used temporarily
 			return bf;
 		} catch (CloneNotSupportedException cantHappen) {
 			throw new AssertionError(cantHappen);
@@ -179,6 +499,9 @@ public abstract class BatchForming implements Cloneable, Serializable {
 
 	public void setOwner(WorkStation o) {
 		owner = o;
+		familyQueues = null;
+		familyRule = null;
+		firstJobs = null;
 	}
 
 }
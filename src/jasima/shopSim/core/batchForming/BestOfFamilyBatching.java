@@ -20,6 +20,8 @@
  *******************************************************************************/
 package jasima.shopSim.core.batchForming;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +41,10 @@ import jasima.shopSim.core.WorkStation;
  * If there are more than maxBatchSize jobs for a family, jobs are sequenced
  * using the sequencingRule first and the best maxBatchSize jobs of the family
  * are used to form the batch.
+ * <p>
+ * In incremental mode (see {@link #setIncremental(boolean)}) batches of a
+ * family are only formed again if jobs of this family were added or removed
+ * since the last call, or if the family contains future jobs.
  * 
  * @author Torsten Hildebrandt, 2010-10-25
  * @version "$Id$"
@@ -49,6 +55,11 @@ public class BestOfFamilyBatching extends BatchForming {
 
 	@Override
 	public void formBatches() {
+		if (familyQueuesUsable()) {
+			formBatchesIncrementally();
+			return;
+		}
+
 		final PriorityQueue<Job> q = getOwner().queue;
 
 		orderedJobs = ensureCapacity(orderedJobs, q.size());
@@ -60,11 +71,36 @@ public class BestOfFamilyBatching extends BatchForming {
 
 		// form two batches per family, one without future jobs
 		for (List<Job> famJobs : jobsByFamily.values()) {
-			formFamilyBatches(famJobs);
+			formFamilyBatches(famJobs, null);
+		}
+	}
+
+	private void formBatchesIncrementally() {
+		for (int bf = 0, n = numFamilyQueues(); bf < n; bf++) {
+			FamilyQueue fq = familyQueue(bf);
+			if (fq == null || fq.size() == 0)
+				continue;
+
+			List<Batch> batches = fq.candidates;
+			if (batches == null || fq.hasFutures()) {
+				List<Job> famJobs = Arrays.asList(fq.jobsInOrder()).subList(0, fq.size());
+				batches = new ArrayList<Batch>(2);
+				formFamilyBatches(famJobs, batches);
+				fq.candidates = batches;
+			} else {
+				for (int i = 0, m = batches.size(); i < m; i++) {
+					possibleBatches.add(batches.get(i));
+				}
+			}
 		}
 	}
 
-	private void formFamilyBatches(List<Job> famJobs) {
+	/**
+	 * Adds the batches of a family to {@link #possibleBatches}. If
+	 * {@code candidates} is not null, {@link CandidateBatch}es are created and
+	 * also added to this list.
+	 */
+	private void formFamilyBatches(List<Job> famJobs, List<Batch> candidates) {
 		assert famJobs.size() > 0;
 
 		Job j = famJobs.get(0);
@@ -72,8 +108,8 @@ public class BestOfFamilyBatching extends BatchForming {
 		assert WorkStation.BATCH_INCOMPATIBLE.equals(o.getBatchFamily()) ? o.getMaxBatchSize() == 1 : true;
 
 		// make batches as full as possible
-		Batch b = new Batch(getOwner().shop());
-		Batch b2 = new Batch(getOwner().shop());
+		Batch b = newBatch(candidates != null);
+		Batch b2 = newBatch(candidates != null);
 		for (int i = 0, n = famJobs.size(); i < n; i++) {
 			Job job = famJobs.get(i);
 			if (b.numJobsInBatch() < o.getMaxBatchSize())
@@ -83,9 +119,19 @@ public class BestOfFamilyBatching extends BatchForming {
 			if (b2.numJobsInBatch() == o.getMaxBatchSize())
 				break;
 		}
-		possibleBatches.add(b);
+		addBatch(b, candidates);
 		if (b.isFuture() && b2.numJobsInBatch() > 0)
-			possibleBatches.add(b2);
+			addBatch(b2, candidates);
+	}
+
+	private Batch newBatch(boolean candidate) {
+		return candidate ? new CandidateBatch(getOwner().shop()) : new Batch(getOwner().shop());
+	}
+
+	private void addBatch(Batch b, List<Batch> candidates) {
+		possibleBatches.add(b);
+		if (candidates != null)
+			candidates.add(b);
 	}
 
 	@Override
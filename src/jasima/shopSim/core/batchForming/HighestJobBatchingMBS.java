@@ -32,6 +32,9 @@ import jasima.shopSim.core.WorkStation;
  * This class creates a single batch for the family with the highest priority
  * job, where jobs for the batch are selected according to the used sequencing
  * rule.
+ * <p>
+ * In incremental mode (see {@link #setIncremental(boolean)}) the batch of each
+ * family is formed from its family queue instead of sorting the whole queue.
  * 
  * @author Christoph Pickardt, 2011-01-14
  * @version "$Id$"
@@ -71,17 +74,16 @@ public class HighestJobBatchingMBS extends BatchForming {
 
 		Job largest = q.peekLargest();
 		Operation o = largest.getCurrentOperation();
-		String bf = o.getBatchFamily();
+		int bf = o.getBatchFamilyId();
 
 		Batch b = new Batch(largest.getShop());
 
-		if (WorkStation.BATCH_INCOMPATIBLE.equals(o.getBatchFamily()) || o.getMaxBatchSize() == 1
-				|| largest.isFuture()) {
+		if (bf == WorkStation.BATCH_INCOMPATIBLE_ID || o.getMaxBatchSize() == 1 || largest.isFuture()) {
 			b.addToBatch(largest);
 			return b;
 		}
 
-		List<Job> js = getOwner().getJobsByFamily().get(bf);
+		List<Job> js = getOwner().jobsOfBatchFamily(bf);
 
 		int minSize = (int) Math.ceil(getMbsRel() * o.getMaxBatchSize());
 
@@ -100,6 +102,11 @@ public class HighestJobBatchingMBS extends BatchForming {
 	}
 
 	private void defaultBatchForming() {
+		if (familyQueuesUsable()) {
+			defaultBatchFormingIncrementally();
+			return;
+		}
+
 		final PriorityQueue<Job> q = getOwner().queue;
 
 		orderedJobs = ensureCapacity(orderedJobs, q.size());
@@ -113,18 +120,18 @@ public class HighestJobBatchingMBS extends BatchForming {
 			orderedJobs[i] = null;
 
 			Operation o = j.getCurrentOperation();
-			String bf = o.getBatchFamily();
+			int bf = o.getBatchFamilyId();
 
-			if (WorkStation.BATCH_INCOMPATIBLE.equals(o.getBatchFamily()) || o.getMaxBatchSize() == 1 || j.isFuture()) {
+			if (bf == WorkStation.BATCH_INCOMPATIBLE_ID || o.getMaxBatchSize() == 1 || j.isFuture()) {
 				Batch batch = new Batch(j.getShop());
 				batch.addToBatch(j);
 				possibleBatches.add(batch);
 				return;
 			}
 
-			List<Job> js = getOwner().getJobsByFamily().get(bf);
+			int numInFamily = getOwner().numJobsOfBatchFamily(bf);
 			int minSize = (int) Math.ceil(getMbsRel() * o.getMaxBatchSize());
-			if (js.size() < minSize)
+			if (numInFamily < minSize)
 				continue;
 
 			// fill batch with compatible jobs that already have arrived
@@ -137,7 +144,7 @@ public class HighestJobBatchingMBS extends BatchForming {
 					continue;
 
 				Operation o2 = j2.getCurrentOperation();
-				if (!bf.equals(o2.getBatchFamily()))
+				if (bf != o2.getBatchFamilyId())
 					continue;
 
 				assert o2.getMaxBatchSize() == o.getMaxBatchSize();
@@ -161,6 +168,65 @@ public class HighestJobBatchingMBS extends BatchForming {
 		// no batch large enough to start, just return
 	}
 
+	private void defaultBatchFormingIncrementally() {
+		// find the batch each family would produce, then use the one with the
+		// job coming first in the owner's queue
+		for (int bf = 0, n = numFamilyQueues(); bf < n; bf++) {
+			FamilyQueue fq = familyQueue(bf);
+			if (fq == null || fq.size() == 0)
+				continue;
+
+			Batch batch = familyBatch(bf, fq.jobsInOrder(), fq.size());
+			if (batch != null)
+				possibleBatches.add(batch);
+		}
+
+		selectFirstInQueueOrder();
+	}
+
+	/**
+	 * Returns the batch {@link #defaultBatchForming()} would form for a family
+	 * when reaching its jobs, or null if there is none.
+	 */
+	private Batch familyBatch(int bf, Job[] js, int numJobs) {
+		int i = 0;
+		while (i < numJobs) {
+			Job j = js[i];
+			Operation o = j.getCurrentOperation();
+
+			if (bf == WorkStation.BATCH_INCOMPATIBLE_ID || o.getMaxBatchSize() == 1 || j.isFuture()) {
+				Batch batch = new Batch(j.getShop());
+				batch.addToBatch(j);
+				return batch;
+			}
+
+			int minSize = (int) Math.ceil(getMbsRel() * o.getMaxBatchSize());
+			if (numJobs < minSize) {
+				i++;
+				continue;
+			}
+
+			// fill batch with compatible jobs that already have arrived
+			Batch batch = new Batch(j.getShop());
+
+			batch.addToBatch(j);
+			i++;
+			while (i < numJobs) {
+				Job j2 = js[i++];
+				if (!j2.isFuture())
+					batch.addToBatch(j2);
+
+				if (batch.numJobsInBatch() == o.getMaxBatchSize())
+					break;
+			}
+
+			if ((((double) batch.numJobsInBatch()) / o.getMaxBatchSize()) >= getMbsRel())
+				return batch;
+		}
+
+		return null;
+	}
+
 	@Override
 	public String getName() {
 		return "MBS(" + getMbsRel() + ")";
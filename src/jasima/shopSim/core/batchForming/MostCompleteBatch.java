@@ -20,6 +20,7 @@
  *******************************************************************************/
 package jasima.shopSim.core.batchForming;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +35,9 @@ import jasima.shopSim.core.WorkStation;
  * This class implements the rule that the batch that uses most of the available
  * capacity is selected. Ties are broken with the underlying sequencing rule
  * that selects the family with the highest priority job.
+ * <p>
+ * In incremental mode (see {@link #setIncremental(boolean)}) the jobs of each
+ * family are taken from their family queue instead of sorting the whole queue.
  * 
  * @author Christoph Pickardt, 2010-09-07
  * @author Torsten Hildebrandt, 2010-09-29
@@ -96,13 +100,16 @@ public class MostCompleteBatch extends BatchForming {
 		boolean tie = false;
 		boolean hasIncompatible = false;
 
-		// try efficient way first if situation is clear
-		for (List<Job> js : getOwner().getJobsByFamily().values()) {
+		// try efficient way first if situation is clear (the result doesn't depend
+		// on the order families are considered in)
+		WorkStation owner = getOwner();
+		for (int bf = 0, numFamilies = owner.numBatchFamilies(); bf < numFamilies; bf++) {
+			List<Job> js = owner.jobsOfBatchFamily(bf);
 			if (js.size() == 0)
 				continue;
 
 			Operation o = js.get(0).getCurrentOperation();
-			if (WorkStation.BATCH_INCOMPATIBLE.equals(o.getBatchFamily())) {
+			if (bf == WorkStation.BATCH_INCOMPATIBLE_ID) {
 				hasIncompatible = true;
 				continue;
 			}
@@ -148,6 +155,11 @@ public class MostCompleteBatch extends BatchForming {
 	}
 
 	private void defaultBatching() {
+		if (familyQueuesUsable()) {
+			defaultBatchingIncrementally();
+			return;
+		}
+
 		final PriorityQueue<Job> q = getOwner().queue;
 		// detailed approach below
 		orderedJobs = ensureCapacity(orderedJobs, q.size());
@@ -169,43 +181,70 @@ public class MostCompleteBatch extends BatchForming {
 			handleTiesByBasePrio(numJobs);
 	}
 
+	private void defaultBatchingIncrementally() {
+		// form batches as large as possible
+		double maxRBS = 0.0d;
+		for (int bf = 0, n = numFamilyQueues(); bf < n; bf++) {
+			FamilyQueue fq = familyQueue(bf);
+			if (fq == null || fq.size() == 0)
+				continue;
+
+			List<Job> famJobs = Arrays.asList(fq.jobsInOrder()).subList(0, fq.size());
+			maxRBS = formFamilyBatches(famJobs, maxRBS);
+		}
+
+		// tie breaker
+		selectFirstInQueueOrder();
+	}
+
 	private void formBatches(Map<String, List<Job>> jobsByFamily) {
 		double maxRBS = 0.0d;
 
 		for (List<Job> famJobs : jobsByFamily.values()) {
-			Operation o = famJobs.get(0).getCurrentOperation();
-
-			if (famJobs.size() < maxRBS * o.getMaxBatchSize())
-				continue;
+			maxRBS = formFamilyBatches(famJobs, maxRBS);
+		}
+	}
 
-			if (WorkStation.BATCH_INCOMPATIBLE.equals(o.getBatchFamily())) {
-				for (Job j : famJobs) {
-					if (j.getArriveTime() - j.getShop().simTime() <= maxWait) {
-						Batch b = new Batch(getOwner().shop());
-						b.addToBatch(j);
-						possibleBatches.add(b);
-					}
-				}
-				maxRBS = 1.0;
-			} else {
-				Batch b = new Batch(getOwner().shop());
-				// make batch as full as possible
-				int i = 0;
-				while (i < famJobs.size() && b.numJobsInBatch() < o.getMaxBatchSize()) {
-					if (famJobs.get(i).getArriveTime() - famJobs.get(i).getShop().simTime() <= maxWait)
-						b.addToBatch(famJobs.get(i));
-					i++;
+	/**
+	 * Adds the batches of a family to possibleBatches if they are at least as
+	 * full as the best ones found so far ({@code maxRBS}), returns the new
+	 * maximum.
+	 */
+	private double formFamilyBatches(List<Job> famJobs, double maxRBS) {
+		Operation o = famJobs.get(0).getCurrentOperation();
+
+		if (famJobs.size() < maxRBS * o.getMaxBatchSize())
+			return maxRBS;
+
+		if (WorkStation.BATCH_INCOMPATIBLE.equals(o.getBatchFamily())) {
+			for (Job j : famJobs) {
+				if (j.getArriveTime() - j.getShop().simTime() <= maxWait) {
+					Batch b = new Batch(getOwner().shop());
+					b.addToBatch(j);
+					possibleBatches.add(b);
 				}
+			}
+			maxRBS = 1.0;
+		} else {
+			Batch b = new Batch(getOwner().shop());
+			// make batch as full as possible
+			int i = 0;
+			while (i < famJobs.size() && b.numJobsInBatch() < o.getMaxBatchSize()) {
+				if (famJobs.get(i).getArriveTime() - famJobs.get(i).getShop().simTime() <= maxWait)
+					b.addToBatch(famJobs.get(i));
+				i++;
+			}
 
-				if ((maxRBS * o.getMaxBatchSize()) <= b.numJobsInBatch() && 0 < b.numJobsInBatch()) {
-					if (maxRBS * o.getMaxBatchSize() < b.numJobsInBatch()) {
-						possibleBatches.clear();
-						maxRBS = ((double) b.numJobsInBatch() / o.getMaxBatchSize());
-					}
-					possibleBatches.add(b);
+			if ((maxRBS * o.getMaxBatchSize()) <= b.numJobsInBatch() && 0 < b.numJobsInBatch()) {
+				if (maxRBS * o.getMaxBatchSize() < b.numJobsInBatch()) {
+					possibleBatches.clear();
+					maxRBS = ((double) b.numJobsInBatch() / o.getMaxBatchSize());
 				}
+				possibleBatches.add(b);
 			}
 		}
+
+		return maxRBS;
 	}
 
 	// private void handleTiesByFamilySize(Map<String, List<Job>> map) {
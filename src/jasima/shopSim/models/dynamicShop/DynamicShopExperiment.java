@@ -30,6 +30,7 @@ import jasima.core.random.continuous.DblDistribution;
 import jasima.core.random.continuous.DblStream;
 import jasima.core.random.discrete.IntUniformRange;
 import jasima.core.simulation.arrivalprocess.ArrivalsStationary;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Pair;
 import jasima.core.util.TypeUtil;
 import jasima.core.util.Util;
@@ -77,6 +78,98 @@ public class DynamicShopExperiment extends ShopExperiment {
 
 	protected JobSource src;
 
+	/**
+	 * Creates jobs with a random route, visiting each machine at most once.
+	 */
+	static class RandomRouteSource extends DynamicJobSource {
+
+		private final int numMachines;
+		private final Scenario scenario;
+
+		RandomRouteSource(int numMachines, Scenario scenario) {
+			super();
+			this.numMachines = numMachines;
+			this.scenario = scenario;
+		}
+
+		@Override
+		protected Operation[] createRoute() {
+			final int n = getNumOps().nextInt();
+			assert n > 0;
+
+			Operation[] ops = Util.initializedArray(n, Operation.class);
+			Shop shop = getShop();
+
+			// initially all false
+			boolean[] machineChosen = new boolean[numMachines];
+
+			for (int i = 0; i < n; i++) {
+				int mi = -1;
+				do {
+					mi = getMachIdx().nextInt();
+				} while (machineChosen[mi]);
+
+				WorkStation m = shop.machines().getComponent(mi);
+				machineChosen[mi] = true;
+
+				if (scenario == Scenario.JOB_SHOP) {
+					ops[i].setMachine(m);
+				}
+			}
+
+			if (scenario == Scenario.FLOW_SHOP) {
+				int k = 0;
+				for (int i = 0, j = shop.machines().numComponents(); i < j; i++) {
+					if (machineChosen[i])
+						ops[k++].setMachine(shop.machines().getComponent(i));
+				}
+			}
+
+			// procTimes
+			for (Operation o : ops) {
+				o.setProcTime(getProcTimes().nextDbl());
+			}
+
+			return ops;
+		}
+	}
+
+	/**
+	 * Stops arrivals of a job source after the first {@code maxJob} jobs were
+	 * completed.
+	 */
+	static class StopArrivalsListener extends ShopListenerBase {
+
+		private JobSource src;
+		private final int maxJob;
+		private int numJobs;
+
+		StopArrivalsListener(JobSource src, int maxJob) {
+			super();
+			this.src = src;
+			this.maxJob = maxJob;
+			this.numJobs = maxJob;
+		}
+
+		@Override
+		public void jobFinished(Shop shop, Job j) {
+			// stop arrivals after the first, e.g., 2500, jobs were
+			// completed
+			if (j.getJobNum() < maxJob) {
+				if (--numJobs == 0) {
+					src.stopArrivals = true;
+				}
+			}
+		}
+
+		@Override
+		public StopArrivalsListener forkCopy(ForkContext ctx) {
+			StopArrivalsListener c = (StopArrivalsListener) super.forkCopy(ctx);
+			c.src = ctx.copy(src);
+			return c;
+		}
+	}
+
 	public DynamicShopExperiment() {
 		super();
 		addShopListener(new BasicJobStatCollector());
@@ -92,21 +185,7 @@ public class DynamicShopExperiment extends ShopExperiment {
 
 		Objects.requireNonNull(procTimes);
 
-		ShopListener stopSrc = new ShopListenerBase() {
-			int maxJob = getStopArrivalsAfterNumJobs();
-			int numJobs = maxJob;
-
-			@Override
-			public void jobFinished(Shop shop, Job j) {
-				// stop arrivals after the first, e.g., 2500, jobs were
-				// completed
-				if (j.getJobNum() < maxJob) {
-					if (--numJobs == 0) {
-						src.stopArrivals = true;
-					}
-				}
-			}
-		};
+		ShopListener stopSrc = new StopArrivalsListener(src, getStopArrivalsAfterNumJobs());
 		shop.addListener(stopSrc);
 	}
 
@@ -136,48 +215,7 @@ public class DynamicShopExperiment extends ShopExperiment {
 	}
 
 	protected JobSource createJobSource() {
-		DynamicJobSource src = new DynamicJobSource() {
-
-			@Override
-			protected Operation[] createRoute() {
-				final int n = getNumOps().nextInt();
-				assert n > 0;
-
-				Operation[] ops = Util.initializedArray(n, Operation.class);
-
-				// initially all false
-				boolean[] machineChosen = new boolean[getNumMachines()];
-
-				for (int i = 0; i < n; i++) {
-					int mi = -1;
-					do {
-						mi = getMachIdx().nextInt();
-					} while (machineChosen[mi]);
-
-					WorkStation m = shop.machines().getComponent(mi);
-					machineChosen[mi] = true;
-
-					if (getScenario() == Scenario.JOB_SHOP) {
-						ops[i].setMachine(m);
-					}
-				}
-
-				if (getScenario() == Scenario.FLOW_SHOP) {
-					int k = 0;
-					for (int i = 0, j = shop.machines().numComponents(); i < j; i++) {
-						if (machineChosen[i])
-							ops[k++].setMachine(shop.machines().getComponent(i));
-					}
-				}
-
-				// procTimes
-				for (Operation o : ops) {
-					o.setProcTime(getProcTimes().nextDbl());
-				}
-
-				return ops;
-			}
-		};
+		DynamicJobSource src = new RandomRouteSource(getNumMachines(), getScenario());
 
 		double iaMean = calcIaMean();
 
@@ -212,6 +250,13 @@ public class DynamicShopExperiment extends ShopExperiment {
 		return src;
 	}
 
+	@Override
+	public DynamicShopExperiment forkCopy(ForkContext ctx) {
+		DynamicShopExperiment c = (DynamicShopExperiment) super.forkCopy(ctx);
+		c.src = ctx.copy(src);
+		return c;
+	}
+
 	@Override
 	public void done() {
 		// was simulation stopped early?
@@ -220,6 +265,19 @@ public class DynamicShopExperiment extends ShopExperiment {
 		super.done();
 	}
 
+	/**
+	 * Routes are created dynamically, so the lookahead of a workstation is the
+	 * minimum value of {@code procTimes} (0 if this is unknown).
+	 */
+	@Override
+	protected double lookahead(WorkStation ws) {
+		try {
+			return Math.max(0.0, getProcTimes().min());
+		} catch (UnsupportedOperationException e) {
+			return 0.0;
+		}
+	}
+
 	private double calcIaMean() {
 		int opsMin = getNumOpsMin() > 0 ? getNumOpsMin() : getNumMachines();
 		int opsMax = getNumOpsMax() > 0 ? getNumOpsMax() : getNumMachines();
@@ -25,6 +25,7 @@ import java.util.Map;
 
 import jasima.core.simulation.SimComponent;
 import jasima.core.statistics.SummaryStat;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Util;
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.Shop;
@@ -70,4 +71,10 @@ public class FlowtimePerProductCollector extends ShopListenerBase {
 		}
 	}
 
+	@Override
+	public FlowtimePerProductCollector forkCopy(ForkContext ctx) {
+		FlowtimePerProductCollector c = (FlowtimePerProductCollector) super.forkCopy(ctx);
+		c.flowtimesPerProduct = ctx.copy(flowtimesPerProduct);
+		return c;
+	}
 }
@@ -30,6 +30,7 @@ import org.apache.commons.math3.distribution.ExponentialDistribution;
 import jasima.core.random.continuous.DblDistribution;
 import jasima.core.random.continuous.DblStream;
 import jasima.core.simulation.arrivalprocess.ArrivalsStationary;
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.DynamicJobSource;
 import jasima.shopSim.core.ShopExperiment;
 import jasima.shopSim.util.TextFileReader;
@@ -170,6 +171,16 @@ public class MimacExperiment extends ShopExperiment {
 		return c;
 	}
 
+	@Override
+	public MimacExperiment forkCopy(ForkContext ctx) {
+		MimacExperiment c = (MimacExperiment) super.forkCopy(ctx);
+		// streams are used directly by the job sources
+		c.jobWeights = ctx.copy(jobWeights);
+		c.dueDateFactors = ctx.copy(dueDateFactors);
+		c.interArrivalTimes = ctx.copy(interArrivalTimes);
+		return c;
+	}
+
 	//
 	//
 	// boring getters and setters for parameters below
@@ -38,4 +38,9 @@ public class EDD extends PR {
 		return -job.getDueDate();
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 }
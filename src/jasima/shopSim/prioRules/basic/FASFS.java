@@ -38,4 +38,9 @@ public class FASFS extends PR {
 		return -job.getRelDate();
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 }
@@ -39,4 +39,9 @@ public class FCFS extends PR {
 		return -j.getArriveTime();
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 }
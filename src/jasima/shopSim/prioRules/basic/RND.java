@@ -22,6 +22,7 @@ package jasima.shopSim.prioRules.basic;
 
 import java.util.Random;
 
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
@@ -46,6 +47,13 @@ public class RND extends PR {
 		return res;
 	}
 
+	@Override
+	public PR forkCopy(ForkContext ctx) {
+		RND c = (RND) super.forkCopy(ctx);
+		c.rnd = ctx.copy(rnd);
+		return c;
+	}
+
 	@Override
 	public void beforeCalc(PriorityQueue<?> q) {
 		super.beforeCalc(q);
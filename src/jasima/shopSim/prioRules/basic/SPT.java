@@ -37,4 +37,9 @@ public class SPT extends PR {
 		return -job.currProcTime();
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 }
@@ -48,4 +48,9 @@ public class TieBreakerFASFS extends PR {
 			return 1.0 / (j.getJobNum() + 1);
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 }
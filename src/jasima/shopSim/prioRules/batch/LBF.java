@@ -20,6 +20,9 @@
  *******************************************************************************/
 package jasima.shopSim.prioRules.batch;
 
+import java.util.List;
+
+import jasima.shopSim.core.Job;
 import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
@@ -45,13 +48,14 @@ public class LBF extends PR {
 		if (arrivesTooLate(j))
 			return PriorityQueue.MIN_PRIO;
 
-		final String family = j.getCurrentOperation().getBatchFamily();
-		if (WorkStation.BATCH_INCOMPATIBLE.equals(family))
+		final int family = j.getCurrentOperation().getBatchFamilyId();
+		if (family == WorkStation.BATCH_INCOMPATIBLE_ID)
 			return 1;
 
+		List<Job> famJobs = j.getCurrMachine().jobsOfBatchFamily(family);
 		int res = 0;
-		for (int i = 0; i < j.getCurrMachine().getJobsByFamily().get(family).size(); i++) {
-			if (!arrivesTooLate(j.getCurrMachine().getJobsByFamily().get(family).get(i)))
+		for (int i = 0, n = famJobs.size(); i < n; i++) {
+			if (!arrivesTooLate(famJobs.get(i)))
 				res++;
 		}
 		assert res >= 1;
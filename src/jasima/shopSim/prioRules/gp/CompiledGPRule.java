@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.prioRules.gp;
+
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.ABS;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.ADD;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.DIV;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.DIV_PROTECTED;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.IFTE;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.INSTR_SIZE;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.MAX;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.MIN;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.MUL;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.NEG;
+import static jasima.shopSim.prioRules.gp.GPRuleCompiler.SUB;
+
+import java.util.Arrays;
+
+import jasima.core.util.ForkContext;
+import jasima.shopSim.core.Job;
+import jasima.shopSim.core.PR;
+import jasima.shopSim.core.PrioRuleTarget;
+import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.core.QueueAttributes;
+import jasima.shopSim.core.WorkStation;
+
+/**
+ * A GP rule created at run time by {@link GPRuleCompiler}. The rule executes a
+ * straight-line program on an array of registers. When all entries of a queue
+ * are evaluated at once ({@link #calcPrios(PriorityQueue, double[], int, int)}),
+ * each instruction is executed for all entries before the next one, using the
+ * attribute columns of the queue where possible.
+ */
+public class CompiledGPRule extends GPRuleBase {
+
+	private static final long serialVersionUID = 5310719622853180233L;
+
+	private final GPExpression expression;
+	private final GPTerminal[] terminals;
+	private final double[] constants;
+	private final int[] code;
+	private final int resultReg;
+	private final int numRegs;
+	private final boolean needsSetupAvg;
+
+	// scratch space
+	private double[] regs;
+	private double[][] cols;
+
+	private double sAvg;
+
+	/**
+	 * Creates a new rule by parsing and compiling the given rule string.
+	 * 
+	 * @see GPRuleCompiler#compile(String)
+	 */
+	public CompiledGPRule(String rule) {
+		this(GPRuleCompiler.program(GPRuleParser.parse(rule)));
+	}
+
+	CompiledGPRule(GPRuleCompiler.Program p) {
+		super();
+		this.expression = p.expression;
+		this.terminals = p.terminals;
+		this.constants = p.constants;
+		this.code = p.code;
+		this.resultReg = p.resultReg;
+		this.numRegs = p.numRegs;
+
+		boolean sAvg = false;
+		for (GPTerminal t : terminals) {
+			sAvg |= t == GPTerminal.SAVG;
+		}
+		this.needsSetupAvg = sAvg;
+
+		regs = newRegisters();
+	}
+
+	private double[] newRegisters() {
+		double[] r = new double[numRegs];
+		System.arraycopy(constants, 0, r, terminals.length, constants.length);
+		return r;
+	}
+
+	@Override
+	public void beforeCalc(PriorityQueue<?> q) {
+		super.beforeCalc(q);
+
+		if (needsSetupAvg)
+			sAvg = calcSetupAvg();
+	}
+
+	@Override
+	public double calcPrio(PrioRuleTarget j) {
+		final double[] r = regs;
+		final GPTerminal[] ts = terminals;
+		for (int i = 0; i < ts.length; i++) {
+			r[i] = ts[i].value(this, j);
+		}
+
+		final int[] c = code;
+		for (int pc = 0; pc < c.length; pc += INSTR_SIZE) {
+			r[c[pc + 1]] = apply(c[pc], r[c[pc + 2]], r[c[pc + 3]], r[c[pc + 4]]);
+		}
+
+		return r[resultReg];
+	}
+
+	@Override
+	public void calcPrios(PriorityQueue<?> q, double[] prios, int offset, int stride) {
+		final int n = q.size();
+		if (cols == null || cols[0].length < n) {
+			cols = new double[Math.max(numRegs, 1)][Math.max(n, 16)];
+		}
+		final double[][] cs = cols;
+
+		for (int i = 0; i < terminals.length; i++) {
+			terminalColumn(terminals[i], q, n, cs[i]);
+		}
+		for (int i = 0; i < constants.length; i++) {
+			Arrays.fill(cs[terminals.length + i], 0, n, constants[i]);
+		}
+
+		final int[] c = code;
+		for (int pc = 0; pc < c.length; pc += INSTR_SIZE) {
+			final double[] res = cs[c[pc + 1]];
+			final double[] a = cs[c[pc + 2]];
+			final double[] b = cs[c[pc + 3]];
+			final double[] d = cs[c[pc + 4]];
+
+			switch (c[pc]) {
+			case ADD:
+				for (int i = 0; i < n; i++)
+					res[i] = a[i] + b[i];
+				break;
+			case SUB:
+				for (int i = 0; i < n; i++)
+					res[i] = a[i] - b[i];
+				break;
+			case MUL:
+				for (int i = 0; i < n; i++)
+					res[i] = a[i] * b[i];
+				break;
+			case DIV:
+				for (int i = 0; i < n; i++)
+					res[i] = a[i] / b[i];
+				break;
+			default:
+				for (int i = 0; i < n; i++)
+					res[i] = apply(c[pc], a[i], b[i], d[i]);
+			}
+		}
+
+		final double[] res = cs[resultReg];
+		for (int i = 0; i < n; i++) {
+			prios[offset + i * stride] = res[i];
+		}
+	}
+
+	private void terminalColumn(GPTerminal t, PriorityQueue<?> q, int n, double[] col) {
+		final QueueAttributes attrs;
+		final double simTime;
+
+		switch (t) {
+		case PT:
+			System.arraycopy(q.getAttributes().currProcTimes(), 0, col, 0, n);
+			break;
+		case RPT:
+			System.arraycopy(q.getAttributes().remainingProcTimes(), 0, col, 0, n);
+			break;
+		case W:
+			System.arraycopy(q.getAttributes().weights(), 0, col, 0, n);
+			break;
+		case DD:
+			System.arraycopy(q.getAttributes().dueDates(), 0, col, 0, n);
+			break;
+		case TTD:
+			attrs = q.getAttributes();
+			simTime = getOwner().shop().simTime();
+			final double[] dd = attrs.dueDates();
+			for (int i = 0; i < n; i++)
+				col[i] = dd[i] - simTime;
+			break;
+		case SL:
+			// see SLK.slack()
+			attrs = q.getAttributes();
+			simTime = getOwner().shop().simTime();
+			final double[] dd2 = attrs.dueDates();
+			final double[] rpt = attrs.remainingProcTimes();
+			for (int i = 0; i < n; i++)
+				col[i] = dd2[i] - simTime - rpt[i];
+			break;
+		case TIQ:
+			attrs = q.getAttributes();
+			simTime = getOwner().shop().simTime();
+			final double[] at = attrs.arriveTimes();
+			for (int i = 0; i < n; i++)
+				col[i] = simTime - at[i];
+			break;
+		case S:
+			final int[] setupStates = q.getAttributes().setupStates();
+			final double[] setupTimes = getOwner().getSetupMatrix()[getOwner().currMachine.setupState];
+			for (int i = 0; i < n; i++)
+				col[i] = setupTimes[setupStates[i]];
+			break;
+		default:
+			for (int i = 0; i < n; i++)
+				col[i] = t.value(this, q.get(i));
+		}
+	}
+
+	/**
+	 * Executes a single operation. Semantics are the same as the ones of the
+	 * corresponding methods in {@link GPRuleBase}.
+	 */
+	static double apply(int op, double a, double b, double c) {
+		switch (op) {
+		case ADD:
+			return a + b;
+		case SUB:
+			return a - b;
+		case MUL:
+			return a * b;
+		case DIV:
+			return a / b;
+		case DIV_PROTECTED:
+			return divProtected(a, b);
+		case MAX:
+			return Math.max(a, b);
+		case MIN:
+			return Math.min(a, b);
+		case NEG:
+			return -a;
+		case ABS:
+			return Math.abs(a);
+		case IFTE:
+			return ifte(a, b, c);
+		default:
+			throw new AssertionError(op);
+		}
+	}
+
+	double numCompatible(PrioRuleTarget j) {
+		int bf = j.getCurrentOperation().getBatchFamilyId();
+		return bf == WorkStation.BATCH_INCOMPATIBLE_ID ? 1 : getOwner().numJobsOfBatchFamily(bf);
+	}
+
+	double setupAvg() {
+		return sAvg;
+	}
+
+	double setupTime(PrioRuleTarget j) {
+		final double[][] setupMatrix = getOwner().getSetupMatrix();
+		final int machineSetup = getOwner().currMachine.setupState;
+
+		return setupMatrix[machineSetup][j.getCurrentOperation().getSetupState()];
+	}
+
+	private double calcSetupAvg() {
+		final PriorityQueue<Job> q = getOwner().queue;
+		final double[][] setupMatrix = getOwner().getSetupMatrix();
+
+		final int machineSetup = getOwner().currMachine.setupState;
+
+		int numNonFutures = 0;
+		double setupAvg = 0.0d;
+
+		for (int i = 0, n = q.size(); i < n; i++) {
+			Job j2 = q.get(i);
+			if (!j2.isFuture()) {
+				setupAvg += setupMatrix[machineSetup][j2.getCurrentOperation().getSetupState()];
+				numNonFutures++;
+			}
+		}
+		return setupAvg / numNonFutures;
+	}
+
+	@Override
+	public PR clone() {
+		CompiledGPRule c = (CompiledGPRule) super.clone();
+		c.regs = c.newRegisters();
+		c.cols = null;
+		return c;
+	}
+
+	@Override
+	public PR forkCopy(ForkContext ctx) {
+		CompiledGPRule c = (CompiledGPRule) super.forkCopy(ctx);
+		c.regs = c.newRegisters();
+		c.cols = null;
+		return c;
+	}
+
+	/**
+	 * Returns the expression this rule was compiled from.
+	 */
+	public GPExpression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Returns the number of instructions executed to compute a priority, i.e.,
+	 * the number of function nodes after common subexpression elimination and
+	 * constant folding.
+	 */
+	public int numInstructions() {
+		return code.length / INSTR_SIZE;
+	}
+
+	@Override
+	public String getName() {
+		return "GP(" + expression + ")";
+	}
+
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.prioRules.gp;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable node of the expression tree of a GP rule. A node is either a
+ * numeric constant, a terminal (like "rpt" or "w", see {@link GPTerminal}) or
+ * the application of a function (like "add" or "ifte", see
+ * {@link GPRuleCompiler}) to its arguments.
+ * 
+ * @see GPRuleParser
+ * @see GPRuleCompiler
+ */
+public final class GPExpression implements Serializable {
+
+	private static final long serialVersionUID = -2390577017612580405L;
+
+	public enum Kind {
+		CONSTANT, TERMINAL, FUNCTION
+	}
+
+	private static final GPExpression[] NO_ARGS = new GPExpression[0];
+
+	private final Kind kind;
+	private final String name;
+	private final double value;
+	private final GPExpression[] args;
+
+	private GPExpression(Kind kind, String name, double value, GPExpression[] args) {
+		super();
+		this.kind = kind;
+		this.name = name;
+		this.value = value;
+		this.args = args;
+	}
+
+	public static GPExpression constant(double value) {
+		return new GPExpression(Kind.CONSTANT, null, value, NO_ARGS);
+	}
+
+	public static GPExpression terminal(String name) {
+		if (name == null)
+			throw new NullPointerException("name");
+		return new GPExpression(Kind.TERMINAL, name, Double.NaN, NO_ARGS);
+	}
+
+	public static GPExpression function(String name, GPExpression... args) {
+		if (name == null)
+			throw new NullPointerException("name");
+		return new GPExpression(Kind.FUNCTION, name, Double.NaN, args.clone());
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the name of the terminal or function, or null for constants.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the value of a constant.
+	 */
+	public double getValue() {
+		return value;
+	}
+
+	public int numArgs() {
+		return args.length;
+	}
+
+	public GPExpression getArg(int i) {
+		return args[i];
+	}
+
+	/**
+	 * Returns the number of nodes of this (sub-)tree.
+	 */
+	public int size() {
+		int res = 1;
+		for (GPExpression a : args) {
+			res += a.size();
+		}
+		return res;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof GPExpression))
+			return false;
+
+		GPExpression e = (GPExpression) o;
+		return kind == e.kind && (name == null ? e.name == null : name.equals(e.name))
+				&& Double.doubleToLongBits(value) == Double.doubleToLongBits(e.value) && Arrays.equals(args, e.args);
+	}
+
+	@Override
+	public int hashCode() {
+		int res = kind.hashCode();
+		res = 31 * res + (name == null ? 0 : name.hashCode());
+		long v = Double.doubleToLongBits(value);
+		res = 31 * res + (int) (v ^ (v >>> 32));
+		res = 31 * res + Arrays.hashCode(args);
+		return res;
+	}
+
+	/**
+	 * Returns this expression in prefix notation, e.g.
+	 * <code>add(rpt, mul(2.0, w))</code>, which can be parsed again with
+	 * {@link GPRuleParser#parse(String)}.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		appendTo(sb);
+		return sb.toString();
+	}
+
+	private void appendTo(StringBuilder sb) {
+		switch (kind) {
+		case CONSTANT:
+			sb.append(value);
+			break;
+		case TERMINAL:
+			sb.append(name);
+			break;
+		default:
+			sb.append(name).append('(');
+			for (int i = 0; i < args.length; i++) {
+				if (i > 0)
+					sb.append(", ");
+				args[i].appendTo(sb);
+			}
+			sb.append(')');
+		}
+	}
+
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.prioRules.gp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import jasima.shopSim.prioRules.gp.GPExpression.Kind;
+
+/**
+ * Compiles a GP rule (given as a string or {@link GPExpression}) into a
+ * {@link CompiledGPRule}, which can be used like any other sequencing rule
+ * without generating and compiling Java source code first.
+ * <p>
+ * The expression tree is turned into a straight-line program working on an
+ * array of registers. During this process common subexpressions (like
+ * <code>ifte(bf - sl, w, bf)</code> occurring several times in a rule) are
+ * detected, so they are computed only once, and subexpressions only consisting
+ * of constants are evaluated at compile time. As arithmetic operations are
+ * executed exactly as written in the rule, results are the same as the ones of
+ * an equivalent hand-written rule.
+ * <p>
+ * Supported functions are the ones defined in {@link GPRuleBase}: add, sub, mul,
+ * div, divProtected, max, min, neg, abs and ifte. Terminals are defined in
+ * {@link GPTerminal}.
+ * 
+ * @see GPRuleParser
+ */
+public class GPRuleCompiler {
+
+	// op codes
+	static final int ADD = 0;
+	static final int SUB = 1;
+	static final int MUL = 2;
+	static final int DIV = 3;
+	static final int DIV_PROTECTED = 4;
+	static final int MAX = 5;
+	static final int MIN = 6;
+	static final int NEG = 7;
+	static final int ABS = 8;
+	static final int IFTE = 9;
+
+	private static final String[] FUNCTIONS = { "add", "sub", "mul", "div", "divProtected", "max", "min", "neg",
+			"abs", "ifte" };
+	private static final int[] ARITY = { 2, 2, 2, 2, 2, 2, 2, 1, 1, 3 };
+	private static final boolean[] COMMUTATIVE = { true, false, true, false, false, true, true, false, false,
+			false };
+
+	/** Number of ints used to encode a single instruction. */
+	static final int INSTR_SIZE = 5;
+
+	/** A value computed by the program, i.e., a node of the expression DAG. */
+	private static final class Value {
+		final int id;
+		final Kind kind;
+		final GPTerminal terminal;
+		final double constant;
+		final int op;
+		final Value[] args;
+		int reg = -1;
+
+		Value(int id, Kind kind, GPTerminal terminal, double constant, int op, Value[] args) {
+			super();
+			this.id = id;
+			this.kind = kind;
+			this.terminal = terminal;
+			this.constant = constant;
+			this.op = op;
+			this.args = args;
+		}
+	}
+
+	/** The result of compiling an expression, used to create rules. */
+	static final class Program {
+		final GPExpression expression;
+		final GPTerminal[] terminals;
+		final double[] constants;
+		final int[] code;
+		final int resultReg;
+		final int numRegs;
+
+		Program(GPExpression expression, GPTerminal[] terminals, double[] constants, int[] code, int resultReg,
+				int numRegs) {
+			super();
+			this.expression = expression;
+			this.terminals = terminals;
+			this.constants = constants;
+			this.code = code;
+			this.resultReg = resultReg;
+			this.numRegs = numRegs;
+		}
+	}
+
+	private final ArrayList<Value> values = new ArrayList<Value>();
+	private final Map<Object, Value> cache = new HashMap<Object, Value>();
+
+	private GPRuleCompiler() {
+		super();
+	}
+
+	/**
+	 * Parses and compiles the given rule.
+	 * 
+	 * @param rule The rule, see {@link GPRuleParser} for the syntax.
+	 * @return The compiled rule.
+	 * @throws IllegalArgumentException If the rule can't be parsed or contains
+	 *                                  unknown terminals or functions.
+	 */
+	public static CompiledGPRule compile(String rule) throws IllegalArgumentException {
+		return compile(GPRuleParser.parse(rule));
+	}
+
+	/**
+	 * Compiles the given expression.
+	 * 
+	 * @param expr The expression tree of a rule.
+	 * @return The compiled rule.
+	 * @throws IllegalArgumentException If the expression contains unknown
+	 *                                  terminals or functions.
+	 */
+	public static CompiledGPRule compile(GPExpression expr) throws IllegalArgumentException {
+		return new CompiledGPRule(program(expr));
+	}
+
+	static Program program(GPExpression expr) throws IllegalArgumentException {
+		GPRuleCompiler c = new GPRuleCompiler();
+		Value res = c.translate(expr);
+		return c.generate(expr, res);
+	}
+
+	private Value translate(GPExpression e) {
+		switch (e.getKind()) {
+		case CONSTANT:
+			return constant(e.getValue());
+		case TERMINAL:
+			GPTerminal t = GPTerminal.bySymbol(e.getName());
+			if (t == null)
+				throw new IllegalArgumentException("unknown terminal '" + e.getName() + "'");
+			return lookup(t, new Value(values.size(), Kind.TERMINAL, t, Double.NaN, -1, null));
+		default:
+			int op = opCode(e.getName());
+			if (op < 0)
+				throw new IllegalArgumentException("unknown function '" + e.getName() + "'");
+			if (e.numArgs() != ARITY[op])
+				throw new IllegalArgumentException(
+						"function '" + e.getName() + "' requires " + ARITY[op] + " argument(s): " + e);
+
+			Value[] args = new Value[e.numArgs()];
+			boolean allConst = true;
+			for (int i = 0; i < args.length; i++) {
+				args[i] = translate(e.getArg(i));
+				allConst &= args[i].kind == Kind.CONSTANT;
+			}
+
+			if (allConst) {
+				// constant folding
+				double a = args[0].constant;
+				double b = args.length > 1 ? args[1].constant : 0.0;
+				double c = args.length > 2 ? args[2].constant : 0.0;
+				return constant(CompiledGPRule.apply(op, a, b, c));
+			}
+
+			if (COMMUTATIVE[op] && args[0].id > args[1].id) {
+				Value tmp = args[0];
+				args[0] = args[1];
+				args[1] = tmp;
+			}
+
+			StringBuilder key = new StringBuilder().append(op);
+			for (Value a : args) {
+				key.append(',').append(a.id);
+			}
+			return lookup(key.toString(), new Value(values.size(), Kind.FUNCTION, null, Double.NaN, op, args));
+		}
+	}
+
+	private Value constant(double v) {
+		return lookup(Double.doubleToLongBits(v), new Value(values.size(), Kind.CONSTANT, null, v, -1, null));
+	}
+
+	/**
+	 * Returns the value already computed for 'key', or registers 'v' for it.
+	 */
+	private Value lookup(Object key, Value v) {
+		Value res = cache.get(key);
+		if (res == null) {
+			cache.put(key, v);
+			values.add(v);
+			res = v;
+		}
+		return res;
+	}
+
+	private Program generate(GPExpression expr, Value result) {
+		// registers: terminals first, then constants, then intermediate values
+		ArrayList<GPTerminal> terminals = new ArrayList<GPTerminal>();
+		for (Value v : values) {
+			if (v.kind == Kind.TERMINAL) {
+				v.reg = terminals.size();
+				terminals.add(v.terminal);
+			}
+		}
+
+		ArrayList<Double> constants = new ArrayList<Double>();
+		for (Value v : values) {
+			if (v.kind == Kind.CONSTANT) {
+				v.reg = terminals.size() + constants.size();
+				constants.add(v.constant);
+			}
+		}
+
+		int numRegs = terminals.size() + constants.size();
+		int numInstr = 0;
+		for (Value v : values) {
+			if (v.kind == Kind.FUNCTION) {
+				v.reg = numRegs++;
+				numInstr++;
+			}
+		}
+
+		// values were created in post order, i.e., arguments are always
+		// computed before they are used
+		int[] code = new int[numInstr * INSTR_SIZE];
+		int pc = 0;
+		for (Value v : values) {
+			if (v.kind == Kind.FUNCTION) {
+				code[pc] = v.op;
+				code[pc + 1] = v.reg;
+				for (int i = 0; i < v.args.length; i++) {
+					code[pc + 2 + i] = v.args[i].reg;
+				}
+				pc += INSTR_SIZE;
+			}
+		}
+
+		double[] consts = new double[constants.size()];
+		for (int i = 0; i < consts.length; i++) {
+			consts[i] = constants.get(i);
+		}
+
+		return new Program(expr, terminals.toArray(new GPTerminal[terminals.size()]), consts, code, result.reg,
+				numRegs);
+	}
+
+	private static int opCode(String name) {
+		for (int i = 0; i < FUNCTIONS.length; i++) {
+			if (FUNCTIONS[i].equals(name))
+				return i;
+		}
+		return -1;
+	}
+
+}
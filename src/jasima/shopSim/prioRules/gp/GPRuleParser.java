@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.prioRules.gp;
+
+import java.util.ArrayList;
+
+/**
+ * Parses the string representation of a GP rule into a {@link GPExpression}.
+ * Rules can be given in prefix notation (function calls like
+ * <code>mul(add(rpt, 1), w)</code>), in infix notation (
+ * <code>(rpt + 1) * w</code>) or a mixture of both. The infix operators
+ * <code>+, -, *, /</code> and <code>%</code> are translated to the functions
+ * <code>add, sub, mul, div</code> and <code>divProtected</code>, a unary minus
+ * to <code>neg</code>. Operator precedence and associativity are the same as in
+ * Java, so a rule copied from Java source code yields exactly the same values.
+ * The only exception is <code>%</code>: it denotes the protected division of GP
+ * rules (returning 1.0 if the divisor is 0), not Java's remainder operator.
+ * 
+ * @see GPRuleCompiler
+ */
+public class GPRuleParser {
+
+	private final String s;
+	private int pos;
+
+	private GPRuleParser(String s) {
+		super();
+		this.s = s;
+		this.pos = 0;
+	}
+
+	/**
+	 * Parses the given rule.
+	 * 
+	 * @param rule The rule to parse.
+	 * @return The expression tree.
+	 * @throws IllegalArgumentException If {@code rule} contains a syntax error.
+	 */
+	public static GPExpression parse(String rule) throws IllegalArgumentException {
+		GPRuleParser p = new GPRuleParser(rule);
+		GPExpression res = p.expr();
+		p.skipWhitespace();
+		if (p.pos < p.s.length())
+			throw p.error("unexpected character '" + p.s.charAt(p.pos) + "'");
+		return res;
+	}
+
+	// expr := term (('+'|'-') term)*
+	private GPExpression expr() {
+		GPExpression res = term();
+		while (true) {
+			if (accept('+'))
+				res = GPExpression.function("add", res, term());
+			else if (accept('-'))
+				res = GPExpression.function("sub", res, term());
+			else
+				return res;
+		}
+	}
+
+	// term := unary (('*'|'/'|'%') unary)*
+	private GPExpression term() {
+		GPExpression res = unary();
+		while (true) {
+			if (accept('*'))
+				res = GPExpression.function("mul", res, unary());
+			else if (accept('/'))
+				res = GPExpression.function("div", res, unary());
+			else if (accept('%'))
+				res = GPExpression.function("divProtected", res, unary());
+			else
+				return res;
+		}
+	}
+
+	// unary := '-' unary | '+' unary | primary
+	private GPExpression unary() {
+		if (accept('-'))
+			return GPExpression.function("neg", unary());
+		else if (accept('+'))
+			return unary();
+		else
+			return primary();
+	}
+
+	// primary := number | ident | ident '(' [expr (',' expr)*] ')' | '(' expr ')'
+	private GPExpression primary() {
+		skipWhitespace();
+		if (pos >= s.length())
+			throw error("unexpected end of rule");
+
+		char c = s.charAt(pos);
+		if (c == '(') {
+			pos++;
+			GPExpression res = expr();
+			expect(')');
+			return res;
+		} else if (Character.isDigit(c) || c == '.') {
+			return number();
+		} else if (Character.isJavaIdentifierStart(c)) {
+			String name = identifier();
+			if (!accept('('))
+				return GPExpression.terminal(name);
+
+			ArrayList<GPExpression> args = new ArrayList<GPExpression>();
+			if (!accept(')')) {
+				do {
+					args.add(expr());
+				} while (accept(','));
+				expect(')');
+			}
+			return GPExpression.function(name, args.toArray(new GPExpression[args.size()]));
+		} else {
+			throw error("unexpected character '" + c + "'");
+		}
+	}
+
+	private GPExpression number() {
+		int start = pos;
+		while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.'))
+			pos++;
+		// exponent
+		if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+			pos++;
+			if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-'))
+				pos++;
+			while (pos < s.length() && Character.isDigit(s.charAt(pos)))
+				pos++;
+		}
+		// allow Java-style suffixes like in "1.0d"
+		int end = pos;
+		if (pos < s.length() && "dDfF".indexOf(s.charAt(pos)) >= 0)
+			pos++;
+
+		String num = s.substring(start, end);
+		try {
+			return GPExpression.constant(Double.parseDouble(num));
+		} catch (NumberFormatException e) {
+			pos = start;
+			throw error("invalid number '" + num + "'");
+		}
+	}
+
+	private String identifier() {
+		int start = pos;
+		while (pos < s.length() && Character.isJavaIdentifierPart(s.charAt(pos)))
+			pos++;
+		return s.substring(start, pos);
+	}
+
+	private boolean accept(char c) {
+		skipWhitespace();
+		if (pos < s.length() && s.charAt(pos) == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(char c) {
+		if (!accept(c))
+			throw error("'" + c + "' expected");
+	}
+
+	private void skipWhitespace() {
+		while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+			pos++;
+	}
+
+	private IllegalArgumentException error(String msg) {
+		return new IllegalArgumentException(msg + " at position " + pos + ": " + s);
+	}
+
+}
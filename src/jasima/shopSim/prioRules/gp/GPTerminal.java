@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.prioRules.gp;
+
+import jasima.shopSim.core.PrioRuleTarget;
+import jasima.shopSim.prioRules.basic.SLK;
+import jasima.shopSim.prioRules.upDownStream.PTPlusWINQPlusNPT;
+import jasima.shopSim.prioRules.upDownStream.XWINQ;
+
+/**
+ * The terminals that can be used in rules compiled with
+ * {@link GPRuleCompiler}. Each terminal is referenced by its symbol in a rule
+ * string. The definitions are the same as the ones used in the hand-written
+ * rules of this package.
+ */
+public enum GPTerminal {
+
+	/** Processing time of the current operation. */
+	PT("pt") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.currProcTime();
+		}
+	},
+	/** Remaining processing time. */
+	RPT("rpt") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.remainingProcTime();
+		}
+	},
+	/** Processing time of the next operation. */
+	NPT("npt") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return PTPlusWINQPlusNPT.npt(j);
+		}
+	},
+	/** Number of operations left. */
+	OL("ol") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.numOpsLeft();
+		}
+	},
+	/** Weight. */
+	W("w") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.getWeight();
+		}
+	},
+	/** Due date. */
+	DD("dd") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.getDueDate();
+		}
+	},
+	/** Due date of the current operation. */
+	OPDD("opdd") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.getCurrentOperationDueDate();
+		}
+	},
+	/** Time until due date. */
+	TTD("ttd") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.getDueDate() - j.getShop().simTime();
+		}
+	},
+	/** Slack, see {@link SLK#slack(PrioRuleTarget)}. */
+	SL("sl") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return SLK.slack(j);
+		}
+	},
+	/** Time in queue. */
+	TIQ("tiq") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.getShop().simTime() - j.getArriveTime();
+		}
+	},
+	/** Time in system. */
+	TIS("tis") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return j.getShop().simTime() - j.getRelDate();
+		}
+	},
+	/** Work in next queue, see {@link jasima.shopSim.prioRules.upDownStream.WINQ#winq(PrioRuleTarget)}. */
+	WINQ("winq") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return jasima.shopSim.prioRules.upDownStream.WINQ.winq(j);
+		}
+	},
+	/** Extended work in next queue, see {@link XWINQ#xwinq(PrioRuleTarget)}. */
+	WINQ2("winq2") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return XWINQ.xwinq(j);
+		}
+	},
+	/** Setup time required before processing on the current machine. */
+	S("s") {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return r.setupTime(j);
+		}
+	},
+	/** Average setup time of all jobs in the queue. */
+	SAVG("sAvg", true) {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return r.setupAvg();
+		}
+	},
+	/** Number of jobs in the queue of the same batch family. */
+	BF("bf", true) {
+		@Override
+		double value(CompiledGPRule r, PrioRuleTarget j) {
+			return r.numCompatible(j);
+		}
+	};
+
+	private final String symbol;
+	private final boolean queueDependent;
+
+	private GPTerminal(String symbol) {
+		this(symbol, false);
+	}
+
+	private GPTerminal(String symbol, boolean queueDependent) {
+		this.symbol = symbol;
+		this.queueDependent = queueDependent;
+	}
+
+	abstract double value(CompiledGPRule r, PrioRuleTarget j);
+
+	/** Returns the name of this terminal as used in rule strings. */
+	public String symbol() {
+		return symbol;
+	}
+
+	/**
+	 * Whether values depend on the queue as a whole, i.e., have to be computed
+	 * in {@link CompiledGPRule#beforeCalc(jasima.shopSim.core.PriorityQueue)}.
+	 */
+	public boolean isQueueDependent() {
+		return queueDependent;
+	}
+
+	/**
+	 * Returns the terminal with the given symbol, or null if there is none.
+	 */
+	public static GPTerminal bySymbol(String symbol) {
+		for (GPTerminal t : values()) {
+			if (t.symbol.equals(symbol))
+				return t;
+		}
+		return null;
+	}
+
+}
@@ -20,12 +20,11 @@
  *******************************************************************************/
 package jasima.shopSim.prioRules.gp;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.core.QueueAttributes;
+import jasima.shopSim.core.WorkStation;
 import jasima.shopSim.prioRules.basic.SLK;
 
 /**
@@ -40,41 +39,24 @@ public class WSC2010_GPRuleSize199 extends GPRuleBase {
 
 	private static final long serialVersionUID = -8457782199185178603L;
 
-	private Map<String, Integer> famSizes;
 	private double sAvg;
 
 	@Override
 	public void beforeCalc(PriorityQueue<?> q) {
 		super.beforeCalc(q);
 
-		calcNumCompatible();
 		sAvg = calcSetupAvg();
 	}
 
 	private int numCompatible(PrioRuleTarget j) {
-		String bf = j.getCurrentOperation().getBatchFamily();
-		return famSizes.get(bf).intValue();
+		int bf = j.getCurrentOperation().getBatchFamilyId();
+		return bf == WorkStation.BATCH_INCOMPATIBLE_ID ? 1 : getOwner().numJobsOfBatchFamily(bf);
 	}
 
 	private double setupAvg() {
 		return sAvg;
 	}
 
-	private void calcNumCompatible() {
-		famSizes = new HashMap<String, Integer>();
-
-		PriorityQueue<Job> q = getOwner().queue;
-		for (int i = 0, n = q.size(); i < n; i++) {
-			Job j = q.get(i);
-
-			final String family = j.getCurrentOperation().getBatchFamily();
-			Integer k = famSizes.get(family);
-			if (k == null || "BATCH_INCOMPATIBLE".equals(family))
-				k = 0;
-			famSizes.put(family, k.intValue() + 1);
-		}
-	}
-
 	private double calcSetupAvg() {
 		final PriorityQueue<Job> q = getOwner().queue;
 		assert q.size() > 0;
@@ -114,6 +96,32 @@ public class WSC2010_GPRuleSize199 extends GPRuleBase {
 		double rpt = j.remainingProcTime();
 		double sAvg = setupAvg();
 
+		return prio(bf, ttd, w, sl, s, rpt, sAvg);
+	}
+
+	@Override
+	public void calcPrios(PriorityQueue<?> q, double[] prios, int offset, int stride) {
+		final QueueAttributes attrs = q.getAttributes();
+		final double[] dueDates = attrs.dueDates();
+		final double[] weights = attrs.weights();
+		final double[] rpts = attrs.remainingProcTimes();
+		final int[] setupStates = attrs.setupStates();
+
+		final double simTime = getOwner().shop().simTime();
+		final double[] setupTimes = getOwner().getSetupMatrix()[getOwner().currMachine.setupState];
+		final double sAvg = setupAvg();
+
+		for (int i = 0, n = q.size(); i < n; i++) {
+			double bf = numCompatible(q.get(i));
+			double ttd = dueDates[i] - simTime;
+			double sl = dueDates[i] - simTime - rpts[i]; // see SLK.slack()
+			double s = setupTimes[setupStates[i]];
+
+			prios[offset + i * stride] = prio(bf, ttd, weights[i], sl, s, rpts[i], sAvg);
+		}
+	}
+
+	private static double prio(double bf, double ttd, double w, double sl, double s, double rpt, double sAvg) {
 		return bf
 				* max(bf * ifte(
 						max(1, rpt)
@@ -20,6 +20,7 @@
  *******************************************************************************/
 package jasima.shopSim.prioRules.meta;
 
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
@@ -56,6 +57,11 @@ public class Inverse extends PR {
 		getBaseRule().beforeCalc(q);
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return getBaseRule().isTimeInvariant();
+	}
+
 	@Override
 	public String getName() {
 		return "INV_" + String.valueOf(getBaseRule());
@@ -70,6 +76,13 @@ public class Inverse extends PR {
 		return c;
 	}
 
+	@Override
+	public PR forkCopy(ForkContext ctx) {
+		Inverse c = (Inverse) super.forkCopy(ctx);
+		c.base = ctx.copy(base);
+		return c;
+	}
+
 	@Override
 	public PR setOwner(WorkStation o) {
 		super.setOwner(o);
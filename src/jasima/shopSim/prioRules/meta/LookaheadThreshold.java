@@ -39,6 +39,15 @@ public abstract class LookaheadThreshold extends PR {
 		return arrivesTooLate(t) ? -1 : +1;
 	}
 
+	/**
+	 * Priorities of non-future jobs are always +1, therefore this rule is
+	 * time-invariant (priorities of future jobs are never cached).
+	 */
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 	@Override
 	public abstract boolean arrivesTooLate(PrioRuleTarget prt);
 
@@ -23,7 +23,9 @@ package jasima.shopSim.prioRules.setup;
 import java.util.HashMap;
 import java.util.Map;
 
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.Job;
+import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
 
@@ -96,4 +98,11 @@ public class MASP extends MMS {
 		return procTime;
 	}
 
+	@Override
+	public PR forkCopy(ForkContext ctx) {
+		MASP c = (MASP) super.forkCopy(ctx);
+		c.sumProcTimePerFamily = new HashMap<String, Double>(sumProcTimePerFamily);
+		return c;
+	}
+
 }
@@ -23,6 +23,7 @@ package jasima.shopSim.prioRules.setup;
 import java.util.HashMap;
 import java.util.Map;
 
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.PriorityQueue;
@@ -78,4 +79,11 @@ public class MMS extends PR {
 		return -marginalSetup;
 	}
 
+	@Override
+	public PR forkCopy(ForkContext ctx) {
+		MMS c = (MMS) super.forkCopy(ctx);
+		c.jobsPerFamily = new HashMap<String, Integer>(jobsPerFamily);
+		return c;
+	}
+
 }
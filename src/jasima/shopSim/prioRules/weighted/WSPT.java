@@ -43,4 +43,9 @@ public class WSPT extends PR {
 			return PriorityQueue.MAX_PRIO;
 	}
 
+	@Override
+	public boolean isTimeInvariant() {
+		return true;
+	}
+
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import jasima.core.simulation.SimComponent;
 import jasima.core.statistics.SummaryStat;
+import jasima.core.util.ForkContext;
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.Shop;
 import jasima.shopSim.core.ShopListenerBase;
@@ -98,4 +99,11 @@ public class BasicJobStatCollector extends ShopListenerBase {
 		return "BasicJobStatCollector";
 	}
 
+	@Override
+	public BasicJobStatCollector forkCopy(ForkContext ctx) {
+		BasicJobStatCollector c = (BasicJobStatCollector) super.forkCopy(ctx);
+		c.flowtime = ctx.copy(flowtime);
+		c.tardiness = ctx.copy(tardiness);
+		return c;
+	}
 }
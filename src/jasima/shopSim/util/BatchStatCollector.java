@@ -24,6 +24,7 @@ import java.util.Map;
 
 import jasima.core.simulation.SimComponent;
 import jasima.core.statistics.SummaryStat;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Util;
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.Shop;
@@ -98,4 +99,11 @@ public class BatchStatCollector extends ShopListenerBase {
 		this.batchSize = batchSize;
 	}
 
+	@Override
+	public BatchStatCollector forkCopy(ForkContext ctx) {
+		BatchStatCollector c = (BatchStatCollector) super.forkCopy(ctx);
+		c.batchFlowtimes = ctx.copy(batchFlowtimes);
+		c.batchTardiness = ctx.copy(batchTardiness);
+		return c;
+	}
 }
@@ -25,6 +25,8 @@ import java.util.Map;
 import jasima.core.simulation.SimComponent;
 import jasima.core.statistics.SummaryStat;
 import jasima.core.statistics.TimeWeightedSummaryStat;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
 import jasima.shopSim.core.IndividualMachine;
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.Operation;
@@ -38,7 +40,7 @@ import jasima.shopSim.core.WorkStationListener;
  * 
  * @author Torsten Hildebrandt
  */
-public class MachineStatCollector implements WorkStationListener, Cloneable {
+public class MachineStatCollector implements WorkStationListener, Cloneable, Forkable {
 
 	/*
 	 * Continuous statistic time average number of number of machines busy at each
@@ -144,6 +146,19 @@ public class MachineStatCollector implements WorkStationListener, Cloneable {
 		}
 	}
 
+	@Override
+	public MachineStatCollector forkCopy(ForkContext ctx) {
+		MachineStatCollector c = ctx.register(this, clone());
+		c.aveMachinesBusy = ctx.copy(aveMachinesBusy);
+		c.aniq = ctx.copy(aniq);
+		c.stationDelay = ctx.copy(stationDelay);
+		c.capacityUtilized = ctx.copy(capacityUtilized);
+		c.aveBatchSize = ctx.copy(aveBatchSize);
+		c.setupTime = ctx.copy(setupTime);
+		c.procTime = ctx.copy(procTime);
+		return c;
+	}
+
 	@Override
 	public String toString() {
 		return this.getClass().getSimpleName();
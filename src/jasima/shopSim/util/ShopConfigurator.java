@@ -46,6 +46,38 @@ public class ShopConfigurator {
 
 	private ShopDef shopDef;
 
+	/**
+	 * A {@link DynamicJobSource} stopping arrivals after {@code numJobs} jobs
+	 * were created (if {@code numJobs} is positive).
+	 */
+	static class LimitedJobSource extends DynamicJobSource {
+
+		private final int numJobs;
+		private int numCreated;
+
+		LimitedJobSource(int numJobs) {
+			super();
+			this.numJobs = numJobs;
+		}
+
+		@Override
+		public void init() {
+			super.init();
+			numCreated = 0;
+		}
+
+		@Override
+		public Job createNextJob() {
+			Job j = super.createNextJob();
+
+			numCreated++;
+			if (numJobs > 0 && numCreated > numJobs)
+				stopArrivals = true;
+
+			return j;
+		}
+	}
+
 	public ShopConfigurator() {
 		super();
 	}
@@ -132,27 +164,7 @@ public class ShopConfigurator {
 		DblStream weights = sd.getWeights().createStream();
 		final int numJobs = sd.getNumJobs();
 
-		DynamicJobSource ds = new DynamicJobSource() {
-
-			private int numCreated;
-
-			@Override
-			public void init() {
-				super.init();
-				numCreated = 0;
-			}
-
-			@Override
-			public Job createNextJob() {
-				Job j = super.createNextJob();
-
-				numCreated++;
-				if (numJobs > 0 && numCreated > numJobs)
-					stopArrivals = true;
-
-				return j;
-			}
-		};
+		DynamicJobSource ds = new LimitedJobSource(numJobs);
 		ds.setRoute(shop.getRoutes()[route]);
 
 		ArrivalsStationary arrivals = new ArrivalsStationary();
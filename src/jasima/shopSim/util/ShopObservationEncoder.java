@@ -0,0 +1,421 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.shopSim.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import jasima.core.simulation.SimComponent;
+import jasima.core.simulation.SimulationExperiment;
+import jasima.core.simulation.StepObserver;
+import jasima.core.util.ForkContext;
+import jasima.core.util.Forkable;
+import jasima.shopSim.core.IndividualMachine;
+import jasima.shopSim.core.Job;
+import jasima.shopSim.core.PrioRuleTarget;
+import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.core.Shop;
+import jasima.shopSim.core.WorkStation;
+import jasima.shopSim.core.WorkStationListener;
+
+/**
+ * Encodes the state of a {@link Shop} as a fixed-size vector of features, e.g.,
+ * to be used as the observation of a learning-based dispatching agent. For
+ * each workstation {@link #STATION_SIZE} features plus the setup states of its
+ * machines are stored (see {@link #QUEUE_LENGTH} etc. for the layout), so the
+ * features of the workstation with index {@code s} start at
+ * {@code s * stationSize()}.
+ * <p>
+ * The encoder is installed as a listener on all workstations by
+ * {@link #attach(Shop)} and updates its features incrementally whenever a job
+ * arrives or an operation is started or completed, so queues are only scanned
+ * once on attaching. Only time-dependent features (work content and mean
+ * slack) are computed when the observation is written. Jobs removed from a
+ * queue without being started are not noticed.
+ * <p>
+ * As a {@link StepObserver} the encoder attaches itself to the shop of the
+ * experiment on each reset. The reward of a step is the negative sum of the
+ * waiting times of all jobs during the step, i.e., the time integral of the
+ * total number of waiting jobs.
+ * 
+ * @see jasima.core.simulation.VectorEnvironment
+ */
+public class ShopObservationEncoder implements WorkStationListener, StepObserver, Forkable {
+
+	/** Number of jobs waiting in the queue. */
+	public static final int QUEUE_LENGTH = 0;
+	/** Work content without future jobs, see {@link WorkStation#workContent}. */
+	public static final int WORK_CONTENT = 1;
+	/** Work content including future jobs, see {@link WorkStation#workContent}. */
+	public static final int WORK_CONTENT_FUTURE = 2;
+	/** Number of busy machines. */
+	public static final int NUM_BUSY = 3;
+	/** Mean slack of waiting jobs (due date - now - remaining processing time). */
+	public static final int SLACK_MEAN = 4;
+	/** Standard deviation of the slack of waiting jobs. */
+	public static final int SLACK_STD_DEV = 5;
+	/** Mean remaining processing time of waiting jobs. */
+	public static final int REM_PROC_TIME_MEAN = 6;
+	/** Standard deviation of the remaining processing time of waiting jobs. */
+	public static final int REM_PROC_TIME_STD_DEV = 7;
+	/**
+	 * Setup state of the first machine of a workstation, followed by the other
+	 * machines. Unused entries (for workstations with fewer machines than
+	 * {@link #maxInGroup()}) are -1.
+	 */
+	public static final int SETUP_STATES = 8;
+
+	/** Number of features per workstation not counting setup states. */
+	public static final int STATION_SIZE = SETUP_STATES;
+
+	private final int numStations;
+	private final int maxInGroup;
+	private final int stationSize;
+
+	// features not depending on the simulation time
+	private final double[] features;
+
+	// per station mean and sum of squared deviations of waiting jobs' remaining
+	// processing times and "due date - remaining processing time"
+	private final int[] numJobs;
+	private final double[] remMean, remM2;
+	private final double[] keyMean, keyM2;
+
+	private Shop shop;
+
+	// for the reward
+	private int totalWaiting;
+	private double waitingArea;
+	private double lastChange;
+
+	/**
+	 * Creates a new encoder.
+	 * 
+	 * @param numStations The number of workstations of the shop.
+	 * @param maxInGroup  The maximum number of machines of a workstation.
+	 */
+	public ShopObservationEncoder(int numStations, int maxInGroup) {
+		super();
+		if (numStations <= 0 || maxInGroup <= 0)
+			throw new IllegalArgumentException(numStations + " " + maxInGroup);
+
+		this.numStations = numStations;
+		this.maxInGroup = maxInGroup;
+		stationSize = STATION_SIZE + maxInGroup;
+
+		features = new double[numStations * stationSize];
+		numJobs = new int[numStations];
+		remMean = new double[numStations];
+		remM2 = new double[numStations];
+		keyMean = new double[numStations];
+		keyM2 = new double[numStations];
+	}
+
+	@Override
+	public ShopObservationEncoder forkCopy(ForkContext ctx) {
+		ShopObservationEncoder c = ctx.register(this, new ShopObservationEncoder(numStations, maxInGroup));
+		System.arraycopy(features, 0, c.features, 0, features.length);
+		System.arraycopy(numJobs, 0, c.numJobs, 0, numStations);
+		System.arraycopy(remMean, 0, c.remMean, 0, numStations);
+		System.arraycopy(remM2, 0, c.remM2, 0, numStations);
+		System.arraycopy(keyMean, 0, c.keyMean, 0, numStations);
+		System.arraycopy(keyM2, 0, c.keyM2, 0, numStations);
+		c.shop = ctx.copy(shop);
+		c.totalWaiting = totalWaiting;
+		c.waitingArea = waitingArea;
+		c.lastChange = lastChange;
+		return c;
+	}
+
+	/**
+	 * Installs this encoder on all workstations of {@code shop} (if not
+	 * installed already) and initializes all features from the current state of
+	 * the shop.
+	 * 
+	 * @param shop The shop to observe.
+	 * @throws IllegalArgumentException If the shop has more workstations than
+	 *                                  {@link #numStations()} or a workstation
+	 *                                  has more than {@link #maxInGroup()}
+	 *                                  machines.
+	 */
+	public void attach(Shop shop) throws IllegalArgumentException {
+		int n = shop.machines().numComponents();
+		if (n > numStations)
+			throw new IllegalArgumentException("Shop has " + n + " workstations, encoder only " + numStations);
+		for (int s = 0; s < n; s++) {
+			WorkStation m = shop.machines().getComponent(s);
+			if (m.numInGroup() > maxInGroup)
+				throw new IllegalArgumentException(
+						"Workstation " + m + " has " + m.numInGroup() + " machines, encoder only " + maxInGroup);
+		}
+
+		if (this.shop != shop) {
+			this.shop = shop;
+			for (int s = 0; s < n; s++) {
+				shop.machines().getComponent(s).addListener(this);
+			}
+		}
+
+		Arrays.fill(features, 0.0);
+		totalWaiting = 0;
+		for (int s = 0; s < n; s++) {
+			WorkStation m = shop.machines().getComponent(s);
+			clearJobs(s);
+
+			PriorityQueue<Job> q = m.queue;
+			for (int i = 0, qs = q.size(); i < qs; i++) {
+				Job j = q.get(i);
+				if (!j.isFuture())
+					addJob(s, j);
+			}
+
+			updateStation(m);
+			totalWaiting += m.numJobsWaiting();
+		}
+		waitingArea = 0.0;
+		lastChange = shop.simTime();
+	}
+
+	/**
+	 * Writes the current features to {@code obs}, starting at {@code offset}.
+	 * 
+	 * @param obs    The array to write to.
+	 * @param offset Position of the first feature.
+	 */
+	public void encode(double[] obs, int offset) {
+		System.arraycopy(features, 0, obs, offset, features.length);
+		if (shop == null)
+			return;
+
+		double now = shop.simTime();
+		for (int s = 0, n = shop.machines().numComponents(); s < n; s++) {
+			WorkStation m = shop.machines().getComponent(s);
+			int o = offset + s * stationSize;
+			obs[o + WORK_CONTENT] = m.workContent(false);
+			obs[o + WORK_CONTENT_FUTURE] = m.workContent(true);
+			obs[o + SLACK_MEAN] = numJobs[s] > 0 ? keyMean[s] - now : 0.0;
+		}
+	}
+
+	/**
+	 * Writes the current features to {@code buf} at its current position (using
+	 * {@link ByteBuffer#putDouble(double)}), e.g., to share them with another
+	 * process without copying them into a temporary array first.
+	 * 
+	 * @param buf The buffer to write to.
+	 */
+	public void encode(ByteBuffer buf) {
+		double now = shop == null ? 0.0 : shop.simTime();
+		int n = shop == null ? 0 : shop.machines().numComponents();
+		for (int s = 0; s < numStations; s++) {
+			WorkStation m = s < n ? shop.machines().getComponent(s) : null;
+			int o = s * stationSize;
+			for (int f = 0; f < stationSize; f++) {
+				double v = features[o + f];
+				if (m != null) {
+					if (f == WORK_CONTENT)
+						v = m.workContent(false);
+					else if (f == WORK_CONTENT_FUTURE)
+						v = m.workContent(true);
+					else if (f == SLACK_MEAN)
+						v = numJobs[s] > 0 ? keyMean[s] - now : 0.0;
+				}
+				buf.putDouble(v);
+			}
+		}
+	}
+
+	//
+	// WorkStationListener
+	//
+
+	@Override
+	public void init(SimComponent c) {
+		WorkStation m = (WorkStation) c;
+		int s = m.index();
+		totalWaiting -= (int) features[s * stationSize + QUEUE_LENGTH];
+		clearJobs(s);
+		updateStation(m);
+	}
+
+	@Override
+	public void arrival(WorkStation m, Job j) {
+		if (j.isFuture())
+			return;
+
+		updateWaitingArea(m, 1);
+		int s = m.index();
+		addJob(s, j);
+		features[s * stationSize + QUEUE_LENGTH] = m.numJobsWaiting();
+		updateStats(s);
+	}
+
+	@Override
+	public void operationStarted(WorkStation m, PrioRuleTarget jobOrBatch, int oldSetupState, int newSetupState,
+			double setupTime) {
+		if (jobOrBatch == null)
+			return;
+
+		int s = m.index();
+		int o = s * stationSize;
+		updateWaitingArea(m, -jobOrBatch.numJobsInBatch());
+		for (int i = 0, n = jobOrBatch.numJobsInBatch(); i < n; i++) {
+			removeJob(s, jobOrBatch.job(i));
+		}
+		features[o + QUEUE_LENGTH] = m.numJobsWaiting();
+		features[o + NUM_BUSY] = m.numBusy();
+		features[o + SETUP_STATES + m.currMachine.idx] = newSetupState;
+		updateStats(s);
+	}
+
+	@Override
+	public void operationCompleted(WorkStation m, PrioRuleTarget justCompleted) {
+		features[m.index() * stationSize + NUM_BUSY] = m.numBusy();
+	}
+
+	@Override
+	public void activated(WorkStation m, IndividualMachine justActivated) {
+		updateStation(m);
+	}
+
+	@Override
+	public void deactivated(WorkStation m, IndividualMachine justDeactivated) {
+		updateStation(m);
+	}
+
+	//
+	// StepObserver
+	//
+
+	@Override
+	public int observationSize() {
+		return features.length;
+	}
+
+	@Override
+	public void reset(SimulationExperiment env) {
+		attach((Shop) env.sim().getRootComponent().getComponent(0));
+	}
+
+	@Override
+	public void observe(SimulationExperiment env, double[] obs, int offset) {
+		encode(obs, offset);
+	}
+
+	@Override
+	public double reward(SimulationExperiment env) {
+		double now = env.sim().simTime();
+		double r = -(waitingArea + totalWaiting * (now - lastChange));
+		waitingArea = 0.0;
+		lastChange = now;
+		return r;
+	}
+
+	//
+	// internal
+	//
+
+	private void updateWaitingArea(WorkStation m, int delta) {
+		double now = m.shop().simTime();
+		waitingArea += totalWaiting * (now - lastChange);
+		lastChange = now;
+		totalWaiting += delta;
+	}
+
+	/** Updates all features of a workstation not depending on its jobs. */
+	private void updateStation(WorkStation m) {
+		int o = m.index() * stationSize;
+		features[o + QUEUE_LENGTH] = m.numJobsWaiting();
+		features[o + NUM_BUSY] = m.numBusy();
+		IndividualMachine[] machs = m.machDat();
+		for (int i = 0; i < maxInGroup; i++) {
+			features[o + SETUP_STATES + i] = i < machs.length ? machs[i].setupState : -1;
+		}
+		updateStats(m.index());
+	}
+
+	private void updateStats(int s) {
+		int o = s * stationSize;
+		int n = numJobs[s];
+		features[o + REM_PROC_TIME_MEAN] = remMean[s];
+		features[o + REM_PROC_TIME_STD_DEV] = n > 1 ? Math.sqrt(remM2[s] / (n - 1)) : 0.0;
+		features[o + SLACK_STD_DEV] = n > 1 ? Math.sqrt(keyM2[s] / (n - 1)) : 0.0;
+	}
+
+	private void clearJobs(int s) {
+		numJobs[s] = 0;
+		remMean[s] = remM2[s] = keyMean[s] = keyM2[s] = 0.0;
+	}
+
+	private void addJob(int s, Job j) {
+		double rem = j.remainingProcTime();
+		double key = j.getDueDate() - rem;
+
+		int n = ++numJobs[s];
+		double d = rem - remMean[s];
+		remMean[s] += d / n;
+		remM2[s] += d * (rem - remMean[s]);
+
+		d = key - keyMean[s];
+		keyMean[s] += d / n;
+		keyM2[s] += d * (key - keyMean[s]);
+	}
+
+	private void removeJob(int s, Job j) {
+		int n = --numJobs[s];
+		if (n <= 0) {
+			clearJobs(s);
+			return;
+		}
+
+		double rem = j.remainingProcTime();
+		double key = j.getDueDate() - rem;
+
+		double old = remMean[s];
+		remMean[s] = old - (rem - old) / n;
+		remM2[s] = Math.max(0.0, remM2[s] - (rem - old) * (rem - remMean[s]));
+
+		old = keyMean[s];
+		keyMean[s] = old - (key - old) / n;
+		keyM2[s] = Math.max(0.0, keyM2[s] - (key - old) * (key - keyMean[s]));
+	}
+
+	/** Returns the number of features per workstation. */
+	public int stationSize() {
+		return stationSize;
+	}
+
+	/** Returns the number of workstations this encoder was created for. */
+	public int numStations() {
+		return numStations;
+	}
+
+	/** Returns the maximum number of machines per workstation. */
+	public int maxInGroup() {
+		return maxInGroup;
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName();
+	}
+
+}
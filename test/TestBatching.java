@@ -25,6 +25,8 @@ import java.io.File;
 
 import org.junit.Test;
 
+import jasima.shopSim.core.Operation;
+import jasima.shopSim.core.WorkStation;
 import jasima.shopSim.models.staticShop.StaticShopExperiment;
 import jasima.shopSim.prioRules.basic.FCFS;
 import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
@@ -56,4 +58,30 @@ public class TestBatching {
 		assertEquals("CompletionTime", 6, simTime, 1e-6d);
 	}
 
+	@Test
+	public void batchFamilyIdsShouldBeAssignedPerWorkStation() {
+		WorkStation m1 = new WorkStation();
+		WorkStation m2 = new WorkStation();
+
+		assertEquals(WorkStation.BATCH_INCOMPATIBLE_ID, m1.translateBatchFamily(WorkStation.BATCH_INCOMPATIBLE));
+		assertEquals(1, m1.numBatchFamilies());
+		assertEquals(1, m1.translateBatchFamily("a"));
+		assertEquals(2, m1.translateBatchFamily("b"));
+		assertEquals(1, m1.translateBatchFamily("a"));
+		assertEquals(3, m1.numBatchFamilies());
+		assertEquals("b", m1.batchFamilyToString(2));
+		assertEquals(WorkStation.BATCH_INCOMPATIBLE, m1.batchFamilyToString(WorkStation.BATCH_INCOMPATIBLE_ID));
+
+		Operation o = new Operation();
+		o.setMachine(m2);
+		o.setBatchFamily("b");
+		assertEquals(1, o.getBatchFamilyId());
+		// cached id is reset when machine or family change
+		o.setMachine(m1);
+		assertEquals(2, o.getBatchFamilyId());
+		o.setBatchFamily("a");
+		assertEquals(1, o.getBatchFamilyId());
+		assertEquals(0, m1.numJobsOfBatchFamily(1));
+	}
+
 }
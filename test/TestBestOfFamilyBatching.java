@@ -39,9 +39,13 @@ import jasima.shopSim.core.PR;
 import jasima.shopSim.core.PrioRuleTarget;
 import jasima.shopSim.core.batchForming.BatchForming;
 import jasima.shopSim.core.batchForming.BestOfFamilyBatching;
+import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
+import jasima.shopSim.core.batchForming.MostCompleteBatch;
 import jasima.shopSim.models.mimac.MimacExperiment;
 import jasima.shopSim.models.mimac.MimacExperiment.DataSet;
+import jasima.shopSim.prioRules.basic.EDD;
 import jasima.shopSim.prioRules.basic.FASFS;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
 import jasima.shopSim.prioRules.batch.LBF;
 import jasima.shopSim.prioRules.batch.MaxBatchSize;
 import jasima.shopSim.prioRules.setup.SST;
@@ -305,4 +309,49 @@ public class TestBestOfFamilyBatching {
 		check("baseExperiment.expAborted", 0.0, 0.0001, res);
 	}
 
+	private Map<String, Object> runIncremental(BatchForming bf, boolean incremental, boolean lookAhead) {
+		MimacExperiment e = createBaseExperiment();
+		e.setSimulationLength(365 * 24 * 60);
+		e.setEnableLookAhead(lookAhead);
+		e.setInitialSeed(8346);
+
+		e.setSequencingRule(new EDD().setFinalTieBreaker(new TieBreakerFASFS()));
+		e.setBatchSequencingRule(createBatchSequencingPR(new EDD()));
+		bf.setIncremental(incremental);
+		e.setBatchForming(bf);
+
+		e.runExperiment();
+		return e.getResults();
+	}
+
+	private void checkIncremental(BatchForming bf) {
+		for (boolean lookAhead : new boolean[] { false, true }) {
+			Map<String, Object> exp = runIncremental(bf.clone(), false, lookAhead);
+			Map<String, Object> act = runIncremental(bf.clone(), true, lookAhead);
+
+			for (String name : new String[] { "flowMean", "tardMean", "weightedTardMean" }) {
+				SummaryStat e = (SummaryStat) exp.get(name);
+				SummaryStat a = (SummaryStat) act.get(name);
+				assertEquals(name, e.numObs(), a.numObs());
+				assertEquals(name, e.mean(), a.mean(), 1e-6);
+			}
+			assertEquals(exp.get("simTime"), act.get("simTime"));
+		}
+	}
+
+	@Test
+	public void incrementalModeShouldProduceSameResults() throws Exception {
+		checkIncremental(new BestOfFamilyBatching());
+	}
+
+	@Test
+	public void incrementalModeShouldProduceSameResultsMCB() throws Exception {
+		checkIncremental(new MostCompleteBatch());
+	}
+
+	@Test
+	public void incrementalModeShouldProduceSameResultsMBS() throws Exception {
+		checkIncremental(new HighestJobBatchingMBS(5.0 / 8.0));
+	}
+
 }
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.ExponentialDistribution;
+import org.junit.Test;
+
+import jasima.core.random.continuous.DblDistribution;
+import jasima.core.random.continuous.DblStream;
+import jasima.core.random.continuous.DblUniformRange;
+import jasima.core.random.discrete.IntUniformRange;
+import jasima.core.statistics.SummaryStat;
+import jasima.shopSim.core.PR;
+import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
+import jasima.shopSim.models.mimac.MimacExperiment;
+import jasima.shopSim.models.mimac.MimacExperiment.DataSet;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+import jasima.shopSim.prioRules.gp.WSC2010_GPRuleSize199;
+import jasima.shopSim.prioRules.gp.WSC2010_GPRuleSize98;
+import util.ExtendedJobStatCollector;
+
+/**
+ * Checks that rules computing priorities of a whole queue at once (
+ * {@link PR#calcPrios(PriorityQueue, double[], int, int)}) produce exactly the
+ * same results as computing them job by job.
+ */
+public class TestBulkPrioCalc {
+
+	public static class SingleRule199 extends WSC2010_GPRuleSize199 {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void calcPrios(PriorityQueue<?> q, double[] prios, int offset, int stride) {
+			for (int i = 0, n = q.size(); i < n; i++) {
+				prios[offset + i * stride] = calcPrio(q.get(i));
+			}
+		}
+	}
+
+	public static class SingleRule98 extends WSC2010_GPRuleSize98 {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void calcPrios(PriorityQueue<?> q, double[] prios, int offset, int stride) {
+			for (int i = 0, n = q.size(); i < n; i++) {
+				prios[offset + i * stride] = calcPrio(q.get(i));
+			}
+		}
+	}
+
+	static Map<String, Object> runExp(PR rule) {
+		MimacExperiment e = new MimacExperiment();
+		e.setInitialSeed(-6437543093816807328l);
+		e.setScenario(DataSet.FAB4r);
+		DblStream arrivals1 = new DblDistribution(new ExponentialDistribution(1440d / 4.5));
+		DblStream arrivals2 = new DblDistribution(new ExponentialDistribution(1440d / 10.5));
+		e.setInterArrivalTimes(new DblStream[] { arrivals1, arrivals2 });
+		e.setDueDateFactors(new DblUniformRange(2.0, 5.0));
+		e.setJobWeights(new IntUniformRange(1, 10));
+		e.setSimulationLength(365 * 24 * 60);
+		e.setMaxJobsInSystem(3 * 250);
+		e.setEnableLookAhead(false);
+		e.addShopListener(new ExtendedJobStatCollector());
+
+		rule.setFinalTieBreaker(new TieBreakerFASFS());
+		e.setSequencingRule(rule);
+		e.setBatchForming(new HighestJobBatchingMBS(0.75));
+
+		e.runExperiment();
+		return e.getResults();
+	}
+
+	static double value(Object o) {
+		return o instanceof SummaryStat ? ((SummaryStat) o).mean() : ((Number) o).doubleValue();
+	}
+
+	private static void checkSame(PR bulk, PR single) {
+		Map<String, Object> exp = runExp(single);
+		Map<String, Object> act = runExp(bulk);
+		assertTrue(value(act.get("numJobsFinished")) > 0);
+
+		for (String name : new String[] { "flowMean", "tardMean", "weightedTardMean", "numJobsStarted",
+				"numJobsFinished" }) {
+			assertEquals(name, value(exp.get(name)), value(act.get(name)), 0.0);
+		}
+	}
+
+	@Test
+	public void gpRuleSize199ShouldMatchSingleCalc() {
+		checkSame(new WSC2010_GPRuleSize199(), new SingleRule199());
+	}
+
+	@Test
+	public void gpRuleSize98ShouldMatchSingleCalc() {
+		checkSame(new WSC2010_GPRuleSize98(), new SingleRule98());
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import jasima.shopSim.core.PR;
+import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.prioRules.gp.CompiledGPRule;
+import jasima.shopSim.prioRules.gp.GPExpression;
+import jasima.shopSim.prioRules.gp.GPRuleCompiler;
+import jasima.shopSim.prioRules.gp.GPRuleParser;
+import jasima.shopSim.prioRules.gp.WSC2010_GPRuleSize98;
+
+/**
+ * Tests for parsing and compiling GP rules at run time.
+ */
+public class TestCompiledGPRule {
+
+	// same as WSC2010_GPRuleSize98.calcPrio()
+	private static final String RULE_SIZE_98 = "ifte(max(1, rpt) - max(max(1, rpt), sl), w, bf) * bf * max("
+			+ "rpt / sl + max(-ifte(bf - sl, w, bf) + s + bf,"
+			+ "sAvg + bf * ifte(max(1, rpt) - max(sl, ttd), w, bf) - s - max(max(1, rpt), sl) + max(1, rpt) + 1)"
+			+ "* ifte(bf - sl, w, bf) - s,"
+			+ "sAvg + bf * ifte(max(1, rpt) - sl, w, bf) * (2 * rpt / sl - s) + rpt / sl - s + 1)";
+
+	@Test
+	public void infixAndPrefixShouldBeEquivalent() {
+		GPExpression infix = GPRuleParser.parse("rpt + 2 * -w / (pt - 1)");
+		GPExpression prefix = GPRuleParser.parse("add(rpt, div(mul(2, neg(w)), sub(pt, 1)))");
+
+		assertEquals(prefix, infix);
+		assertEquals(infix, GPRuleParser.parse(infix.toString()));
+	}
+
+	@Test
+	public void commonSubexpressionsShouldBeComputedOnce() {
+		CompiledGPRule r = GPRuleCompiler.compile("ifte(bf - sl, w, bf) * ifte(bf - sl, w, bf)");
+		// sub, ifte, mul
+		assertEquals(3, r.numInstructions());
+
+		r = GPRuleCompiler.compile("(rpt + w) * (w + rpt) - max(1, pt) + max(pt, 1)");
+		// add, mul, max, sub, add
+		assertEquals(5, r.numInstructions());
+	}
+
+	@Test
+	public void constantsShouldBeFolded() {
+		CompiledGPRule r = GPRuleCompiler.compile("rpt * (2 * 3 - max(1, 4))");
+		assertEquals(1, r.numInstructions());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownTerminalShouldBeRejected() {
+		GPRuleCompiler.compile("rpt + foo");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongArityShouldBeRejected() {
+		GPRuleCompiler.compile("ifte(rpt, w)");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void syntaxErrorsShouldBeRejected() {
+		GPRuleParser.parse("max(rpt, w");
+	}
+
+	@Test
+	public void compiledRuleShouldMatchHandWrittenRule() {
+		CompiledGPRule r = new CompiledGPRule(RULE_SIZE_98);
+		assertTrue(r.numInstructions() < GPRuleParser.parse(RULE_SIZE_98).size());
+
+		Map<String, Object> exp = TestBulkPrioCalc.runExp(new WSC2010_GPRuleSize98());
+		Map<String, Object> act = TestBulkPrioCalc.runExp(r);
+		Map<String, Object> actSingle = TestBulkPrioCalc.runExp(new CompiledGPRule(RULE_SIZE_98) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void calcPrios(PriorityQueue<?> q, double[] prios, int offset, int stride) {
+				for (int i = 0, n = q.size(); i < n; i++) {
+					prios[offset + i * stride] = calcPrio(q.get(i));
+				}
+			}
+		});
+
+		for (String name : new String[] { "flowMean", "tardMean", "weightedTardMean", "numJobsFinished" }) {
+			double v = TestBulkPrioCalc.value(exp.get(name));
+			assertEquals(name, v, TestBulkPrioCalc.value(act.get(name)), 0.0);
+			assertEquals(name, v, TestBulkPrioCalc.value(actSingle.get(name)), 0.0);
+		}
+	}
+
+	@Test
+	public void clonesShouldNotShareState() {
+		PR r = new CompiledGPRule("rpt * w");
+		PR c = r.clone();
+		assertTrue(c instanceof CompiledGPRule);
+		assertEquals(r.getName(), c.getName());
+	}
+
+}
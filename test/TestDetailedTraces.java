@@ -19,10 +19,17 @@
  * You should have received a copy of the GNU Affero General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  *******************************************************************************/
+import java.io.File;
+import java.io.IOException;
+
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import jasima.core.random.RandomFactory;
+import jasima.core.util.BinaryTraceFileProducer;
+import jasima.core.util.BinaryTraceReader;
 import jasima.core.util.ExperimentTest;
 import jasima.core.util.TraceFileProducer;
 import jasima.shopSim.core.PR;
@@ -46,6 +53,9 @@ import util.FileChecker;
  */
 public class TestDetailedTraces extends ExperimentTest {
 
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
 	@BeforeClass
 	public static void setUp() {
 		System.setProperty(RandomFactory.RANDOM_FACTORY_PROP_KEY, RandomFactory.class.getName());
@@ -65,6 +75,28 @@ public class TestDetailedTraces extends ExperimentTest {
 		FileChecker.checkFiles("log_HH.txt", "testInstances/traceHolthaus.txt");
 	}
 
+	@Test
+	public void holthausBinaryTraceShouldBeReproducible() throws IOException {
+		DynamicShopExperiment e = new DynamicShopExperiment();
+		e.setInitialSeed(42);
+		e.setSequencingRule(new SPT().setFinalTieBreaker(new TieBreakerFASFS()));
+
+		File trace = new File(tmp.getRoot(), "log_HH.jasTrace");
+		File text = new File(tmp.getRoot(), "log_HH_bin.txt");
+
+		BinaryTraceFileProducer t = new BinaryTraceFileProducer(trace.getPath());
+		// use small buffers so records span several of them
+		t.setBufferSize(1024);
+		t.setNumBuffers(2);
+		e.addShopListener(t);
+
+		e.runExperiment();
+		e.printResults();
+
+		BinaryTraceReader.convertToText(trace, text);
+		FileChecker.checkFiles(text.getPath(), "testInstances/traceHolthaus.txt");
+	}
+
 	@Test
 	public void mimac4rResultsShouldBeReproducibleBestOfFamilyBatching() {
 		PR pr = new WMOD().setFinalTieBreaker(new TieBreakerFASFS());
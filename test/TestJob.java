@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jasima.shopSim.core.Job;
+import jasima.shopSim.core.Operation;
+import jasima.shopSim.core.Route;
+import jasima.shopSim.core.Shop;
+
+/**
+ */
+public class TestJob {
+
+	@Test
+	public void valueStoreShouldBeConsistent() {
+		Job j = new Job(null);
+		assertNull(j.valueStoreGet("a"));
+		assertEquals(0, j.valueStoreGetNumKeys());
+
+		j.valueStorePut("a", 1);
+		assertEquals(1, j.valueStoreGet("a"));
+		assertEquals(1, j.valueStoreGetNumKeys());
+		assertEquals(1, j.valueStoreRemove("a"));
+		assertEquals(0, j.valueStoreGetNumKeys());
+	}
+
+	@Test
+	public void clonesShouldHaveIndependentValueStores() {
+		Job j = new Job(null);
+		j.valueStorePut("a", 1);
+
+		Job c = j.clone();
+		assertEquals(1, c.valueStoreGet("a"));
+
+		c.valueStorePut("a", 2);
+		j.valueStorePut("b", 3);
+		assertEquals(1, j.valueStoreGet("a"));
+		assertEquals(2, c.valueStoreGet("a"));
+		assertNull(c.valueStoreGet("b"));
+	}
+
+	@Test
+	public void jobsShouldShareKeyTableOfShop() {
+		Shop shop = new Shop();
+		shop.setArrayJobValueStores(true);
+		shop.init();
+		int h = shop.getJobKeyTable().keyHandle("a");
+
+		Job j1 = new Job(shop);
+		Job j2 = new Job(shop);
+		j1.valueStorePut("a", 1);
+		j2.valueStorePutByHandle(h, 2);
+		assertEquals(1, j1.valueStoreGetByHandle(h));
+		assertEquals(2, j2.valueStoreGet("a"));
+
+		Job c = j1.clone();
+		c.valueStorePutByHandle(h, 3);
+		assertEquals(1, j1.valueStoreGet("a"));
+		assertEquals(3, c.valueStoreGet("a"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void keyHandlesShouldRequireArrayValueStores() {
+		Job j = new Job(new Shop());
+		j.valueStorePut("a", 1);
+		j.valueStoreGetByHandle(1);
+	}
+
+	@Test
+	public void routeShouldProvideSameProcTimesAsJob() {
+		Random rnd = new Random(23);
+		Route r = new Route();
+		for (int i = 0; i < 50; i++) {
+			Operation o = new Operation();
+			o.setProcTime(rnd.nextDouble() * 100.0);
+			r.addSequentialOperation(o);
+		}
+
+		// job following the route uses its cached values, the other one computes
+		// them itself
+		Job viaRoute = new Job(null);
+		viaRoute.setOps(r.ops());
+		viaRoute.setRoute(r);
+		Job own = new Job(null);
+		own.setOps(r.ops().clone());
+		own.setRoute(r);
+
+		assertEquals(own.procSum(), viaRoute.procSum(), 0.0);
+		for (int t = 0; t < r.numOperations(); t++) {
+			viaRoute.setTaskNumber(t);
+			own.setTaskNumber(t);
+			assertEquals(own.remainingProcTime(), viaRoute.remainingProcTime(), 0.0);
+		}
+
+		// cached values are invalidated when operations change
+		Operation o = new Operation();
+		o.setProcTime(1.0);
+		r.addSequentialOperation(o);
+		assertEquals(own.procSum() + 1.0, r.procSum(), 1e-9);
+
+		// ... or their processing times change
+		o.setProcTime(2.0);
+		assertEquals(own.procSum() + 2.0, r.procSum(), 1e-9);
+		assertEquals(2.0, r.remainingProcTime(r.numOperations() - 1), 0.0);
+	}
+
+	@Test
+	public void remainingProcTimeShouldBeZeroAtEndOfRoute() {
+		Route r = new Route();
+		for (int i = 1; i <= 3; i++) {
+			Operation o = new Operation();
+			o.setProcTime(i);
+			r.addSequentialOperation(o);
+		}
+
+		assertEquals(6.0, r.remainingProcTime(0), 0.0);
+		assertEquals(3.0, r.remainingProcTime(2), 0.0);
+		assertEquals(0.0, r.remainingProcTime(3), 0.0);
+
+		// a job after its last operation
+		Job j = new Job(null);
+		j.setOps(r.ops());
+		j.setRoute(r);
+		j.setTaskNumber(3);
+		assertEquals(0.0, j.remainingProcTime(), 0.0);
+	}
+
+	@Test
+	public void routesSharingOperationsShouldBothSeeProcTimeChanges() {
+		Route r1 = new Route();
+		Operation o = new Operation();
+		o.setProcTime(1.0);
+		r1.addSequentialOperation(o);
+		Route r2 = new Route();
+		r2.setOperations(r1.getOperations());
+
+		assertEquals(1.0, r1.procSum(), 0.0);
+		assertEquals(1.0, r2.procSum(), 0.0);
+
+		o.setProcTime(2.0);
+		assertEquals(2.0, r1.procSum(), 0.0);
+		assertEquals(2.0, r2.procSum(), 0.0);
+	}
+
+	@Test
+	public void emptyRouteShouldHaveNoProcTime() {
+		Route r = new Route();
+		assertEquals(0.0, r.procSum(), 0.0);
+		assertEquals(0.0, r.remainingProcTime(0), 0.0);
+	}
+
+}
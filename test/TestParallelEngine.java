@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import jasima.core.random.continuous.DblUniformRange;
+import jasima.core.random.discrete.IntUniformRange;
+import jasima.core.simulation.ParallelEngine;
+import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
+import jasima.shopSim.models.dynamicShop.DynamicShopExperiment;
+import jasima.shopSim.models.mimac.MimacExperiment;
+import jasima.shopSim.models.mimac.MimacExperiment.DataSet;
+import jasima.shopSim.prioRules.basic.SPT;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+import jasima.shopSim.prioRules.setup.ATCS;
+import util.ExtendedJobStatCollector;
+
+/**
+ * Checks that a simulation executed by a {@link ParallelEngine} produces the
+ * same results independent of the number of logical processes used.
+ */
+public class TestParallelEngine {
+
+	private static final String[] MIMAC_RESULTS = { "simTime", "numJobsStarted", "numJobsFinished", "flowMean",
+			"tardMean", "weightedTardMean" };
+
+	private static class Mimac extends MimacExperiment {
+		private static final long serialVersionUID = 1L;
+
+		ParallelEngine engine;
+
+		@Override
+		protected ParallelEngine createParallelEngine() {
+			engine = super.createParallelEngine();
+			return engine;
+		}
+	}
+
+	private static Mimac createMimac(int numLogicalProcesses) {
+		Mimac e = new Mimac();
+		e.setInitialSeed(-6437543093816807328l);
+		e.setScenario(DataSet.FAB4r);
+		e.setDueDateFactors(new DblUniformRange(2.0, 5.0));
+		e.setJobWeights(new IntUniformRange(1, 10));
+		e.setSimulationLength(365 * 24 * 60);
+		e.setEnableLookAhead(false);
+		e.addShopListener(new ExtendedJobStatCollector());
+		e.setNumLogicalProcesses(numLogicalProcesses);
+
+		ATCS atcs = new ATCS(0.01, 0.5);
+		atcs.setTieBreaker(new TieBreakerFASFS());
+		e.setSequencingRule(atcs);
+		e.setBatchForming(new HighestJobBatchingMBS(0.75));
+
+		return e;
+	}
+
+	private static DynamicShopExperiment createDynShop(int numLogicalProcesses) {
+		DynamicShopExperiment e = new DynamicShopExperiment();
+		e.setInitialSeed(23);
+		e.setNumMachines(10);
+		e.setUtilLevel(0.9);
+		e.setStopArrivalsAfterNumJobs(2000);
+		e.setNumLogicalProcesses(numLogicalProcesses);
+		e.setSequencingRule(new SPT().setFinalTieBreaker(new TieBreakerFASFS()));
+		return e;
+	}
+
+	private static void checkSameResults(Map<String, Object> exp, Map<String, Object> act, String... names) {
+		for (String name : names) {
+			assertEquals(name, TestBulkPrioCalc.value(exp.get(name)), TestBulkPrioCalc.value(act.get(name)), 0.0);
+		}
+	}
+
+	@Test
+	public void mimacResultsShouldNotDependOnNumProcesses() {
+		Map<String, Object> expected = createMimac(1).runExperiment();
+
+		Mimac parallel = createMimac(4);
+		checkSameResults(expected, parallel.runExperiment(), MIMAC_RESULTS);
+		assertTrue(parallel.engine.numWindows() > 0);
+
+		checkSameResults(expected, createMimac(3).runExperiment(), MIMAC_RESULTS);
+	}
+
+	@Test
+	public void mimacResultsShouldEqualSequentialSimulation() {
+		Mimac sequential = createMimac(0);
+		Map<String, Object> expected = sequential.runExperiment();
+		assertNull(sequential.engine);
+
+		checkSameResults(expected, createMimac(4).runExperiment(), MIMAC_RESULTS);
+	}
+
+	@Test
+	public void dynamicShopResultsShouldEqualSequentialSimulation() {
+		Map<String, Object> expected = createDynShop(0).runExperiment();
+		checkSameResults(expected, createDynShop(4).runExperiment(), "simTime", "flowtime", "tardiness", "numTardy",
+				"cMax");
+	}
+
+	@Test
+	public void dynamicShopResultsShouldNotDependOnNumProcesses() {
+		Map<String, Object> expected = createDynShop(1).runExperiment();
+		checkSameResults(expected, createDynShop(4).runExperiment(), "simTime", "flowtime", "tardiness", "numTardy",
+				"cMax");
+	}
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and
+ * logistics.
+ *
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jasima.shopSim.core.Job;
+import jasima.shopSim.core.PR;
+import jasima.shopSim.core.PrioRuleTarget;
+import jasima.shopSim.core.PriorityQueue;
+import jasima.shopSim.prioRules.basic.EDD;
+import jasima.shopSim.prioRules.basic.FCFS;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+
+/**
+ * Checks that a {@link PriorityQueue} using time-invariant rules (heap) selects
+ * exactly the same jobs as a queue re-evaluating all priorities.
+ */
+public class TestPriorityQueueHeap {
+
+	/** Wraps a rule hiding that it is time-invariant. */
+	private static class NotInvariant extends PR {
+		private static final long serialVersionUID = 1L;
+
+		private final PR base;
+
+		public NotInvariant(PR base) {
+			super();
+			this.base = base;
+		}
+
+		@Override
+		public double calcPrio(PrioRuleTarget entry) {
+			return base.calcPrio(entry);
+		}
+	}
+
+	private static PR rules(boolean invariant, PR... prs) {
+		PR res = null;
+		for (PR pr : prs) {
+			PR r = invariant ? pr : new NotInvariant(pr);
+			if (res == null)
+				res = r;
+			else
+				res.setFinalTieBreaker(r);
+		}
+		assertEquals(invariant, res.isTimeInvariant());
+		return res;
+	}
+
+	private static void checkSameSelection(long seed, boolean switchRules) {
+		Random rnd = new Random(seed);
+		PriorityQueue<Job> heap = new PriorityQueue<Job>(null);
+		PriorityQueue<Job> lin = new PriorityQueue<Job>(null);
+		heap.setSequencingRule(rules(true, new FCFS(), new TieBreakerFASFS()));
+		lin.setSequencingRule(rules(false, new FCFS(), new TieBreakerFASFS()));
+
+		ArrayList<Job> jobs = new ArrayList<Job>();
+		int jobNum = 0;
+		for (int i = 0; i < 20000; i++) {
+			switch (rnd.nextInt(5)) {
+			case 0:
+			case 1:
+				Job j = new Job(null);
+				j.setJobNum(jobNum++);
+				// produce many ties in the primary rule
+				j.setArriveTime(rnd.nextInt(10));
+				j.setDueDate(rnd.nextInt(20));
+				heap.add(j);
+				lin.add(j);
+				jobs.add(j);
+				break;
+			case 2:
+				Job exp = lin.removeLargest();
+				assertSame("removeLargest #" + i, exp, heap.removeLargest());
+				jobs.remove(exp);
+				break;
+			case 3:
+				assertSame("peekLargest #" + i, lin.peekLargest(), heap.peekLargest());
+				if (lin.size() > 0)
+					assertArrayEquals(lin.getBestPrios(), heap.getBestPrios(), 0.0);
+				break;
+			default:
+				if (jobs.size() > 0) {
+					Job r = jobs.remove(rnd.nextInt(jobs.size()));
+					assertTrue(lin.remove(r));
+					assertTrue(heap.remove(r));
+				}
+			}
+
+			if (switchRules && rnd.nextInt(500) == 0) {
+				heap.setSequencingRule(rules(true, new EDD(), new TieBreakerFASFS()));
+				lin.setSequencingRule(rules(false, new EDD(), new TieBreakerFASFS()));
+			}
+
+			if (rnd.nextInt(1000) == 0) {
+				Job[] expAll = lin.getAllElementsInOrder(new Job[lin.size()]);
+				Job[] actAll = heap.getAllElementsInOrder(new Job[heap.size()]);
+				assertArrayEquals(expAll, actAll);
+			}
+
+			assertEquals(lin.size(), heap.size());
+		}
+
+		while (lin.size() > 0) {
+			assertSame(lin.removeLargest(), heap.removeLargest());
+		}
+		assertEquals(0, heap.size());
+	}
+
+	@Test
+	public void heapShouldSelectSameJobsAsLinearScan() {
+		checkSameSelection(23, false);
+		checkSameSelection(42, false);
+	}
+
+	@Test
+	public void heapShouldHandleRuleChanges() {
+		checkSameSelection(4711, true);
+	}
+
+}
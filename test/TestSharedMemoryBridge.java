@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import jasima.core.simulation.SharedMemoryBridge;
+import jasima.core.simulation.VectorEnvironment;
+
+/**
+ * Checks that stepping environments through a {@link SharedMemoryBridge}
+ * produces the same results as stepping them directly.
+ */
+public class TestSharedMemoryBridge {
+
+	private static final int NUM_ENVS = 4;
+	private static final int NUM_STEPS = 800;
+
+	private static VectorEnvironment createEnv() {
+		return new VectorEnvironment(TestVectorEnvironment::createExperiment, TestVectorEnvironment.QueueLengths::new,
+				NUM_ENVS, 2);
+	}
+
+	private static Path tempFile() throws IOException {
+		Path file = Files.createTempFile("jasima", ".bridge");
+		// mapped files can't be deleted on all platforms while still mapped
+		file.toFile().deleteOnExit();
+		return file;
+	}
+
+	private static int action(int step, int env) {
+		return (step + env) % 3;
+	}
+
+	@Test
+	public void bridgeShouldProduceSameResultsAsDirectStepping() throws Exception {
+		Path file = tempFile();
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		try (VectorEnvironment direct = createEnv();
+				VectorEnvironment bridged = createEnv();
+				SharedMemoryBridge bridge = new SharedMemoryBridge(bridged, file)) {
+			Future<?> server = exec.submit(bridge::serve);
+
+			try (SharedMemoryBridge.Client client = new SharedMemoryBridge.Client(file)) {
+				assertEquals(NUM_ENVS, client.numEnvs());
+				assertEquals(direct.observationSize(), client.observationSize());
+
+				double[] obs = new double[NUM_ENVS * client.observationSize()];
+				int[] actions = new int[NUM_ENVS];
+				int numDone = 0;
+
+				direct.reset();
+				client.reset();
+				client.getObservations(obs);
+				assertEquals(direct.observations()[0], obs[0], 0.0);
+
+				for (int s = 0; s < NUM_STEPS; s++) {
+					for (int i = 0; i < NUM_ENVS; i++) {
+						actions[i] = action(s, i);
+					}
+					direct.step(actions);
+					client.step(actions);
+
+					client.getObservations(obs);
+					for (int k = 0; k < obs.length; k++) {
+						assertEquals("step " + s, direct.observations()[k], obs[k], 0.0);
+					}
+					for (int i = 0; i < NUM_ENVS; i++) {
+						assertEquals(direct.rewards()[i], client.getReward(i), 0.0);
+						assertEquals(direct.dones()[i], client.isDone(i));
+						if (client.isDone(i))
+							numDone++;
+					}
+				}
+				assertTrue(numDone > 0);
+
+				client.shutdown();
+			}
+			server.get();
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
+	@Test
+	public void errorsShouldBeReportedToClient() throws Exception {
+		Path file = tempFile();
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		try (VectorEnvironment env = createEnv(); SharedMemoryBridge bridge = new SharedMemoryBridge(env, file)) {
+			Future<?> server = exec.submit(bridge::serve);
+
+			try (SharedMemoryBridge.Client client = new SharedMemoryBridge.Client(file)) {
+				client.reset();
+				try {
+					client.step(new int[] { 0, 1, 2, 3 }); // there are only 3 rules
+					fail("exception expected");
+				} catch (IllegalStateException expected) {
+				}
+			}
+
+			try {
+				server.get();
+				fail("exception expected");
+			} catch (ExecutionException expected) {
+				assertTrue(expected.getCause() instanceof ArrayIndexOutOfBoundsException);
+			}
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void clientShouldRejectInvalidFiles() throws Exception {
+		Path file = tempFile();
+		Files.write(file, new byte[1024]);
+		new SharedMemoryBridge.Client(file).close();
+	}
+
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import jasima.core.random.continuous.DblUniformRange;
+import jasima.core.random.discrete.IntUniformRange;
+import jasima.shopSim.core.Job;
+import jasima.shopSim.core.Shop;
+import jasima.shopSim.core.WorkStation;
+import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
+import jasima.shopSim.models.mimac.MimacExperiment;
+import jasima.shopSim.models.mimac.MimacExperiment.DataSet;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+import jasima.shopSim.prioRules.setup.ATCS;
+import jasima.shopSim.util.ShopObservationEncoder;
+
+/**
+ * Checks that the features maintained incrementally by
+ * {@link ShopObservationEncoder} equal the ones computed from scratch.
+ */
+public class TestShopObservationEncoder {
+
+	private static MimacExperiment createExperiment() {
+		MimacExperiment e = new MimacExperiment();
+		e.setInitialSeed(-6437543093816807328l);
+		e.setScenario(DataSet.FAB4r);
+		e.setDueDateFactors(new DblUniformRange(2.0, 5.0));
+		e.setJobWeights(new IntUniformRange(1, 10));
+		e.setSimulationLength(60 * 24 * 60);
+		e.setEnableLookAhead(false);
+
+		ATCS atcs = new ATCS(0.01, 0.5);
+		atcs.setTieBreaker(new TieBreakerFASFS());
+		e.setSequencingRule(atcs);
+		e.setBatchForming(new HighestJobBatchingMBS(0.75));
+
+		e.initExperiment();
+		e.resetExperiment();
+		return e;
+	}
+
+	private static int maxInGroup(Shop shop) {
+		int res = 0;
+		for (WorkStation m : shop.getMachines()) {
+			res = Math.max(res, m.numInGroup());
+		}
+		return res;
+	}
+
+	/** Computes the features of a workstation by scanning its queue. */
+	private static void checkStation(ShopObservationEncoder enc, WorkStation m, double[] obs) {
+		int o = m.index() * enc.stationSize();
+		double now = m.shop().simTime();
+		String s = m + "@" + now;
+
+		int n = 0;
+		double remSum = 0.0, slackSum = 0.0;
+		for (int i = 0; i < m.queue.size(); i++) {
+			Job j = m.queue.get(i);
+			if (!j.isFuture()) {
+				n++;
+				remSum += j.remainingProcTime();
+				slackSum += j.getDueDate() - now - j.remainingProcTime();
+			}
+		}
+		double remMean = n > 0 ? remSum / n : 0.0;
+		double slackMean = n > 0 ? slackSum / n : 0.0;
+		double remSq = 0.0, slackSq = 0.0;
+		for (int i = 0; i < m.queue.size(); i++) {
+			Job j = m.queue.get(i);
+			if (!j.isFuture()) {
+				double r = j.remainingProcTime();
+				double sl = j.getDueDate() - now - r;
+				remSq += (r - remMean) * (r - remMean);
+				slackSq += (sl - slackMean) * (sl - slackMean);
+			}
+		}
+
+		assertEquals(s, m.numJobsWaiting(), n);
+		assertEquals(s, n, obs[o + ShopObservationEncoder.QUEUE_LENGTH], 0.0);
+		assertEquals(s, m.workContent(false), obs[o + ShopObservationEncoder.WORK_CONTENT], 0.0);
+		assertEquals(s, m.workContent(true), obs[o + ShopObservationEncoder.WORK_CONTENT_FUTURE], 0.0);
+		assertEquals(s, m.numBusy(), obs[o + ShopObservationEncoder.NUM_BUSY], 0.0);
+		assertEquals(s, slackMean, obs[o + ShopObservationEncoder.SLACK_MEAN], 1e-6 * (1.0 + Math.abs(slackMean)));
+		assertEquals(s, remMean, obs[o + ShopObservationEncoder.REM_PROC_TIME_MEAN], 1e-6 * (1.0 + remMean));
+		// compare variances, rounding errors of the incremental computation are
+		// amplified by the square root for standard deviations close to 0
+		double slackStdDev = obs[o + ShopObservationEncoder.SLACK_STD_DEV];
+		assertEquals(s, n > 1 ? slackSq / (n - 1) : 0.0, slackStdDev * slackStdDev,
+				1e-9 * (1.0 + slackMean * slackMean + slackSq));
+		double remStdDev = obs[o + ShopObservationEncoder.REM_PROC_TIME_STD_DEV];
+		assertEquals(s, n > 1 ? remSq / (n - 1) : 0.0, remStdDev * remStdDev,
+				1e-9 * (1.0 + remMean * remMean + remSq));
+		for (int i = 0; i < enc.maxInGroup(); i++) {
+			double exp = i < m.numInGroup() ? m.getSetupState(i) : -1;
+			assertEquals(s, exp, obs[o + ShopObservationEncoder.SETUP_STATES + i], 0.0);
+		}
+	}
+
+	@Test
+	public void incrementalFeaturesShouldEqualFullScan() {
+		MimacExperiment e = createExperiment();
+		Shop shop = (Shop) e.sim().getRootComponent().getComponent(0);
+		ShopObservationEncoder enc = new ShopObservationEncoder(shop.machines().numComponents(), maxInGroup(shop));
+		enc.reset(e);
+
+		double[] obs = new double[enc.observationSize() + 3];
+		ByteBuffer buf = ByteBuffer.allocateDirect(enc.observationSize() * Double.BYTES);
+		int numChecks = 0;
+		int[] numEvents = { 0 };
+		while (e.sim().runUntil(ev -> ++numEvents[0] % 199 == 0)) {
+			enc.observe(e, obs, 3);
+			double[] stationObs = new double[obs.length - 3];
+			System.arraycopy(obs, 3, stationObs, 0, stationObs.length);
+			for (WorkStation m : shop.getMachines()) {
+				checkStation(enc, m, stationObs);
+			}
+
+			buf.clear();
+			enc.encode(buf);
+			assertEquals(buf.capacity(), buf.position());
+			for (int i = 0; i < stationObs.length; i++) {
+				assertEquals(stationObs[i], buf.getDouble(i * Double.BYTES), 0.0);
+			}
+			numChecks++;
+		}
+		assertTrue(numChecks > 100);
+	}
+
+	@Test
+	public void rewardShouldBeTotalWaitingTime() {
+		MimacExperiment e = createExperiment();
+		Shop shop = (Shop) e.sim().getRootComponent().getComponent(0);
+		ShopObservationEncoder enc = new ShopObservationEncoder(shop.machines().numComponents(), maxInGroup(shop));
+		enc.reset(e);
+
+		// integrate number of waiting jobs event by event; time is not advanced to
+		// the event runUntil() stops at
+		double[] area = { 0.0 };
+		double[] last = { e.sim().simTime() };
+		int[] numEvents = { 0 };
+		while (e.sim().runUntil(ev -> {
+			if (++numEvents[0] % 5000 == 0)
+				return true;
+
+			int waiting = 0;
+			for (WorkStation m : shop.getMachines()) {
+				waiting += m.numJobsWaiting();
+			}
+			area[0] += waiting * (ev.getTime() - last[0]);
+			last[0] = ev.getTime();
+			return false;
+		})) {
+			numEvents[0]++;
+			double r = enc.reward(e);
+			assertEquals(-area[0], r, 1e-6 * (1.0 + area[0]));
+			area[0] = 0.0;
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import jasima.core.random.continuous.DblUniformRange;
+import jasima.core.random.discrete.IntUniformRange;
+import jasima.core.simulation.SimEvent;
+import jasima.core.simulation.SimulationExperiment;
+import jasima.shopSim.core.Shop;
+import jasima.shopSim.core.WorkStation;
+import jasima.shopSim.core.batchForming.HighestJobBatchingMBS;
+import jasima.shopSim.models.dynamicShop.DynamicShopExperiment;
+import jasima.shopSim.models.dynamicShop.DynamicShopExperiment.Scenario;
+import jasima.shopSim.models.mimac.MimacExperiment;
+import jasima.shopSim.models.mimac.MimacExperiment.DataSet;
+import jasima.shopSim.prioRules.basic.FCFS;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+import jasima.shopSim.prioRules.setup.ATCS;
+import jasima.shopSim.prioRules.upDownStream.PTPlusWINQPlusNPT;
+import util.ExtendedJobStatCollector;
+
+/**
+ * Checks that forked simulations continue exactly like the original one.
+ */
+public class TestSimulationFork {
+
+	private static final double FORK_TIME = 100000.0;
+
+	private static MimacExperiment createExperiment() {
+		MimacExperiment e = new MimacExperiment();
+		e.setInitialSeed(-6437543093816807328l);
+		e.setScenario(DataSet.FAB4r);
+		e.setDueDateFactors(new DblUniformRange(2.0, 5.0));
+		e.setJobWeights(new IntUniformRange(1, 10));
+		e.setSimulationLength(365 * 24 * 60);
+		e.setEnableLookAhead(false);
+		e.addShopListener(new ExtendedJobStatCollector());
+
+		ATCS atcs = new ATCS(0.01, 0.5);
+		atcs.setTieBreaker(new TieBreakerFASFS());
+		e.setSequencingRule(atcs);
+		e.setBatchForming(new HighestJobBatchingMBS(0.75));
+
+		e.initExperiment();
+		e.resetExperiment();
+
+		return e;
+	}
+
+	private static DynamicShopExperiment createDynamicShopExperiment() {
+		DynamicShopExperiment e = new DynamicShopExperiment();
+		e.setInitialSeed(42);
+		e.setScenario(Scenario.FLOW_SHOP);
+		e.setNumMachines(5);
+		e.setUtilLevel(0.9);
+		e.setWeights(new IntUniformRange(1, 10));
+		e.setSimulationLength(20000.0);
+		e.addShopListener(new ExtendedJobStatCollector());
+		e.setSequencingRule(new PTPlusWINQPlusNPT().setFinalTieBreaker(new TieBreakerFASFS()));
+
+		e.initExperiment();
+		e.resetExperiment();
+
+		return e;
+	}
+
+	private static Map<String, Object> finish(SimulationExperiment e) {
+		e.sim().runUntil(ev -> false);
+		e.afterRun();
+		e.done();
+
+		Map<String, Object> res = new HashMap<>();
+		e.sim().produceResults(res);
+		return res;
+	}
+
+	private static void checkSameResults(Map<String, Object> exp, Map<String, Object> act) {
+		for (String name : new String[] { "simTime", "numJobsStarted", "numJobsFinished", "flowMean", "tardMean",
+				"weightedTardMean" }) {
+			assertEquals(name, TestBulkPrioCalc.value(exp.get(name)), TestBulkPrioCalc.value(act.get(name)), 0.0);
+		}
+	}
+
+	@Test
+	public void forksShouldContinueLikeOriginal() {
+		Map<String, Object> expected = finish(createExperiment());
+
+		SimulationExperiment e = createExperiment();
+		e.sim().runUntil(ev -> ev.getTime() > FORK_TIME);
+		assertEquals(FORK_TIME, e.sim().simTime(), 1000.0);
+
+		SimulationExperiment f1 = e.fork();
+		SimulationExperiment f2 = e.fork();
+		assertNotSame(e.sim(), f1.sim());
+
+		// finish in different order than created
+		checkSameResults(expected, finish(f2));
+		checkSameResults(expected, finish(e));
+		checkSameResults(expected, finish(f1));
+	}
+
+	@Test
+	public void dynamicShopForksShouldContinueLikeOriginal() {
+		Map<String, Object> expected = finish(createDynamicShopExperiment());
+		assertTrue(TestBulkPrioCalc.value(expected.get("numJobsFinished")) > 0);
+
+		SimulationExperiment e = createDynamicShopExperiment();
+		e.sim().runUntil(ev -> ev.getTime() > 5000.0);
+
+		SimulationExperiment f = e.fork();
+		checkSameResults(expected, finish(f));
+		checkSameResults(expected, finish(e));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lambdaEventsShouldPreventFork() {
+		SimulationExperiment e = createDynamicShopExperiment();
+		e.sim().schedule(20000.0, SimEvent.EVENT_PRIO_NORMAL, () -> {
+		});
+		e.sim().runUntil(ev -> ev.getTime() > 5000.0);
+
+		e.fork();
+	}
+
+	@Test
+	public void forksShouldBeIndependent() {
+		Map<String, Object> expected = finish(createExperiment());
+
+		SimulationExperiment e = createExperiment();
+		e.sim().runUntil(ev -> ev.getTime() > FORK_TIME);
+
+		// use a different rule in the fork
+		SimulationExperiment f = e.fork();
+		Shop shop = (Shop) f.sim().getRootComponent().getComponent(0);
+		for (WorkStation ws : shop.getMachines()) {
+			ws.queue.setSequencingRule(new FCFS().setFinalTieBreaker(new TieBreakerFASFS()));
+		}
+		Map<String, Object> forkRes = finish(f);
+
+		checkSameResults(expected, finish(e));
+		double diff = TestBulkPrioCalc.value(expected.get("flowMean")) - TestBulkPrioCalc.value(forkRes.get("flowMean"));
+		assertTrue(Math.abs(diff) > 1e-6);
+	}
+
+}
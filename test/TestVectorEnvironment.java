@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import jasima.core.simulation.SimulationExperiment;
+import jasima.core.simulation.StepObserver;
+import jasima.core.simulation.VectorEnvironment;
+import jasima.shopSim.core.PR;
+import jasima.shopSim.core.Shop;
+import jasima.shopSim.core.WorkStation;
+import jasima.shopSim.models.dynamicShop.DynamicShopExperiment;
+import jasima.shopSim.prioRules.basic.EDD;
+import jasima.shopSim.prioRules.basic.FCFS;
+import jasima.shopSim.prioRules.basic.SPT;
+import jasima.shopSim.prioRules.basic.TieBreakerFASFS;
+
+/**
+ * Checks that a {@link VectorEnvironment} produces the same results as stepping
+ * each environment on its own, independent of the number of threads used.
+ */
+public class TestVectorEnvironment {
+
+	private static final int NUM_ENVS = 7;
+	private static final int NUM_STEPS = 1500;
+
+	static DynamicShopExperiment createExperiment() {
+		DynamicShopExperiment e = new DynamicShopExperiment();
+		e.setInitialSeed(42);
+		e.setNumMachines(5);
+		e.setUtilLevel(0.9);
+		e.setStopAfterNumJobs(100);
+		e.setSequencingRule(new FCFS().setFinalTieBreaker(new TieBreakerFASFS()));
+		e.setJobSequencingRules(new PR[] { new FCFS().setFinalTieBreaker(new TieBreakerFASFS()),
+				new SPT().setFinalTieBreaker(new TieBreakerFASFS()),
+				new EDD().setFinalTieBreaker(new TieBreakerFASFS()) });
+		return e;
+	}
+
+	/** Observes the number of jobs waiting at each machine. */
+	static class QueueLengths implements StepObserver {
+		private double lastTime;
+
+		@Override
+		public int observationSize() {
+			return 6;
+		}
+
+		@Override
+		public void reset(SimulationExperiment env) {
+			lastTime = env.sim().simTime();
+		}
+
+		@Override
+		public void observe(SimulationExperiment env, double[] obs, int offset) {
+			Shop shop = (Shop) env.sim().getRootComponent().getComponent(0);
+			WorkStation[] machines = shop.getMachines();
+			for (int i = 0; i < machines.length; i++) {
+				obs[offset + i] = machines[i].queue.size();
+			}
+			obs[offset + machines.length] = shop.jobsStarted - shop.jobsFinished;
+		}
+
+		@Override
+		public double reward(SimulationExperiment env) {
+			double t = env.sim().simTime();
+			double r = lastTime - t;
+			lastTime = t;
+			return r;
+		}
+	}
+
+	private static int action(int step, int env) {
+		return (step * 7 + env * 3 + step / 11) % 3;
+	}
+
+	private static double[] run(Supplier<? extends SimulationExperiment> factory, int numThreads) {
+		double[] res = new double[NUM_STEPS * NUM_ENVS * 8];
+		int[] actions = new int[NUM_ENVS];
+		int numDone = 0;
+		try (VectorEnvironment v = new VectorEnvironment(factory, QueueLengths::new, NUM_ENVS, numThreads)) {
+			v.reset();
+			int n = 0;
+			for (int s = 0; s < NUM_STEPS; s++) {
+				for (int i = 0; i < NUM_ENVS; i++) {
+					actions[i] = action(s, i);
+				}
+				v.step(actions);
+
+				for (int i = 0; i < NUM_ENVS; i++) {
+					for (int k = 0; k < v.observationSize(); k++) {
+						res[n++] = v.observations()[i * v.observationSize() + k];
+					}
+					res[n++] = v.rewards()[i];
+					res[n++] = v.dones()[i] ? 1.0 : 0.0;
+					if (v.dones()[i])
+						numDone++;
+				}
+			}
+		}
+		assertTrue("no episode finished", numDone > 0);
+		return res;
+	}
+
+	@Test
+	public void parallelStepsShouldEqualSequentialSteps() {
+		double[] exp = run(TestVectorEnvironment::createExperiment, 1);
+		assertArrayEquals(exp, run(TestVectorEnvironment::createExperiment, 3), 0.0);
+		assertArrayEquals(exp, run(TestVectorEnvironment::createExperiment, NUM_ENVS), 0.0);
+	}
+
+	@Test
+	public void clonedExperimentsShouldBeIndependent() {
+		DynamicShopExperiment template = createExperiment();
+		double[] exp = run(TestVectorEnvironment::createExperiment, 1);
+		assertArrayEquals(exp, run(template::clone, 4), 0.0);
+	}
+
+	@Test
+	public void environmentsShouldFollowTheirOwnActions() {
+		// a single environment stepped manually
+		SimulationExperiment e = createExperiment();
+		QueueLengths obs = new QueueLengths();
+		e.initExperiment();
+		e.resetExperiment();
+		e.sim().setLastSimTime(e.sim().simTime());
+		obs.reset(e);
+
+		try (VectorEnvironment v = new VectorEnvironment(TestVectorEnvironment::createExperiment, QueueLengths::new,
+				NUM_ENVS, 2)) {
+			v.reset();
+			int[] actions = new int[NUM_ENVS];
+			double[] o = new double[obs.observationSize()];
+			for (int s = 0; s < 200; s++) {
+				for (int i = 0; i < NUM_ENVS; i++) {
+					actions[i] = action(s, i);
+				}
+				v.step(actions);
+
+				boolean more = e.sim().runStep(actions[NUM_ENVS - 1]);
+				assertTrue(more);
+				e.sim().setLastSimTime(e.sim().simTime());
+				assertEquals(obs.reward(e), v.rewards()[NUM_ENVS - 1], 0.0);
+				obs.observe(e, o, 0);
+				for (int k = 0; k < o.length; k++) {
+					assertEquals(o[k], v.observations()[(NUM_ENVS - 1) * o.length + k], 0.0);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import jasima.core.random.continuous.DblBeta;
+import jasima.core.random.continuous.DblChiSquared;
+import jasima.core.random.continuous.DblDistribution;
+import jasima.core.random.continuous.DblExp;
+import jasima.core.random.continuous.DblGamma;
+import jasima.core.random.continuous.DblLogNormal;
+import jasima.core.random.continuous.DblNormal;
+import jasima.core.random.continuous.DblStream;
+import jasima.core.random.continuous.DblTDist;
+import jasima.core.random.continuous.DblWeibull;
+import jasima.core.util.MersenneTwister;
+
+/**
+ */
+public class TestFastSampling {
+
+	private static final int NUM_SAMPLES = 1000000;
+
+	/**
+	 * Checks the sample mean and variance of values produced by fast sampling
+	 * against the analytic mean and variance of the distribution.
+	 */
+	private static void checkMoments(DblDistribution d, double relTolerance) {
+		double expVar = d.getDistribution().getNumericalVariance();
+
+		d.setFastSampling(true);
+		checkMoments(d, d.getNumericalMean(), expVar, relTolerance);
+	}
+
+	private static void checkMoments(DblStream s, double expMean, double expVar, double relTolerance) {
+		s.setRndGen(new MersenneTwister(23));
+
+		double sum = 0.0, sumSq = 0.0;
+		for (int i = 0; i < NUM_SAMPLES; i++) {
+			double v = s.nextDbl();
+			sum += v;
+			sumSq += v * v;
+		}
+		double mean = sum / NUM_SAMPLES;
+		double var = sumSq / NUM_SAMPLES - mean * mean;
+
+		String name = s.toString();
+		assertEquals(name + " mean", expMean, mean, relTolerance * Math.max(1.0, Math.abs(expMean)));
+		assertEquals(name + " variance", expVar, var, relTolerance * Math.max(1.0, expVar));
+	}
+
+	@Test
+	public void normalShouldHaveCorrectMoments() {
+		DblNormal n = new DblNormal(10.0, 2.0);
+		n.setFastSampling(true);
+		checkMoments(n, 10.0, 4.0, 0.01);
+	}
+
+	@Test
+	public void expShouldHaveCorrectMoments() {
+		checkMoments(new DblExp(10.0), 0.01);
+	}
+
+	@Test
+	public void gammaShouldHaveCorrectMoments() {
+		checkMoments(new DblGamma(2.0, 5.0), 0.01);
+		// heavy tail: the sample variance has a standard error of about 0.5%
+		checkMoments(new DblGamma(0.3, 2.0), 0.02);
+	}
+
+	@Test
+	public void betaShouldHaveCorrectMoments() {
+		checkMoments(new DblBeta(2.0, 5.0), 0.01);
+		checkMoments(new DblBeta(0.5, 0.5), 0.01);
+	}
+
+	@Test
+	public void logNormalShouldHaveCorrectMoments() {
+		checkMoments(new DblLogNormal(2.0, 0.5), 0.01);
+	}
+
+	@Test
+	public void chiSquaredShouldHaveCorrectMoments() {
+		checkMoments(new DblChiSquared(3), 0.01);
+	}
+
+	@Test
+	public void tDistShouldHaveCorrectMoments() {
+		checkMoments(new DblTDist(10.0), 0.01);
+	}
+
+	@Test
+	public void weibullShouldHaveCorrectMoments() {
+		checkMoments(new DblWeibull(2.0, 10.0), 0.01);
+	}
+
+	@Test
+	public void fastSamplingShouldBeOptIn() {
+		DblGamma g1 = new DblGamma(2.0, 5.0);
+		g1.setRndGen(new MersenneTwister(42));
+		DblGamma g2 = new DblGamma(2.0, 5.0);
+		g2.setRndGen(new MersenneTwister(42));
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(g2.getDistribution().inverseCumulativeProbability(g2.getRndGen().nextDouble()), g1.nextDbl(),
+					0.0);
+		}
+	}
+
+}
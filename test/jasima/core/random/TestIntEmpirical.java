@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jasima.core.random.discrete.IntEmpirical;
+import jasima.core.util.MersenneTwister;
+
+/**
+ */
+public class TestIntEmpirical {
+
+	private static double[] randomProbs(Random rnd, int n) {
+		double[] probs = new double[n];
+		double sum = 0.0;
+		for (int i = 0; i < n; i++) {
+			// some zero probabilities
+			probs[i] = rnd.nextInt(5) == 0 ? 0.0 : rnd.nextDouble();
+			sum += probs[i];
+		}
+		for (int i = 0; i < n; i++) {
+			probs[i] /= sum;
+		}
+		return probs;
+	}
+
+	/** The linear search used by former versions of IntEmpirical. */
+	private static int linearSearch(double[] probs, double prob) {
+		double d = 0.0d;
+		for (int i = 0; i < probs.length; i++) {
+			d += probs[i];
+			if (d > prob)
+				return i;
+		}
+		throw new AssertionError();
+	}
+
+	@Test
+	public void inversionShouldReproduceLinearSearch() {
+		Random rnd = new Random(23);
+		for (int n : new int[] { 1, 3, IntEmpirical.LINEAR_SEARCH_MAX, IntEmpirical.LINEAR_SEARCH_MAX + 1, 500 }) {
+			double[] probs = randomProbs(rnd, n);
+			int[] values = new int[n];
+			for (int i = 0; i < n; i++) {
+				values[i] = 10 * i - 7;
+			}
+
+			IntEmpirical emp = new IntEmpirical(new MersenneTwister(42), probs, values);
+			assertEquals(IntEmpirical.Method.INVERSION, emp.getSamplingMethod());
+			MersenneTwister ref = new MersenneTwister(42);
+			for (int i = 0; i < 100000; i++) {
+				assertEquals("n=" + n + " #" + i, values[linearSearch(probs, ref.nextDouble())], emp.nextInt());
+			}
+		}
+	}
+
+	@Test
+	public void aliasMethodShouldProduceCorrectFrequencies() {
+		double[] probs = randomProbs(new Random(42), 50);
+
+		IntEmpirical emp = new IntEmpirical(new MersenneTwister(23), probs);
+		emp.setSamplingMethod(IntEmpirical.Method.ALIAS);
+
+		int numSamples = 1000000;
+		int[] counts = new int[probs.length];
+		for (int i = 0; i < numSamples; i++) {
+			counts[emp.nextInt()]++;
+		}
+
+		for (int i = 0; i < probs.length; i++) {
+			if (probs[i] == 0.0)
+				assertEquals("value " + i, 0, counts[i]);
+			else
+				assertEquals("value " + i, probs[i], ((double) counts[i]) / numSamples, 2e-3);
+		}
+	}
+
+	@Test
+	public void autoShouldDependOnTableSize() {
+		Random rnd = new Random(7);
+		for (int n : new int[] { 3, IntEmpirical.LINEAR_SEARCH_MAX, IntEmpirical.LINEAR_SEARCH_MAX + 1, 200 }) {
+			double[] probs = randomProbs(rnd, n);
+
+			IntEmpirical auto = new IntEmpirical(new MersenneTwister(42), probs);
+			auto.setSamplingMethod(IntEmpirical.Method.AUTO);
+			IntEmpirical expected = new IntEmpirical(new MersenneTwister(42), probs);
+			expected.setSamplingMethod(n > IntEmpirical.LINEAR_SEARCH_MAX ? IntEmpirical.Method.ALIAS
+					: IntEmpirical.Method.INVERSION);
+
+			for (int i = 0; i < 10000; i++) {
+				assertEquals("n=" + n + " #" + i, expected.nextInt(), auto.nextInt());
+			}
+		}
+	}
+
+	@Test
+	public void probabilitiesShouldBeCopiedWhenSet() {
+		double[] probs = { 0.5, 0.5 };
+		IntEmpirical emp = new IntEmpirical(new MersenneTwister(23), probs);
+		emp.nextInt();
+
+		assertNotSame(probs, emp.getProbabilities());
+		probs[0] = 1.0;
+		probs[1] = 0.0;
+		assertEquals(0.5, emp.getProbabilities()[0], 0.0);
+
+		int numOnes = 0;
+		for (int i = 0; i < 1000; i++) {
+			numOnes += emp.nextInt();
+		}
+		assertTrue(numOnes > 0);
+	}
+
+	@Test
+	public void aliasMethodShouldUseValues() {
+		IntEmpirical emp = new IntEmpirical(new MersenneTwister(23), new double[] { 0.25, 0.0, 0.75 },
+				new int[] { 3, 5, 7 });
+		emp.setSamplingMethod(IntEmpirical.Method.ALIAS);
+
+		int numSevens = 0;
+		for (int i = 0; i < 10000; i++) {
+			int v = emp.nextInt();
+			assertTrue("" + v, v == 3 || v == 7);
+			if (v == 7)
+				numSevens++;
+		}
+		assertEquals(0.75, numSevens / 10000.0, 0.02);
+	}
+
+}
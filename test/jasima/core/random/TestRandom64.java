@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import jasima.core.util.MersenneTwister;
+
+/**
+ */
+public class TestRandom64 {
+
+	@Test
+	public void splitMixShouldMatchSplittableRandom() {
+		SplitMix64 rnd = new SplitMix64(42);
+		SplittableRandom ref = new SplittableRandom(42);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(ref.nextLong(), rnd.nextLong());
+		}
+
+		SplitMix64 rnd2 = rnd.split();
+		SplittableRandom ref2 = ref.split();
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(ref2.nextLong(), rnd2.nextLong());
+			assertEquals(ref.nextLong(), rnd.nextLong());
+		}
+	}
+
+	/**
+	 * Compares against values of the reference implementation splitmix64.c.
+	 */
+	@Test
+	public void splitMixShouldMatchReferenceValues() {
+		long[] expected = { 6457827717110365317L, 3203168211198807973L, -8629252141511181193L,
+				4593380528125082431L, -2037821214251327795L };
+
+		SplitMix64 rnd = new SplitMix64(1234567);
+		for (long l : expected) {
+			assertEquals(l, rnd.nextLong());
+		}
+	}
+
+	/**
+	 * Compares against values of the reference implementation
+	 * xoshiro256starstar.c, started with the state {1, 2, 3, 4}.
+	 */
+	@Test
+	public void xoshiroShouldMatchReferenceValues() {
+		long[] expected = { 11520L, 0L, 1509978240L, 1215971899390074240L, 1216172134540287360L,
+				607988272756665600L, -2273821095074991991L, 8476171486693032832L, -7851629734111992839L,
+				2904607092377533576L };
+
+		Xoshiro256StarStar rnd = new Xoshiro256StarStar(0);
+		rnd.setState(1, 2, 3, 4);
+		for (long l : expected) {
+			assertEquals(l, rnd.nextLong());
+		}
+	}
+
+	/**
+	 * Compares against the reference implementations with the state initialized
+	 * by four values of splitmix64.c seeded with 42.
+	 */
+	@Test
+	public void xoshiroSeedingShouldMatchReferenceValues() {
+		long[] expected = { 1546998764402558742L, 6990951692964543102L, -5902157311460992607L,
+				-1389169964527427423L, -151191095644234140L };
+
+		Xoshiro256StarStar rnd = new Xoshiro256StarStar(42);
+		for (long l : expected) {
+			assertEquals(l, rnd.nextLong());
+		}
+	}
+
+	@Test
+	public void xoshiroShouldBeReproducible() {
+		Xoshiro256StarStar rnd1 = new Xoshiro256StarStar(23);
+		Random rnd2 = new Xoshiro256StarStar();
+		rnd2.setSeed(23);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(rnd1.nextLong(), rnd2.nextLong());
+		}
+	}
+
+	@Test
+	public void jumpShouldEqualSplit() {
+		Xoshiro256StarStar rnd = new Xoshiro256StarStar(23);
+		Xoshiro256StarStar jumped = new Xoshiro256StarStar(23);
+		jumped.jump();
+
+		Xoshiro256StarStar sub = rnd.split();
+		Set<Long> values = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			long l = sub.nextLong();
+			values.add(l);
+			assertEquals(jumped.nextLong(), rnd.nextLong());
+		}
+
+		// stream of split generator is the one before the jump
+		Xoshiro256StarStar orig = new Xoshiro256StarStar(23);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(values.contains(orig.nextLong()));
+		}
+		assertTrue(new Xoshiro256StarStar(23).nextLong() != jumped.nextLong());
+	}
+
+	@Test
+	public void valuesShouldBeInRange() {
+		for (Random64 rnd : new Random64[] { new SplitMix64(7), new Xoshiro256StarStar(7) }) {
+			int[] counts = new int[7];
+			double sum = 0.0;
+			for (int i = 0; i < 700000; i++) {
+				double d = rnd.nextDouble();
+				assertTrue(d >= 0.0 && d < 1.0);
+				sum += d;
+				counts[rnd.nextInt(7)]++;
+			}
+			assertEquals(0.5, sum / 700000, 0.002);
+			for (int c : counts) {
+				assertEquals(100000, c, 1500);
+			}
+		}
+	}
+
+	@Test
+	public void factoryShouldCreateSelectedClass() {
+		RandomFactory f1 = new RandomFactory();
+		f1.setSeed(42);
+		RandomFactory f2 = new RandomFactory();
+		f2.setSeed(42);
+
+		assertEquals(MersenneTwister.class, f1.createInstance("s1").getClass());
+
+		f1.setRandomClass(Xoshiro256StarStar.class);
+		Random r1 = f1.createInstance("s2");
+		assertEquals(Xoshiro256StarStar.class, r1.getClass());
+
+		Xoshiro256StarStar r2 = new Xoshiro256StarStar();
+		r2.setSeed(f2.getSeed("s2"));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(r2.nextLong(), r1.nextLong());
+		}
+	}
+
+}
@@ -8,7 +8,8 @@ import org.junit.runners.Suite;
  * @author Torsten Hildebrandt
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ TestSimulationBasics.class, TestSimulationPausing.class })
+@Suite.SuiteClasses({ TestSimulationBasics.class, TestSimulationPausing.class, TestEventQueues.class,
+		TestSimulationStepping.class })
 public class AllTests {
 
 }
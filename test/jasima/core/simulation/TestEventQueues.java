@@ -0,0 +1,166 @@
+package jasima.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import jasima.core.simulation.Simulation.EventQueue;
+
+/**
+ * Checks that all event queue implementations produce exactly the same order of
+ * events as {@link EventHeap}.
+ */
+public class TestEventQueues {
+
+	private static class DummyEvent extends SimEvent {
+		public DummyEvent(double time, int prio, int eventNum) {
+			super(time, prio);
+			this.eventNum = eventNum;
+		}
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	/**
+	 * Simulates a typical "hold" workload: extract the next event, then schedule
+	 * a few new events in the future (often at the current time or with equal
+	 * times to produce ties).
+	 */
+	private static void checkSameOrder(Supplier<EventQueue> implUnderTest, long seed, int initialSize, int numOps) {
+		Random rnd = new Random(seed);
+		EventHeap ref = new EventHeap();
+		EventQueue q = implUnderTest.get();
+
+		int eventNum = Integer.MIN_VALUE;
+		double now = 0.0;
+
+		for (int i = 0; i < initialSize; i++) {
+			SimEvent e = new DummyEvent(Math.floor(rnd.nextDouble() * 100.0), rnd.nextInt(3) - 1, eventNum++);
+			ref.insert(e);
+			q.insert(e);
+		}
+
+		for (int i = 0; i < numOps; i++) {
+			if (ref.size() > 0) {
+				if (rnd.nextInt(4) == 0) {
+					assertSame("peek #" + i, ref.peek(), q.peek());
+				}
+				SimEvent exp = ref.extract();
+				SimEvent act = q.extract();
+				assertSame("event #" + i, exp, act);
+				now = exp.getTime();
+			}
+
+			int numNew = ref.size() == 0 ? 1 : rnd.nextInt(3);
+			for (int n = 0; n < numNew; n++) {
+				double t;
+				switch (rnd.nextInt(4)) {
+				case 0:
+					t = now; // concurrent event
+					break;
+				case 1:
+					t = now + Math.floor(rnd.nextDouble() * 10.0); // ties likely
+					break;
+				case 2:
+					t = now + rnd.nextDouble() * 1000.0; // far future
+					break;
+				default:
+					t = now + -Math.log(1.0 - rnd.nextDouble()) * 5.0;
+				}
+				SimEvent e = new DummyEvent(t, rnd.nextInt(3) - 1, eventNum++);
+				ref.insert(e);
+				q.insert(e);
+			}
+		}
+
+		// drain
+		while (ref.size() > 0) {
+			assertSame(ref.extract(), q.extract());
+		}
+	}
+
+	private static void checkAll(Supplier<EventQueue> implUnderTest) {
+		checkSameOrder(implUnderTest, 23, 0, 1000);
+		checkSameOrder(implUnderTest, 42, 10, 20000);
+		checkSameOrder(implUnderTest, 4711, 5000, 50000);
+		checkSameOrder(implUnderTest, 1, 100000, 10000);
+	}
+
+	@Test
+	public void calendarQueueShouldProduceSameOrderAsHeap() {
+		checkAll(CalendarQueue::new);
+	}
+
+	@Test
+	public void ladderQueueShouldProduceSameOrderAsHeap() {
+		checkAll(LadderQueue::new);
+	}
+
+	@Test
+	public void adaptiveQueueShouldProduceSameOrderAsHeap() {
+		checkAll(() -> new AdaptiveEventQueue(50, 200));
+	}
+
+	@Test
+	public void adaptiveQueueShouldSwitchImplementations() {
+		AdaptiveEventQueue q = new AdaptiveEventQueue(50, 200);
+		for (int i = 0; i < 1000; i++) {
+			q.insert(new DummyEvent(i % 10, 0, i));
+		}
+		assertTrue(q.isLadderQueueUsed());
+
+		for (int i = 0; i < 1000; i++) {
+			q.extract();
+		}
+		assertTrue(!q.isLadderQueueUsed());
+		assertEquals(2, q.numSwitches());
+	}
+
+	@Test
+	public void nonFiniteTimesShouldBeSupported() {
+		for (EventQueue q : new EventQueue[] { new CalendarQueue(), new LadderQueue(), new AdaptiveEventQueue() }) {
+			SimEvent inf = new DummyEvent(Double.POSITIVE_INFINITY, 0, 0);
+			SimEvent negInf = new DummyEvent(Double.NEGATIVE_INFINITY, 0, 1);
+			SimEvent normal = new DummyEvent(1.0, 0, 2);
+			q.insert(inf);
+			q.insert(normal);
+			q.insert(negInf);
+
+			assertSame(negInf, q.extract());
+			assertSame(normal, q.extract());
+			assertSame(inf, q.extract());
+			assertNull(q.extract());
+		}
+	}
+
+	@Test
+	public void simulationShouldUseQueueImplFromProperty() {
+		String old = System.getProperty(Simulation.QUEUE_IMPL_KEY);
+		System.setProperty(Simulation.QUEUE_IMPL_KEY, LadderQueue.class.getName());
+		try {
+			Simulation sim = new Simulation();
+			int[] count = { 0 };
+			for (int i = 0; i < 100; i++) {
+				sim.schedule(i, SimEvent.EVENT_PRIO_NORMAL, () -> count[0]++);
+			}
+			sim.performRun();
+
+			assertEquals(100, count[0]);
+			assertEquals(99.0, sim.simTime(), 1e-6);
+		} finally {
+			if (old == null)
+				System.clearProperty(Simulation.QUEUE_IMPL_KEY);
+			else
+				System.setProperty(Simulation.QUEUE_IMPL_KEY, old);
+		}
+	}
+
+}
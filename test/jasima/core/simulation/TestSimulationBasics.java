@@ -1,16 +1,31 @@
 package jasima.core.simulation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.lang.management.ManagementFactory;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.Year;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.junit.Test;
 
+import jasima.core.statistics.SummaryStat;
+import jasima.core.util.JmxUtil;
+import jasima.core.util.MsgCategory;
+
 public class TestSimulationBasics {
 
 	@Test(expected = IllegalArgumentException.class)
@@ -131,6 +146,157 @@ public class TestSimulationBasics {
 		assertEquals(360.0, sim.instantToSimTime(instant), 1e-6);
 	}
 
+	@Test
+	public void methodCallEventsShouldBeReused() {
+		Simulation sim = new Simulation();
+		Set<SimEvent> events = Collections.newSetFromMap(new IdentityHashMap<>());
+		int[] numCalls = { 0 };
+
+		Runnable[] method = new Runnable[1];
+		method[0] = () -> {
+			events.add(sim.currentEvent());
+			if (++numCalls[0] < 100) {
+				sim.scheduleIn(1.0, SimEvent.EVENT_PRIO_NORMAL, method[0]);
+			}
+		};
+		sim.schedule(0.0, SimEvent.EVENT_PRIO_NORMAL, method[0]);
+
+		sim.performRun();
+
+		assertEquals("numCalls", 100, numCalls[0]);
+		assertEquals("simTime", 99.0, sim.simTime(), 1e-6);
+		// one event currently handled, one scheduled
+		assertEquals("event objects", 2, events.size());
+	}
+
+	@Test
+	public void flightRecorderShouldKeepLastEvents() {
+		Simulation sim = new Simulation();
+		sim.setFlightRecorderSize(10);
+		for (int i = 0; i < 25; i++) {
+			sim.schedule("event" + i, i, SimEvent.EVENT_PRIO_NORMAL, TestSimulationBasics::dummyHandler);
+		}
+
+		sim.performRun();
+
+		FlightRecorder fr = sim.getFlightRecorder();
+		assertEquals("numRecorded", 25, fr.numRecorded());
+		assertEquals("size", 10, fr.size());
+		assertEquals("oldest", 15.0, fr.getTime(0), 0.0);
+		assertEquals("newest", "event24", fr.getDescription(9));
+	}
+
+	@Test
+	public void flightRecorderShouldBeDumpedOnError() {
+		Simulation sim = new Simulation();
+		List<String> errors = new ArrayList<>();
+		sim.addPrintListener(msg -> {
+			if (msg.getCategory() == MsgCategory.ERROR)
+				errors.add(msg.getMessage());
+		});
+		sim.schedule("lastOk", 1.0, SimEvent.EVENT_PRIO_NORMAL, TestSimulationBasics::dummyHandler);
+		sim.schedule("failing", 2.0, SimEvent.EVENT_PRIO_NORMAL, () -> {
+			throw new IllegalStateException();
+		});
+
+		try {
+			sim.performRun();
+			fail("exception expected");
+		} catch (IllegalStateException expected) {
+		}
+
+		assertEquals("error messages", 2, errors.size());
+		assertTrue(errors.get(1), errors.get(1).contains("lastOk"));
+		assertTrue(errors.get(1), errors.get(1).contains("failing"));
+	}
+
+	@Test
+	public void profilerShouldMeasureEventsAndListeners() {
+		Simulation sim = new Simulation();
+		sim.setProfiling(true);
+		SimComponentBase c = new SimComponentBase();
+		int[] numCalls = { 0 };
+		c.addListener((comp, msg) -> numCalls[0]++);
+		sim.addComponent(c);
+		for (int i = 0; i < 10; i++) {
+			sim.schedule("tick", i, SimEvent.EVENT_PRIO_NORMAL, () -> c.fire("tick"));
+		}
+
+		Map<String, Object> res = sim.performRun();
+
+		// the listener is also notified of life cycle events
+		assertTrue("numCalls", numCalls[0] > 10);
+		assertEquals("events", 10, ((SummaryStat) res.get("profile.event.tick")).numObs());
+		int numListenerStats = 0;
+		for (String k : res.keySet()) {
+			if (k.startsWith("profile.listener.") && !k.endsWith(".histogram")) {
+				assertEquals(k, numCalls[0], ((SummaryStat) res.get(k)).numObs());
+				numListenerStats++;
+			}
+		}
+		assertEquals("listener stats", 1, numListenerStats);
+	}
+
+	@Test
+	public void profilerShouldMeasureListenersAddedDuringRun() {
+		Simulation sim = new Simulation();
+		sim.setProfiling(true);
+		SimComponentBase c = new SimComponentBase();
+		sim.addComponent(c);
+		int[] numCalls = { 0 };
+		sim.schedule(0, SimEvent.EVENT_PRIO_NORMAL, () -> c.addListener((comp, msg) -> numCalls[0]++));
+		for (int i = 1; i <= 10; i++) {
+			sim.schedule(i, SimEvent.EVENT_PRIO_NORMAL, () -> c.fire("tick"));
+		}
+
+		Map<String, Object> res = sim.performRun();
+
+		assertTrue("numCalls", numCalls[0] >= 10);
+		int numObs = 0;
+		for (String k : res.keySet()) {
+			if (k.startsWith("profile.listener.") && !k.endsWith(".histogram")) {
+				numObs += ((SummaryStat) res.get(k)).numObs();
+			}
+		}
+		assertEquals("listener calls", numCalls[0], numObs);
+	}
+
+	@Test
+	public void mbeanShouldBeRegisteredDuringRun() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName query = new ObjectName(JmxUtil.DOMAIN + ":type=Simulation,*");
+
+		System.setProperty(JmxUtil.JMX_ENABLED_KEY, "true");
+		try {
+			Simulation sim = new Simulation();
+			sim.setName("jmxTest");
+			sim.setSimulationLength(10.0);
+			Object[] values = new Object[3];
+			sim.schedule(5.0, SimEvent.EVENT_PRIO_NORMAL, () -> {
+				Set<ObjectName> names = server.queryNames(query, null);
+				assertEquals("registered", 1, names.size());
+				ObjectName on = names.iterator().next();
+				try {
+					values[0] = server.getAttribute(on, "SimTime");
+					values[1] = server.getAttribute(on, "Progress");
+					values[2] = server.getAttribute(on, "EventQueueSize");
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+
+			sim.performRun();
+
+			assertEquals("simTime", 5.0, (Double) values[0], 1e-9);
+			assertEquals("progress", 0.5, (Double) values[1], 1e-9);
+			// only the end event is left
+			assertEquals("queue size", 1, values[2]);
+			assertEquals("unregistered", 0, server.queryNames(query, null).size());
+		} finally {
+			System.clearProperty(JmxUtil.JMX_ENABLED_KEY);
+		}
+	}
+
 	public static void dummyHandler() {
 		// dummy method, does nothing
 	}
@@ -0,0 +1,94 @@
+package jasima.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jasima.core.simulation.Simulation.SimExecState;
+
+/**
+ * Tests for stepping through a simulation with {@link Simulation#runUntil} and
+ * {@link Simulation#runToDecisionPoint()}.
+ */
+public class TestSimulationStepping {
+
+	private static final Object DECISION = "DECISION";
+
+	private Simulation sim;
+	private List<String> handled;
+
+	private void scheduleEvent(String name, double time, Object kind) {
+		SimEvent e = new SimEvent(time, SimEvent.EVENT_PRIO_NORMAL, name) {
+			@Override
+			public void handle() {
+				handled.add(name);
+			}
+		};
+		e.setKind(kind);
+		sim.schedule(e);
+	}
+
+	@Before
+	public void setUp() {
+		handled = new ArrayList<>();
+
+		sim = new Simulation();
+		sim.setDecisionPointPredicate(e -> e.getKind() == DECISION);
+
+		scheduleEvent("a", 1.0, null);
+		scheduleEvent("b", 2.0, DECISION);
+		scheduleEvent("c", 2.0, null);
+		scheduleEvent("d", 3.0, null);
+		scheduleEvent("e", 4.0, DECISION);
+		scheduleEvent("f", 5.0, null);
+
+		sim.init();
+		sim.beforeRun();
+		sim.setState(SimExecState.RUNNING);
+	}
+
+	@Test
+	public void runUntilShouldStopBeforeEvent() {
+		assertTrue(sim.runUntil(e -> e.getTime() >= 3.0));
+		assertEquals("[a, b, c]", handled.toString());
+
+		assertFalse(sim.runUntil(e -> false));
+		assertEquals("[a, b, c, d, e, f]", handled.toString());
+		assertEquals(6, sim.numEventsProcessed());
+	}
+
+	@Test
+	public void runToDecisionPointShouldStopWhenTimeAdvances() {
+		// decision event itself is a stop if its time is after lastSimTime
+		sim.setLastSimTime(sim.simTime());
+		assertTrue(sim.runToDecisionPoint());
+		assertEquals("[a]", handled.toString());
+		assertEquals(2.0, sim.simTime(), 1e-6);
+
+		// otherwise stop when time advances after a decision event
+		sim.setLastSimTime(sim.simTime());
+		assertTrue(sim.runToDecisionPoint());
+		assertEquals("[a, b, c]", handled.toString());
+		assertEquals(3.0, sim.simTime(), 1e-6);
+
+		sim.setLastSimTime(sim.simTime());
+		assertTrue(sim.runToDecisionPoint());
+		assertEquals("[a, b, c, d]", handled.toString());
+		assertEquals(4.0, sim.simTime(), 1e-6);
+
+		sim.setLastSimTime(sim.simTime());
+		assertTrue(sim.runToDecisionPoint());
+		assertEquals("[a, b, c, d, e]", handled.toString());
+
+		sim.setLastSimTime(sim.simTime());
+		assertFalse(sim.runToDecisionPoint());
+		assertEquals("[a, b, c, d, e, f]", handled.toString());
+	}
+
+}
@@ -29,7 +29,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ jasima.core.util.ArgListTokenizerTest.class, jasima.core.util.ArgListParserTest.class,
-		jasima.core.util.TypeUtilTest.class })
+		jasima.core.util.TypeUtilTest.class, jasima.core.util.ValueStoreImplTest.class,
+		jasima.core.util.ArrayValueStoreTest.class, jasima.core.util.ForkContextTest.class })
 public class AllTests {
 
 }
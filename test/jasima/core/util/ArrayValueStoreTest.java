@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ */
+public class ArrayValueStoreTest {
+
+	@Test
+	public void shouldBehaveLikeHashMap() {
+		Random rnd = new Random(23);
+		ArrayValueStore vs = new ArrayValueStore();
+		HashMap<Object, Object> ref = new HashMap<>();
+
+		for (int i = 0; i < 100000; i++) {
+			Object key = rnd.nextInt(10) == 0 ? null : "k" + rnd.nextInt(200);
+			switch (rnd.nextInt(3)) {
+			case 0:
+				vs.valueStorePut(key, i);
+				ref.put(key, i);
+				break;
+			case 1:
+				assertEquals(ref.remove(key), vs.valueStoreRemove(key));
+				break;
+			default:
+				assertEquals(ref.get(key), vs.valueStoreGet(key));
+			}
+			assertEquals(ref.size(), vs.valueStoreGetNumKeys());
+		}
+
+		assertEquals(ref.keySet(), vs.valueStoreGetAllKeys());
+		for (Object key : ref.keySet()) {
+			assertEquals(ref.get(key), vs.valueStoreGet(key));
+		}
+	}
+
+	@Test
+	public void handlesShouldBeInterned() {
+		ArrayValueStore.KeyTable kt = new ArrayValueStore.KeyTable();
+		int h = kt.keyHandle("handleTest");
+		assertTrue(h > ArrayValueStore.NO_KEY);
+		assertEquals(h, kt.keyHandle(new String("handleTest")));
+
+		ArrayValueStore vs = new ArrayValueStore(kt);
+		vs.put(h, 42);
+		assertEquals(42, vs.valueStoreGet("handleTest"));
+		assertEquals(42, vs.get(h));
+		assertNull(vs.valueStoreGet("unknownKey"));
+	}
+
+	@Test
+	public void keyTablesShouldBeIndependent() {
+		ArrayValueStore.KeyTable kt1 = new ArrayValueStore.KeyTable();
+		ArrayValueStore.KeyTable kt2 = new ArrayValueStore.KeyTable();
+		kt1.keyHandle("a");
+		kt1.keyHandle("b");
+
+		assertEquals(1, kt2.keyHandle("b"));
+		assertEquals(2, kt1.size());
+		assertEquals(1, kt2.size());
+
+		ArrayValueStore vs = new ArrayValueStore(kt2);
+		vs.valueStorePut("b", 1);
+		assertEquals(1, vs.get(kt2.keyHandle("b")));
+		assertNull(vs.get(kt1.keyHandle("b")));
+		assertEquals(1, kt2.size());
+	}
+
+	@Test
+	public void clonesShouldBeIndependent() {
+		ArrayValueStore vs = new ArrayValueStore();
+		vs.valueStorePut("a", 1);
+		vs.valueStorePut("b", 2);
+
+		ArrayValueStore c = vs.clone();
+		assertEquals(1, c.valueStoreGet("a"));
+		assertEquals(2, c.valueStoreGetNumKeys());
+
+		c.valueStorePut("a", 3);
+		c.valueStoreRemove("b");
+		vs.valueStorePut("c", 4);
+
+		assertEquals(1, vs.valueStoreGet("a"));
+		assertEquals(2, vs.valueStoreGet("b"));
+		assertEquals(3, c.valueStoreGet("a"));
+		assertNull(c.valueStoreGet("c"));
+		assertEquals(1, c.valueStoreGetNumKeys());
+	}
+
+}
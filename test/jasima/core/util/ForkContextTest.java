@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import org.junit.Test;
+
+/**
+ */
+public class ForkContextTest {
+
+	private static class Node implements Forkable {
+		final String name;
+		Node next;
+		int[] values = { 1, 2, 3 };
+		List<Node> children = new ArrayList<>();
+		Object scratch;
+
+		Node(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Node forkCopy(ForkContext ctx) {
+			Node c = ctx.register(this, new Node(name));
+			c.next = ctx.copy(next);
+			c.values = ctx.copy(values);
+			c.children = ctx.copy(children);
+			c.scratch = ctx.copy(scratch);
+			return c;
+		}
+	}
+
+	private static class Key implements Forkable {
+		int id;
+
+		Key(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).id == id;
+		}
+
+		@Override
+		public Key forkCopy(ForkContext ctx) {
+			return ctx.register(this, new Key(id));
+		}
+	}
+
+	private class Inner implements Forkable {
+		@Override
+		public Inner forkCopy(ForkContext ctx) {
+			return ctx.register(this, new Inner());
+		}
+	}
+
+	@Test
+	public void referencesAndCyclesShouldBePreserved() {
+		Node a = new Node("a");
+		Node b = new Node("b");
+		a.next = b;
+		b.next = a;
+		a.children.add(b);
+		a.children.add(b);
+		a.scratch = a.values;
+
+		Node c = new ForkContext().copy(a);
+		assertNotSame(a, c);
+		assertNotSame(b, c.next);
+		assertSame(c, c.next.next);
+		assertSame(c.next, c.children.get(0));
+		assertSame(c.next, c.children.get(1));
+		assertSame(c.values, c.scratch);
+		assertSame(a.name, c.name);
+
+		c.values[0] = 42;
+		assertEquals(1, a.values[0]);
+	}
+
+	@Test
+	public void sharedObjectsShouldNotBeCopied() {
+		Node a = new Node("a");
+		Node b = new Node("b");
+		a.next = b;
+
+		ForkContext ctx = new ForkContext();
+		ctx.share(b);
+		Node c = ctx.copy(a);
+		assertNotSame(a, c);
+		assertSame(b, c.next);
+	}
+
+	@Test
+	public void copyOrShareShouldOnlyCopyForkables() {
+		Node a = new Node("a");
+		Object o = new Object();
+
+		ForkContext ctx = new ForkContext();
+		assertSame(o, ctx.copyOrShare(o));
+		assertNotSame(a, ctx.copyOrShare(a));
+		assertSame(ctx.copy(a), ctx.copyOrShare(a));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lambdasShouldBeRejected() {
+		int[] count = { 0 };
+		IntSupplier inc = () -> ++count[0];
+
+		Node a = new Node("a");
+		a.scratch = inc;
+		new ForkContext().copy(a);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void innerClassesShouldBeRejected() {
+		new ForkContext().copy(new Inner());
+	}
+
+	@Test
+	public void hashContainersShouldBeValid() {
+		HashMap<Key, Key> map = new HashMap<>();
+		HashSet<Key> set = new HashSet<>();
+		for (int i = 0; i < 100; i++) {
+			Key k = new Key(i);
+			map.put(k, k);
+			set.add(k);
+		}
+
+		ForkContext ctx = new ForkContext();
+		HashMap<Key, Key> mapCopy = ctx.copy(map);
+		HashSet<Key> setCopy = ctx.copy(set);
+
+		assertEquals(map, mapCopy);
+		assertEquals(set, setCopy);
+		for (Key k : setCopy) {
+			// keys of set and map are the same copies
+			assertSame(k, mapCopy.get(k));
+			assertTrue(set.contains(k));
+		}
+	}
+
+	@Test
+	public void randomNumberStreamsShouldContinueIdentically() {
+		MersenneTwister rnd = new MersenneTwister(23);
+		rnd.nextDouble();
+		rnd.nextGaussian();
+
+		MersenneTwister copy = new ForkContext().copy(rnd);
+		assertNotSame(rnd, copy);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(rnd.nextDouble(), copy.nextDouble(), 0.0);
+			assertEquals(rnd.nextGaussian(), copy.nextGaussian(), 0.0);
+		}
+	}
+
+}
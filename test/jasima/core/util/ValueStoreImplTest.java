@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * This file is part of jasima, v1.3, the Java simulator for manufacturing and 
+ * logistics.
+ *  
+ * Copyright (c) 2015 		jasima solutions UG
+ * Copyright (c) 2010-2015 Torsten Hildebrandt and jasima contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package jasima.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ValueStoreImplTest {
+
+	@Test
+	public void clonesShouldBeIndependent() {
+		ValueStoreImpl vs = new ValueStoreImpl();
+		vs.valueStorePut("a", 1);
+		vs.valueStorePut("b", 2);
+
+		ValueStoreImpl c = vs.clone();
+		assertEquals(1, c.valueStoreGet("a"));
+		assertEquals(2, c.valueStoreGetNumKeys());
+
+		// modify clone
+		c.valueStorePut("a", 3);
+		c.valueStoreRemove("b");
+		assertEquals(1, vs.valueStoreGet("a"));
+		assertEquals(2, vs.valueStoreGet("b"));
+
+		// modify original
+		vs.valueStorePut("c", 4);
+		assertNull(c.valueStoreGet("c"));
+		assertEquals(3, c.valueStoreGet("a"));
+		assertEquals(1, c.valueStoreGetNumKeys());
+	}
+
+	@Test
+	public void keySetOfCloneShouldNotAffectOriginal() {
+		ValueStoreImpl vs = new ValueStoreImpl();
+		vs.valueStorePut("a", 1);
+
+		ValueStoreImpl c = vs.clone();
+		c.valueStoreGetAllKeys().remove("a");
+
+		assertEquals(0, c.valueStoreGetNumKeys());
+		assertEquals(1, vs.valueStoreGet("a"));
+	}
+
+}
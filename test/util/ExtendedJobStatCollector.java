@@ -24,6 +24,7 @@ import java.util.Map;
 
 import jasima.core.simulation.SimComponent;
 import jasima.core.statistics.SummaryStat;
+import jasima.core.util.ForkContext;
 import jasima.core.util.Util;
 import jasima.shopSim.core.Job;
 import jasima.shopSim.core.PR;
@@ -184,4 +185,19 @@ public class ExtendedJobStatCollector extends ShopListenerBase {
 		return "ExtendedJobStatCollector";
 	}
 
+	@Override
+	public ExtendedJobStatCollector forkCopy(ForkContext ctx) {
+		ExtendedJobStatCollector c = (ExtendedJobStatCollector) super.forkCopy(ctx);
+		c.lateness = ctx.copy(lateness);
+		c.flowtime = ctx.copy(flowtime);
+		c.noProcTime = ctx.copy(noProcTime);
+		c.weightedFlowtime = ctx.copy(weightedFlowtime);
+		c.tardiness = ctx.copy(tardiness);
+		c.weightedTardiness = ctx.copy(weightedTardiness);
+		c.conditionalTardiness = ctx.copy(conditionalTardiness);
+		c.weightedConditionalTardiness = ctx.copy(weightedConditionalTardiness);
+		c.weightedTardinessWithWIP = ctx.copy(weightedTardinessWithWIP);
+		c.shop = ctx.copy(shop);
+		return c;
+	}
 }